@@ -0,0 +1,91 @@
+package ntua.multimedia.minesweeper.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// runs the benchmarks and writes their results as JMH JSON. Given the results of an earlier run, it also compares the
+// two and exits with status 1 if any benchmark got slower by more than the tolerance, so that it can guard changes
+// to the engine.
+//
+//     java -jar benchmarks.jar [baseline.json]
+//
+// System properties: bench.include (regular expression of the benchmarks to run, all by default), bench.output (where
+// the results go, jmh-results.json by default) and bench.tolerance (allowed slowdown, 0.10 by default).
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("bench.include", BenchmarkRunner.class.getPackageName() + ".*");
+        String output = System.getProperty("bench.output", "jmh-results.json");
+        double tolerance = Double.parseDouble(System.getProperty("bench.tolerance", "0.10"));
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        if (args.length > 0 && regressions(results, Path.of(args[0]), tolerance) > 0) System.exit(1);
+    }
+
+    // compares the scores with the ones of a baseline, every benchmark measures time per operation so higher is worse
+    private static int regressions(Collection<RunResult> results, Path baseline, double tolerance) throws IOException {
+        Map<String, Double> before = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(baseline)) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                Map<String, String> params = new TreeMap<>();
+                if (run.has("params")) {
+                    for (Map.Entry<String, JsonElement> p : run.getAsJsonObject("params").entrySet()) {
+                        params.put(p.getKey(), p.getValue().getAsString());
+                    }
+                }
+                double score = run.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+                before.put(run.get("benchmark").getAsString() + params, score);
+            }
+        }
+
+        int regressions = 0;
+        System.out.println();
+        System.out.println("Comparison with " + baseline + ":");
+        for (RunResult result : results) {
+            BenchmarkParams benchmark = result.getParams();
+            Map<String, String> params = new TreeMap<>();
+            for (String key : benchmark.getParamsKeys()) params.put(key, benchmark.getParam(key));
+            String name = benchmark.getBenchmark() + params;
+
+            double score = result.getPrimaryResult().getScore();
+            Double old = before.get(name);
+            if (old == null) {
+                System.out.printf("  new         %s%n", name);
+                continue;
+            }
+            double change = (score - old) / old;
+            boolean regressed = change > tolerance;
+            if (regressed) ++regressions;
+            System.out.printf("  %-10s %+7.1f%%  %s%n", regressed ? "SLOWER" : "ok", change * 100, name);
+        }
+        System.out.println(regressions + " regression(s) above " + Math.round(tolerance * 100) + "%");
+        return regressions;
+    }
+}
@@ -0,0 +1,32 @@
+package ntua.multimedia.minesweeper.benchmarks;
+
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.Topology;
+
+// the boards every benchmark is measured on. Boards are seeded, so every run measures the same ones
+final class Boards {
+    static final long seed = 20230501L;
+
+    private Boards() {}
+
+    // a description of a size by size board with density mines per thousand tiles and a single hypermine
+    static int[] params(int size, int density) {
+        int mines = (int) Math.max(1, (long) size * size * density / 1000);
+        return new int[] {size, mines, 3600, 1};
+    }
+
+    static GameEngine engine(int size, int density) {
+        return new GameEngine(params(size, density), Topology.SQUARE, seed);
+    }
+
+    // a tile whose left-click starts a flood fill without moving the mines, packed as (y << 32 | x)
+    static long emptyTile(GameEngine engine) {
+        for (int y = 0; y < engine.getHeight(); ++y) {
+            for (int x = 0; x < engine.getWidth(); ++x) {
+                if (engine.getType(x, y) == Board.NEUTRAL && engine.getAdjacent(x, y) == 0) return (long) y << 32 | x;
+            }
+        }
+        return 0;
+    }
+}
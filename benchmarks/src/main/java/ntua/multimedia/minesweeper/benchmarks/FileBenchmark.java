@@ -0,0 +1,81 @@
+package ntua.multimedia.minesweeper.benchmarks;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.utilities.GameFiles;
+import ntua.multimedia.minesweeper.utilities.RoundLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the files the game writes, mines.txt or mines.bin after the first click and the round log after every round. Both go to
+// temporary files
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark {
+    @State(Scope.Thread)
+    public static class MinesFile {
+        @Param({"16", "256", "1024"})
+        public int size;
+
+        @Param({"10", "100", "200"})
+        public int density;
+
+        GameEngine engine;
+        Path path;
+
+        @Setup
+        public void setUp() throws IOException {
+            engine = Boards.engine(size, density);
+            path = Files.createTempFile("mines", ".txt");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException { Files.deleteIfExists(path); }
+    }
+
+    @State(Scope.Thread)
+    public static class RoundsFile {
+        Path path;
+
+        @Setup
+        public void setUp() throws IOException {
+            path = Files.createTempFile("rounds", ".bin");
+            RoundLog.write(path.toString(), List.of(
+                    new RoundLog.Round(0, "level_1", 10, 4, 30, true),
+                    new RoundLog.Round(0, "level_1", 11, 2, 120, false),
+                    new RoundLog.Round(0, "level_1", 9, 7, 55, true),
+                    new RoundLog.Round(0, "level_2", 45, 12, 200, false),
+                    new RoundLog.Round(0, "level_2", 40, 20, 310, true)));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException { Files.deleteIfExists(path); }
+    }
+
+    @Benchmark
+    public void writeMines(MinesFile state) throws IOException { GameFiles.writeMines(state.engine, state.path.toString()); }
+
+    @Benchmark
+    public void writeMinesCompact(MinesFile state) throws IOException {
+        GameFiles.writeMinesCompact(state.engine, state.path.toString());
+    }
+
+    // what the writer thread does at the end of a round, when no other round is waiting: one record, synced
+    @Benchmark
+    public void writeRound(RoundsFile state) throws IOException {
+        RoundLog.write(state.path.toString(), List.of(new RoundLog.Round(0, "level_1", 10, 4, 30, true)));
+    }
+
+    // what the Rounds dialog reads, however long the log is
+    @Benchmark
+    public List<RoundLog.Round> readRounds(RoundsFile state) throws IOException {
+        return RoundLog.tail(state.path.toString(), 5);
+    }
+}
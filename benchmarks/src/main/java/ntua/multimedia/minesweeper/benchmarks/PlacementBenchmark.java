@@ -0,0 +1,45 @@
+package ntua.multimedia.minesweeper.benchmarks;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.MinePlacer;
+import ntua.multimedia.minesweeper.engine.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// mine placement alone, and a whole new engine: placement, adjacency counts and the clearing of the board
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlacementBenchmark {
+    @Param({"16", "256", "1024", "4096"})
+    public int size;
+
+    // mines per thousand tiles
+    @Param({"10", "100", "200"})
+    public int density;
+
+    private int[] params;
+    private int[] safe;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        params = Boards.params(size, density);
+        // the tile in the middle of the board and its neighbors
+        int middle = size / 2 * size + size / 2;
+        safe = new int[] {middle - size - 1, middle - size, middle - size + 1, middle - 1, middle, middle + 1,
+                          middle + size - 1, middle + size, middle + size + 1};
+        random = new SplittableRandom(Boards.seed);
+    }
+
+    @Benchmark
+    public int[] placeMines() { return MinePlacer.place(size * size, params[1], safe, random); }
+
+    @Benchmark
+    public GameEngine newEngine() { return new GameEngine(params, Topology.SQUARE, random.nextLong()); }
+}
@@ -0,0 +1,52 @@
+package ntua.multimedia.minesweeper.benchmarks;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.ProbabilityEngine;
+import ntua.multimedia.minesweeper.engine.Solver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the probabilities of a board in the middle of a game, played by revealing the certainly safe tiles until half of
+// the board is open. A fresh engine enumerates every component, a reused one finds them all in its cache, as after a move that
+// changed nothing far away
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProbabilityBenchmark {
+    @Param({"16", "30", "64"})
+    public int size;
+
+    @Param({"150", "206"})
+    public int density;
+
+    private GameEngine engine;
+    private ProbabilityEngine reused;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = Boards.engine(size, density);
+        long empty = Boards.emptyTile(engine);
+        engine.reveal((int) empty, (int) (empty >>> 32));
+        int half = engine.getNeutralRemaining() / 2;
+        long[] safe = new Solver(engine).solve(1, TimeUnit.SECONDS).safe();
+        while (safe.length > 0 && engine.getNeutralRemaining() > half) {
+            for (long tile : safe) engine.reveal((int) (tile % size), (int) (tile / size));
+            safe = new Solver(engine).solve(1, TimeUnit.SECONDS).safe();
+        }
+        reused = new ProbabilityEngine(engine);
+    }
+
+    @Benchmark
+    public ProbabilityEngine.Result fresh() {
+        return new ProbabilityEngine(engine).compute(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public ProbabilityEngine.Result cached() {
+        return reused.compute(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,51 @@
+package ntua.multimedia.minesweeper.benchmarks;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the flood fill of a first left-click and the row and column revealed by flagging the hypermine. Each invocation
+// needs an untouched board, which is built outside the measured time
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RevealBenchmark {
+    @Param({"16", "256", "1024", "4096"})
+    public int size;
+
+    @Param({"10", "100", "200"})
+    public int density;
+
+    private GameEngine engine;
+    private int emptyX;
+    private int emptyY;
+    private int hyperX;
+    private int hyperY;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        engine = Boards.engine(size, density);
+        long empty = Boards.emptyTile(engine);
+        emptyX = (int) empty;
+        emptyY = (int) (empty >>> 32);
+        // the first mines of the engine are the hypermines
+        hyperX = engine.getMine(0) % engine.getWidth();
+        hyperY = engine.getMine(0) / engine.getWidth();
+    }
+
+    @Benchmark
+    public int floodFill() {
+        engine.reveal(emptyX, emptyY);
+        return engine.getNeutralRemaining();
+    }
+
+    @Benchmark
+    public int hyperMine() {
+        engine.flag(hyperX, hyperY);
+        return engine.getNeutralRemaining();
+    }
+}
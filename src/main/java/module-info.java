@@ -1,6 +1,10 @@
 module ntua.multimedia.minesweeper {
     requires javafx.controls;
+    requires jdk.jfr;
 
     opens ntua.multimedia.minesweeper.menubar to javafx.base;
     exports ntua.multimedia.minesweeper;
+    exports ntua.multimedia.minesweeper.engine;
+    exports ntua.multimedia.minesweeper.monitoring;
+    exports ntua.multimedia.minesweeper.utilities;
 }
\ No newline at end of file
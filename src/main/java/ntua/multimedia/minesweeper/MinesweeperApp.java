@@ -5,19 +5,33 @@ import javafx.collections.ListChangeListener;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.TextArea;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
+import ntua.multimedia.minesweeper.game.ImageAtlas;
 import ntua.multimedia.minesweeper.menubar.MinesweeperMenuBar;
+import ntua.multimedia.minesweeper.utilities.RoundLog;
 
 import java.io.IOException;
 
 public class MinesweeperApp extends Application {
+    // latencies and counters of the game, shown and hidden with F3
+    private final PerformanceOverlay overlay = new PerformanceOverlay();
+    private MinesweeperMenuBar menuBar;
+
     @Override
     public void start(Stage stage) throws IOException {
+        // the images of the tiles are read while the rest of the window is built
+        ImageAtlas.preload(Screen.getPrimary().getOutputScaleX());
+
         // this VBox has a menubar on top and the game area on the bottom
         VBox rootApp = new VBox();
-        rootApp.getChildren().add(new MinesweeperMenuBar(rootApp));
+        menuBar = new MinesweeperMenuBar(rootApp);
+        rootApp.getChildren().add(menuBar);
 
         /* add a little descriptive text at the start */
         TextArea textArea = new TextArea();
@@ -37,12 +51,15 @@ public class MinesweeperApp extends Application {
                          - Tiles with hyper mines will display a black mine or the letter 'H'.
                          - There is at most 1 hyper mine.
                          - Mines revealed via flagging the hyper mine are marked as safe!!
+                         - F3 shows how long clicks take to be drawn.
     
                         Good Luck!""");
 
         rootApp.getChildren().add(textArea);
 
-        Scene scene = new Scene(rootApp);
+        // the overlay is drawn over the application and never takes part in its layout
+        Scene scene = new Scene(new StackPane(rootApp, overlay));
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F3), overlay::toggle);
         stage.setScene(scene);
         stage.setTitle("MediaLab Minesweeper");
 
@@ -55,6 +72,15 @@ public class MinesweeperApp extends Application {
         stage.show();
     }
 
+    // rounds that are still being written should not be lost when the window closes, and the spill file of an endless
+    // board should not outlive it
+    @Override
+    public void stop() {
+        if (menuBar != null) menuBar.close();
+        overlay.close();
+        RoundLog.shared().close();
+    }
+
     public static void main(String[] args) {
         launch();
     }
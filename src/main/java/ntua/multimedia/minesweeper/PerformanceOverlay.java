@@ -0,0 +1,190 @@
+package ntua.multimedia.minesweeper;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordingStream;
+import ntua.multimedia.minesweeper.monitoring.ClickEvent;
+import ntua.multimedia.minesweeper.monitoring.DiffAppliedEvent;
+import ntua.multimedia.minesweeper.monitoring.FileWriteEvent;
+import ntua.multimedia.minesweeper.monitoring.FloodFillEvent;
+import ntua.multimedia.minesweeper.monitoring.MineGenerationEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// the latencies and counters of the flight recorder events of the game, drawn over the top right corner of the window.
+// While it is shown the overlay records the events with a stream of its own, which delivers them about once a second;
+// while it is hidden nothing records them and they cost next to nothing. Recordings started with
+// -XX:StartFlightRecording get the same events
+final class PerformanceOverlay extends VBox {
+    // upper bounds of the buckets of the histograms, in nanoseconds, about a frame of 60 Hz in the middle
+    private static final long[] bounds = {100_000, 250_000, 500_000, 1_000_000, 2_000_000, 4_000_000, 8_000_000,
+                                          16_000_000, 33_000_000, 66_000_000, 133_000_000, Long.MAX_VALUE};
+    private static final String[] boundNames = {"<0.1", "<0.25", "<0.5", "<1", "<2", "<4", "<8", "<16", "<33", "<66",
+                                                "<133", ">133"};
+    private static final String bars = " ▁▂▃▄▅▆▇█";
+
+    // the latencies of one kind of event and a counter of what they did, tiles or bytes
+    private static final class Histogram {
+        private final String name;
+        private final String unit;
+        private final long[] counts = new long[bounds.length];
+        private long count;
+        private long max;
+        private long amount;
+
+        Histogram(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        synchronized void add(long nanos, long amount) {
+            int bucket = 0;
+            while (nanos >= bounds[bucket]) ++bucket;
+            ++counts[bucket];
+            ++count;
+            max = Math.max(max, nanos);
+            this.amount += amount;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            max = 0;
+            amount = 0;
+        }
+
+        // two lines: the percentiles and the counters, then a bar for each bucket
+        synchronized String format() {
+            long highest = 0;
+            for (long c : counts) highest = Math.max(highest, c);
+            StringBuilder histogram = new StringBuilder();
+            for (long c : counts) histogram.append(bars.charAt((c == 0) ? 0 : 1 + (int) ((bars.length() - 2) * c / highest)));
+
+            return String.format(Locale.ROOT, "%-16s %8d  p50 %5s  p99 %5s  max %7.2f ms  %s%n%-16s [%s]",
+                                 name, count, percentile(0.5), percentile(0.99), max / 1e6, amountText(),
+                                 "", histogram);
+        }
+
+        private String percentile(double q) {
+            if (count == 0) return "-";
+            long rank = (long) Math.ceil(q * count), seen = 0;
+            for (int bucket = 0; bucket < counts.length; ++bucket) {
+                seen += counts[bucket];
+                if (seen >= rank) return boundNames[bucket];
+            }
+            return boundNames[boundNames.length - 1];
+        }
+
+        private String amountText() {
+            if (unit.isEmpty()) return "";
+            if (amount >= 10_000_000) return (amount / 1_000_000) + "M " + unit;
+            if (amount >= 10_000) return (amount / 1_000) + "k " + unit;
+            return amount + " " + unit;
+        }
+    }
+
+    private final Histogram clicks = new Histogram("Click", "tiles");
+    private final Histogram clicksToPaint = new Histogram("Click to paint", "");
+    private final Histogram diffs = new Histogram("Diff applied", "tiles");
+    private final Histogram floodFills = new Histogram("Flood fill", "tiles");
+    private final Histogram mineGenerations = new Histogram("Mine generation", "mines");
+    private final Histogram fileWrites = new Histogram("File write", "bytes");
+    private final List<Histogram> histograms = List.of(clicks, clicksToPaint, diffs, floodFills, mineGenerations,
+                                                       fileWrites);
+
+    private final Label text = new Label();
+    private final Timeline refresh;
+    private RecordingStream stream;
+
+    PerformanceOverlay() {
+        text.setFont(Font.font("Monospaced", 12));
+        text.setTextFill(Color.WHITE);
+        getChildren().add(text);
+        setPadding(new Insets(8));
+        setBackground(new Background(new BackgroundFill(Color.color(0, 0, 0, 0.75), new CornerRadii(6), null)));
+
+        // the overlay is only looked at, clicks go to the game under it, and it never changes the size of the window
+        setMouseTransparent(true);
+        setManaged(false);
+        setVisible(false);
+
+        refresh = new Timeline(new KeyFrame(Duration.millis(500), event -> update()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+    }
+
+    // shows the overlay and starts recording, or hides it and stops
+    void toggle() {
+        if (isVisible()) {
+            close();
+            setVisible(false);
+            return;
+        }
+        setVisible(true);
+        for (Histogram histogram : histograms) histogram.clear();
+        if (!FlightRecorder.isAvailable()) {
+            text.setText("The flight recorder is not available in this JVM");
+            place();
+            return;
+        }
+
+        try {
+            stream = new RecordingStream();
+        } catch (IllegalStateException | SecurityException e) {
+            text.setText("The flight recorder could not be started: " + e.getMessage());
+            place();
+            return;
+        }
+        stream.enable(ClickEvent.class);
+        stream.enable(FloodFillEvent.class);
+        stream.enable(MineGenerationEvent.class);
+        stream.enable(DiffAppliedEvent.class);
+        stream.enable(FileWriteEvent.class);
+
+        // the stream calls these on a thread of its own, the histograms are read by the application thread
+        stream.onEvent("minesweeper.Click", e -> clicks.add(e.getDuration().toNanos(), e.getInt("tiles")));
+        stream.onEvent("minesweeper.DiffApplied", e -> {
+            diffs.add(e.getDuration().toNanos(), e.getInt("tiles"));
+            if (e.getBoolean("fromClick")) clicksToPaint.add(e.getDuration("inputLatency").toNanos(), 0);
+        });
+        stream.onEvent("minesweeper.FloodFill", e -> floodFills.add(e.getDuration().toNanos(), e.getLong("revealed")));
+        stream.onEvent("minesweeper.MineGeneration", e -> mineGenerations.add(e.getDuration().toNanos(), e.getLong("mines")));
+        stream.onEvent("minesweeper.FileWrite", e -> fileWrites.add(e.getDuration().toNanos(), e.getLong("bytes")));
+        stream.startAsync();
+
+        update();
+        refresh.play();
+    }
+
+    private void update() {
+        StringBuilder lines = new StringBuilder("Performance (F3 hides)      latencies in ms:");
+        for (String name : boundNames) lines.append(' ').append(name);
+        for (Histogram histogram : histograms) lines.append('\n').append(histogram.format());
+        text.setText(lines.toString());
+        place();
+    }
+
+    private void place() {
+        autosize();
+        if (getParent() != null) relocate(Math.max(0, getParent().getLayoutBounds().getWidth() - getWidth()), 0);
+    }
+
+    // stops recording, for example when the application closes
+    void close() {
+        refresh.stop();
+        if (stream != null) stream.close();
+        stream = null;
+    }
+}
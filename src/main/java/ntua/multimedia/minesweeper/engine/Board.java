@@ -0,0 +1,82 @@
+package ntua.multimedia.minesweeper.engine;
+
+/**
+ * The common view of a game of Minesweeper, whichever way its board is stored.
+ * <p></p>
+ * A {@link GameEngine GameEngine} keeps its whole board in memory, an {@link InfiniteBoard InfiniteBoard} only the
+ * parts the player has touched. Graphics and tools that only need to play a game and read its tiles should depend on
+ * this interface.
+ */
+public interface Board {
+    /** A tile that has not been revealed or flagged. */
+    byte HIDDEN = 0;
+    /** A tile the player has flagged. */
+    byte FLAGGED = 1;
+    /** A tile that has been revealed. */
+    byte REVEALED = 2;
+
+    /** Type of every tile before the mines are placed. */
+    byte UNASSIGNED = 0;
+    /** A tile without a mine. */
+    byte NEUTRAL = 1;
+    /** A tile with a normal mine. */
+    byte MINE = 2;
+    /** A tile with a hyper mine. */
+    byte HYPERMINE = 3;
+
+    /** Subscribes a listener to every change of this game. */
+    void addListener(GameListener listener);
+
+    /** Removes a listener added with {@link #addListener(GameListener) addListener}. */
+    void removeListener(GameListener listener);
+
+    /** Left-click on tile (x,y). */
+    void reveal(int x, int y);
+
+    /** Right-click on tile (x,y). */
+    void flag(int x, int y);
+
+    /** One second of the countdown has passed. */
+    void tick();
+
+    /** Permanently halts the game and registers it as a loss. */
+    void stop();
+
+    /** @return The number of columns of the board. */
+    int getWidth();
+    /** @return The number of rows of the board. */
+    int getHeight();
+    /** @return The shape of the board. */
+    Topology getTopology();
+    /** @return The number of rows of each layer of the board, the same as the height for flat boards. */
+    int getLayerHeight();
+
+    /** @return The total number of mines, or -1 if the board is too large for it to be known. */
+    int getTotalMines();
+    /** @return The initial value of the countdown in seconds. */
+    int getTime();
+    /** @return The number of flags currently on the board. */
+    int getFlagsUsed();
+    /** @return The number of left-clicks that revealed tiles. */
+    int getAttempts();
+    /** @return The seconds left before the game ends. */
+    int getTimeRemaining();
+    /** @return Whether the game has ended. */
+    boolean isGameEnded();
+
+    /** @return The seed the mines are generated from. The same seed and first click always give the same board. */
+    long getSeed();
+    /** @return The column of the first left-click that decided the mines, or -1 if there was none. */
+    int getFirstX();
+    /** @return The row of the first left-click that decided the mines, or -1 if there was none. */
+    int getFirstY();
+    /** @return Whether the mines are chosen so that the game can be won from the first click without guessing. */
+    boolean isNoGuess();
+
+    /** @return One of {@link #HIDDEN HIDDEN}, {@link #FLAGGED FLAGGED} or {@link #REVEALED REVEALED}. */
+    byte getState(int x, int y);
+    /** @return One of {@link #NEUTRAL NEUTRAL}, {@link #MINE MINE} or {@link #HYPERMINE HYPERMINE}. */
+    byte getType(int x, int y);
+    /** @return The number of mines around tile (x,y). */
+    int getAdjacent(int x, int y);
+}
@@ -0,0 +1,91 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.util.Base64;
+
+/**
+ * A short text that describes a board completely: its description, its shape, the seed of its mines and the first
+ * left-click, which may move the mines.
+ * <p></p>
+ * Mines are generated with {@link java.util.SplittableRandom SplittableRandom}, whose sequence of numbers is the same
+ * on every machine, so a board built again from its code is identical to the original, tile by tile. Codes are
+ * URL-safe Base64 and about 25 characters long, so they can be pasted in bug reports or used as benchmark inputs.
+ * <p></p>
+ * @param gameParams        <code>{ size, totalMines, time, hyperMines }</code>.
+ * @param topology          The shape of the board.
+ * @param seed              The seed of the mine generator.
+ * @param firstX            Column of the first left-click, or -1 if the player has not clicked yet.
+ * @param firstY            Row of the first left-click, or -1 if the player has not clicked yet.
+ * @param noGuess           Whether the mines were chosen so that the board can be cleared without guessing.
+ */
+public record BoardCode(int[] gameParams, Topology topology, long seed, int firstX, int firstY, boolean noGuess) {
+    // changes whenever the layout of the code changes, so that old codes are rejected instead of misread
+    private static final int version = 1;
+
+    /**
+     * @param board             A board, possibly in the middle of a game.
+     * @param gameParams        The description the board was created from.
+     * @return                  The code of the board.
+     */
+    public static BoardCode of(Board board, int[] gameParams) {
+        return new BoardCode(gameParams, board.getTopology(), board.getSeed(), board.getFirstX(), board.getFirstY(),
+                             board.isNoGuess());
+    }
+
+    /** @return The code as text. */
+    public String encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(version);
+        // the highest bit of the shape marks no-guess boards, older codes never set it
+        out.write(topology.ordinal() | (noGuess ? 0x80 : 0));
+        for (int k = 0; k < 4; ++k) writeVarInt(out, gameParams[k]);
+        for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (seed >>> shift));
+        // no click is stored as 0
+        writeVarInt(out, firstX + 1);
+        writeVarInt(out, firstY + 1);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * @param code              Text created by {@link #encode() encode}.
+     * @return                  The board it describes. The description is not checked against the rules of the game.
+     * @throws IllegalArgumentException If the text is not a valid code.
+     */
+    public static BoardCode decode(String code) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Base64.getUrlDecoder().decode(code.strip()));
+            if (in.get() != version) throw new IllegalArgumentException("Unknown board code version");
+            int shape = in.get() & 0xFF, ordinal = shape & 0x7F;
+            if (ordinal < 0 || ordinal >= Topology.values().length) throw new IllegalArgumentException("Unknown board shape");
+            int[] gameParams = new int[4];
+            for (int k = 0; k < 4; ++k) gameParams[k] = readVarInt(in);
+            long seed = in.getLong();
+            int firstX = readVarInt(in) - 1, firstY = readVarInt(in) - 1;
+            if (in.hasRemaining()) throw new IllegalArgumentException("Board code is too long");
+            return new BoardCode(gameParams, Topology.values()[ordinal], seed, firstX, firstY, (shape & 0x80) != 0);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Board code is too short", e);
+        }
+    }
+
+    // 7 bits per byte, the highest bit tells whether more bytes follow
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed number in board code");
+    }
+}
@@ -0,0 +1,217 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the states of the tiles of a board in chunks, using 2 bits per tile, within a fixed memory budget.
+ * <p></p>
+ * The most recently used chunks are kept on the heap. When there are more of them than the budget allows, the least
+ * recently used one is evicted to a spill file, which is memory mapped through a {@link FileChannel FileChannel}, and
+ * is read back from there the next time it is needed. Chunks that were never written are not stored at all and read
+ * as all zeros.
+ * <p></p>
+ * The store counts its hits (the chunk was on the heap), misses (it was not) and evictions, so that the budget may
+ * be tuned.
+ */
+public class ChunkStore implements AutoCloseable {
+    // the spill file is mapped in regions of this many chunks, so that it can grow without remapping everything
+    private static final int chunksPerRegion = 1024;
+
+    private final int wordsPerChunk;
+    private final int bytesPerChunk;
+    private final int maxHotChunks;
+
+    // the chunks on the heap, least recently used first
+    private final LinkedHashMap<Long, long[]> hot;
+
+    // the chunk used last, since most accesses hit the same chunk again
+    private long lastKey = Long.MIN_VALUE;
+    private long[] lastChunk;
+
+    // where each chunk that has ever been evicted lives in the spill file
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private Path spillPath;
+    private final boolean temporary;
+    private FileChannel spill;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a store that spills to a temporary file, created only when the first chunk is evicted.
+     * <p></p>
+     * @param tilesPerChunk     The number of tiles of every chunk.
+     * @param maxHotChunks      How many chunks may stay on the heap at the same time.
+     */
+    public ChunkStore(int tilesPerChunk, int maxHotChunks) { this(tilesPerChunk, maxHotChunks, null); }
+
+    /**
+     * Creates a store that spills to a specific file.
+     * <p></p>
+     * @param tilesPerChunk     The number of tiles of every chunk.
+     * @param maxHotChunks      How many chunks may stay on the heap at the same time.
+     * @param spillPath         The spill file, or null for a temporary file.
+     */
+    public ChunkStore(int tilesPerChunk, int maxHotChunks, Path spillPath) {
+        wordsPerChunk = (tilesPerChunk * 2 + 63) / 64;
+        bytesPerChunk = wordsPerChunk * Long.BYTES;
+        this.maxHotChunks = maxHotChunks;
+        this.spillPath = spillPath;
+        temporary = spillPath == null;
+
+        hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                if (size() <= ChunkStore.this.maxHotChunks) return false;
+                evict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param key               The chunk.
+     * @param tile              The tile inside the chunk.
+     * @return                  The 2-bit value of the tile, 0 if its chunk was never written.
+     */
+    public int get(long key, int tile) {
+        long[] chunk = find(key, false);
+        if (chunk == null) return 0;
+        return (int) (chunk[tile >>> 5] >>> ((tile & 31) << 1)) & 3;
+    }
+
+    /**
+     * @param key               The chunk.
+     * @param tile              The tile inside the chunk.
+     * @param value             The new 2-bit value of the tile.
+     */
+    public void set(long key, int tile, int value) {
+        long[] chunk = find(key, true);
+        int shift = (tile & 31) << 1;
+        chunk[tile >>> 5] = (chunk[tile >>> 5] & ~(3L << shift)) | ((long) (value & 3) << shift);
+    }
+
+    /** @return The keys of every chunk that has been written, on the heap or in the spill file. */
+    public Set<Long> keys() {
+        Set<Long> keys = new HashSet<>(slots.keySet());
+        keys.addAll(hot.keySet());
+        return keys;
+    }
+
+    // the chunk on the heap, loading it from the spill file or creating it if needed
+    private long[] find(long key, boolean create) {
+        if (key == lastKey) {
+            ++hits;
+            return lastChunk;
+        }
+
+        // the accesses of the fast path above do not reach the map, so the chunk they used is touched here, before
+        // another chunk is looked up and may evict the least recently used one
+        if (lastChunk != null) hot.get(lastKey);
+
+        long[] chunk = hot.get(key);
+        if (chunk != null) ++hits;
+        else {
+            ++misses;
+            Integer slot = slots.get(key);
+            if (slot != null) chunk = load(slot);
+            else if (create) chunk = new long[wordsPerChunk];
+            else return null; // never written, nothing to store
+            hot.put(key, chunk);
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private void evict(long key, long[] chunk) {
+        ++evictions;
+        if (key == lastKey) {
+            lastKey = Long.MIN_VALUE;
+            lastChunk = null;
+        }
+
+        // a chunk keeps its slot for the rest of the game
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(key, slot);
+        }
+
+        MappedByteBuffer region = region(slot);
+        int offset = (slot % chunksPerRegion) * bytesPerChunk;
+        for (int w = 0; w < wordsPerChunk; ++w) region.putLong(offset + w * Long.BYTES, chunk[w]);
+    }
+
+    private long[] load(int slot) {
+        MappedByteBuffer region = region(slot);
+        int offset = (slot % chunksPerRegion) * bytesPerChunk;
+        long[] chunk = new long[wordsPerChunk];
+        for (int w = 0; w < wordsPerChunk; ++w) chunk[w] = region.getLong(offset + w * Long.BYTES);
+        return chunk;
+    }
+
+    // the mapped region of the spill file that holds a slot, mapping new regions as the file grows
+    private MappedByteBuffer region(int slot) {
+        int index = slot / chunksPerRegion;
+        try {
+            if (spill == null) {
+                if (spillPath == null) {
+                    spillPath = Files.createTempFile("minesweeper-chunks", ".bin");
+                    spillPath.toFile().deleteOnExit();
+                }
+                spill = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            while (regions.size() <= index) {
+                long regionBytes = (long) chunksPerRegion * bytesPerChunk;
+                regions.add(spill.map(FileChannel.MapMode.READ_WRITE, regions.size() * regionBytes, regionBytes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map the chunk spill file", e);
+        }
+        return regions.get(index);
+    }
+
+    /** @return How many accesses found their chunk on the heap. */
+    public long getHits() { return hits; }
+    /** @return How many accesses had to load or create their chunk. */
+    public long getMisses() { return misses; }
+    /** @return How many chunks were moved from the heap to the spill file. */
+    public long getEvictions() { return evictions; }
+    /** @return The number of chunks on the heap. */
+    public int getHotChunks() { return hot.size(); }
+    /** @return The number of chunks that have a slot in the spill file. */
+    public int getSpilledChunks() { return slots.size(); }
+
+    /**
+     * Closes the spill file, deleting it if it was a temporary one. The store may not be used afterwards.
+     */
+    @Override
+    public void close() {
+        hot.clear();
+        lastKey = Long.MIN_VALUE;
+        lastChunk = null;
+        regions.clear();
+        try {
+            if (spill != null) spill.close();
+            if (temporary && spillPath != null) Files.deleteIfExists(spillPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close the chunk spill file", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ntua.multimedia.minesweeper.engine;
+
+// logarithms of factorials and binomial coefficients, shared by everything that weighs arrangements of mines. Small
+// factorials are summed exactly once and kept, larger ones use Stirling's series, which is exact to double precision
+// well before the end of the table
+final class Combinatorics {
+    private static final double[] logFactorials = new double[1 << 16];
+    static {
+        for (int n = 1; n < logFactorials.length; ++n) logFactorials[n] = logFactorials[n - 1] + Math.log(n);
+    }
+
+    private Combinatorics() {}
+
+    static double logFactorial(long n) {
+        if (n < logFactorials.length) return logFactorials[(int) n];
+        double x = n;
+        return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x) + 1 / (12 * x) - 1 / (360 * x * x * x);
+    }
+
+    // log(n choose k), negative infinity when there is no way to choose
+    static double logChoose(long n, long k) {
+        if (k < 0 || k > n) return Double.NEGATIVE_INFINITY;
+        return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+    }
+}
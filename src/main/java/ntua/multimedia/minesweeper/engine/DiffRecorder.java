@@ -0,0 +1,141 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.Arrays;
+
+/**
+ * Follows a {@link Board Board} and collects its changes into {@link RevealDiff RevealDiffs}, instead of passing
+ * them on one by one.
+ * <p></p>
+ * Subscribe it with {@link Board#addListener(GameListener) addListener}, let the board act and then call
+ * {@link #take() take} to get everything that happened since the previous call.
+ */
+public class DiffRecorder implements GameListener {
+    private final Board board;
+    private final int width;
+
+    private int size;
+    private long[] cells;
+    private byte[] states;
+    private byte[] types;
+    private byte[] values;
+
+    // counters now and at the beginning of the current diff
+    private int flagsUsed;
+    private int totalMines;
+    private int attempts;
+    private int timeRemaining;
+    private int flagsBefore;
+    private int attemptsBefore;
+    private int timeBefore;
+
+    private boolean minesPlaced;
+    private boolean gameEnded;
+    private boolean gameWon;
+    private boolean gameResumed;
+
+    /**
+     * @param board             The board that will be recorded, to learn its size and the initial counters.
+     */
+    public DiffRecorder(Board board) {
+        this.board = board;
+        width = board.getWidth();
+        flagsUsed = board.getFlagsUsed();
+        totalMines = board.getTotalMines();
+        attempts = board.getAttempts();
+        timeRemaining = board.getTimeRemaining();
+        reset();
+    }
+
+    private void reset() {
+        size = 0;
+        cells = new long[16];
+        states = new byte[16];
+        types = new byte[16];
+        values = new byte[16];
+        flagsBefore = flagsUsed;
+        attemptsBefore = attempts;
+        timeBefore = timeRemaining;
+        minesPlaced = false;
+        gameEnded = false;
+        gameResumed = false;
+    }
+
+    /**
+     * @return                  Everything that changed since the previous call (or since construction). The
+     *                          recorder starts a new diff.
+     */
+    public RevealDiff take() {
+        RevealDiff diff = new RevealDiff(board, width, size, cells, states, types, values,
+                flagsUsed - flagsBefore, flagsUsed, totalMines, attempts - attemptsBefore, attempts,
+                timeRemaining - timeBefore, timeRemaining, minesPlaced, gameEnded, gameWon, gameResumed);
+        reset();
+        return diff;
+    }
+
+    private void add(int x, int y, byte state, byte type, int value) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            states = Arrays.copyOf(states, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        cells[size] = (long) y * width + x;
+        states[size] = state;
+        types[size] = type;
+        values[size] = (byte) value;
+        ++size;
+    }
+
+    @Override
+    public void tileHidden(int x, int y) { add(x, y, Board.HIDDEN, Board.UNASSIGNED, 0); }
+
+    @Override
+    public void tileFlagged(int x, int y) { add(x, y, Board.FLAGGED, Board.UNASSIGNED, 0); }
+
+    @Override
+    public void neutralRevealed(int x, int y, int mines) { add(x, y, Board.REVEALED, Board.NEUTRAL, mines); }
+
+    @Override
+    public void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe) {
+        add(x, y, Board.REVEALED, hyperMine ? Board.HYPERMINE : Board.MINE, unsafe ? 1 : 0);
+    }
+
+    @Override
+    public void flagsChanged(int flagsUsed, int totalMines) {
+        this.flagsUsed = flagsUsed;
+        this.totalMines = totalMines;
+    }
+
+    @Override
+    public void attemptsChanged(int attempts) { this.attempts = attempts; }
+
+    @Override
+    public void timeChanged(int timeRemaining) { this.timeRemaining = timeRemaining; }
+
+    // what was recorded of the previous game is dropped, the next diff starts from the counters of the new one
+    @Override
+    public void boardReset(Board board) {
+        flagsUsed = board.getFlagsUsed();
+        totalMines = board.getTotalMines();
+        attempts = board.getAttempts();
+        timeRemaining = board.getTimeRemaining();
+        reset();
+    }
+
+    @Override
+    public void minesPlaced(Board board) { minesPlaced = true; }
+
+    // an end and a resume in the same diff cancel out, whichever came first
+    @Override
+    public void gameEnded(boolean gameWon) {
+        if (gameResumed) gameResumed = false;
+        else gameEnded = true;
+        this.gameWon = gameWon;
+    }
+
+    @Override
+    public void gameResumed() {
+        if (gameEnded) gameEnded = false;
+        else gameResumed = true;
+    }
+}
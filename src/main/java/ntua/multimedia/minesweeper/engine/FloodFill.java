@@ -0,0 +1,55 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.Arrays;
+
+// Work list of the reveal of an empty area. Instead of recursing, which overflows the stack on large open regions,
+// tiles wait in a growable ring buffer of ints. A tile is visited at most once per reveal: every reveal gets a new
+// epoch and a tile is marked by writing the epoch in its slot of the visited array, so the array never needs to be
+// cleared between reveals. Nothing is allocated per visited tile, so a reveal costs time linear in the region size.
+final class FloodFill {
+    private final int cells;
+
+    // visited[i] == epoch means tile i has already been queued during the current reveal
+    private int[] visited;
+    private int epoch;
+
+    // ring buffer of queued tiles
+    private int[] queue = new int[256];
+    private int head;
+    private int tail;
+
+    FloodFill(int cells) { this.cells = cells; }
+
+    // starts a new reveal, forgetting everything queued or visited by the previous ones
+    void begin() {
+        // the visited array is only needed once a click actually reveals an area
+        if (visited == null) visited = new int[cells];
+        if (++epoch == 0) { // the stamps wrapped around, old stamps could be mistaken for new ones
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+        head = tail = 0;
+    }
+
+    // queues tile i, unless it has already been queued during this reveal
+    void push(int i) {
+        if (visited[i] == epoch) return;
+        visited[i] = epoch;
+        if (tail - head == queue.length) grow();
+        queue[tail++ & (queue.length - 1)] = i;
+    }
+
+    boolean isEmpty() { return head == tail; }
+
+    int poll() { return queue[head++ & (queue.length - 1)]; }
+
+    // doubles the ring buffer, keeping the queued tiles in order. The buffer never holds more than all the tiles
+    private void grow() {
+        int[] larger = new int[queue.length * 2];
+        int size = tail - head;
+        for (int k = 0; k < size; ++k) larger[k] = queue[(head + k) & (queue.length - 1)];
+        queue = larger;
+        head = 0;
+        tail = size;
+    }
+}
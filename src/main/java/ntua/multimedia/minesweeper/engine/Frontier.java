@@ -0,0 +1,263 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// What the player can see of a board, turned into equations: every revealed number says how many of its hidden
+// neighbors are mines. Only what a player sees is read, the types of hidden tiles are never looked at, and flags are
+// not trusted since the player may have placed them wrongly.
+//
+// The unknowns are the hidden (or flagged) tiles next to a revealed number, the frontier. They are numbered and their
+// tiles kept in cells. The equations can be simplified with propagate, which fixes tiles that are certainly safe or
+// mines, and split into independent components, which can be solved separately.
+//
+// A Frontier may cover the whole board or a rectangular window of a square board. Numbers on the edge of a window
+// whose neighbors are partly outside it are ignored, so every equation is complete.
+final class Frontier {
+    static final byte UNKNOWN = -1;
+    static final byte SAFE = 0;
+    static final byte MINE = 1;
+
+    // the tiles of the unknowns, as y * width + x of the board, and what is known about them
+    private long[] cells = new long[64];
+    private byte[] known = new byte[64];
+    private int unknowns;
+
+    // equations: the sum of the unknowns of constraints[c] is values[c]. Dead ones are null
+    private final List<int[]> constraints = new ArrayList<>();
+    private final List<Integer> values = new ArrayList<>();
+
+    // hidden tiles of the window and the mines among them that revealed mines show. Both help to count the mines
+    // that are left away from the frontier
+    private long hiddenTiles;
+    private int revealedMines;
+
+    private boolean timedOut;
+
+    Frontier(Board board, int x0, int y0, int width, int height, long deadline) {
+        boolean whole = x0 == 0 && y0 == 0 && width == board.getWidth() && height == board.getHeight();
+        if (!whole && board.getTopology() != Topology.SQUARE) {
+            throw new IllegalArgumentException("Only square boards can be solved in windows");
+        }
+        if ((long) width * height > Integer.MAX_VALUE) throw new IllegalArgumentException("Window is too large");
+        int boardWidth = board.getWidth();
+
+        int layerHeight = whole ? board.getLayerHeight() : height;
+        NeighborTable table = board.getTopology().table(width, layerHeight, height / layerHeight);
+        Map<Integer, Integer> varOf = new HashMap<>();
+        int[] neighborVars = new int[Topology.MAX_NEIGHBORS];
+
+        for (int y = 0; y < height && !timedOut; ++y) {
+            for (int x = 0; x < width; ++x) {
+                byte state = board.getState(x0 + x, y0 + y);
+                if (state != Board.REVEALED) {
+                    ++hiddenTiles;
+                    continue;
+                }
+                if (board.getType(x0 + x, y0 + y) != Board.NEUTRAL) {
+                    ++revealedMines;
+                    continue;
+                }
+                int mines = board.getAdjacent(x0 + x, y0 + y);
+                if (mines == 0) continue;
+                // numbers whose neighbors leave the window give incomplete equations
+                if (!whole && ((x == 0 && x0 > 0) || (y == 0 && y0 > 0)
+                        || (x == width - 1 && x0 + width < board.getWidth())
+                        || (y == height - 1 && y0 + height < board.getHeight()))) continue;
+
+                int tile = y * width + x;
+                int c = table.classOf(tile);
+                int count = 0;
+                for (int k = table.begin(c); k < table.end(c); ++k) {
+                    int neighbor = tile + table.delta(k);
+                    int nx = neighbor % width, ny = neighbor / width;
+                    byte neighborState = board.getState(x0 + nx, y0 + ny);
+                    if (neighborState == Board.REVEALED) {
+                        if (board.getType(x0 + nx, y0 + ny) != Board.NEUTRAL) --mines;
+                        continue;
+                    }
+                    Integer v = varOf.get(neighbor);
+                    if (v == null) {
+                        v = add((long) (y0 + ny) * boardWidth + x0 + nx);
+                        varOf.put(neighbor, v);
+                    }
+                    neighborVars[count++] = v;
+                }
+                if (count == 0) continue;
+                int[] vars = Arrays.copyOf(neighborVars, count);
+                Arrays.sort(vars);
+                constraints.add(vars);
+                values.add(mines);
+            }
+            if (System.nanoTime() > deadline) timedOut = true;
+        }
+    }
+
+    private int add(long cell) {
+        if (unknowns == cells.length) {
+            cells = Arrays.copyOf(cells, unknowns * 2);
+            known = Arrays.copyOf(known, unknowns * 2);
+        }
+        cells[unknowns] = cell;
+        known[unknowns] = UNKNOWN;
+        return unknowns++;
+    }
+
+    // Applies two rules until nothing changes:
+    //  - a number whose unknowns are all mines or all safe fixes them,
+    //  - if the unknowns of one number are a subset of the unknowns of another, the difference holds the difference
+    //    of the two numbers. The larger equation is replaced by the difference, which may then fix tiles itself.
+    // Returns false if the deadline passed first.
+    boolean propagate(long deadline) {
+        boolean changed = true;
+        while (changed && !timedOut) {
+            changed = false;
+
+            // single numbers
+            for (int c = 0; c < constraints.size(); ++c) {
+                if (reduce(c)) changed = true;
+            }
+
+            // pairs of numbers that share an unknown, the smaller one inside the larger one
+            List<List<Integer>> constraintsOf = constraintsOfVars();
+            for (int a = 0; a < constraints.size() && !timedOut; ++a) {
+                int[] small = constraints.get(a);
+                if (small == null) continue;
+                for (int b : constraintsOf.get(small[0])) {
+                    int[] large = constraints.get(b);
+                    if (b == a || large == null || large.length <= small.length || !contains(large, small)) continue;
+                    constraints.set(b, minus(large, small));
+                    values.set(b, values.get(b) - values.get(a));
+                    if (reduce(b)) changed = true;
+                    changed = true;
+                }
+                if ((a & 255) == 0 && System.nanoTime() > deadline) timedOut = true;
+            }
+        }
+        return !timedOut;
+    }
+
+    // removes the fixed unknowns of equation c and fixes all of its unknowns if it allows a single answer. Returns
+    // whether anything was fixed
+    private boolean reduce(int c) {
+        int[] vars = constraints.get(c);
+        if (vars == null) return false;
+        int value = values.get(c), count = 0;
+        for (int v : vars) {
+            if (known[v] == UNKNOWN) vars[count++] = v;
+            else value -= known[v];
+        }
+        if (count == 0 || value < 0 || value > count) { // nothing left, or contradicting what we see
+            constraints.set(c, null);
+            return false;
+        }
+        if (value != 0 && value != count) {
+            if (count < vars.length) constraints.set(c, Arrays.copyOf(vars, count));
+            values.set(c, value);
+            return false;
+        }
+        for (int k = 0; k < count; ++k) known[vars[k]] = (value == 0) ? SAFE : MINE;
+        constraints.set(c, null);
+        return true;
+    }
+
+    private List<List<Integer>> constraintsOfVars() {
+        List<List<Integer>> constraintsOf = new ArrayList<>(unknowns);
+        for (int v = 0; v < unknowns; ++v) constraintsOf.add(new ArrayList<>(4));
+        for (int c = 0; c < constraints.size(); ++c) {
+            int[] vars = constraints.get(c);
+            if (vars != null) for (int v : vars) constraintsOf.get(v).add(c);
+        }
+        return constraintsOf;
+    }
+
+    // both arrays sorted
+    private static boolean contains(int[] large, int[] small) {
+        int i = 0;
+        for (int v : large) {
+            if (i < small.length && small[i] == v) ++i;
+        }
+        return i == small.length;
+    }
+
+    private static int[] minus(int[] large, int[] small) {
+        int[] result = new int[large.length - small.length];
+        int i = 0, count = 0;
+        for (int v : large) {
+            if (i < small.length && small[i] == v) ++i;
+            else result[count++] = v;
+        }
+        return result;
+    }
+
+    // A set of unknowns that no equation connects to the rest. Unknowns and equations are numbered from 0 within the
+    // component, vars maps them back to the unknowns of the frontier
+    record Component(int[] vars, int[][] constraints, int[] values) {}
+
+    // the equations that are left, split in independent components
+    List<Component> components() {
+        // union-find over the unknowns
+        int[] parent = new int[unknowns];
+        for (int v = 0; v < unknowns; ++v) parent[v] = v;
+        for (int[] vars : constraints) {
+            if (vars == null) continue;
+            for (int k = 1; k < vars.length; ++k) {
+                int a = find(parent, vars[0]), b = find(parent, vars[k]);
+                if (a != b) parent[a] = b;
+            }
+        }
+
+        Map<Integer, List<Integer>> constraintsOfRoot = new HashMap<>();
+        for (int c = 0; c < constraints.size(); ++c) {
+            int[] vars = constraints.get(c);
+            if (vars != null) constraintsOfRoot.computeIfAbsent(find(parent, vars[0]), r -> new ArrayList<>()).add(c);
+        }
+
+        List<Component> components = new ArrayList<>();
+        int[] local = new int[unknowns];
+        for (List<Integer> ids : constraintsOfRoot.values()) {
+            // number the unknowns in the order the equations reach them, so that enumeration meets related ones
+            // together
+            int[] vars = new int[unknowns];
+            int count = 0;
+            Arrays.fill(local, 0, unknowns, -1);
+            for (int c : ids) {
+                for (int v : constraints.get(c)) {
+                    if (local[v] < 0) {
+                        local[v] = count;
+                        vars[count++] = v;
+                    }
+                }
+            }
+            int[][] componentConstraints = new int[ids.size()][];
+            int[] componentValues = new int[ids.size()];
+            for (int k = 0; k < ids.size(); ++k) {
+                int[] frontierVars = constraints.get(ids.get(k));
+                componentConstraints[k] = new int[frontierVars.length];
+                for (int j = 0; j < frontierVars.length; ++j) componentConstraints[k][j] = local[frontierVars[j]];
+                componentValues[k] = values.get(ids.get(k));
+            }
+            components.add(new Component(Arrays.copyOf(vars, count), componentConstraints, componentValues));
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    int getUnknowns() { return unknowns; }
+    long getCell(int var) { return cells[var]; }
+    byte getKnown(int var) { return known[var]; }
+    void setKnown(int var, byte value) { known[var] = value; }
+    long getHiddenTiles() { return hiddenTiles; }
+    int getRevealedMines() { return revealedMines; }
+    boolean isTimedOut() { return timedOut; }
+}
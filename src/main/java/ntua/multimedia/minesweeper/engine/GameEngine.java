@@ -0,0 +1,633 @@
+package ntua.multimedia.minesweeper.engine;
+
+import ntua.multimedia.minesweeper.monitoring.FloodFillEvent;
+import ntua.multimedia.minesweeper.monitoring.MineGenerationEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The <code>GameEngine</code> class implements the logic of a Minesweeper game without any graphical components.
+ * <p></p>
+ * Every tile of the board is described by three bytes: its state, its type and the number of its neighboring mines.
+ * They are kept in flat arrays indexed by <code>y * width + x</code>, so an engine may be created and played in batch
+ * jobs without any JavaFX nodes. Anything that wishes to show or record the progress of a game subscribes to it
+ * through a {@link GameListener GameListener}.
+ * <p></p>
+ * The board is a size by size grid of one of the shapes of {@link Topology Topology}. The layers of a
+ * {@link Topology#CUBE CUBE} are stacked one below the other, so tiles are always addressed by a column
+ * <code>x</code> and a row <code>y</code>.
+ * <p></p>
+ * @author Dimitrios Georgousis (NTUA ECE, AM: 03119005)
+ * @version 1.2
+ */
+public class GameEngine implements Board {
+    // description of the game, all but the size may change when the board is reset
+    private final int size;
+    private int totalMines;
+    private int time;
+    private int hyperMines;
+
+    // shape of the board. Rows of all layers are counted together in height
+    private final NeighborTable neighbors;
+    private final int width;
+    private final int height;
+
+    // the board, one byte per tile for each of state, type and neighboring mines
+    private final byte[] state;
+    private final byte[] type;
+    private final byte[] adjacent;
+
+    // work list of the reveal of empty areas
+    private final FloodFill floodFill;
+
+    // indices of the mines, the first hyperMines of them are hypermines
+    private int[] mines;
+
+    private int flagsUsed;
+    private int attempts;
+    private int neutralRemaining;
+    private int timeRemaining;
+
+    // helps to ensure that a game may end only once
+    private boolean gameEnded;
+
+    // If it is true, it means the user has already managed to reveal some tiles!
+    private boolean gameStarted;
+
+    // whether mines and their counts are already on the board
+    private boolean minesPlaced;
+
+    // every random choice of the game comes from this generator, so the seed and the first click decide the board
+    private long seed;
+    private SplittableRandom random;
+    private int firstX;
+    private int firstY;
+    // whether the first left-click places mines that the solver can clear without guessing
+    private boolean noGuess;
+
+    // copied on every change, so that notifying the listeners allocates nothing
+    private GameListener[] listeners = new GameListener[0];
+
+    /**
+     * Constructs a headless game based on a description, in the same format that {@code Game} accepts:
+     * <code>{ size, totalMines, time, hyperMines }</code>.
+     * <p></p>
+     * The mines are placed right away around a random tile, so the layout is known before the first click. The first
+     * left-click may still move them, so that the player never loses immediately because of bad luck.
+     * <p></p>
+     * @param gameParams        An array of at least four integers describing the game.
+     */
+    public GameEngine(int[] gameParams) { this(gameParams, Topology.SQUARE); }
+
+    /**
+     * Constructs a headless game based on a description, played on a board of the given topology.
+     * <p></p>
+     * @param gameParams        An array of at least four integers describing the game.
+     * @param topology          The shape of the board. A {@link Topology#CUBE CUBE} has size layers.
+     */
+    public GameEngine(int[] gameParams, Topology topology) {
+        this(gameParams, topology, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructs a headless game whose mines are decided by a seed. Two engines with the same description, topology
+     * and seed have the same mines, and keep having the same mines if their first left-click is on the same tile,
+     * on any machine.
+     * <p></p>
+     * @param gameParams        An array of at least four integers describing the game.
+     * @param topology          The shape of the board.
+     * @param seed              The seed of the mine generator.
+     */
+    public GameEngine(int[] gameParams, Topology topology, long seed) { this(gameParams, topology, seed, false); }
+
+    /**
+     * Constructs a headless game whose mines are decided by a seed and that may never need a guess.
+     * <p></p>
+     * If <code>noGuess</code> is set, the first left-click places the mines again, so that the
+     * {@link Solver Solver} can clear the whole board from the revealed area without guessing. The same seed and first
+     * click still give the same mines. Boards that are too dense to find such a layout quickly get ordinary mines.
+     * <p></p>
+     * @param gameParams        An array of at least four integers describing the game.
+     * @param topology          The shape of the board.
+     * @param seed              The seed of the mine generator.
+     * @param noGuess           Whether the board must be solvable without guessing.
+     */
+    public GameEngine(int[] gameParams, Topology topology, long seed, boolean noGuess) {
+        this(gameParams, topology, seed, noGuess, null);
+    }
+
+    // a game with the given mines, hypermines first, used to try candidate layouts
+    GameEngine(int[] gameParams, Topology topology, int[] placed) { this(gameParams, topology, 0, false, placed); }
+
+    // a game with the given mines that keeps a seed, used to resume snapshots
+    GameEngine(int[] gameParams, Topology topology, long seed, boolean noGuess, int[] placed) {
+        size = gameParams[0];
+        totalMines = gameParams[1];
+        time = gameParams[2];
+        hyperMines = gameParams[3];
+
+        neighbors = topology.table(size, size, size);
+        width = neighbors.getWidth();
+        height = neighbors.getHeight() * neighbors.getDepth();
+
+        this.seed = seed;
+        this.noGuess = noGuess;
+        random = new SplittableRandom(seed);
+        firstX = -1;
+        firstY = -1;
+
+        int cells = neighbors.getCells();
+        state = new byte[cells];
+        type = new byte[cells];
+        adjacent = new byte[cells];
+        mines = new int[totalMines];
+        floodFill = new FloodFill(cells);
+
+        flagsUsed = 0;
+        attempts = 0;
+        neutralRemaining = cells - totalMines;
+        timeRemaining = time;
+        gameEnded = false;
+        gameStarted = false;
+
+        // create a random game...
+        if (placed == null) setTypes(randomPos(width), randomPos(height));
+        else {
+            Arrays.fill(type, NEUTRAL);
+            minesPlaced = true;
+            placeMines(placed);
+        }
+    }
+
+    /**
+     * Starts a new game on the same board, keeping its tiles instead of building them again. The description may
+     * change everything but the size, so a round of a timed session restarts without allocating a new board.
+     * <p></p>
+     * Every tile is hidden again and the mines are placed around a random tile, as in a new engine: the engine is then
+     * the same, mine for mine, as an engine constructed with the same arguments. Listeners are told with
+     * {@link GameListener#boardReset(Board) boardReset} before the mines are placed.
+     * <p></p>
+     * @param gameParams        An array of at least four integers describing the game. Its size must be the size of
+     *                          this engine.
+     * @param seed              The seed of the mine generator.
+     * @param noGuess           Whether the board must be solvable without guessing.
+     * @throws IllegalArgumentException If the size of the description is not the size of this engine.
+     */
+    public void reset(int[] gameParams, long seed, boolean noGuess) {
+        if (gameParams[0] != size) throw new IllegalArgumentException("A board of size " + size + " cannot be reset to size " + gameParams[0]);
+        totalMines = gameParams[1];
+        time = gameParams[2];
+        hyperMines = gameParams[3];
+
+        this.seed = seed;
+        this.noGuess = noGuess;
+        random = new SplittableRandom(seed);
+        firstX = -1;
+        firstY = -1;
+
+        Arrays.fill(state, HIDDEN);
+        Arrays.fill(adjacent, (byte) 0);
+        if (mines.length != totalMines) mines = new int[totalMines];
+
+        flagsUsed = 0;
+        attempts = 0;
+        neutralRemaining = state.length - totalMines;
+        timeRemaining = time;
+        gameEnded = false;
+        gameStarted = false;
+        minesPlaced = false; // setTypes clears all types
+
+        for (GameListener l : listeners) l.boardReset(this);
+        setTypes(randomPos(width), randomPos(height));
+    }
+
+    // the tiles themselves, for snapshots, which must not change them
+    byte[] states() { return state; }
+    byte[] types() { return type; }
+
+    // puts back the tiles and the counters of a snapshot, before any listener subscribes. The mines must be the ones
+    // of the snapshot
+    void restore(byte[] states, int flagsUsed, int attempts, int timeRemaining, boolean gameStarted, boolean gameEnded,
+                 int firstX, int firstY) {
+        System.arraycopy(states, 0, state, 0, state.length);
+        this.flagsUsed = flagsUsed;
+        this.attempts = attempts;
+        this.timeRemaining = timeRemaining;
+        this.gameStarted = gameStarted;
+        this.gameEnded = gameEnded;
+        this.firstX = firstX;
+        this.firstY = firstY;
+        neutralRemaining = 0;
+        for (int i = 0; i < state.length; ++i) if (type[i] == NEUTRAL && state[i] != REVEALED) ++neutralRemaining;
+    }
+
+    // puts tile i back in a state it had before or after a move, for the journal. The listeners hear it as any other
+    // change of the tile
+    void setState(int i, byte newState, boolean unsafe) {
+        byte previous = state[i];
+        if (previous == newState) return;
+        state[i] = newState;
+        if (type[i] == NEUTRAL) {
+            if (previous == REVEALED) ++neutralRemaining;
+            else if (newState == REVEALED) --neutralRemaining;
+        }
+
+        int x = i % width, y = i / width;
+        switch (newState) {
+            case HIDDEN -> { for (GameListener l : listeners) l.tileHidden(x, y); }
+            case FLAGGED -> { for (GameListener l : listeners) l.tileFlagged(x, y); }
+            default -> {
+                if (type[i] == NEUTRAL) for (GameListener l : listeners) l.neutralRevealed(x, y, adjacent[i]);
+                else for (GameListener l : listeners) l.mineRevealed(x, y, type[i] == HYPERMINE, unsafe);
+            }
+        }
+    }
+
+    // puts back the counters of the journal. The countdown is not rewound, time spent is spent
+    void setCounters(int flagsUsed, int attempts, boolean gameStarted, boolean gameEnded, boolean gameWon,
+                     int firstX, int firstY) {
+        if (this.flagsUsed != flagsUsed) updateFlags(flagsUsed - this.flagsUsed);
+        if (this.attempts != attempts) updateAttempts(attempts - this.attempts);
+        this.gameStarted = gameStarted;
+        this.firstX = firstX;
+        this.firstY = firstY;
+        if (this.gameEnded == gameEnded) return;
+        this.gameEnded = gameEnded;
+        if (gameEnded) for (GameListener l : listeners) l.gameEnded(gameWon);
+        else for (GameListener l : listeners) l.gameResumed();
+    }
+
+    /**
+     * Subscribes a listener to every change of this game.
+     * <p></p>
+     * @param listener          The object that will be notified.
+     */
+    @Override
+    public void addListener(GameListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(GameListener) addListener}.
+     * <p></p>
+     * @param listener          The object that will no longer be notified.
+     */
+    @Override
+    public void removeListener(GameListener listener) {
+        List<GameListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(new GameListener[0]);
+    }
+
+    /**
+     * Left-click on tile (x,y). Reveals it and, if it has no neighboring mines, the area around it.
+     * <p></p>
+     * @param x                 Column of the tile.
+     * @param y                 Row of the tile.
+     */
+    @Override
+    public void reveal(int x, int y) {
+        if (gameEnded) return;
+        int i = index(x, y);
+
+        // actions on revealed tiles and left-clicks on flagged tiles have no effect
+        if (state[i] != HIDDEN) return;
+
+        // first left-click must be on a neutral tile with no
+        // neighboring mines. If this is not true, just change the game...
+        if (!gameStarted) {
+            firstX = x;
+            firstY = y;
+            if (noGuess || type[i] != NEUTRAL || adjacent[i] != 0) setTypes(x, y);
+        }
+
+        // game has now started, we will reveal some tiles
+        gameStarted = true;
+        updateAttempts(1);
+        revealArea(x, y);
+
+        // if we revealed a mine with a left-click then we lose
+        if (type[i] != NEUTRAL) {
+            endGame(false);
+            return;
+        }
+
+        checkWin();
+    }
+
+    /**
+     * Right-click on tile (x,y). Flags a hidden tile or hides a flagged tile. Flagging the hyper mine during the
+     * first four attempts reveals its row and column.
+     * <p></p>
+     * @param x                 Column of the tile.
+     * @param y                 Row of the tile.
+     */
+    @Override
+    public void flag(int x, int y) {
+        if (gameEnded) return;
+        int i = index(x, y);
+
+        // actions on revealed tiles have no effect
+        if (state[i] == REVEALED) return;
+
+        flagTile(i);
+
+        // if we flagged a hypermine and the appropriate condition is true, we invoke its effect
+        if (type[i] == HYPERMINE && state[i] == FLAGGED && attempts <= 4) {
+            // game has started since we will reveal some tiles
+            gameStarted = true;
+            revealHyperMine(i);
+        }
+
+        checkWin();
+    }
+
+    /**
+     * One second of the countdown has passed. The game is lost when no time remains.
+     */
+    @Override
+    public void tick() {
+        if (gameEnded) return;
+        updateTime(-1);
+        if (timeRemaining <= 0) {
+            endGame(false);
+        }
+    }
+
+    /**
+     * Permanently halts the game and registers it as a loss, revealing all of its mines.
+     */
+    @Override
+    public void stop() { endGame(false); }
+
+    // Tile (x,y) and its neighbors are safe aka they are all neutral tiles
+    // we then randomize the rest of tiles...
+    private void setTypes(int x, int y) {
+        if (gameStarted) return; // once the game has started tiles must be set!
+        int cells = state.length;
+
+        // the clicked tile and its neighbors, in increasing order
+        int clicked = index(x, y);
+        int c = neighbors.classOf(clicked);
+        int[] safe = new int[neighbors.end(c) - neighbors.begin(c) + 1];
+        int safeCount = 0;
+        safe[safeCount++] = clicked;
+        for (int k = neighbors.begin(c); k < neighbors.end(c); ++k) safe[safeCount++] = clicked + neighbors.delta(k);
+        Arrays.sort(safe);
+        // on small wrapping boards a neighbor may be counted twice
+        int unique = 0;
+        for (int k = 0; k < safe.length; ++k) if (k == 0 || safe[k] != safe[k - 1]) safe[unique++] = safe[k];
+        safe = Arrays.copyOf(safe, unique);
+
+        // the first left-click moves the mines placed by the constructor, we only undo what they changed
+        if (minesPlaced) {
+            for (int i : mines) {
+                type[i] = NEUTRAL;
+                int mc = neighbors.classOf(i);
+                for (int n = neighbors.begin(mc); n < neighbors.end(mc); ++n) --adjacent[i + neighbors.delta(n)];
+            }
+        }
+        else Arrays.fill(type, NEUTRAL);
+        minesPlaced = true;
+
+        // events are only timed while a recording wants them, the engine also runs in tight batch loops
+        MineGenerationEvent event = new MineGenerationEvent();
+        boolean recorded = event.isEnabled();
+        if (recorded) event.begin();
+
+        // the constructor places ordinary mines, the first left-click of a no-guess game looks for solvable ones
+        int[] placed = (noGuess && firstX >= 0)
+                ? NoGuessGenerator.generate(new int[] {size, totalMines, time, hyperMines}, getTopology(), seed, clicked, safe)
+                : null;
+        boolean solvable = placed != null;
+        if (placed == null) placed = place(cells, totalMines, hyperMines, safe, random);
+        placeMines(placed);
+
+        if (!recorded) return;
+        event.kind = solvable ? "no guess" : (firstX >= 0) ? "first click" : "board";
+        event.tiles = cells;
+        event.mines = totalMines;
+        event.commit();
+    }
+
+    // Every other tile may be a mine. The placer returns them in no random order, so the hypermines are chosen by
+    // partially shuffling them
+    static int[] place(int cells, int totalMines, int hyperMines, int[] safe, SplittableRandom random) {
+        int[] placed = MinePlacer.place(cells, totalMines, safe, random);
+        for (int k = 0; k < hyperMines; ++k) {
+            int j = k + random.nextInt(totalMines - k);
+            int tmp = placed[k];
+            placed[k] = placed[j];
+            placed[j] = tmp;
+        }
+        return placed;
+    }
+
+    // sets the types and the counts of the neighbors of the placed mines, hypermines first
+    private void placeMines(int[] placed) {
+        for (int k = 0; k < totalMines; ++k) {
+            int i = placed[k];
+            mines[k] = i;
+            type[i] = (k < hyperMines) ? HYPERMINE : MINE;
+
+            // every mine adds one to the count of its neighbors
+            int mc = neighbors.classOf(i);
+            for (int n = neighbors.begin(mc); n < neighbors.end(mc); ++n) ++adjacent[i + neighbors.delta(n)];
+        }
+
+        for (GameListener l : listeners) l.minesPlaced(this);
+    }
+
+    // classic minesweeper flood fill. Tiles with no neighboring mines reveal their neighbors, which are queued
+    // instead of recursed into, so that any area fits in the work list of the flood fill whatever the stack size
+    private void revealArea(int x, int y) {
+        // the fill is only timed while a recording wants it, the engine also runs in tight batch loops
+        FloodFillEvent event = new FloodFillEvent();
+        if (!event.isEnabled()) {
+            fill(index(x, y));
+            return;
+        }
+        event.begin();
+        int remaining = neutralRemaining;
+        event.visited = fill(index(x, y));
+        event.x = x;
+        event.y = y;
+        event.revealed = remaining - neutralRemaining + (type[index(x, y)] != NEUTRAL ? 1 : 0);
+        event.commit();
+    }
+
+    // returns the number of tiles taken from the work list
+    private long fill(int start) {
+        long visited = 0;
+        floodFill.begin();
+        floodFill.push(start);
+        while (!floodFill.isEmpty()) {
+            int i = floodFill.poll();
+            ++visited;
+            revealTile(i, true); // unsafe = true, because if we left-clicked on a mine we might lose
+                                 // if the tile has already been revealed, this function will do nothing
+            if (type[i] != NEUTRAL) continue; // if it was a mine we lose
+
+            if (adjacent[i] == 0) { // if all neighbors are neutral, reveal them too
+                int c = neighbors.classOf(i);
+                for (int k = neighbors.begin(c); k < neighbors.end(c); ++k) floodFill.push(i + neighbors.delta(k));
+            }
+        }
+        return visited;
+    }
+
+    // hypermine effect, reveals the row and the column (of the same layer) of tile i
+    private void revealHyperMine(int i) {
+        int x = i % width, y = i / width;
+        int layerHeight = neighbors.getHeight();
+        int firstRow = (y / layerHeight) * layerHeight;
+        for (int k = 0; k < layerHeight; ++k) revealTile(index(x, firstRow + k), false); // tiles on the same column
+        for (int k = 0; k < width; ++k) revealTile(index(k, y), false); // tiles on the same row
+    }
+
+    // flags a hidden tile or hides a flagged tile...
+    private void flagTile(int i) {
+        int x = i % width, y = i / width;
+        if (state[i] == HIDDEN && flagsUsed < totalMines) {
+            state[i] = FLAGGED;
+            updateFlags(1);
+            for (GameListener l : listeners) l.tileFlagged(x, y);
+        }
+        else if (state[i] == FLAGGED) {
+            state[i] = HIDDEN;
+            updateFlags(-1);
+            for (GameListener l : listeners) l.tileHidden(x, y);
+        }
+    }
+
+    // reveals the tile based on its type and state
+    private void revealTile(int i, boolean unsafe) {
+        if (type[i] == UNASSIGNED) return;
+        // if already revealed do nothing
+        if (state[i] == REVEALED) return;
+        byte previous = state[i];
+        state[i] = REVEALED;
+        int x = i % width, y = i / width;
+
+        if (type[i] == NEUTRAL) {
+            if (previous == FLAGGED) updateFlags(-1); // when revealing neutral tiles, remove their flags
+            --neutralRemaining; // since we reveal a neutral tile, there's one less remaining...
+            for (GameListener l : listeners) l.neutralRevealed(x, y, adjacent[i]);
+        }
+        else {
+            if (previous == HIDDEN) updateFlags(1); // when revealing a mine, we consume a flag
+            boolean hyper = type[i] == HYPERMINE;
+            for (GameListener l : listeners) l.mineRevealed(x, y, hyper, unsafe);
+        }
+    }
+
+    private void checkWin() {
+        // if we didn't lose and the click (left or right) was successful, check whether we won...
+        if (neutralRemaining <= 0) {
+            endGame(true);
+        }
+    }
+
+    private void endGame(boolean gameWon) {
+        // this method can be called only once
+        if (gameEnded) return;
+        gameEnded = true;
+
+        // show all mines
+        for (int i : mines) revealTile(i, !gameWon);
+
+        for (GameListener l : listeners) l.gameEnded(gameWon);
+    }
+
+    // simple wrappers for updating the counters
+    private void updateTime(int inc) {
+        timeRemaining += inc;
+        for (GameListener l : listeners) l.timeChanged(timeRemaining);
+    }
+    private void updateFlags(int inc) {
+        flagsUsed += inc;
+        for (GameListener l : listeners) l.flagsChanged(flagsUsed, totalMines);
+    }
+    private void updateAttempts(int inc) {
+        attempts += inc;
+        for (GameListener l : listeners) l.attemptsChanged(attempts);
+    }
+
+    private int index(int x, int y) { return y * width + x; }
+
+    private int randomPos(int length) { return random.nextInt(length); }
+
+    /** @return The game grid is a size by size square (or cube). */
+    public int getSize() { return size; }
+    /** @return The number of columns of the board. */
+    @Override
+    public int getWidth() { return width; }
+    /** @return The number of rows of the board, the rows of all layers counted together. */
+    @Override
+    public int getHeight() { return height; }
+    /** @return The shape of the board and the neighbors of its tiles. */
+    public NeighborTable getNeighbors() { return neighbors; }
+    @Override
+    public Topology getTopology() { return neighbors.getTopology(); }
+    @Override
+    public int getLayerHeight() { return neighbors.getHeight(); }
+    /** @return The total number of mines, hyper mines included. */
+    @Override
+    public int getTotalMines() { return totalMines; }
+    /** @return The initial value of the countdown in seconds. */
+    @Override
+    public int getTime() { return time; }
+    /** @return The number of hyper mines. */
+    public int getHyperMines() { return hyperMines; }
+    /** @return The number of flags currently on the grid. */
+    @Override
+    public int getFlagsUsed() { return flagsUsed; }
+    /** @return The number of left-clicks that revealed tiles. */
+    @Override
+    public int getAttempts() { return attempts; }
+    /** @return The seconds left before the game is lost. */
+    @Override
+    public int getTimeRemaining() { return timeRemaining; }
+    /** @return The number of neutral tiles that are still not revealed. */
+    public int getNeutralRemaining() { return neutralRemaining; }
+    /** @return Whether tiles have been revealed, after which the mines no longer move. */
+    public boolean isGameStarted() { return gameStarted; }
+    /** @return Whether the game has been won or lost. */
+    @Override
+    public boolean isGameEnded() { return gameEnded; }
+    /** @return The seed the mines are generated from. */
+    @Override
+    public long getSeed() { return seed; }
+    /** @return The column of the left-click that started the game, or -1 if it hasn't started with one. */
+    @Override
+    public int getFirstX() { return firstX; }
+    /** @return The row of the left-click that started the game, or -1 if it hasn't started with one. */
+    @Override
+    public int getFirstY() { return firstY; }
+    /** @return Whether the first left-click places mines that can be cleared without guessing. */
+    @Override
+    public boolean isNoGuess() { return noGuess; }
+
+    /** @return One of {@link #HIDDEN HIDDEN}, {@link #FLAGGED FLAGGED} or {@link #REVEALED REVEALED}. */
+    @Override
+    public byte getState(int x, int y) { return state[index(x, y)]; }
+    /** @return One of {@link #NEUTRAL NEUTRAL}, {@link #MINE MINE} or {@link #HYPERMINE HYPERMINE}. */
+    @Override
+    public byte getType(int x, int y) { return type[index(x, y)]; }
+    /** @return The number of mines around tile (x,y). */
+    @Override
+    public int getAdjacent(int x, int y) { return adjacent[index(x, y)]; }
+
+    /** @return The number of placed mines. */
+    public int getMineCount() { return mines.length; }
+    /**
+     * @param k                 Index in <code>[0, getMineCount())</code>. Hyper mines come first.
+     * @return                  The tile index <code>y * width + x</code> of the k-th mine.
+     */
+    public int getMine(int k) { return mines[k]; }
+}
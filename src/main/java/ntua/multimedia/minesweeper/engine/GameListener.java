@@ -0,0 +1,35 @@
+package ntua.multimedia.minesweeper.engine;
+
+// Anything that wants to show or record what happens in a Board implements this interface and subscribes
+// with Board.addListener. The engine itself knows nothing about the graphics, it only reports which tile changed
+// and how. All methods have empty default implementations so headless users may override only what they need.
+public interface GameListener {
+    // a flagged tile became hidden again
+    default void tileHidden(int x, int y) {}
+
+    // a hidden tile was flagged
+    default void tileFlagged(int x, int y) {}
+
+    // a neutral tile was revealed, mines is the number of its neighboring mines
+    default void neutralRevealed(int x, int y, int mines) {}
+
+    // a mine was revealed. Unsafe mines are the ones that cost the player the game
+    default void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe) {}
+
+    // the counters of the game changed
+    default void flagsChanged(int flagsUsed, int totalMines) {}
+    default void attemptsChanged(int attempts) {}
+    default void timeChanged(int timeRemaining) {}
+
+    // the board started a new game on the same tiles: every tile is hidden and the counters start from the beginning
+    default void boardReset(Board board) {}
+
+    // the location of the mines became known (or changed because of the first click)
+    default void minesPlaced(Board board) {}
+
+    // called once when the game ends, and again if it ends again after gameResumed
+    default void gameEnded(boolean gameWon) {}
+
+    // the move that ended the game was undone, the game is on again
+    default void gameResumed() {}
+}
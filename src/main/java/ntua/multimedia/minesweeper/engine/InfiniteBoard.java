@@ -0,0 +1,370 @@
+package ntua.multimedia.minesweeper.engine;
+
+import ntua.multimedia.minesweeper.monitoring.FloodFillEvent;
+import ntua.multimedia.minesweeper.monitoring.MineGenerationEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A game of Minesweeper on a board far too large to be built, up to about a million by a million tiles.
+ * <p></p>
+ * The board is split in square chunks of {@value #chunkSize} by {@value #chunkSize} tiles. The mines of a chunk are
+ * generated only when something needs them, from a hash of the seed of the game and the coordinates of the chunk,
+ * so the same chunk always gets the same mines and may be forgotten and generated again at any time. The states of
+ * the tiles are only kept for chunks the player has touched, in a {@link ChunkStore ChunkStore} which keeps a fixed
+ * number of them on the heap and spills the rest to disk, so memory does not grow with the size of the board.
+ * <p></p>
+ * Instead of a number of mines, such a board has a density: every tile is a mine with probability
+ * <code>density / 1000</code>. The total number of mines is never known, so the game cannot be won by revealing every
+ * neutral tile. Instead a round is won by surviving until the countdown ends and lost by revealing a mine.
+ */
+public class InfiniteBoard implements Board {
+    /** Tiles per side of a chunk. */
+    public static final int chunkSize = 64;
+    private static final int chunkShift = 6;
+    private static final int chunkMask = chunkSize - 1;
+
+    // chunks of mines are cheap to generate again, so only the most recently used ones are kept
+    private static final int cachedMineChunks = 4096;
+
+    // chunks of states kept on the heap, the rest are spilled to disk. At 2 bits per tile that is 1 KB per chunk
+    private static final int hotStateChunks = 1024;
+
+    private final int width;
+    private final int height;
+    private final int density;
+    private final int time;
+    private final long seed;
+
+    // state of every tile of the touched chunks, two bits per tile
+    private final ChunkStore states;
+
+    // mines of the recently used chunks, one bit per tile
+    private final Map<Long, long[]> mineChunks = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) { return size() > cachedMineChunks; }
+    };
+
+    // the chunk used last is remembered, since a flood fill mostly stays in the same chunk
+    private long lastMinesKey = Long.MIN_VALUE;
+    private long[] lastMines;
+
+    // the first left-click and its neighbors never hide mines
+    private int safeX;
+    private int safeY;
+
+    private int flagsUsed;
+    private int attempts;
+    private long revealed;
+    private int timeRemaining;
+    private boolean gameEnded;
+    private boolean gameStarted;
+
+    // work list of the flood fill, tiles packed as (x << 32 | y)
+    private long[] queue = new long[256];
+
+    private GameListener[] listeners = new GameListener[0];
+
+    /**
+     * Constructs an endless game on a random board.
+     * <p></p>
+     * @param gameParams        <code>{ size, density, time, hyperMines }</code>: the board is size by size tiles,
+     *                          every tile is a mine with probability <code>density / 1000</code> and hyper mines
+     *                          are ignored.
+     */
+    public InfiniteBoard(int[] gameParams) { this(gameParams, ThreadLocalRandom.current().nextLong()); }
+
+    /**
+     * Constructs an endless game whose board is defined by a seed. The same seed always gives the same board.
+     * <p></p>
+     * @param gameParams        <code>{ size, density, time, hyperMines }</code>.
+     * @param seed              The seed of the mine generator.
+     */
+    public InfiniteBoard(int[] gameParams, long seed) {
+        width = gameParams[0];
+        height = gameParams[0];
+        density = gameParams[1];
+        time = gameParams[2];
+        this.seed = seed;
+        states = new ChunkStore(chunkSize * chunkSize, hotStateChunks);
+
+        flagsUsed = 0;
+        attempts = 0;
+        revealed = 0;
+        timeRemaining = time;
+        gameEnded = false;
+        gameStarted = false;
+    }
+
+    @Override
+    public void addListener(GameListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    @Override
+    public void removeListener(GameListener listener) {
+        List<GameListener> remaining = new ArrayList<>(Arrays.asList(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(new GameListener[0]);
+    }
+
+    @Override
+    public void reveal(int x, int y) {
+        if (gameEnded || !validCoords(x, y)) return;
+        if (getState(x, y) != HIDDEN) return;
+
+        // the first left-click decides where the safe area is
+        if (!gameStarted) {
+            safeX = x;
+            safeY = y;
+            gameStarted = true;
+        }
+
+        attempts += 1;
+        for (GameListener l : listeners) l.attemptsChanged(attempts);
+        revealArea(x, y);
+
+        // if we revealed a mine with a left-click then we lose
+        if (isMine(x, y)) endGame(false);
+    }
+
+    @Override
+    public void flag(int x, int y) {
+        if (gameEnded || !validCoords(x, y)) return;
+        byte current = getState(x, y);
+        if (current == HIDDEN) {
+            setState(x, y, FLAGGED);
+            flagsUsed += 1;
+            for (GameListener l : listeners) l.tileFlagged(x, y);
+        }
+        else if (current == FLAGGED) {
+            setState(x, y, HIDDEN);
+            flagsUsed -= 1;
+            for (GameListener l : listeners) l.tileHidden(x, y);
+        }
+        else return;
+        for (GameListener l : listeners) l.flagsChanged(flagsUsed, -1);
+    }
+
+    @Override
+    public void tick() {
+        if (gameEnded) return;
+        timeRemaining -= 1;
+        for (GameListener l : listeners) l.timeChanged(timeRemaining);
+        // surviving until the end of the countdown wins the round
+        if (timeRemaining <= 0) endGame(true);
+    }
+
+    @Override
+    public void stop() { endGame(false); }
+
+    // flood fill that crosses chunk boundaries freely. Tiles are revealed when queued, so their state tells whether
+    // they have been visited and no other bookkeeping is needed
+    private void revealArea(int x, int y) {
+        FloodFillEvent event = new FloodFillEvent();
+        boolean recorded = event.isEnabled();
+        if (recorded) event.begin();
+        event.x = x;
+        event.y = y;
+        long before = revealed, visited = 0;
+
+        int head = 0, tail = 0;
+        revealTile(x, y, true);
+        if (isMine(x, y) || countMines(x, y) != 0) {
+            event.visited = 1;
+            event.revealed = 1;
+            if (recorded) event.commit();
+            return;
+        }
+        queue[tail++] = pack(x, y);
+
+        while (head != tail) {
+            long tile = queue[head++ & (queue.length - 1)];
+            ++visited;
+            int tx = (int) (tile >>> 32), ty = (int) tile;
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) {
+                    int nx = tx + dx, ny = ty + dy;
+                    if (!validCoords(nx, ny) || getState(nx, ny) == REVEALED) continue;
+                    revealTile(nx, ny, true);
+                    if (countMines(nx, ny) != 0) continue;
+                    if (tail - head == queue.length) {
+                        queue = grow(queue, head, tail);
+                        tail -= head;
+                        head = 0;
+                    }
+                    queue[tail++ & (queue.length - 1)] = pack(nx, ny);
+                }
+            }
+        }
+        if (!recorded) return;
+        event.visited = visited;
+        event.revealed = revealed - before;
+        event.commit();
+    }
+
+    private static long pack(int x, int y) { return ((long) x << 32) | (y & 0xFFFFFFFFL); }
+
+    private static long[] grow(long[] queue, int head, int tail) {
+        long[] larger = new long[queue.length * 2];
+        for (int k = head; k != tail; ++k) larger[k - head] = queue[k & (queue.length - 1)];
+        return larger;
+    }
+
+    private void revealTile(int x, int y, boolean unsafe) {
+        byte previous = getState(x, y);
+        if (previous == REVEALED) return;
+        setState(x, y, REVEALED);
+        if (previous == FLAGGED) {
+            flagsUsed -= 1;
+            for (GameListener l : listeners) l.flagsChanged(flagsUsed, -1);
+        }
+
+        if (isMine(x, y)) {
+            for (GameListener l : listeners) l.mineRevealed(x, y, false, unsafe);
+        }
+        else {
+            revealed += 1;
+            int mines = countMines(x, y);
+            for (GameListener l : listeners) l.neutralRevealed(x, y, mines);
+        }
+    }
+
+    private void endGame(boolean gameWon) {
+        if (gameEnded) return;
+        gameEnded = true;
+
+        // the mines of the whole board can't be shown, so we show the ones in the area the player has touched
+        for (long key : states.keys()) {
+            int firstX = (int) (key >>> 32) << chunkShift, firstY = (int) key << chunkShift;
+            for (int y = firstY; y < Math.min(firstY + chunkSize, height); ++y) {
+                for (int x = firstX; x < Math.min(firstX + chunkSize, width); ++x) {
+                    if (isMine(x, y)) revealTile(x, y, !gameWon);
+                }
+            }
+        }
+
+        for (GameListener l : listeners) l.gameEnded(gameWon);
+    }
+
+    private int countMines(int x, int y) {
+        int mines = 0;
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                if ((dx != 0 || dy != 0) && validCoords(x + dx, y + dy) && isMine(x + dx, y + dy)) ++mines;
+            }
+        }
+        return mines;
+    }
+
+    private boolean isMine(int x, int y) {
+        // the first left-click and its neighbors are always safe
+        if (gameStarted && Math.abs(x - safeX) <= 1 && Math.abs(y - safeY) <= 1) return false;
+        int local = ((y & chunkMask) << chunkShift) | (x & chunkMask);
+        return (mines(x >> chunkShift, y >> chunkShift)[local >>> 6] & (1L << local)) != 0;
+    }
+
+    // the mines of a chunk, generated again whenever they are not cached
+    private long[] mines(int chunkX, int chunkY) {
+        long key = chunkKey(chunkX, chunkY);
+        if (key == lastMinesKey) return lastMines;
+        long[] bits = mineChunks.get(key);
+        if (bits == null) {
+            MineGenerationEvent event = new MineGenerationEvent();
+            event.begin();
+            bits = new long[chunkSize * chunkSize / 64];
+            SplittableRandom random = new SplittableRandom(chunkSeed(chunkX, chunkY));
+            for (int local = 0; local < chunkSize * chunkSize; ++local) {
+                if (random.nextInt(1000) < density) {
+                    bits[local >>> 6] |= 1L << local;
+                    ++event.mines;
+                }
+            }
+            mineChunks.put(key, bits);
+            event.kind = "chunk";
+            event.tiles = chunkSize * chunkSize;
+            event.commit();
+        }
+        lastMinesKey = key;
+        lastMines = bits;
+        return bits;
+    }
+
+    // mixes the seed of the game with the coordinates of a chunk, so that neighboring chunks look unrelated
+    private long chunkSeed(int chunkX, int chunkY) {
+        long h = seed ^ (chunkX * 0x9E3779B97F4A7C15L) ^ (chunkY * 0xC2B2AE3D27D4EB4FL);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static long chunkKey(int chunkX, int chunkY) { return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL); }
+
+    private void setState(int x, int y, byte newState) {
+        states.set(chunkKey(x >> chunkShift, y >> chunkShift), ((y & chunkMask) << chunkShift) | (x & chunkMask), newState);
+    }
+
+    private boolean validCoords(int x, int y) { return x >= 0 && x < width && y >= 0 && y < height; }
+
+    @Override
+    public byte getState(int x, int y) {
+        // untouched chunks are not stored, all of their tiles read as HIDDEN
+        return (byte) states.get(chunkKey(x >> chunkShift, y >> chunkShift), ((y & chunkMask) << chunkShift) | (x & chunkMask));
+    }
+
+    @Override
+    public byte getType(int x, int y) { return isMine(x, y) ? MINE : NEUTRAL; }
+
+    @Override
+    public int getAdjacent(int x, int y) { return countMines(x, y); }
+
+    @Override
+    public int getWidth() { return width; }
+    @Override
+    public int getHeight() { return height; }
+    @Override
+    public Topology getTopology() { return Topology.SQUARE; }
+    @Override
+    public int getLayerHeight() { return height; }
+    @Override
+    public int getTotalMines() { return -1; }
+    @Override
+    public int getTime() { return time; }
+    @Override
+    public int getFlagsUsed() { return flagsUsed; }
+    @Override
+    public int getAttempts() { return attempts; }
+    @Override
+    public int getTimeRemaining() { return timeRemaining; }
+    @Override
+    public boolean isGameEnded() { return gameEnded; }
+
+    /** @return The tiles per thousand that are mines. */
+    public int getDensity() { return density; }
+    @Override
+    public long getSeed() { return seed; }
+    @Override
+    public int getFirstX() { return gameStarted ? safeX : -1; }
+    @Override
+    public int getFirstY() { return gameStarted ? safeY : -1; }
+    @Override
+    public boolean isNoGuess() { return false; }
+    /** @return The number of neutral tiles revealed so far, which is the score of an endless game. */
+    public long getRevealed() { return revealed; }
+    /** @return The number of chunks whose tiles have been touched. */
+    public int getTouchedChunks() { return states.keys().size(); }
+    /** @return The store of the states of the tiles, along with its hit, miss and eviction counters. */
+    public ChunkStore getStates() { return states; }
+
+    /**
+     * Releases the spill file of the states of the tiles. The board may not be used afterwards.
+     */
+    public void close() { states.close(); }
+}
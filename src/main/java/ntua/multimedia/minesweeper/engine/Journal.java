@@ -0,0 +1,297 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Remembers the moves of a {@link GameEngine GameEngine}, so that they may be undone, redone or jumped to.
+ * <p></p>
+ * The journal is a {@link GameListener GameListener} of the engine and writes down, for every move, the tiles it changed
+ * with their states before and after the move, and the counters after it. A move is everything the engine did between
+ * two calls of {@link #commit() commit}: usually one click, or giving up. Undoing or redoing a
+ * move only goes through the tiles of that move, so undoing a cascade that revealed a million tiles costs a million
+ * small steps, whatever the length of the game. The engine tells its listeners about every tile put back, as about any
+ * other change, so whatever shows the game follows.
+ * <p></p>
+ * Every <code>snapshotInterval</code> moves the journal also keeps the states of the whole board, half a byte a tile.
+ * {@link #jumpTo(int) jumpTo} starts from the nearest of them when that is cheaper than going through all the moves in
+ * between, for example after many flags were placed and removed.
+ * <p></p>
+ * The mines never move back: a first left-click that moved them is undone with the mines where it left them, which
+ * are still safe for the next first click. The countdown is not rewound either, so a game that ran out of time stays
+ * lost: the next tick would only end it again. A move made after an undo drops the moves that could have been redone.
+ */
+public final class Journal implements GameListener {
+    // the bits of a change: the state before, the state after and, for mines, whether they were revealed by a loss
+    private static final int afterShift = 2, unsafeBit = 16;
+
+    private final GameEngine engine;
+    private final int snapshotInterval;
+
+    // the changed tiles of all moves one after the other. Move k changed the tiles from starts[k] to starts[k + 1]
+    private int[] cells = new int[256];
+    private byte[] changes = new byte[256];
+    private int cellCount;
+    private int[] starts = new int[64];
+
+    // the counters after each move, and before the first one
+    private final List<Counters> counters = new ArrayList<>();
+    // the states of the board after every snapshotInterval moves, two tiles a byte
+    private final List<byte[]> snapshots = new ArrayList<>();
+
+    private int moves;
+    private int position;
+
+    // what the states of the board alone don't tell: which hidden tiles were flagged before a reveal, and which
+    // revealed mines were revealed by a loss
+    private final BitSet flagged = new BitSet();
+    private final BitSet unsafe = new BitSet();
+
+    // whether the engine changed since the last commit
+    private boolean pending;
+    // whether the changes come from the journal itself, which must not write them down again
+    private boolean traveling;
+    private boolean gameWon;
+
+    private record Counters(int flagsUsed, int attempts, boolean gameStarted, boolean gameEnded, boolean gameWon,
+                            int firstX, int firstY) {}
+
+    /**
+     * @param engine            The game whose moves are remembered. The journal must be added to its listeners, and
+     *                          its first position is the game as it is now.
+     * @param snapshotInterval  The number of moves between two snapshots of the whole board.
+     */
+    public Journal(GameEngine engine, int snapshotInterval) {
+        if (snapshotInterval <= 0) throw new IllegalArgumentException("The snapshot interval must be positive");
+        this.engine = engine;
+        this.snapshotInterval = snapshotInterval;
+        clear();
+    }
+
+    // forgets every move, the game as it is now becomes the first position
+    private void clear() {
+        byte[] states = engine.states();
+        flagged.clear();
+        unsafe.clear();
+        for (int i = 0; i < states.length; ++i) if (states[i] == Board.FLAGGED) flagged.set(i);
+
+        cellCount = 0;
+        moves = 0;
+        position = 0;
+        pending = false;
+        gameWon = false;
+        counters.clear();
+        counters.add(counters());
+        snapshots.clear();
+        snapshots.add(pack());
+    }
+
+    private Counters counters() {
+        return new Counters(engine.getFlagsUsed(), engine.getAttempts(), engine.isGameStarted(), engine.isGameEnded(),
+                            gameWon, engine.getFirstX(), engine.getFirstY());
+    }
+
+    /**
+     * Ends the current move: whatever the engine did since the previous commit becomes one move, which
+     * {@link #undo() undo} takes back at once. Nothing happens if the engine did not change.
+     * <p></p>
+     * @return                  Whether a move was added.
+     */
+    public boolean commit() {
+        if (!pending) return false;
+        pending = false;
+        if (moves + 2 > starts.length) starts = Arrays.copyOf(starts, starts.length * 2);
+        starts[++moves] = cellCount;
+        counters.add(counters());
+        position = moves;
+        if (position % snapshotInterval == 0) snapshots.add(pack());
+        return true;
+    }
+
+    /**
+     * Takes back the last move that was not undone yet.
+     * <p></p>
+     * @return                  Whether there was a move to undo.
+     */
+    public boolean undo() {
+        commit();
+        if (position == 0 || outOfTime()) return false;
+        traveling = true;
+        try {
+            undoMove();
+        } finally {
+            traveling = false;
+        }
+        return true;
+    }
+
+    /**
+     * Plays again the last move that was undone.
+     * <p></p>
+     * @return                  Whether there was a move to redo.
+     */
+    public boolean redo() {
+        commit();
+        if (position == moves || outOfTime()) return false;
+        traveling = true;
+        try {
+            redoMove();
+        } finally {
+            traveling = false;
+        }
+        return true;
+    }
+
+    /**
+     * Brings the game to the position after its first <code>move</code> moves, undoing or redoing as many as needed.
+     * <p></p>
+     * @param move              The number of moves, from 0, the game before any move, to {@link #size() size}.
+     * @return                  Whether the game is at that position now, false if it ran out of time.
+     * @throws IllegalArgumentException If there is no such position.
+     */
+    public boolean jumpTo(int move) {
+        commit();
+        if (move < 0 || move > moves) throw new IllegalArgumentException("There is no move " + move + " of " + moves);
+        if (outOfTime()) return false;
+
+        // the snapshot nearest to the target costs a pass over the board and then the moves from the snapshot on
+        int nearest = Math.min(snapshots.size() - 1, (move + snapshotInterval / 2) / snapshotInterval);
+        long walk = Math.abs(starts[move] - starts[position]);
+        long fromSnapshot = engine.states().length + Math.abs(starts[move] - starts[nearest * snapshotInterval]);
+
+        traveling = true;
+        try {
+            if (fromSnapshot < walk) restore(nearest);
+            while (position < move) redoMove();
+            while (position > move) undoMove();
+        } finally {
+            traveling = false;
+        }
+        return true;
+    }
+
+    // the countdown is never rewound, a game without time left is over for good
+    private boolean outOfTime() { return engine.getTimeRemaining() <= 0; }
+
+    // the tiles of the move go back to their states before it, in the reverse order they changed in
+    private void undoMove() {
+        for (int c = starts[position] - 1; c >= starts[position - 1]; --c) {
+            engine.setState(cells[c], (byte) (changes[c] & 3), false);
+        }
+        setCounters(counters.get(--position));
+    }
+
+    private void redoMove() {
+        for (int c = starts[position]; c < starts[position + 1]; ++c) {
+            engine.setState(cells[c], (byte) ((changes[c] >> afterShift) & 3), (changes[c] & unsafeBit) != 0);
+        }
+        setCounters(counters.get(++position));
+    }
+
+    // puts back the board of snapshot k. Only the tiles that differ change, so the listeners only hear about them
+    private void restore(int k) {
+        byte[] packed = snapshots.get(k), states = engine.states();
+        for (int i = 0; i < states.length; ++i) {
+            int tile = (packed[i >> 1] >> ((i & 1) << 2)) & 0xF;
+            if (states[i] != (tile & 3)) engine.setState(i, (byte) (tile & 3), (tile & 4) != 0);
+        }
+        position = k * snapshotInterval;
+        setCounters(counters.get(position));
+    }
+
+    private void setCounters(Counters c) {
+        gameWon = c.gameWon();
+        engine.setCounters(c.flagsUsed(), c.attempts(), c.gameStarted(), c.gameEnded(), c.gameWon(), c.firstX(),
+                           c.firstY());
+    }
+
+    // the states of the board, with whether each revealed mine was revealed by a loss, half a byte a tile
+    private byte[] pack() {
+        byte[] states = engine.states();
+        byte[] packed = new byte[(states.length + 1) / 2];
+        for (int i = 0; i < states.length; ++i) {
+            int tile = states[i] | (states[i] == Board.REVEALED && unsafe.get(i) ? 4 : 0);
+            packed[i >> 1] |= (byte) (tile << ((i & 1) << 2));
+        }
+        return packed;
+    }
+
+    // the engine changed during a move. The first change after an undo drops the moves that could be redone
+    private void change() {
+        if (pending) return;
+        pending = true;
+        if (position < moves) {
+            moves = position;
+            cellCount = starts[position];
+            counters.subList(position + 1, counters.size()).clear();
+            snapshots.subList(position / snapshotInterval + 1, snapshots.size()).clear();
+        }
+    }
+
+    private void record(int x, int y, byte before, byte after, boolean unsafe) {
+        if (traveling) return;
+        change();
+        if (cellCount == cells.length) {
+            cells = Arrays.copyOf(cells, cellCount * 2);
+            changes = Arrays.copyOf(changes, cellCount * 2);
+        }
+        cells[cellCount] = y * engine.getWidth() + x;
+        changes[cellCount] = (byte) (before | after << afterShift | (unsafe ? unsafeBit : 0));
+        ++cellCount;
+    }
+
+    @Override
+    public void tileHidden(int x, int y) {
+        record(x, y, Board.FLAGGED, Board.HIDDEN, false);
+        flagged.clear(y * engine.getWidth() + x);
+    }
+
+    @Override
+    public void tileFlagged(int x, int y) {
+        record(x, y, Board.HIDDEN, Board.FLAGGED, false);
+        flagged.set(y * engine.getWidth() + x);
+    }
+
+    @Override
+    public void neutralRevealed(int x, int y, int mines) {
+        int i = y * engine.getWidth() + x;
+        record(x, y, flagged.get(i) ? Board.FLAGGED : Board.HIDDEN, Board.REVEALED, false);
+        flagged.clear(i);
+    }
+
+    @Override
+    public void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe) {
+        int i = y * engine.getWidth() + x;
+        record(x, y, flagged.get(i) ? Board.FLAGGED : Board.HIDDEN, Board.REVEALED, unsafe);
+        flagged.clear(i);
+        this.unsafe.set(i, unsafe);
+    }
+
+    @Override
+    public void flagsChanged(int flagsUsed, int totalMines) { if (!traveling) change(); }
+
+    @Override
+    public void attemptsChanged(int attempts) { if (!traveling) change(); }
+
+    @Override
+    public void gameEnded(boolean gameWon) {
+        if (traveling) return;
+        change();
+        this.gameWon = gameWon;
+    }
+
+    // a new round, its moves have nothing to do with the previous ones
+    @Override
+    public void boardReset(Board board) { clear(); }
+
+    /** @return The number of moves the game is at, from 0 to {@link #size() size}. */
+    public int getPosition() { return position; }
+    /** @return The number of moves remembered, undone ones included. */
+    public int size() { return moves; }
+    /** @return Whether there is a move to undo. */
+    public boolean canUndo() { return (position > 0 || pending) && !outOfTime(); }
+    /** @return Whether there is a move to redo. */
+    public boolean canRedo() { return position < moves && !pending && !outOfTime(); }
+}
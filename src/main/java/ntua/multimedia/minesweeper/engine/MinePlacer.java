@@ -0,0 +1,180 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Chooses the tiles of a board that hide mines, in time that depends on the number of mines and not on the size of
+ * the board.
+ * <p></p>
+ * Tiles are sampled with Floyd's algorithm, a sparse form of the Fisher-Yates shuffle that makes one random choice per
+ * mine and remembers the chosen tiles in a bitset. The safe tiles are never part of the sample: the random numbers are
+ * ranks among the tiles that are not safe, which are turned into tiles by skipping the few safe tiles below them.
+ * <p></p>
+ * Boards of at least {@value #parallelCells} tiles are split in stripes that are filled in parallel on the common
+ * {@link ForkJoinPool ForkJoinPool}. The number of mines of every stripe is drawn from the exact hypergeometric
+ * distribution beforehand, so the result is as uniform as a sequential placement.
+ */
+public final class MinePlacer {
+    // boards with at least this many tiles are filled in parallel, in stripes of stripeCells tiles
+    static final int parallelCells = 1 << 22;
+    private static final int stripeCells = 1 << 20; // a multiple of 64, so that stripes never share a word
+
+    private MinePlacer() {}
+
+    /**
+     * Chooses <code>count</code> distinct tiles out of <code>cells</code>, uniformly at random, none of which is
+     * safe.
+     * <p></p>
+     * @param cells             The number of tiles of the board.
+     * @param count             The number of mines, at most <code>cells - safe.length</code>.
+     * @param safe              The tiles that must not be chosen, in increasing order.
+     * @param random            The source of randomness. The same seed gives the same mines.
+     * @return                  The indices of the chosen tiles. Their order is not random, so callers that treat some
+     *                          mines differently should shuffle the ones they pick.
+     */
+    public static int[] place(int cells, int count, int[] safe, SplittableRandom random) {
+        long[] bits = new long[(cells + 63) >>> 6];
+        int[] mines = new int[count];
+
+        if (cells < parallelCells) {
+            fill(bits, mines, 0, 0, cells, count, safe, random);
+            return mines;
+        }
+
+        // decide how many mines every stripe gets, one stripe at a time
+        int stripes = (cells + stripeCells - 1) / stripeCells;
+        int[] counts = new int[stripes];
+        int[] offsets = new int[stripes];
+        SplittableRandom[] randoms = new SplittableRandom[stripes];
+        long remainingCells = cells - safe.length;
+        int remainingMines = count;
+        for (int s = 0; s < stripes; ++s) {
+            int start = s * stripeCells, end = Math.min(cells, start + stripeCells);
+            int stripeSize = end - start - countSafe(safe, start, end);
+            counts[s] = (s == stripes - 1) ? remainingMines : hypergeometric(remainingCells, remainingMines, stripeSize, random);
+            offsets[s] = count - remainingMines;
+            remainingCells -= stripeSize;
+            remainingMines -= counts[s];
+            randoms[s] = random.split();
+        }
+
+        ForkJoinPool.commonPool().invoke(new Stripes(bits, mines, cells, counts, offsets, safe, randoms, 0, stripes));
+        return mines;
+    }
+
+    // fills the stripes lo to hi-1, halving the range until a single stripe is left
+    private static final class Stripes extends RecursiveAction {
+        // tasks are serializable like every ForkJoinTask, but are never serialized, so the fields that could not be
+        // are transient
+        private static final long serialVersionUID = 1L;
+
+        private final long[] bits;
+        private final int[] mines;
+        private final int cells;
+        private final int[] counts;
+        private final int[] offsets;
+        private final int[] safe;
+        private final transient SplittableRandom[] randoms;
+        private final int lo;
+        private final int hi;
+
+        Stripes(long[] bits, int[] mines, int cells, int[] counts, int[] offsets, int[] safe,
+                SplittableRandom[] randoms, int lo, int hi) {
+            this.bits = bits;
+            this.mines = mines;
+            this.cells = cells;
+            this.counts = counts;
+            this.offsets = offsets;
+            this.safe = safe;
+            this.randoms = randoms;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                int start = lo * stripeCells, end = Math.min(cells, start + stripeCells);
+                fill(bits, mines, offsets[lo], start, end, counts[lo], safe, randoms[lo]);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Stripes(bits, mines, cells, counts, offsets, safe, randoms, lo, mid),
+                      new Stripes(bits, mines, cells, counts, offsets, safe, randoms, mid, hi));
+        }
+    }
+
+    // Floyd's algorithm on the tiles start to end-1, writing the chosen tiles to mines from offset on
+    private static void fill(long[] bits, int[] mines, int offset, int start, int end, int count, int[] safe,
+                             SplittableRandom random) {
+        // the safe tiles of this stripe
+        int first = 0;
+        while (first < safe.length && safe[first] < start) ++first;
+        int last = first;
+        while (last < safe.length && safe[last] < end) ++last;
+
+        int n = end - start - (last - first); // tiles that may be mines
+        for (int j = n - count; j < n; ++j) {
+            int tile = tileOf(random.nextInt(j + 1), start, safe, first, last);
+            // tile j has never been chosen, since so far we only chose among the first j
+            if ((bits[tile >>> 6] & (1L << tile)) != 0) tile = tileOf(j, start, safe, first, last);
+            bits[tile >>> 6] |= 1L << tile;
+            mines[offset++] = tile;
+        }
+    }
+
+    // the tile of a rank among the tiles that are not safe
+    private static int tileOf(int rank, int start, int[] safe, int first, int last) {
+        int tile = start + rank;
+        for (int s = first; s < last && safe[s] <= tile; ++s) ++tile;
+        return tile;
+    }
+
+    private static int countSafe(int[] safe, int start, int end) {
+        int count = 0;
+        for (int s : safe) if (s >= start && s < end) ++count;
+        return count;
+    }
+
+    /**
+     * Draws from the hypergeometric distribution: the number of marked items among <code>n</code> items drawn
+     * without replacement from a population of <code>total</code> items, <code>marked</code> of which are marked.
+     * <p></p>
+     * The probabilities are walked outwards from the mode, always towards the more likely side, so the expected
+     * number of steps grows with the standard deviation of the distribution and not with <code>n</code>.
+     */
+    static int hypergeometric(long total, long marked, long n, SplittableRandom random) {
+        long low = Math.max(0, n - (total - marked)), high = Math.min(n, marked);
+        if (low == high) return (int) low;
+
+        long mode = Math.max(low, Math.min(high, (n + 1) * (marked + 1) / (total + 2)));
+        double pMode = Math.exp(Combinatorics.logChoose(marked, mode)
+                + Combinatorics.logChoose(total - marked, n - mode) - Combinatorics.logChoose(total, n));
+
+        double u = random.nextDouble() - pMode;
+        if (u <= 0) return (int) mode;
+        long down = mode, up = mode;
+        double pDown = pMode, pUp = pMode;
+        while (down > low || up < high) {
+            // probabilities of the next value below and above what we have covered so far
+            double nextDown = (down > low) ? pDown * down * (total - marked - n + down) / ((marked - down + 1) * (double) (n - down + 1)) : -1;
+            double nextUp = (up < high) ? pUp * (marked - up) * (n - up) / ((up + 1) * (double) (total - marked - n + up + 1)) : -1;
+            if (nextDown >= nextUp) {
+                --down;
+                pDown = nextDown;
+                u -= pDown;
+                if (u <= 0) return (int) down;
+            }
+            else {
+                ++up;
+                pUp = nextUp;
+                u -= pUp;
+                if (u <= 0) return (int) up;
+            }
+        }
+        // only rounding errors get here
+        return (int) mode;
+    }
+}
@@ -0,0 +1,116 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.Arrays;
+
+/**
+ * A compact table of the neighbors of every tile of one board shape.
+ * <p></p>
+ * Tiles whose neighbors lie at the same offsets share a class: a tile is classified by whether it lies on the first,
+ * the last or an inner column, row and layer, and by the parity of its row (which matters for hexagonal boards).
+ * The offsets of every class are stored one after the other, in compressed sparse row form:
+ * the neighbors of tile <code>i</code> are <code>i + delta(k)</code> for <code>k</code> in
+ * <code>[begin(classOf(i)), end(classOf(i)))</code>.
+ * <p></p>
+ * The table takes a few hundred bytes whatever the size of the board, and iterating over it allocates nothing.
+ * Tables are obtained through {@link Topology#table(int, int, int) Topology.table}.
+ */
+public final class NeighborTable {
+    private static final int classes = 3 * 3 * 2 * 3;
+
+    private final Topology topology;
+    private final int width;
+    private final int height;
+    private final int depth;
+
+    // offsets[start[c]] ... offsets[start[c + 1] - 1] are the offsets of the neighbors of class c
+    private final int[] start;
+    private final int[] offsets;
+
+    NeighborTable(Topology.Shape shape) {
+        topology = shape.topology();
+        width = shape.width();
+        height = shape.height();
+        depth = shape.depth();
+
+        int[][] perClass = new int[classes][];
+        int[] buffer = new int[Topology.MAX_NEIGHBORS];
+        int total = 0;
+        for (int c = 0; c < classes; ++c) {
+            int x = representative(c % 3, width, -1);
+            int y = representative((c / 3) % 3, height, (c / 9) % 2);
+            int z = representative(c / 18, depth, -1);
+            if (x < 0 || y < 0 || z < 0) { // no tile of this board belongs to class c
+                perClass[c] = new int[0];
+                continue;
+            }
+
+            int tile = x + width * (y + height * z);
+            int count = topology.neighbors(x, y, z, width, height, depth, buffer);
+
+            // on very small tori a tile may meet itself or the same neighbor twice
+            int[] deltas = new int[count];
+            int unique = 0;
+            for (int k = 0; k < count; ++k) {
+                int delta = buffer[k] - tile;
+                boolean seen = delta == 0;
+                for (int j = 0; j < unique && !seen; ++j) seen = deltas[j] == delta;
+                if (!seen) deltas[unique++] = delta;
+            }
+            perClass[c] = Arrays.copyOf(deltas, unique);
+            total += unique;
+        }
+
+        start = new int[classes + 1];
+        offsets = new int[total];
+        for (int c = 0; c < classes; ++c) {
+            System.arraycopy(perClass[c], 0, offsets, start[c], perClass[c].length);
+            start[c + 1] = start[c] + perClass[c].length;
+        }
+    }
+
+    // a coordinate in [0, length) which is first (edge 0), inner (edge 1) or last (edge 2) and has the wanted parity,
+    // or -1 if there is none. Only rows care about parity, the other dimensions pass -1.
+    private static int representative(int edge, int length, int parity) {
+        int candidate = switch (edge) {
+            case 0 -> 0;
+            case 1 -> (parity == 0) ? 2 : 1;
+            default -> length - 1;
+        };
+        if (candidate >= length || edgeOf(candidate, length) != edge) return -1;
+        return (parity < 0 || (candidate & 1) == parity) ? candidate : -1;
+    }
+
+    private static int edgeOf(int coordinate, int length) {
+        if (coordinate == 0) return 0;
+        if (coordinate == length - 1) return 2;
+        return 1;
+    }
+
+    /**
+     * @param tile              Index of a tile.
+     * @return                  The class of the tile, to be passed to {@link #begin(int) begin} and {@link #end(int) end}.
+     */
+    public int classOf(int tile) {
+        int rest = tile / width;
+        int x = tile - rest * width;
+        if (depth == 1) return edgeOf(x, width) + 3 * edgeOf(rest, height) + 9 * (rest & 1);
+        int z = rest / height;
+        int y = rest - z * height;
+        return edgeOf(x, width) + 3 * edgeOf(y, height) + 9 * (y & 1) + 18 * edgeOf(z, depth);
+    }
+
+    /** @return The first position in the table of the neighbors of a class. */
+    public int begin(int tileClass) { return start[tileClass]; }
+
+    /** @return One past the last position in the table of the neighbors of a class. */
+    public int end(int tileClass) { return start[tileClass + 1]; }
+
+    /** @return The offset, from a tile, of the neighbor stored at position k of the table. */
+    public int delta(int k) { return offsets[k]; }
+
+    public Topology getTopology() { return topology; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getDepth() { return depth; }
+    public int getCells() { return width * height * depth; }
+}
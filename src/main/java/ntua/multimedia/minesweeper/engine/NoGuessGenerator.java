@@ -0,0 +1,124 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Finds mines for a board that the Solver can clear from the first left-click without ever guessing.
+//
+// Candidate layouts are numbered, and candidate k is placed with a generator seeded from the seed of the board, the
+// clicked tile and k. Every core takes the next candidate, places it and plays it with the solver, and the search
+// stops at the first candidate that is cleared. Candidates are taken in order and all candidates before a success are
+// always finished, so the result is the lowest solvable candidate whatever the timing: the same board, seed and click
+// always give the same mines, and board codes keep working.
+//
+// The search runs when the player clicks, so it has a time budget as a whole as well as per step. When it runs out,
+// the search stops taking candidates and keeps its result only if every candidate below it was finished; otherwise it
+// gives up as if no candidate was cleared. Boards found within the budget are still the same everywhere, a board that
+// took too long gets ordinary mines.
+//
+// The number of the winning candidate, or the failure, is remembered for each description, shape, seed and click, so
+// rebuilding a board from its code does not search again.
+final class NoGuessGenerator {
+    // candidates tried before giving up, after which the board gets ordinary mines
+    static final int maxCandidates = 4096;
+    // time the solver may take for one step, far more than it needs, so that it never decides the result
+    private static final long stepBudget = 10;
+    // time the whole search may take, in milliseconds, since the first left-click waits for it
+    static final long searchBudget = 2000;
+
+    private static final int cacheSize = 256;
+    private static final Map<Key, Integer> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) { return size() > cacheSize; }
+    };
+
+    private record Key(int size, int totalMines, int hyperMines, Topology topology, long seed, int clicked) {}
+
+    private NoGuessGenerator() {}
+
+    // the mines, hypermines first, or null if no candidate was cleared
+    static int[] generate(int[] gameParams, Topology topology, long seed, int clicked, int[] safe) {
+        Key key = new Key(gameParams[0], gameParams[1], gameParams[3], topology, seed, clicked);
+        Integer found;
+        synchronized (cache) {
+            found = cache.get(key);
+        }
+        if (found == null) {
+            found = search(gameParams, topology, seed, clicked, safe);
+            synchronized (cache) {
+                cache.put(key, found);
+            }
+        }
+        return (found < 0) ? null : candidate(gameParams, topology, seed, clicked, safe, found);
+    }
+
+    private static int search(int[] gameParams, Topology topology, long seed, int clicked, int[] safe) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchBudget);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger cut = new AtomicInteger(Integer.MAX_VALUE); // the lowest candidate the deadline interrupted
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int w = 0; w < Math.max(1, ForkJoinPool.commonPool().getParallelism()); ++w) {
+            workers.add(() -> {
+                for (int k = next.getAndIncrement(); k < maxCandidates && k < best.get(); k = next.getAndIncrement()) {
+                    int[] placed = candidate(gameParams, topology, seed, clicked, safe, k);
+                    try {
+                        if (!solvable(gameParams, topology, placed, clicked, deadline)) continue;
+                        best.accumulateAndGet(k, Math::min);
+                    } catch (TimeoutException e) {
+                        cut.accumulateAndGet(k, Math::min);
+                        return null; // out of time, this worker takes no more candidates
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(workers)) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("No-guess generation failed", e.getCause());
+        }
+        // a candidate below the best one that was never finished might have been the result
+        return (best.get() == Integer.MAX_VALUE || cut.get() < best.get()) ? -1 : best.get();
+    }
+
+    // the mines of candidate k, hypermines first
+    static int[] candidate(int[] gameParams, Topology topology, long seed, int clicked, int[] safe, int k) {
+        SplittableRandom random = new SplittableRandom(seed ^ (clicked + 1) * 0xBF58476D1CE4E5B9L
+                                                       ^ (k + 1) * 0x9E3779B97F4A7C15L);
+        int cells = topology.table(gameParams[0], gameParams[0], gameParams[0]).getCells();
+        return GameEngine.place(cells, gameParams[1], gameParams[3], safe, random);
+    }
+
+    // plays the layout from the click, revealing the tiles the solver proves safe until it is won or stuck. Throws if
+    // the deadline (of System.nanoTime) passes first, since a step cut short proves less than it should
+    static boolean solvable(int[] gameParams, Topology topology, int[] placed, int clicked, long deadline)
+            throws TimeoutException {
+        GameEngine trial = new GameEngine(gameParams, topology, placed);
+        int width = trial.getWidth();
+        trial.reveal(clicked % width, clicked / width);
+        while (!trial.isGameEnded()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) throw new TimeoutException();
+            Solver.Result result = new Solver(trial).solve(Math.min(left, TimeUnit.SECONDS.toNanos(stepBudget)),
+                                                           TimeUnit.NANOSECONDS);
+            if (!result.complete()) throw new TimeoutException();
+            if (result.safe().length == 0) return false;
+            for (long tile : result.safe()) trial.reveal((int) (tile % width), (int) (tile / width));
+        }
+        return trial.getNeutralRemaining() == 0;
+    }
+}
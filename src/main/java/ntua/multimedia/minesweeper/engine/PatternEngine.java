@@ -0,0 +1,398 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Finds certain tiles by looking up small windows of the board in a precomputed table, in constant time per window.
+ * It answers the common cases of hints and bots long before a {@link Solver Solver} would, and callers should fall
+ * back to one when it finds nothing.
+ * <p></p>
+ * A window is the 5×5 square around a revealed number. It is described by the hidden tiles of the window that touch
+ * one of the nine numbers in its middle 3×3 square, and by those numbers minus the revealed mines next to them. Every
+ * neighbor of these numbers is inside the window, so whatever follows from them holds on the whole board. Windows
+ * that are rotations or reflections of each other share an entry.
+ * <p></p>
+ * The table holds every window where a single number is enough, which is every 3×3 window around a number, and the
+ * 5×5 windows that the most played boards show most often and that allow a conclusion. It is written by
+ * {@link PatternTableBuilder PatternTableBuilder}.
+ * <p></p>
+ * Only square and toroidal boards, the two shapes whose tiles have eight neighbors in a square, can be looked up.
+ */
+public final class PatternEngine {
+    // file layout: magic, version, number of entries, then the entries sorted by key as varints: the difference of
+    // the key from the one before, the safe mask and the mine mask
+    static final int magic = 0x4d535054; // "MSPT"
+    static final int version = 1;
+
+    /** The table that ships with the game, a resource on the class path. */
+    public static final String resource = "/patterns/patterns.bin";
+
+    // tiles of a window are numbered (dy + 2) * 5 + (dx + 2), the numbers of the middle square (dy + 1) * 3 + (dx + 1)
+    static final int side = 5;
+    static final int cells = side * side;
+    static final int center = cells / 2;
+
+    // the 8 symmetries of a square: where each tile and each middle tile of a window goes
+    private static final int[][] cellMaps = new int[8][cells];
+    private static final int[][] middleMaps = new int[8][9];
+    // the same for the hidden tiles of a key, a byte at a time
+    private static final int[][][] byteMaps = new int[8][4][256];
+    // the tiles of the window next to each of its tiles, for the middle ones
+    private static final int[] neighborMasks = new int[cells];
+    static {
+        for (int t = 0; t < 8; ++t) {
+            for (int dy = -2; dy <= 2; ++dy) {
+                for (int dx = -2; dx <= 2; ++dx) {
+                    int x = ((t & 1) != 0) ? -dx : dx, y = ((t & 2) != 0) ? -dy : dy;
+                    if ((t & 4) != 0) {
+                        int swap = x;
+                        x = y;
+                        y = swap;
+                    }
+                    cellMaps[t][(dy + 2) * side + dx + 2] = (y + 2) * side + x + 2;
+                    if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1) middleMaps[t][(dy + 1) * 3 + dx + 1] = (y + 1) * 3 + x + 1;
+                }
+            }
+            for (int b = 0; b < 4; ++b) {
+                for (int value = 0; value < 256; ++value) {
+                    for (int bit = 0; bit < 8 && 8 * b + bit < cells; ++bit) {
+                        if ((value & (1 << bit)) != 0) byteMaps[t][b][value] |= 1 << cellMaps[t][8 * b + bit];
+                    }
+                }
+            }
+        }
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                int cell = (dy + 2) * side + dx + 2;
+                for (int n : neighbors(cell)) neighborMasks[cell] |= 1 << n;
+            }
+        }
+    }
+
+    // open addressing table, keys are never 0 since a window always has a number. Every entry of the file is stored
+    // in all of its orientations, so that a lookup is a single probe
+    private final long[] keys;
+    private final int[] safeMasks;
+    private final int[] mineMasks;
+    private final int mask;
+
+    PatternEngine(long[] entryKeys, int[] entrySafe, int[] entryMines) {
+        int capacity = Integer.highestOneBit(Math.max(16, entryKeys.length * 8 - 1)) << 1; // at most half full
+        keys = new long[capacity];
+        safeMasks = new int[capacity];
+        mineMasks = new int[capacity];
+        mask = capacity - 1;
+        for (int k = 0; k < entryKeys.length; ++k) {
+            for (int t = 0; t < 8; ++t) {
+                int slot = slot(transform(entryKeys[k], t));
+                keys[slot] = transform(entryKeys[k], t);
+                safeMasks[slot] = (int) transform(entrySafe[k], t);
+                mineMasks[slot] = (int) transform(entryMines[k], t);
+            }
+        }
+    }
+
+    /**
+     * Reads the table that ships with the game, {@link #resource resource}, wherever the game is run from.
+     * <p></p>
+     * @return                  An engine that uses it.
+     * @throws IOException      If the table is missing, cannot be read or is not a table.
+     */
+    public static PatternEngine load() throws IOException {
+        InputStream stream = PatternEngine.class.getResourceAsStream(resource);
+        if (stream == null) throw new IOException("No pattern table: " + resource);
+        return read(stream, resource);
+    }
+
+    /**
+     * Reads a table written by {@link PatternTableBuilder PatternTableBuilder}.
+     * <p></p>
+     * @param path              The path of the table.
+     * @return                  An engine that uses it.
+     * @throws IOException      If the table cannot be read or is not a table.
+     */
+    public static PatternEngine load(String path) throws IOException {
+        return read(new FileInputStream(path), path);
+    }
+
+    private static PatternEngine read(InputStream stream, String name) throws IOException {
+        try (stream;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+
+            if (in.readInt() != magic || in.readInt() != version) throw new IOException("Not a pattern table: " + name);
+            int count = in.readInt();
+            long[] entryKeys = new long[count];
+            int[] entrySafe = new int[count], entryMines = new int[count];
+            long key = 0;
+            for (int k = 0; k < count; ++k) {
+                key += readVarLong(in);
+                entryKeys[k] = key;
+                entrySafe[k] = (int) readVarLong(in);
+                entryMines[k] = (int) readVarLong(in);
+            }
+            return new PatternEngine(entryKeys, entrySafe, entryMines);
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed pattern table");
+    }
+
+    /** @return The number of windows in the table, counting every orientation. */
+    public int size() {
+        int size = 0;
+        for (long key : keys) if (key != 0) ++size;
+        return size;
+    }
+
+    /**
+     * Looks up the window around a tile.
+     * <p></p>
+     * @param board             The board, which is only read.
+     * @param x                 Column of the middle of the window.
+     * @param y                 Row of the middle of the window.
+     * @return                  The tiles of the window that are certain, never complete. Empty if the tile is not a
+     *                          revealed number, the window is not in the table or the board has another shape.
+     */
+    public Solver.Result at(Board board, int x, int y) {
+        Set<Long> safe = new LinkedHashSet<>(), mines = new LinkedHashSet<>();
+        lookup(board, x, y, safe, mines);
+        return result(safe, mines);
+    }
+
+    /**
+     * Looks up the windows around the revealed numbers of a part of the board that touch a hidden tile, row by row,
+     * until one of them proves a tile safe.
+     * <p></p>
+     * @param board             The board, which is only read.
+     * @param x0                First column to look at.
+     * @param y0                First row to look at.
+     * @param width             Columns to look at.
+     * @param height            Rows to look at.
+     * @return                  The certain tiles found, never complete, since the solver may find more. It has safe
+     *                          tiles unless no window has any.
+     */
+    public Solver.Result find(Board board, int x0, int y0, int width, int height) {
+        Set<Long> safe = new LinkedHashSet<>(), mines = new LinkedHashSet<>();
+        for (int y = y0; y < y0 + height && safe.isEmpty(); ++y) {
+            for (int x = x0; x < x0 + width && safe.isEmpty(); ++x) {
+                if (board.getState(x, y) == Board.REVEALED) lookup(board, x, y, safe, mines);
+            }
+        }
+        return result(safe, mines);
+    }
+
+    /**
+     * Looks up the windows around the revealed numbers of the board that touch a hidden tile, until one of them
+     * proves a tile safe.
+     * <p></p>
+     * @param board             The board, which is only read.
+     * @return                  The certain tiles found, never complete, since the solver may find more.
+     */
+    public Solver.Result find(Board board) { return find(board, 0, 0, board.getWidth(), board.getHeight()); }
+
+    private void lookup(Board board, int x, int y, Set<Long> safe, Set<Long> mines) {
+        long window = window(board, x, y);
+        if (single(window) == 0) return; // not a number next to a hidden tile
+        // the whole window first, then the number alone
+        if (!lookup(board, x, y, window, safe, mines)) lookup(board, x, y, single(window), safe, mines);
+    }
+
+    private boolean lookup(Board board, int x, int y, long window, Set<Long> safe, Set<Long> mines) {
+        int slot = slot(window);
+        if (keys[slot] == 0) return false;
+        int width = board.getWidth(), height = board.getHeight();
+        boolean torus = board.getTopology() == Topology.TORUS;
+        for (int cell = 0; cell < cells; ++cell) {
+            int bit = 1 << cell;
+            if (((safeMasks[slot] | mineMasks[slot]) & bit) == 0) continue;
+            int cx = x + cell % side - 2, cy = y + cell / side - 2;
+            if (torus) {
+                cx = Math.floorMod(cx, width);
+                cy = Math.floorMod(cy, height);
+            }
+            long tile = (long) cy * width + cx;
+            if ((safeMasks[slot] & bit) != 0) safe.add(tile);
+            else mines.add(tile);
+        }
+        return true;
+    }
+
+    private static Solver.Result result(Set<Long> safe, Set<Long> mines) {
+        return new Solver.Result(safe.stream().mapToLong(Long::longValue).toArray(),
+                                 mines.stream().mapToLong(Long::longValue).toArray(), false);
+    }
+
+    private int slot(long key) {
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    // A window as a key: bits 0 to 24 are its hidden tiles next to a number of the middle square, and 4 bits per
+    // middle tile from bit 25 on hold its number minus the revealed mines around it, plus 1, or 0 if it is not a
+    // revealed number. Returns 0 if the tile is not a revealed number or the board cannot be looked up
+    static long window(Board board, int x, int y) {
+        int width = board.getWidth(), height = board.getHeight();
+        boolean torus = board.getTopology() == Topology.TORUS;
+        if (!torus && board.getTopology() != Topology.SQUARE) return 0;
+        if (torus && (width < side || height < side)) return 0;
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        if (board.getState(x, y) != Board.REVEALED || board.getType(x, y) != Board.NEUTRAL) return 0;
+
+        // most numbers are deep in the revealed area, so look at their neighbors before reading the whole window
+        boolean touchesHidden = false;
+        for (int dy = -1; dy <= 1 && !touchesHidden; ++dy) {
+            for (int dx = -1; dx <= 1 && !touchesHidden; ++dx) {
+                int cx = x + dx, cy = y + dy;
+                if (torus) {
+                    cx = Math.floorMod(cx, width);
+                    cy = Math.floorMod(cy, height);
+                }
+                else if (cx < 0 || cy < 0 || cx >= width || cy >= height) continue;
+                touchesHidden = board.getState(cx, cy) != Board.REVEALED;
+            }
+        }
+        if (!touchesHidden) return 0;
+
+        // the hidden tiles and the revealed mines of the window, tiles outside the board are neither
+        int hiddenTiles = 0, mineTiles = 0;
+        for (int dy = -2; dy <= 2; ++dy) {
+            for (int dx = -2; dx <= 2; ++dx) {
+                int cx = x + dx, cy = y + dy;
+                if (torus) {
+                    cx = Math.floorMod(cx, width);
+                    cy = Math.floorMod(cy, height);
+                }
+                else if (cx < 0 || cy < 0 || cx >= width || cy >= height) continue;
+                int bit = 1 << ((dy + 2) * side + dx + 2);
+                if (board.getState(cx, cy) != Board.REVEALED) hiddenTiles |= bit;
+                else if (board.getType(cx, cy) != Board.NEUTRAL) mineTiles |= bit;
+            }
+        }
+
+        long key = 0;
+        int vars = 0;
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                int cell = (dy + 2) * side + dx + 2;
+                int hidden = hiddenTiles & neighborMasks[cell];
+                // numbers without hidden neighbors say nothing
+                if (((hiddenTiles | mineTiles) & (1 << cell)) != 0 || hidden == 0) continue;
+                int cx = x + dx, cy = y + dy;
+                if (torus) {
+                    cx = Math.floorMod(cx, width);
+                    cy = Math.floorMod(cy, height);
+                }
+                else if (cx < 0 || cy < 0 || cx >= width || cy >= height) continue;
+                int value = board.getAdjacent(cx, cy) - Integer.bitCount(mineTiles & neighborMasks[cell]);
+                vars |= hidden;
+                key |= (long) (value + 1) << (cells + 4 * ((dy + 1) * 3 + dx + 1));
+            }
+        }
+        return key | vars;
+    }
+
+    // the window with only its middle number
+    static long single(long window) {
+        int value = (int) (window >>> (cells + 4 * 4)) & 15;
+        if (value == 0) return 0;
+        return (long) value << (cells + 4 * 4) | (window & neighborMasks[center]);
+    }
+
+    static long varMask(long window) { return window & ((1L << cells) - 1); }
+
+    // the tiles of the window next to one of its middle tiles
+    static int[] neighbors(int cell) {
+        int[] neighbors = new int[8];
+        int count = 0;
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                if (dx != 0 || dy != 0) neighbors[count++] = cell + dy * side + dx;
+            }
+        }
+        return neighbors;
+    }
+
+    // the symmetry that turns a window into the smallest key, which is the one the table stores
+    static int symmetry(long window) {
+        int best = 0;
+        long bestKey = window;
+        for (int t = 1; t < 8; ++t) {
+            long key = transform(window, t);
+            if (key < bestKey) {
+                bestKey = key;
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    static long canonical(long window) { return transform(window, symmetry(window)); }
+
+    static long transform(long window, int t) {
+        if (t == 0) return window;
+        int[][] maps = byteMaps[t];
+        long key = maps[0][(int) window & 255] | maps[1][(int) (window >>> 8) & 255] | maps[2][(int) (window >>> 16) & 255]
+                | maps[3][(int) (window >>> 24) & 1];
+        for (int m = 0; m < 9; ++m) {
+            long value = (window >>> (cells + 4 * m)) & 15;
+            key |= value << (cells + 4 * middleMaps[t][m]);
+        }
+        return key;
+    }
+
+    // The tiles of a window that are certain, found by trying every arrangement of mines on its hidden tiles, as
+    // {safe mask, mine mask}. Both are empty if the numbers contradict each other
+    static int[] deduce(long window) {
+        int[] vars = new int[cells];
+        int n = 0;
+        for (int cell = 0; cell < cells; ++cell) if ((window & (1L << cell)) != 0) vars[n++] = cell;
+        int[] constraintMasks = new int[9], values = new int[9];
+        int constraints = 0;
+        for (int m = 0; m < 9; ++m) {
+            int value = (int) (window >>> (cells + 4 * m)) & 15;
+            if (value == 0) continue;
+            constraintMasks[constraints] = (int) window & neighborMasks[(m / 3 + 1) * side + m % 3 + 1];
+            values[constraints++] = value - 1;
+        }
+        int[] seen = new int[2]; // tiles seen safe, tiles seen as mines
+        boolean[] any = new boolean[1];
+        search(vars, n, 0, 0, constraintMasks, values, constraints, seen, any);
+        if (!any[0]) return new int[2];
+        int all = (int) varMask(window);
+        return new int[] {all & ~seen[1], all & ~seen[0]};
+    }
+
+    private static void search(int[] vars, int n, int k, int mines, int[] constraintMasks, int[] values,
+                               int constraints, int[] seen, boolean[] any) {
+        // every number must still be reachable: not too many mines yet, and enough unassigned tiles left
+        int assigned = 0;
+        for (int j = 0; j < k; ++j) assigned |= 1 << vars[j];
+        for (int c = 0; c < constraints; ++c) {
+            int count = Integer.bitCount(mines & constraintMasks[c]);
+            int open = Integer.bitCount(constraintMasks[c] & ~assigned);
+            if (count > values[c] || count + open < values[c]) return;
+        }
+        if (k == n) {
+            any[0] = true;
+            seen[0] |= assigned & ~mines;
+            seen[1] |= mines;
+            return;
+        }
+        search(vars, n, k + 1, mines, constraintMasks, values, constraints, seen, any);
+        search(vars, n, k + 1, mines | 1 << vars[k], constraintMasks, values, constraints, seen, any);
+    }
+}
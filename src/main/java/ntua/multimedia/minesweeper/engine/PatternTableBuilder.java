@@ -0,0 +1,140 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the table of a {@link PatternEngine PatternEngine}. It is run once, and the table it writes is kept with the
+ * resources of the game:
+ * <pre>
+ *     java -cp target/classes ntua.multimedia.minesweeper.engine.PatternTableBuilder [path] [games]
+ * </pre>
+ * Windows with a single number are all tried, which covers every 3×3 window. The 5×5 windows are harvested from
+ * seeded games of the two difficulties of the game and of a larger board, played by a bot that reveals the tiles the
+ * {@link Solver Solver} proves safe and guesses otherwise. The windows seen most often are kept, if they allow more
+ * than their middle number alone. Every entry is proven by trying all arrangements of mines of its window, so the
+ * games only decide which windows are worth the space.
+ */
+public final class PatternTableBuilder {
+    // the resource of PatternEngine in the source tree, copied to the class path by the next build
+    private static final String defaultPath = "src/main/resources" + PatternEngine.resource;
+    private static final int defaultGames = 3000;
+    private static final long seed = 20230501L;
+
+    // most 5x5 windows that are kept, and how often they must have been seen
+    private static final int maxWindows = 1 << 15;
+    private static final int minSeen = 3;
+
+    // { size, mines } of the boards that are played
+    private static final int[][] boards = new int[][] {{9, 10}, {16, 40}, {30, 180}};
+
+    private PatternTableBuilder() {}
+
+    public static void main(String[] args) throws IOException {
+        String path = (args.length > 0) ? args[0] : defaultPath;
+        int games = (args.length > 1) ? Integer.parseInt(args[1]) : defaultGames;
+
+        Map<Long, int[]> table = new HashMap<>();
+
+        // every number alone
+        for (int value = 0; value <= 8; ++value) {
+            for (int hidden = 1; hidden < 256; ++hidden) {
+                long window = (long) (value + 1) << (PatternEngine.cells + 4 * 4);
+                int[] neighbors = PatternEngine.neighbors(PatternEngine.center);
+                for (int n = 0; n < 8; ++n) if ((hidden & (1 << n)) != 0) window |= 1L << neighbors[n];
+                add(table, PatternEngine.canonical(window));
+            }
+        }
+        int singles = table.size();
+
+        // the 5x5 windows of played games, by how often they are seen
+        Map<Long, Integer> seen = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int[] board : boards) {
+            for (int game = 0; game < games; ++game) {
+                GameEngine engine = new GameEngine(new int[] {board[0], board[1], 3600, 0}, Topology.SQUARE,
+                                                   random.nextLong());
+                engine.reveal(board[0] / 2, board[0] / 2);
+                while (!engine.isGameEnded()) {
+                    harvest(engine, seen);
+                    long[] safe = new Solver(engine).solve(1, TimeUnit.SECONDS).safe();
+                    if (safe.length > 0) {
+                        for (long tile : safe) engine.reveal((int) (tile % board[0]), (int) (tile / board[0]));
+                        continue;
+                    }
+                    int x, y;
+                    do {
+                        x = random.nextInt(board[0]);
+                        y = random.nextInt(board[0]);
+                    } while (engine.getState(x, y) != Board.HIDDEN);
+                    engine.reveal(x, y);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> common = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : seen.entrySet()) if (entry.getValue() >= minSeen) common.add(entry);
+        common.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        int windows = 0;
+        for (Map.Entry<Long, Integer> entry : common) {
+            if (windows == maxWindows) break;
+            long window = entry.getKey();
+            int[] certain = PatternEngine.deduce(window);
+            int[] alone = PatternEngine.deduce(PatternEngine.single(window));
+            if (((certain[0] | certain[1]) & ~(alone[0] | alone[1])) == 0) continue;
+            table.put(window, certain);
+            ++windows;
+        }
+
+        List<Long> keys = new ArrayList<>(table.keySet());
+        keys.sort(null);
+        try (FileOutputStream fileOutputStream = new FileOutputStream(path, false);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+
+            out.writeInt(PatternEngine.magic);
+            out.writeInt(PatternEngine.version);
+            out.writeInt(keys.size());
+            long previous = 0;
+            for (long key : keys) {
+                writeVarLong(out, key - previous);
+                writeVarLong(out, table.get(key)[0]);
+                writeVarLong(out, table.get(key)[1]);
+                previous = key;
+            }
+        }
+        System.out.println(singles + " single numbers and " + windows + " windows written to " + path);
+    }
+
+    // 7 bits at a time, lowest first, the high bit of a byte says whether more follow
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void add(Map<Long, int[]> table, long window) {
+        int[] certain = PatternEngine.deduce(window);
+        if ((certain[0] | certain[1]) != 0) table.put(window, certain);
+    }
+
+    // counts the windows around the numbers next to hidden tiles
+    private static void harvest(GameEngine engine, Map<Long, Integer> seen) {
+        for (int y = 0; y < engine.getHeight(); ++y) {
+            for (int x = 0; x < engine.getWidth(); ++x) {
+                long window = PatternEngine.window(engine, x, y);
+                if (PatternEngine.single(window) == 0) continue;
+                seen.merge(PatternEngine.canonical(window), 1, Integer::sum);
+            }
+        }
+    }
+}
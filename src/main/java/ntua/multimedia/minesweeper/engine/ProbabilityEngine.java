@@ -0,0 +1,408 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the exact probability that each hidden tile of a board is a mine, given what a player can see: the
+ * revealed numbers, the revealed mines and the number of mines of the board. Hypermines count as mines. Flags are not
+ * trusted.
+ * <p></p>
+ * The frontier (the hidden tiles next to numbers) is simplified like the {@link Solver Solver} does and split in
+ * independent components. Every component is enumerated on its own, in parallel on the common
+ * {@link ForkJoinPool ForkJoinPool}, counting its arrangements of mines by the number of mines they use. The
+ * components are then combined with the number of ways to place the remaining mines on the hidden tiles away from the
+ * frontier, a binomial coefficient that is computed from cached logarithms of factorials.
+ * <p></p>
+ * An engine remembers the components it has enumerated, so after a move only the parts of the frontier that changed
+ * are enumerated again. Keep one engine per board to benefit from it.
+ * <p></p>
+ * Boards that do not know their number of mines, like the {@link InfiniteBoard InfiniteBoard}, are weighed with their
+ * density instead: every hidden tile is a mine with the same probability, independently of the others.
+ */
+public class ProbabilityEngine {
+    /**
+     * The probabilities of a board.
+     * <p></p>
+     * @param cells             The hidden tiles of the frontier, as <code>y * width + x</code>, in increasing order.
+     * @param probabilities     The probability that each of them is a mine.
+     * @param interior          The probability that any other hidden tile is a mine.
+     * @param complete          Whether every component was enumerated within the budget. Components that were not
+     *                          are treated as if their numbers were not there, so their probabilities are estimates.
+     */
+    public record Result(long[] cells, double[] probabilities, double interior, boolean complete) {
+        /**
+         * @param cell              A hidden tile, as <code>y * width + x</code>.
+         * @return                  The probability that it is a mine.
+         */
+        public double probability(long cell) {
+            int k = Arrays.binarySearch(cells, cell);
+            return (k >= 0) ? probabilities[k] : interior;
+        }
+
+        /** @return The frontier tile least likely to be a mine, or -1 if the interior is as safe or safer. */
+        public long safest() {
+            int best = -1;
+            for (int k = 0; k < cells.length; ++k) {
+                if (probabilities[k] < ((best < 0) ? interior : probabilities[best])) best = k;
+            }
+            return (best < 0) ? -1 : cells[best];
+        }
+    }
+
+    // enumerated components that are remembered between moves
+    private static final int cacheSize = 4096;
+
+    private final Board board;
+    private final int x0;
+    private final int y0;
+    private final int width;
+    private final int height;
+
+    private final Map<Key, Counts> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Counts> eldest) { return size() > cacheSize; }
+    };
+
+    /**
+     * An engine for a whole board.
+     * <p></p>
+     * @param board             The board, usually of a game in progress. It is read, never changed.
+     */
+    public ProbabilityEngine(Board board) { this(board, 0, 0, board.getWidth(), board.getHeight()); }
+
+    /**
+     * An engine for a window of a square board that does not know its number of mines, for example the part of an
+     * endless board around the player.
+     * <p></p>
+     * @param board             The board, an {@link InfiniteBoard InfiniteBoard} unless the window is the whole board.
+     * @param x0                First column of the window.
+     * @param y0                First row of the window.
+     * @param width             Columns of the window.
+     * @param height            Rows of the window.
+     */
+    public ProbabilityEngine(Board board, int x0, int y0, int width, int height) {
+        boolean whole = x0 == 0 && y0 == 0 && width == board.getWidth() && height == board.getHeight();
+        if (!whole && board.getTotalMines() >= 0) {
+            throw new IllegalArgumentException("Boards with a known number of mines must be weighed whole");
+        }
+        if (board.getTotalMines() < 0 && !(board instanceof InfiniteBoard)) {
+            throw new IllegalArgumentException("Board has neither a number of mines nor a density");
+        }
+        this.board = board;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Computes the probabilities of the board as it is now. Must not run at the same time as a change to the board.
+     * <p></p>
+     * @param budget            How long the engine may take.
+     * @param unit              The unit of the budget.
+     * @return                  The probabilities.
+     */
+    public synchronized Result compute(long budget, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(budget);
+        Frontier frontier = new Frontier(board, x0, y0, width, height, deadline);
+        boolean complete = frontier.propagate(deadline);
+        List<Frontier.Component> components = frontier.components();
+
+        // enumerate what is not cached, in parallel
+        Key[] keys = new Key[components.size()];
+        Counts[] counts = new Counts[components.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int j = 0; j < keys.length; ++j) {
+            keys[j] = Key.of(frontier, components.get(j));
+            counts[j] = cache.get(keys[j]);
+            if (counts[j] == null) missing.add(j);
+        }
+        List<Callable<Counts>> tasks = new ArrayList<>();
+        for (int j : missing) tasks.add(() -> new Counting(components.get(j), deadline).run());
+        List<Counts> enumerated = invokeAll(tasks);
+        for (int k = 0; k < missing.size(); ++k) {
+            int j = missing.get(k);
+            counts[j] = enumerated.get(k);
+            if (counts[j] != null) cache.put(keys[j], counts[j]);
+            else complete = false; // out of time, its tiles are weighed like the interior
+        }
+
+        // unknowns that belong to no enumerated component are fixed, or as free as the interior
+        int fixedMines = 0, free = 0, frontierVars = 0;
+        boolean[] covered = new boolean[frontier.getUnknowns()];
+        for (int j = 0; j < counts.length; ++j) {
+            if (counts[j] == null) continue;
+            for (int v : components.get(j).vars()) covered[v] = true;
+            frontierVars += components.get(j).vars().length;
+        }
+        for (int v = 0; v < covered.length; ++v) {
+            if (covered[v]) continue;
+            if (frontier.getKnown(v) == Frontier.MINE) ++fixedMines;
+            else if (frontier.getKnown(v) == Frontier.UNKNOWN) ++free;
+        }
+        long interiorTiles = frontier.getHiddenTiles() - frontier.getUnknowns() + free;
+
+        // weights of the arrangements by the number of mines on the enumerated components
+        int maxMines = 0;
+        for (Counts c : counts) if (c != null) maxMines += c.ways.length - 1;
+        double[] weights = new double[maxMines + 1];
+        long remaining;
+        double p = 0;
+        if (board.getTotalMines() >= 0) {
+            remaining = board.getTotalMines() - frontier.getRevealedMines() - fixedMines;
+            for (int s = 0; s <= maxMines; ++s) weights[s] = Combinatorics.logChoose(interiorTiles, remaining - s);
+        }
+        else {
+            remaining = -1;
+            p = ((InfiniteBoard) board).getDensity() / 1000.0;
+            for (int s = 0; s <= maxMines; ++s) {
+                weights[s] = s * Math.log(p) + (frontierVars - s) * Math.log1p(-p);
+            }
+        }
+        double top = Double.NEGATIVE_INFINITY;
+        for (double w : weights) top = Math.max(top, w);
+        if (top == Double.NEGATIVE_INFINITY) { // the numbers contradict the mine count, ignore it
+            top = 0;
+            Arrays.fill(weights, 0);
+            complete = false;
+        }
+        for (int s = 0; s <= maxMines; ++s) weights[s] = Math.exp(weights[s] - top);
+
+        // products of the ways of the components before and after each one
+        List<Integer> present = new ArrayList<>();
+        for (int j = 0; j < counts.length; ++j) if (counts[j] != null) present.add(j);
+        int n = present.size();
+        double[][] before = new double[n + 1][], after = new double[n + 1][];
+        before[0] = new double[] {1};
+        for (int k = 0; k < n; ++k) before[k + 1] = convolve(before[k], counts[present.get(k)].ways);
+        after[n] = new double[] {1};
+        for (int k = n - 1; k >= 0; --k) after[k] = convolve(after[k + 1], counts[present.get(k)].ways);
+
+        // every component against all the others, in parallel
+        List<Callable<double[]>> weighing = new ArrayList<>();
+        for (int k = 0; k < n; ++k) {
+            int index = k;
+            weighing.add(() -> weigh(counts[present.get(index)], convolve(before[index], after[index + 1]), weights));
+        }
+        List<double[]> weighed = invokeAll(weighing);
+
+        double interior;
+        if (remaining < 0) interior = p;
+        else if (interiorTiles == 0) interior = 0;
+        else {
+            double[] all = before[n];
+            double mines = 0, total = 0;
+            for (int s = 0; s < all.length; ++s) {
+                mines += all[s] * weights[s] * Math.max(0, remaining - s);
+                total += all[s] * weights[s];
+            }
+            interior = mines / total / interiorTiles;
+        }
+
+        // collect everything by tile
+        long[] cells = new long[frontier.getUnknowns()];
+        double[] probabilities = new double[frontier.getUnknowns()];
+        int count = 0;
+        for (int v = 0; v < covered.length; ++v) {
+            if (covered[v] || frontier.getKnown(v) == Frontier.UNKNOWN) continue;
+            cells[count] = frontier.getCell(v);
+            probabilities[count++] = frontier.getKnown(v);
+        }
+        for (int k = 0; k < n; ++k) {
+            int[] vars = components.get(present.get(k)).vars();
+            for (int v = 0; v < vars.length; ++v) {
+                cells[count] = frontier.getCell(vars[v]);
+                probabilities[count++] = weighed.get(k)[v];
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; ++k) order[k] = k;
+        Arrays.sort(order, (a, b) -> Long.compare(cells[a], cells[b]));
+        long[] sortedCells = new long[count];
+        double[] sortedProbabilities = new double[count];
+        for (int k = 0; k < count; ++k) {
+            sortedCells[k] = cells[order[k]];
+            sortedProbabilities[k] = probabilities[order[k]];
+        }
+        return new Result(sortedCells, sortedProbabilities, interior, complete);
+    }
+
+    // the probability of each unknown of a component, given the ways of the other components by their mines
+    private static double[] weigh(Counts counts, double[] others, double[] weights) {
+        int size = counts.ways.length;
+        // g[k]: weight of the other components and the interior when this one uses k mines
+        double[] g = new double[size];
+        for (int k = 0; k < size; ++k) {
+            for (int s = 0; s < others.length && k + s < weights.length; ++s) g[k] += others[s] * weights[k + s];
+        }
+        double total = 0;
+        for (int k = 0; k < size; ++k) total += counts.ways[k] * g[k];
+        double[] probabilities = new double[counts.mines.length];
+        for (int v = 0; v < probabilities.length; ++v) {
+            double mine = 0;
+            for (int k = 0; k < size; ++k) mine += counts.mines[v][k] * g[k];
+            probabilities[v] = mine / total;
+        }
+        return probabilities;
+    }
+
+    // the product of two polynomials, scaled so that its largest coefficient is 1. Every probability is a ratio of
+    // sums that all contain the same factors, so the scale cancels out and the numbers never overflow
+    private static double[] convolve(double[] a, double[] b) {
+        double[] c = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; ++i) {
+            if (a[i] == 0) continue;
+            for (int j = 0; j < b.length; ++j) c[i + j] += a[i] * b[j];
+        }
+        double top = 0;
+        for (double x : c) top = Math.max(top, x);
+        if (top > 0) for (int k = 0; k < c.length; ++k) c[k] /= top;
+        return c;
+    }
+
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        try {
+            if (tasks.size() == 1) results.add(tasks.get(0).call());
+            else if (tasks.size() > 1) {
+                for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Probability engine failed", e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("Probability engine failed", e);
+        }
+        return results;
+    }
+
+    // The arrangements of a component by the number of mines they use: ways[k] of them use k mines, and unknown v is
+    // a mine in mines[v][k] of those. Both are scaled by the same factor
+    private record Counts(double[] ways, double[][] mines) {}
+
+    // A component as the tiles of its unknowns and its equations, the same equations on the same tiles always have
+    // the same arrangements
+    private record Key(long[] data) {
+        static Key of(Frontier frontier, Frontier.Component component) {
+            int length = 2 + component.vars().length;
+            for (int[] constraint : component.constraints()) length += 2 + constraint.length;
+            long[] data = new long[length];
+            int k = 0;
+            data[k++] = component.vars().length;
+            for (int v : component.vars()) data[k++] = frontier.getCell(v);
+            data[k++] = component.constraints().length;
+            for (int c = 0; c < component.constraints().length; ++c) {
+                data[k++] = component.constraints()[c].length;
+                for (int v : component.constraints()[c]) data[k++] = v;
+                data[k++] = component.values()[c];
+            }
+            return new Key(data);
+        }
+
+        @Override
+        public boolean equals(Object o) { return o instanceof Key key && Arrays.equals(data, key.data); }
+
+        @Override
+        public int hashCode() { return Arrays.hashCode(data); }
+    }
+
+    // Backtracks over every arrangement of mines of a component and counts them. Returns null if the deadline passed
+    // first
+    private static final class Counting {
+        private final int n;
+        private final int[][] constraintsOf;
+        private final int[] values;
+        private final int[] sum;
+        private final int[] unassigned;
+        private final byte[] assignment;
+        private final long deadline;
+
+        private final double[] ways;
+        private final double[][] mines;
+        private int used;
+        private long nodes;
+        private boolean timedOut;
+
+        Counting(Frontier.Component component, long deadline) {
+            n = component.vars().length;
+            values = component.values();
+            this.deadline = deadline;
+            sum = new int[values.length];
+            unassigned = new int[values.length];
+            assignment = new byte[n];
+            ways = new double[n + 1];
+            mines = new double[n][n + 1];
+
+            int[] counts = new int[n];
+            int[][] constraints = component.constraints();
+            for (int c = 0; c < constraints.length; ++c) {
+                unassigned[c] = constraints[c].length;
+                for (int v : constraints[c]) ++counts[v];
+            }
+            constraintsOf = new int[n][];
+            for (int v = 0; v < n; ++v) constraintsOf[v] = new int[counts[v]];
+            for (int c = 0; c < constraints.length; ++c) {
+                for (int v : constraints[c]) constraintsOf[v][--counts[v]] = c;
+            }
+        }
+
+        Counts run() {
+            search(0);
+            if (timedOut) return null;
+            // arrangements never use more mines than the largest count that was seen
+            int size = n + 1;
+            while (size > 1 && ways[size - 1] == 0) --size;
+            double top = 0;
+            for (int k = 0; k < size; ++k) top = Math.max(top, ways[k]);
+            double[] scaledWays = new double[size];
+            double[][] scaledMines = new double[n][size];
+            for (int k = 0; k < size; ++k) {
+                scaledWays[k] = ways[k] / top;
+                for (int v = 0; v < n; ++v) scaledMines[v][k] = mines[v][k] / top;
+            }
+            return new Counts(scaledWays, scaledMines);
+        }
+
+        // returns false to stop the search
+        private boolean search(int v) {
+            if ((++nodes & 4095) == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return false;
+            }
+            if (v == n) {
+                ++ways[used];
+                for (int u = 0; u < n; ++u) if (assignment[u] == 1) ++mines[u][used];
+                return true;
+            }
+            for (byte value = 0; value <= 1; ++value) {
+                assignment[v] = value;
+                used += value;
+                boolean feasible = true;
+                for (int c : constraintsOf[v]) {
+                    sum[c] += value;
+                    --unassigned[c];
+                    if (sum[c] > values[c] || sum[c] + unassigned[c] < values[c]) feasible = false;
+                }
+                boolean go = !feasible || search(v + 1);
+                for (int c : constraintsOf[v]) {
+                    sum[c] -= value;
+                    ++unassigned[c];
+                }
+                used -= value;
+                if (!go) return false;
+            }
+            return true;
+        }
+    }
+}
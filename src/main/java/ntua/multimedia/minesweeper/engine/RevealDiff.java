@@ -0,0 +1,129 @@
+package ntua.multimedia.minesweeper.engine;
+
+/**
+ * Everything that changed on a {@link Board Board} during one action of the player (or one second of the countdown),
+ * in a compact form.
+ * <p></p>
+ * The changed tiles are kept in parallel arrays: the index of the tile (<code>y * width + x</code>), its new state and,
+ * for revealed tiles, its type and a value (the number of neighboring mines of a neutral tile, 1 for an unsafe mine).
+ * The counters of the game are kept as the difference from their values before the action.
+ * <p></p>
+ * A diff is created by a {@link DiffRecorder DiffRecorder} and may be replayed to a {@link GameListener GameListener}
+ * in pieces with {@link #replay(GameListener, int, int) replay}, so that a large cascade can be drawn over several
+ * frames, followed by a single call to {@link #finish(GameListener) finish}.
+ */
+public final class RevealDiff {
+    private final Board board;
+    private final int width;
+    private final int size;
+    private final long[] cells;
+    private final byte[] states;
+    private final byte[] types;
+    private final byte[] values;
+
+    private final int flagsDelta;
+    private final int flagsUsed;
+    private final int totalMines;
+    private final int attemptsDelta;
+    private final int attempts;
+    private final int timeDelta;
+    private final int timeRemaining;
+
+    private final boolean minesPlaced;
+    private final boolean gameEnded;
+    private final boolean gameWon;
+    private final boolean gameResumed;
+
+    RevealDiff(Board board, int width, int size, long[] cells, byte[] states, byte[] types, byte[] values,
+               int flagsDelta, int flagsUsed, int totalMines, int attemptsDelta, int attempts,
+               int timeDelta, int timeRemaining, boolean minesPlaced, boolean gameEnded, boolean gameWon,
+               boolean gameResumed) {
+        this.board = board;
+        this.width = width;
+        this.size = size;
+        this.cells = cells;
+        this.states = states;
+        this.types = types;
+        this.values = values;
+        this.flagsDelta = flagsDelta;
+        this.flagsUsed = flagsUsed;
+        this.totalMines = totalMines;
+        this.attemptsDelta = attemptsDelta;
+        this.attempts = attempts;
+        this.timeDelta = timeDelta;
+        this.timeRemaining = timeRemaining;
+        this.minesPlaced = minesPlaced;
+        this.gameEnded = gameEnded;
+        this.gameWon = gameWon;
+        this.gameResumed = gameResumed;
+    }
+
+    /**
+     * Reports the changes of tiles <code>from</code> (inclusive) to <code>to</code> (exclusive) to a listener, in
+     * the order they happened.
+     * <p></p>
+     * @param listener          Receives one call per changed tile.
+     * @param from              First change to report.
+     * @param to                One past the last change to report, at most {@link #size() size()}.
+     * @return                  <code>to</code>, where the next piece starts.
+     */
+    public int replay(GameListener listener, int from, int to) {
+        for (int k = from; k < to; ++k) {
+            int x = (int) (cells[k] % width), y = (int) (cells[k] / width);
+            switch (states[k]) {
+                case Board.HIDDEN -> listener.tileHidden(x, y);
+                case Board.FLAGGED -> listener.tileFlagged(x, y);
+                default -> {
+                    if (types[k] == Board.NEUTRAL) listener.neutralRevealed(x, y, values[k]);
+                    else listener.mineRevealed(x, y, types[k] == Board.HYPERMINE, values[k] == 1);
+                }
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Reports whether the mines were placed, the counters that changed and whether the game ended. Meant to be called
+     * once, after every tile has been replayed.
+     * <p></p>
+     * @param listener          Receives one call per change.
+     */
+    public void finish(GameListener listener) {
+        if (minesPlaced) listener.minesPlaced(board);
+        if (flagsDelta != 0) listener.flagsChanged(flagsUsed, totalMines);
+        if (attemptsDelta != 0) listener.attemptsChanged(attempts);
+        if (timeDelta != 0) listener.timeChanged(timeRemaining);
+        if (gameResumed) listener.gameResumed();
+        if (gameEnded) listener.gameEnded(gameWon);
+    }
+
+    /** @return The number of tiles that changed. */
+    public int size() { return size; }
+    /** @return Whether nothing at all changed. */
+    public boolean isEmpty() {
+        return size == 0 && flagsDelta == 0 && attemptsDelta == 0 && timeDelta == 0 && !minesPlaced && !gameEnded
+               && !gameResumed;
+    }
+    /** @return The index (<code>y * width + x</code>) of the k-th changed tile. */
+    public long getCell(int k) { return cells[k]; }
+    /** @return The new state of the k-th changed tile. */
+    public byte getState(int k) { return states[k]; }
+    /** @return The type of the k-th changed tile if it was revealed, {@link Board#UNASSIGNED UNASSIGNED} otherwise. */
+    public byte getType(int k) { return types[k]; }
+    /** @return The neighboring mines of the k-th changed tile if it is a revealed neutral one, 1 for an unsafe mine. */
+    public byte getValue(int k) { return values[k]; }
+    /** @return How many flags were placed (positive) or removed (negative). */
+    public int getFlagsDelta() { return flagsDelta; }
+    /** @return How many attempts were made. */
+    public int getAttemptsDelta() { return attemptsDelta; }
+    /** @return How many seconds the countdown changed by. */
+    public int getTimeDelta() { return timeDelta; }
+    /** @return Whether the mines were placed (or moved because of the first click). */
+    public boolean isMinesPlaced() { return minesPlaced; }
+    /** @return Whether the game ended. */
+    public boolean isGameEnded() { return gameEnded; }
+    /** @return Whether the game ended with a win. */
+    public boolean isGameWon() { return gameWon; }
+    /** @return Whether the game was on again after an undo. */
+    public boolean isGameResumed() { return gameResumed; }
+}
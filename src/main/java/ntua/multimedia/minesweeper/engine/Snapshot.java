@@ -0,0 +1,250 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A game in progress, packed so that it may be saved and resumed later.
+ * <p></p>
+ * A snapshot keeps what is needed to rebuild a {@link GameEngine GameEngine}: its description, shape, seed and first
+ * left-click, the counters <code>flagsUsed</code>, <code>attempts</code> and <code>timeRemaining</code>, and the state
+ * and the type of every tile, two bits each, so two tiles share a byte. The neighboring mines of the tiles follow from
+ * the mines, so they are not kept. A board of a million tiles takes half a megabyte.
+ * <p></p>
+ * {@link #of(GameEngine, String) of} packs an engine, quickly enough to be called on the thread that plays the game,
+ * and the snapshot may then be {@link #write(String) written} by any other thread while the game goes on. Files are
+ * written and read through memory-mapped {@link FileChannel FileChannels}. A file is written next to its final name
+ * first and then moved over it, so a crash while saving leaves the previous save in place.
+ * <p></p>
+ * A game that had not started yet is resumed from its seed, so its first left-click still places the same mines as
+ * in the game that was saved.
+ */
+public final class Snapshot {
+    private static final int magic = 0x4d535353; // "MSSS"
+    private static final int version = 1;
+    // the fixed part of a file: magic, version, description, topology, flags, seed, first click, counters, name length
+    private static final int headerSize = 4 + 4 + 4 * 4 + 1 + 1 + 8 + 2 * 4 + 3 * 4 + 2;
+    // boards with more tiles than this are endless and never built whole
+    private static final long maxTiles = 1L << 26;
+
+    private static final int started = 1, ended = 2, noGuessFlag = 4;
+
+    // what every value of a packed byte holds, so that a whole file is checked a byte at a time
+    private static final byte[] mineCount = new byte[256];
+    private static final byte[] hyperCount = new byte[256];
+    private static final byte[] flagCount = new byte[256];
+    private static final boolean[] invalid = new boolean[256];
+    static {
+        for (int b = 0; b < 256; ++b) {
+            for (int tile : new int[] {b & 0xF, b >> 4}) {
+                int state = tile >> 2, type = tile & 3;
+                if (state > Board.REVEALED || type == Board.UNASSIGNED) invalid[b] = true;
+                if (type != Board.NEUTRAL) ++mineCount[b];
+                if (type == Board.HYPERMINE) ++hyperCount[b];
+                if (state == Board.FLAGGED) ++flagCount[b];
+            }
+        }
+    }
+
+    private final int[] gameParams;
+    private final Topology topology;
+    private final long seed;
+    private final int flags;
+    private final int firstX;
+    private final int firstY;
+    private final int flagsUsed;
+    private final int attempts;
+    private final int timeRemaining;
+    private final String name;
+    private final int tiles;
+    private final byte[] packed; // tile i in the low bits of byte i / 2 if i is even, in the high bits if it is odd
+
+    private Snapshot(int[] gameParams, Topology topology, long seed, int flags, int firstX, int firstY, int flagsUsed,
+                     int attempts, int timeRemaining, String name, int tiles, byte[] packed) {
+        this.gameParams = gameParams;
+        this.topology = topology;
+        this.seed = seed;
+        this.flags = flags;
+        this.firstX = firstX;
+        this.firstY = firstY;
+        this.flagsUsed = flagsUsed;
+        this.attempts = attempts;
+        this.timeRemaining = timeRemaining;
+        this.name = name;
+        this.tiles = tiles;
+        this.packed = packed;
+    }
+
+    /**
+     * Packs a game. It must not change while it is being packed.
+     * <p></p>
+     * @param engine            The game.
+     * @param name              A name saved with it, for example the SCENARIO-ID of its description. Its first
+     *                          thousand bytes are kept.
+     * @return                  The snapshot of the game.
+     */
+    public static Snapshot of(GameEngine engine, String name) {
+        byte[] states = engine.states(), types = engine.types();
+        int tiles = states.length;
+        byte[] packed = new byte[(tiles + 1) / 2];
+        for (int i = 0; i + 1 < tiles; i += 2) {
+            packed[i >> 1] = (byte) (states[i] << 2 | types[i] | (states[i + 1] << 2 | types[i + 1]) << 4);
+        }
+        if ((tiles & 1) == 1) packed[tiles >> 1] = (byte) (states[tiles - 1] << 2 | types[tiles - 1]);
+        int flags = (engine.isGameStarted() ? started : 0) | (engine.isGameEnded() ? ended : 0)
+                    | (engine.isNoGuess() ? noGuessFlag : 0);
+        int[] gameParams = {engine.getSize(), engine.getTotalMines(), engine.getTime(), engine.getHyperMines()};
+        return new Snapshot(gameParams, engine.getTopology(), engine.getSeed(), flags, engine.getFirstX(),
+                            engine.getFirstY(), engine.getFlagsUsed(), engine.getAttempts(),
+                            engine.getTimeRemaining(), name, tiles, packed);
+    }
+
+    /**
+     * Saves this snapshot, replacing the file only once it is completely written.
+     * <p></p>
+     * @param path              The file, created with its folder if it does not exist.
+     * @throws IOException      If the file cannot be written.
+     */
+    public void write(String path) throws IOException {
+        Path file = Path.of(path), temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+        byte[] utf = name.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(utf.length, 1000);
+        while (nameLength < utf.length && (utf[nameLength] & 0xC0) == 0x80) --nameLength; // do not cut a character
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                  headerSize + nameLength + packed.length);
+            buffer.putInt(magic).putInt(version);
+            for (int value : gameParams) buffer.putInt(value);
+            buffer.put((byte) topology.ordinal())
+                  .put((byte) flags)
+                  .putLong(seed)
+                  .putInt(firstX).putInt(firstY)
+                  .putInt(flagsUsed).putInt(attempts).putInt(timeRemaining)
+                  .putShort((short) nameLength)
+                  .put(utf, 0, nameLength)
+                  .put(packed);
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot saved by {@link #write(String) write}.
+     * <p></p>
+     * @param path              The file.
+     * @return                  The snapshot.
+     * @throws IOException      If the file cannot be read or is not a valid snapshot.
+     */
+    public static Snapshot read(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < headerSize) throw new IOException("Not a snapshot: " + path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != magic || buffer.getInt() != version) throw new IOException("Not a snapshot: " + path);
+            int[] gameParams = {buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()};
+            int topologyIndex = buffer.get() & 0xFF, flags = buffer.get();
+            long seed = buffer.getLong();
+            int firstX = buffer.getInt(), firstY = buffer.getInt();
+            int flagsUsed = buffer.getInt(), attempts = buffer.getInt(), timeRemaining = buffer.getInt();
+            byte[] utf = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(utf);
+
+            if (topologyIndex >= Topology.values().length) throw new IOException("Corrupt snapshot: " + path);
+            Topology topology = Topology.values()[topologyIndex];
+            long side = gameParams[0], tiles = side * side * (topology == Topology.CUBE ? side : 1);
+            if (side <= 0 || tiles > maxTiles || gameParams[1] < 0 || gameParams[3] < 0 || gameParams[3] > gameParams[1]
+                    || gameParams[1] > tiles || buffer.remaining() != (tiles + 1) / 2) {
+                throw new IOException("Corrupt snapshot: " + path);
+            }
+            byte[] packed = new byte[buffer.remaining()];
+            buffer.get(packed);
+
+            Snapshot snapshot = new Snapshot(gameParams, topology, seed, flags, firstX, firstY, flagsUsed, attempts,
+                                             timeRemaining, new String(utf, StandardCharsets.UTF_8), (int) tiles, packed);
+            snapshot.check(path);
+            return snapshot;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt snapshot: " + path);
+        }
+    }
+
+    // the tiles must be valid and their mines must be the mines of the description
+    private void check(String path) throws IOException {
+        // the last byte of an odd number of tiles has only one, which is checked with a copy of itself
+        int last = packed.length - 1;
+        int lastByte = ((tiles & 1) == 1) ? (packed[last] & 0xF) * 0x11 : packed[last] & 0xFF;
+        boolean bad = invalid[lastByte];
+        long mines = mineCount[lastByte], hyperMines = hyperCount[lastByte], flagged = flagCount[lastByte];
+        if ((tiles & 1) == 1) {
+            mines /= 2;
+            hyperMines /= 2;
+            flagged /= 2;
+        }
+        for (int k = 0; k < last; ++k) {
+            int b = packed[k] & 0xFF;
+            bad |= invalid[b];
+            mines += mineCount[b];
+            hyperMines += hyperCount[b];
+            flagged += flagCount[b];
+        }
+        if (bad) throw new IOException("Corrupt snapshot: " + path);
+        if (mines != gameParams[1] || hyperMines != gameParams[3] || flagged > flagsUsed) {
+            throw new IOException("Corrupt snapshot: " + path);
+        }
+    }
+
+    private int tile(int i) { return (packed[i >> 1] >> ((i & 1) << 2)) & 0xF; }
+
+    /**
+     * Rebuilds the game of this snapshot.
+     * <p></p>
+     * @return                  A new engine, in the state the game was saved in.
+     */
+    public GameEngine restore() {
+        byte[] states = new byte[tiles];
+        int[] placed = new int[gameParams[1]];
+        int hyper = 0, normal = gameParams[3];
+        for (int i = 0; i < tiles; ++i) {
+            int tile = tile(i);
+            states[i] = (byte) (tile >> 2);
+            if ((tile & 3) == Board.HYPERMINE) placed[hyper++] = i;
+            else if ((tile & 3) == Board.MINE) placed[normal++] = i;
+        }
+
+        GameEngine engine = null;
+        if ((flags & started) == 0) {
+            // the mines may still move on the first left-click, which only the seed decides
+            engine = new GameEngine(gameParams, topology, seed, isNoGuess());
+            for (int i = 0; i < tiles && engine != null; ++i) {
+                if (engine.getType(i % engine.getWidth(), i / engine.getWidth()) != (tile(i) & 3)) engine = null;
+            }
+        }
+        if (engine == null) engine = new GameEngine(gameParams, topology, seed, isNoGuess(), placed);
+        engine.restore(states, flagsUsed, attempts, timeRemaining, (flags & started) != 0, (flags & ended) != 0,
+                       firstX, firstY);
+        return engine;
+    }
+
+    /** @return The description of the game, <code>{ size, totalMines, time, hyperMines }</code>. */
+    public int[] getGameParams() { return gameParams.clone(); }
+    /** @return The shape of the board. */
+    public Topology getTopology() { return topology; }
+    /** @return The name saved with the game. */
+    public String getName() { return name; }
+    /** @return Whether the first left-click places mines that can be cleared without guessing. */
+    public boolean isNoGuess() { return (flags & noGuessFlag) != 0; }
+    /** @return Whether the game had been won or lost when it was saved. */
+    public boolean isGameEnded() { return (flags & ended) != 0; }
+}
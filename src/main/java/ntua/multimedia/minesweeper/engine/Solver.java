@@ -0,0 +1,219 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the hidden tiles of a board that are certainly safe or certainly mines, using only what a player can see:
+ * the revealed numbers and the revealed mines. Flags are not trusted.
+ * <p></p>
+ * The solver works in three steps, each slower and stronger than the one before:
+ * <ul>
+ * <li>single numbers whose hidden neighbors must be all mines or all safe,</li>
+ * <li>pairs of numbers where the hidden neighbors of one are a subset of the hidden neighbors of the other,</li>
+ * <li>enumeration of every arrangement of mines on the frontier (the hidden tiles next to numbers) that agrees with
+ *     all the numbers. Tiles that are mines in all arrangements, or in none, are certain. The frontier is split in
+ *     independent components, which are enumerated in parallel on the common {@link ForkJoinPool ForkJoinPool}.</li>
+ * </ul>
+ * Every call has a latency budget. When it runs out the solver returns what it has proven so far and marks the
+ * {@link Result Result} as incomplete, so it can be used for hints and bots on live games.
+ */
+public class Solver {
+    /**
+     * What the solver proved.
+     * <p></p>
+     * @param safe              Tiles that are certainly not mines, as <code>y * width + x</code>.
+     * @param mines             Tiles that are certainly mines, as <code>y * width + x</code>.
+     * @param complete          Whether every step finished within the budget. If not, more tiles may be certain.
+     */
+    public record Result(long[] safe, long[] mines, boolean complete) {}
+
+    private final Board board;
+    private final int x0;
+    private final int y0;
+    private final int width;
+    private final int height;
+
+    /**
+     * A solver for a whole board.
+     * <p></p>
+     * @param board             The board, usually of a game in progress. It is read, never changed.
+     */
+    public Solver(Board board) { this(board, 0, 0, board.getWidth(), board.getHeight()); }
+
+    /**
+     * A solver for a window of a square board, for example the part of an endless board around the player. Numbers on
+     * the edge of the window are ignored if some of their neighbors are outside it.
+     * <p></p>
+     * @param board             The board. Windows smaller than the board need {@link Topology#SQUARE SQUARE} ones.
+     * @param x0                First column of the window.
+     * @param y0                First row of the window.
+     * @param width             Columns of the window.
+     * @param height            Rows of the window.
+     */
+    public Solver(Board board, int x0, int y0, int width, int height) {
+        this.board = board;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Solves the board as it is now. Must not run at the same time as a change to the board.
+     * <p></p>
+     * @param budget            How long the solver may take.
+     * @param unit              The unit of the budget.
+     * @return                  The certain tiles.
+     */
+    public Result solve(long budget, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(budget);
+        Frontier frontier = new Frontier(board, x0, y0, width, height, deadline);
+        boolean complete = frontier.propagate(deadline);
+
+        if (complete) {
+            List<Frontier.Component> components = frontier.components();
+            List<byte[]> results = new ArrayList<>();
+            if (components.size() == 1) results.add(enumerate(components.get(0), deadline));
+            else if (components.size() > 1) {
+                List<Callable<byte[]>> tasks = new ArrayList<>();
+                for (Frontier.Component component : components) tasks.add(() -> enumerate(component, deadline));
+                try {
+                    for (Future<byte[]> future : ForkJoinPool.commonPool().invokeAll(tasks)) results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.clear();
+                    complete = false;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Solver failed", e.getCause());
+                }
+            }
+
+            for (int k = 0; k < results.size(); ++k) {
+                byte[] certain = results.get(k);
+                if (certain == null) { // out of time
+                    complete = false;
+                    continue;
+                }
+                int[] vars = components.get(k).vars();
+                for (int v = 0; v < vars.length; ++v) {
+                    if (certain[v] != Frontier.UNKNOWN) frontier.setKnown(vars[v], certain[v]);
+                }
+            }
+        }
+
+        int safeCount = 0, mineCount = 0;
+        for (int v = 0; v < frontier.getUnknowns(); ++v) {
+            if (frontier.getKnown(v) == Frontier.SAFE) ++safeCount;
+            else if (frontier.getKnown(v) == Frontier.MINE) ++mineCount;
+        }
+        long[] safe = new long[safeCount], mines = new long[mineCount];
+        safeCount = 0;
+        mineCount = 0;
+        for (int v = 0; v < frontier.getUnknowns(); ++v) {
+            if (frontier.getKnown(v) == Frontier.SAFE) safe[safeCount++] = frontier.getCell(v);
+            else if (frontier.getKnown(v) == Frontier.MINE) mines[mineCount++] = frontier.getCell(v);
+        }
+        return new Result(safe, mines, complete);
+    }
+
+    // Backtracks over every arrangement of mines of a component. Returns for each unknown SAFE or MINE if it is the
+    // same in every arrangement and UNKNOWN otherwise, or null if the deadline passed first
+    private static byte[] enumerate(Frontier.Component component, long deadline) {
+        Enumeration enumeration = new Enumeration(component, deadline);
+        if (!enumeration.run()) return null;
+
+        int n = component.vars().length;
+        byte[] certain = new byte[n];
+        for (int v = 0; v < n; ++v) {
+            if (enumeration.seenMine[v] && enumeration.seenSafe[v]) certain[v] = Frontier.UNKNOWN;
+            else certain[v] = enumeration.seenMine[v] ? Frontier.MINE : Frontier.SAFE;
+        }
+        return certain;
+    }
+
+    private static final class Enumeration {
+        private final int n;
+        private final int[][] constraintsOf;
+        private final int[] values;
+        private final int[] sum;
+        private final int[] unassigned;
+        private final byte[] assignment;
+        private final long deadline;
+
+        final boolean[] seenMine;
+        final boolean[] seenSafe;
+        // unknowns that have not been seen both ways, once it is zero nothing more can be learned
+        private int undecided;
+        private long nodes;
+        private boolean timedOut;
+
+        Enumeration(Frontier.Component component, long deadline) {
+            n = component.vars().length;
+            values = component.values();
+            this.deadline = deadline;
+            sum = new int[values.length];
+            unassigned = new int[values.length];
+            assignment = new byte[n];
+            seenMine = new boolean[n];
+            seenSafe = new boolean[n];
+            undecided = n;
+
+            int[] counts = new int[n];
+            int[][] constraints = component.constraints();
+            for (int c = 0; c < constraints.length; ++c) {
+                unassigned[c] = constraints[c].length;
+                for (int v : constraints[c]) ++counts[v];
+            }
+            constraintsOf = new int[n][];
+            for (int v = 0; v < n; ++v) constraintsOf[v] = new int[counts[v]];
+            for (int c = 0; c < constraints.length; ++c) {
+                for (int v : constraints[c]) constraintsOf[v][--counts[v]] = c;
+            }
+        }
+
+        boolean run() {
+            search(0);
+            return !timedOut;
+        }
+
+        // returns false to stop the search
+        private boolean search(int v) {
+            if ((++nodes & 4095) == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return false;
+            }
+            if (v == n) {
+                for (int u = 0; u < n; ++u) {
+                    boolean mine = assignment[u] == 1;
+                    if (mine ? seenMine[u] : seenSafe[u]) continue;
+                    if (mine) seenMine[u] = true;
+                    else seenSafe[u] = true;
+                    if (seenMine[u] && seenSafe[u]) --undecided;
+                }
+                return undecided > 0;
+            }
+            for (byte value = 0; value <= 1; ++value) {
+                assignment[v] = value;
+                boolean feasible = true;
+                for (int c : constraintsOf[v]) {
+                    sum[c] += value;
+                    --unassigned[c];
+                    if (sum[c] > values[c] || sum[c] + unassigned[c] < values[c]) feasible = false;
+                }
+                boolean go = !feasible || search(v + 1);
+                for (int c : constraintsOf[v]) {
+                    sum[c] -= value;
+                    ++unassigned[c];
+                }
+                if (!go) return false;
+            }
+            return true;
+        }
+    }
+}
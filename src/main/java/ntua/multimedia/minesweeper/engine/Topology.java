@@ -0,0 +1,107 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The shapes of boards a {@link GameEngine GameEngine} may be played on.
+ * <p></p>
+ * Tiles are indexed by <code>x + width * (y + height * z)</code>. Two dimensional topologies have a depth of one.
+ * The neighbors of the tiles are precomputed once per board shape into a {@link NeighborTable NeighborTable}, which
+ * is shared by every game played on that shape.
+ */
+public enum Topology {
+    /** The classic grid, every tile has up to 8 neighbors. */
+    SQUARE {
+        @Override
+        int neighbors(int x, int y, int z, int w, int h, int d, int[] out) {
+            int count = 0;
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) {
+                    if (dx == 0 && dy == 0) continue;
+                    int nx = x + dx, ny = y + dy;
+                    if (nx >= 0 && nx < w && ny >= 0 && ny < h) out[count++] = nx + w * ny;
+                }
+            }
+            return count;
+        }
+    },
+    /** A grid whose opposite edges are glued together, every tile has 8 neighbors. */
+    TORUS {
+        @Override
+        int neighbors(int x, int y, int z, int w, int h, int d, int[] out) {
+            int count = 0;
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) {
+                    if (dx == 0 && dy == 0) continue;
+                    int nx = Math.floorMod(x + dx, w), ny = Math.floorMod(y + dy, h);
+                    out[count++] = nx + w * ny;
+                }
+            }
+            return count;
+        }
+    },
+    /** Hexagonal tiles in rows, odd rows are shifted half a tile to the right. Every tile has up to 6 neighbors. */
+    HEX {
+        @Override
+        int neighbors(int x, int y, int z, int w, int h, int d, int[] out) {
+            int count = 0;
+            // the tiles above and below us lean towards the direction our row is shifted
+            int shift = (y & 1) == 0 ? -1 : 0;
+            int[] points = new int[] {
+                    -1, 0, 1, 0,
+                    shift, -1, shift + 1, -1,
+                    shift, 1, shift + 1, 1
+            };
+            for (int p = 0; p < points.length; p += 2) {
+                int nx = x + points[p], ny = y + points[p + 1];
+                if (nx >= 0 && nx < w && ny >= 0 && ny < h) out[count++] = nx + w * ny;
+            }
+            return count;
+        }
+    },
+    /** A three dimensional grid of cubes, every tile has up to 26 neighbors. */
+    CUBE {
+        @Override
+        int neighbors(int x, int y, int z, int w, int h, int d, int[] out) {
+            int count = 0;
+            for (int dz = -1; dz <= 1; ++dz) {
+                for (int dy = -1; dy <= 1; ++dy) {
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        if (dx == 0 && dy == 0 && dz == 0) continue;
+                        int nx = x + dx, ny = y + dy, nz = z + dz;
+                        if (nx >= 0 && nx < w && ny >= 0 && ny < h && nz >= 0 && nz < d) {
+                            out[count++] = nx + w * (ny + h * nz);
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    };
+
+    /** The largest number of neighbors a tile may have in any topology. */
+    public static final int MAX_NEIGHBORS = 26;
+
+    // tables are built once per shape and shared afterwards
+    private static final ConcurrentHashMap<Shape, NeighborTable> tables = new ConcurrentHashMap<>();
+
+    // writes the indices of the neighbors of tile (x,y,z) in out and returns how many there are.
+    // This is only used while building tables, so it does not need to be fast.
+    abstract int neighbors(int x, int y, int z, int w, int h, int d, int[] out);
+
+    /**
+     * Gets the neighbor table of a board of this topology, building it on first use.
+     * <p></p>
+     * @param width             Number of columns.
+     * @param height            Number of rows of each layer.
+     * @param depth             Number of layers, 1 for two dimensional topologies.
+     * @return                  A table shared by all boards of the same shape.
+     */
+    public NeighborTable table(int width, int height, int depth) {
+        if (this != CUBE) depth = 1;
+        return tables.computeIfAbsent(new Shape(this, width, height, depth), NeighborTable::new);
+    }
+
+    // key of the cache of tables
+    record Shape(Topology topology, int width, int height, int depth) {}
+}
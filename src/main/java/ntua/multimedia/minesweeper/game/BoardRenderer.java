@@ -0,0 +1,25 @@
+package ntua.multimedia.minesweeper.game;
+
+import javafx.scene.Node;
+
+// the part of a GameBox that draws the board. The GameBox forwards the changes of the tiles to it, the renderer
+// decides whether (and when) they are visible and turns clicks on its node into calls to Game.handler with board
+// coordinates
+interface BoardRenderer {
+    // the node to be placed under the ToolBar
+    Node getNode();
+
+    void tileHidden(int x, int y);
+    void tileFlagged(int x, int y);
+    void neutralRevealed(int x, int y, int mines);
+    void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe);
+
+    // the game is over, mines coming into view from now on are painted as a win or a loss
+    void gameEnded(boolean gameWon);
+
+    // the end of the game was undone, the mines it revealed are hidden again
+    void gameResumed();
+
+    // the board was reset for a new round: every tile is hidden again and the game is on
+    void reset();
+}
@@ -0,0 +1,324 @@
+package ntua.multimedia.minesweeper.game;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.Topology;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// draws the board on a single Canvas. Only the tiles inside the viewport are ever drawn, and between frames only the
+// tiles that changed are drawn again, so the cost of a frame depends on the size of the window and not of the board.
+// The view is zoomed with the mouse wheel and moved by dragging or with the arrow keys.
+class CanvasRenderer extends Pane implements BoardRenderer {
+    // the canvas is never larger than this, larger boards are seen through it
+    private static final double maxViewSize = 640;
+    private static final double minTileSize = 6;
+    private static final double maxTileSize = 80;
+
+    private final Game game;
+    private final Board board;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+
+    // number of columns and rows of the board, rows of each layer and rows we draw including the gaps between layers
+    private final int width;
+    private final int height;
+    private final int layerHeight;
+    private final boolean layered;
+    private final int drawnRows;
+    private final boolean hex;
+
+    // current size of a tile in pixels and the position of the top left corner of the canvas on the board in pixels
+    private double tileSize = TileStackPane.size;
+    private double viewX;
+    private double viewY;
+
+    // where the last drag started
+    private double pressX;
+    private double pressY;
+    private double pressViewX;
+    private double pressViewY;
+
+    // tiles that changed since the last frame, packed as (y << 32 | x). If too many of them change at once we simply
+    // draw the whole viewport again
+    private long[] dirty = new long[64];
+    private int dirtyCount;
+    private boolean fullRepaint = true;
+
+    // mines that were revealed by a hyper mine while the game was still on are painted as safe, even after a loss
+    private final Set<Long> safeMines = new HashSet<>();
+    private boolean gameEnded;
+    private boolean gameLost;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) { paint(); }
+    };
+
+    CanvasRenderer(Game g) {
+        game = g;
+        board = game.engine;
+        width = board.getWidth();
+        height = board.getHeight();
+        layerHeight = board.getLayerHeight();
+        layered = layerHeight < height;
+        drawnRows = layered ? height + height / layerHeight - 1 : height;
+        hex = board.getTopology() == Topology.HEX;
+
+        canvas = new Canvas(Math.min(boardWidth(), maxViewSize), Math.min(boardHeight(), maxViewSize));
+        gc = canvas.getGraphicsContext2D();
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        getChildren().add(canvas);
+        setPrefSize(canvas.getWidth(), canvas.getHeight());
+        setMaxSize(canvas.getWidth(), canvas.getHeight());
+
+        // start in the middle of the board
+        viewX = (boardWidth() - canvas.getWidth()) / 2;
+        viewY = (boardHeight() - canvas.getHeight()) / 2;
+        clampView();
+
+        // only draw while we are on the screen
+        sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene != null) timer.start();
+            else timer.stop();
+        });
+
+        setFocusTraversable(true);
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            requestFocus();
+            pressX = event.getX();
+            pressY = event.getY();
+            pressViewX = viewX;
+            pressViewY = viewY;
+        });
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, event ->
+                moveView(pressViewX - (event.getX() - pressX) - viewX, pressViewY - (event.getY() - pressY) - viewY));
+        canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            // the end of a drag is not a click
+            if (!event.isStillSincePress()) return;
+            long tile = tileAt(event.getX(), event.getY());
+            if (tile >= 0) game.handler((int) tile, (int) (tile >>> 32), event.getButton());
+        });
+        canvas.setOnScroll(event -> zoom(event.getDeltaY() > 0 ? 1.25 : 0.8, event.getX(), event.getY()));
+        setOnKeyPressed(event -> {
+            switch (event.getCode()) {
+                case LEFT -> moveView(-tileSize, 0);
+                case RIGHT -> moveView(tileSize, 0);
+                case UP -> moveView(0, -tileSize);
+                case DOWN -> moveView(0, tileSize);
+                case PLUS, ADD, EQUALS -> zoom(1.25, canvas.getWidth() / 2, canvas.getHeight() / 2);
+                case MINUS, SUBTRACT -> zoom(0.8, canvas.getWidth() / 2, canvas.getHeight() / 2);
+                default -> {}
+            }
+        });
+    }
+
+    @Override
+    public Node getNode() { return this; }
+
+    // size of the whole board in pixels at the current zoom
+    private double boardWidth() { return (width + (hex ? 0.5 : 0)) * tileSize; }
+    private double boardHeight() { return drawnRows * tileSize; }
+
+    private void moveView(double dx, double dy) {
+        viewX += dx;
+        viewY += dy;
+        clampView();
+        fullRepaint = true;
+    }
+
+    // zooms keeping the board point under (px,py) of the canvas in place
+    private void zoom(double factor, double px, double py) {
+        double newSize = Math.max(minTileSize, Math.min(maxTileSize, tileSize * factor));
+        double scale = newSize / tileSize;
+        tileSize = newSize;
+        viewX = (viewX + px) * scale - px;
+        viewY = (viewY + py) * scale - py;
+        clampView();
+        fullRepaint = true;
+    }
+
+    private void clampView() {
+        viewX = Math.max(0, Math.min(boardWidth() - canvas.getWidth(), viewX));
+        viewY = Math.max(0, Math.min(boardHeight() - canvas.getHeight(), viewY));
+    }
+
+    // the drawn row of board row y, layers of a cube are separated by an empty row
+    private int drawnRow(int y) { return layered ? y + y / layerHeight : y; }
+
+    // top left corner of tile (x,y) on the canvas
+    private double tileX(int x, int y) { return x * tileSize + (hex && (y & 1) == 1 ? tileSize / 2 : 0) - viewX; }
+    private double tileY(int y) { return drawnRow(y) * tileSize - viewY; }
+
+    // the tile under point (px,py) of the canvas packed as (y << 32 | x), or -1 if there is none
+    private long tileAt(double px, double py) {
+        int row = (int) Math.floor((py + viewY) / tileSize);
+        if (row < 0 || row >= drawnRows) return -1;
+        int y = row;
+        if (layered) {
+            // the last row of every group is the gap between layers
+            if (row % (layerHeight + 1) == layerHeight) return -1;
+            y = row / (layerHeight + 1) * layerHeight + row % (layerHeight + 1);
+        }
+        double shift = (hex && (y & 1) == 1) ? tileSize / 2 : 0;
+        int x = (int) Math.floor((px + viewX - shift) / tileSize);
+        if (x < 0 || x >= width) return -1;
+        return (long) y << 32 | x;
+    }
+
+    private boolean visible(int x, int y) {
+        double left = tileX(x, y), top = tileY(y);
+        return left + tileSize > 0 && left < canvas.getWidth() && top + tileSize > 0 && top < canvas.getHeight();
+    }
+
+    private void markDirty(int x, int y) {
+        if (fullRepaint || !visible(x, y)) return;
+        // after this many changes it is cheaper to draw everything
+        if (dirtyCount == 4096) {
+            fullRepaint = true;
+            return;
+        }
+        if (dirtyCount == dirty.length) dirty = Arrays.copyOf(dirty, dirty.length * 2);
+        dirty[dirtyCount++] = (long) y << 32 | x;
+    }
+
+    // called once per frame by the timer
+    private void paint() {
+        if (fullRepaint) {
+            fullRepaint = false;
+            dirtyCount = 0;
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            gc.setFont(Font.font(tileSize * 0.35));
+
+            int firstRow = Math.max(0, (int) (viewY / tileSize));
+            int lastRow = Math.min(drawnRows - 1, (int) ((viewY + canvas.getHeight()) / tileSize));
+            int firstColumn = Math.max(0, (int) ((viewX - tileSize / 2) / tileSize));
+            int lastColumn = Math.min(width - 1, (int) ((viewX + canvas.getWidth()) / tileSize));
+            for (int row = firstRow; row <= lastRow; ++row) {
+                int y = row;
+                if (layered) {
+                    if (row % (layerHeight + 1) == layerHeight) continue;
+                    y = row / (layerHeight + 1) * layerHeight + row % (layerHeight + 1);
+                }
+                for (int x = firstColumn; x <= lastColumn; ++x) drawTile(x, y);
+            }
+            return;
+        }
+
+        if (dirtyCount == 0) return;
+        gc.setFont(Font.font(tileSize * 0.35));
+        for (int i = 0; i < dirtyCount; ++i) drawTile((int) dirty[i], (int) (dirty[i] >>> 32));
+        dirtyCount = 0;
+    }
+
+    // draws tile (x,y) from the state of the board with the colors of a TileStackPane
+    private void drawTile(int x, int y) {
+        double left = tileX(x, y), top = tileY(y);
+        double stroke = tileSize / 10, arc = tileSize / 8;
+        gc.clearRect(left, top, tileSize, tileSize);
+
+        Color fill, border;
+        Image image = null;
+        String text = "";
+        byte state = board.getState(x, y);
+        if (state == Board.HIDDEN) {
+            fill = Color.LIGHTGRAY;
+            border = Color.DARKGRAY;
+        }
+        else if (state == Board.FLAGGED) {
+            fill = Color.LIGHTCYAN;
+            border = Color.SKYBLUE;
+            image = ImageAtlas.getFlag();
+            if (image == null) text = "F";
+        }
+        else if (board.getType(x, y) == Board.NEUTRAL) {
+            fill = Color.WHITE;
+            border = Color.LIGHTGRAY;
+            int mines = board.getAdjacent(x, y);
+            if (mines > 0) text = "" + mines;
+        }
+        else {
+            boolean hyperMine = board.getType(x, y) == Board.HYPERMINE;
+            if (gameLost && !safeMines.contains((long) y * width + x)) {
+                fill = Color.INDIANRED;
+                border = Color.DARKRED;
+            }
+            else {
+                fill = Color.GREENYELLOW;
+                border = Color.LIGHTSEAGREEN;
+            }
+            image = hyperMine ? ImageAtlas.getHyperMine() : ImageAtlas.getMine();
+            if (image == null) text = hyperMine ? "H" : "X";
+        }
+
+        // the border is drawn inside the tile so that neighboring tiles don't overlap
+        gc.setFill(fill);
+        gc.fillRoundRect(left + stroke / 2, top + stroke / 2, tileSize - stroke, tileSize - stroke, arc, arc);
+        gc.setStroke(border);
+        gc.setLineWidth(stroke);
+        gc.strokeRoundRect(left + stroke / 2, top + stroke / 2, tileSize - stroke, tileSize - stroke, arc, arc);
+        if (image != null) gc.drawImage(image, left, top, tileSize, tileSize);
+        if (!text.isEmpty()) {
+            gc.setFill(Color.BLACK);
+            gc.fillText(text, left + tileSize / 2, top + tileSize / 2);
+        }
+    }
+
+    @Override
+    public void tileHidden(int x, int y) {
+        if (!safeMines.isEmpty()) safeMines.remove((long) y * width + x); // a mine hidden again by an undo
+        markDirty(x, y);
+    }
+
+    @Override
+    public void tileFlagged(int x, int y) {
+        if (!safeMines.isEmpty()) safeMines.remove((long) y * width + x);
+        markDirty(x, y);
+    }
+
+    @Override
+    public void neutralRevealed(int x, int y, int mines) { markDirty(x, y); }
+
+    @Override
+    public void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe) {
+        if (!gameEnded && !unsafe) safeMines.add((long) y * width + x);
+        markDirty(x, y);
+    }
+
+    @Override
+    public void gameEnded(boolean gameWon) {
+        gameEnded = true;
+        gameLost = !gameWon;
+        // the colors of the mines depend on the result
+        fullRepaint = true;
+    }
+
+    @Override
+    public void gameResumed() {
+        gameEnded = false;
+        gameLost = false;
+        fullRepaint = true;
+    }
+
+    // the zoom and the view stay where the player left them
+    @Override
+    public void reset() {
+        safeMines.clear();
+        gameEnded = false;
+        gameLost = false;
+        fullRepaint = true;
+    }
+}
@@ -0,0 +1,97 @@
+package ntua.multimedia.minesweeper.game;
+
+import javafx.animation.AnimationTimer;
+import ntua.multimedia.minesweeper.engine.GameListener;
+import ntua.multimedia.minesweeper.engine.RevealDiff;
+import ntua.multimedia.minesweeper.monitoring.DiffAppliedEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// applies the RevealDiffs of a game to its GameBox without freezing the application. Every pulse it applies tiles
+// for at most a few milliseconds, so a cascade of a million tiles is drawn over several frames instead of in a
+// single event handler. Diffs are applied in the order they were submitted
+class DiffApplier extends AnimationTimer {
+    // time we may spend per pulse, leaving the rest of the frame to layout and rendering
+    private static final long budget = 6_000_000; // nanoseconds
+    // tiles applied between checks of the clock
+    private static final int batch = 256;
+
+    private final GameListener target;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    // first tile of the oldest pending diff that hasn't been applied yet
+    private int position;
+    private boolean running;
+
+    // a diff and the event that measures it, from the input that caused it until it is applied
+    private record Pending(RevealDiff diff, DiffAppliedEvent event, long input) {}
+
+    // never committed, it only tells whether the events are recorded right now
+    private final DiffAppliedEvent probe = new DiffAppliedEvent();
+
+    DiffApplier(GameListener t) { target = t; }
+
+    // whether the diffs submitted now are measured, and so need the time of their input
+    boolean isRecorded() { return probe.isEnabled(); }
+
+    void submit(RevealDiff diff) { submit(diff, System.nanoTime(), false); }
+
+    // small diffs, like most clicks, are applied at once. Whatever doesn't fit in the budget waits for the next pulses.
+    // input is the System.nanoTime of the input that caused the diff
+    void submit(RevealDiff diff, long input, boolean fromClick) {
+        if (diff.isEmpty()) return;
+        DiffAppliedEvent event = new DiffAppliedEvent();
+        event.begin();
+        event.tiles = diff.size();
+        event.fromClick = fromClick;
+        pending.add(new Pending(diff, event, input));
+        apply(System.nanoTime() + budget);
+        if (!pending.isEmpty() && !running) {
+            running = true;
+            start();
+        }
+    }
+
+    // for a board that is about to start again: the tiles of the diffs still pending are skipped, since the board is
+    // about to show them all hidden, but their counters and the end of the game are shown now, so that a round that
+    // ended during a long cascade is still saved and announced
+    void finish() {
+        while (!pending.isEmpty()) {
+            Pending head = pending.poll();
+            head.diff().finish(target);
+            head.event().commit();
+        }
+        position = 0;
+        running = false;
+        stop();
+    }
+
+    @Override
+    public void handle(long now) {
+        apply(System.nanoTime() + budget);
+        if (pending.isEmpty()) {
+            running = false;
+            stop();
+        }
+    }
+
+    private void apply(long deadline) {
+        while (!pending.isEmpty()) {
+            Pending head = pending.peek();
+            RevealDiff diff = head.diff();
+            ++head.event().pulses;
+            while (position < diff.size()) {
+                position = diff.replay(target, position, Math.min(position + batch, diff.size()));
+                if (System.nanoTime() > deadline && position < diff.size()) return;
+            }
+            // counters and the end of the game are shown once the tiles are
+            diff.finish(target);
+            // the time of the input is 0 when the events were not recorded at the time of the click
+            if (head.input() != 0) head.event().inputLatency = System.nanoTime() - head.input();
+            head.event().commit();
+            pending.poll();
+            position = 0;
+            if (System.nanoTime() > deadline) return;
+        }
+    }
+}
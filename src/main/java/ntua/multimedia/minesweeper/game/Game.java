@@ -5,13 +5,26 @@ import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.scene.input.MouseButton;
 import javafx.util.Duration;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.BoardCode;
+import ntua.multimedia.minesweeper.engine.DiffRecorder;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.GameListener;
+import ntua.multimedia.minesweeper.engine.InfiniteBoard;
+import ntua.multimedia.minesweeper.engine.Journal;
+import ntua.multimedia.minesweeper.engine.ProbabilityEngine;
+import ntua.multimedia.minesweeper.engine.RevealDiff;
+import ntua.multimedia.minesweeper.engine.Snapshot;
+import ntua.multimedia.minesweeper.engine.Topology;
+import ntua.multimedia.minesweeper.monitoring.ClickEvent;
+import ntua.multimedia.minesweeper.utilities.GameFiles;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
 
 /**
- * The <code>Game</code> class implements the logic of the Minesweeper game and its graphical components.
+ * The <code>Game</code> class connects the logic of the Minesweeper game, a
+ * {@link ntua.multimedia.minesweeper.engine.GameEngine GameEngine}, with its graphical components.
  * <p></p>
  * All of the above are used by this class and classes in the <code>game</code> package to ensure
  * correct communication between different objects and achieve an appropriate user experience.
@@ -20,380 +33,444 @@ import java.util.Random;
  * outside the <code>game</code> package, in order to manage Minesweeper's behaviour, view and gameplay.
  * <p></p>
  * @author Dimitrios Georgousis (NTUA ECE, AM: 03119005)
- * @version 1.1
+ * @version 1.2
  */
 public class Game {
     // size of game - grid, 9 or 16 depending on difficulty, but it doesn't matter
     final int size;
-    final int totalMines;
+    // for lazily generated boards this is the number of mines per thousand tiles
+    int totalMines;
 
     // total time we can play this game, before we lose
-    final int time;
+    int time;
 
     // how many hypermines there are
-    final int hyperMines;
+    int hyperMines;
 
-    private int flagsUsed;
+    // SCENARIO-ID of the description, saved with the round
+    String scenario = "";
 
-    // number of attempts to reveal tiles the user has made (left-clicks)
-    private int attempts;
+    // whether the mines are exported in the compact binary format instead of the text one
+    boolean compactMines;
 
     // timer
     private final Timeline timeline;
 
-    // Information about all the tiles in the game-grid
-    private final Tile[][] tiles;
-    private ArrayList<Tile> mineList;
+    // boards with more tiles per side are never built whole, their mines are generated chunk by chunk
+    private static final int lazySize = 4096;
+
+    // seconds between two saves of a game in progress
+    private static final int autosaveSeconds = 30;
+    private int sinceSave;
 
-    // counts how many unrevealed non-mine (neutral) tiles remain in the game
-    private int neutralRemaining;
-    private int timeRemaining;
+    // the logic of the game, which knows nothing about graphics
+    final Board engine;
 
     private final GameBox gameBox;
+    private final Renderer renderer;
 
-    // helps to ensure that a game may end only once
-    private boolean gameEnded;
+    // the changes of the engine are collected after every action and drawn by the applier within a time budget
+    private final DiffRecorder recorder;
+    private final DiffApplier applier;
 
-    // used to control actions on first click...
-    // If it is true, it means the user has already managed to reveal some tiles!
-    private boolean gameStarted;
+    // the moves of the game, to undo and redo them. Endless boards have none
+    private final Journal journal;
+    // moves between two snapshots of the whole board in the journal
+    private static final int snapshotInterval = 64;
 
-    private Game(int Size, int TotalMines, int Time, int HyperMines) {
-        // set up logic of this game
-        size = Size;
-        totalMines = TotalMines;
-        time = Time;
-        hyperMines = HyperMines;
-        flagsUsed = 0;
-        attempts = 0;
-        timeline = new Timeline();
+    // created on first use, it remembers what it computed between moves
+    private ProbabilityEngine probabilityEngine;
 
-        neutralRemaining = (size * size) - totalMines;
-        timeRemaining = time;
+    // the mines are exported once they are final: after the first left-click, or when the game ends without one
+    private boolean minesExported;
 
-        // set up graphics
-        gameBox = new GameBox(this, timeRemaining, flagsUsed, totalMines, attempts);
+    // this function is called by the renderer of the GameBox whenever a click event happens on tile (x,y) of the
+    // board... It is a very simple way to achieve communication between the game classes.
+    void handler(int x, int y, MouseButton button) {
+        ClickEvent event = new ClickEvent();
+        boolean recorded = event.isEnabled();
+        if (recorded) event.begin();
+        // the time of the click is only read when an event measures from it
+        long input = (recorded || applier.isRecorded()) ? System.nanoTime() : 0;
 
-        // create our tile grid that carries the game logic
-        tiles = new Tile[size][size];
-        for (int y = 0; y < size; ++y) {
-            for (int x = 0; x < size; ++x) {
-                tiles[x][y] = new Tile(gameBox.getTile(x,y));
-            }
+        switch (button) {
+            case PRIMARY -> engine.reveal(x, y);
+            case SECONDARY -> engine.flag(x, y);
+            default -> {}
         }
-
-        // timeline updates every second showing the remaining game time...
-        timeline.getKeyFrames().add(new KeyFrame(Duration.seconds(1), event -> {
-            updateTimeLabel(-1);
-            if (timeRemaining <= 0) {
-                endGame(false);
-            }
-        }));
-        timeline.setCycleCount(Animation.INDEFINITE);
-
-        // game has now started
-        gameEnded = false;
-
-        // game will start when the player does their first action that reveals any tiles...
-        gameStarted = false;
-
-        // create a random game...
-        completeFill(randomPos(), randomPos());
+        if (journal != null) journal.commit();
+        exportMines();
+        RevealDiff diff = recorder.take();
+
+        if (recorded) {
+            event.button = button.name();
+            event.x = x;
+            event.y = y;
+            event.tiles = diff.size();
+            event.commit();
+        }
+        applier.submit(diff, input, true);
     }
 
-    // completes the filling of the game grid by setting the appropriate types of tiles
-    private void completeFill(int x, int y) {
-        if (gameStarted) return;
-        // when we set the types we also know the locations of mines
-        mineList = setTypes(x, y);
-        // create the mines.txt file since mines are now known
-        gameBox.createMinesTxt(mineList);
+    private void exportMines() {
+        if (minesExported || (engine.getAttempts() == 0 && !engine.isGameEnded())) return;
+        minesExported = true;
+        gameBox.exportMines();
     }
 
-    // Tile (x,y) and its neighbors are safe aka they are all neutral tiles
-    // we then randomize the rest of tiles...
-    private ArrayList<Tile> setTypes(int x, int y) {
-        if (gameStarted) return mineList;
-        // clicked and its neighbors are safe
-        ArrayList<TileStackPane> safeTiles = new ArrayList<>();
-        safeTiles.add(gameBox.getTile(x, y));
-        safeTiles.addAll(gameBox.neighbors(x, y));
-
-        // create a list of all tiles
-        ArrayList<TileStackPane> list = new ArrayList<>();
-        for (int j = 0; j < size; ++j) {
-            for (int i = 0; i < size; ++i) {
-                list.add(gameBox.getTile(i, j));
-            }
-        }
-
-        // remove the safe tiles from this list
-        list.removeAll(safeTiles);
+    int getTimeRemaining() { return engine.getTimeRemaining(); }
 
-        // randomly shuffle the rest of the tiles
-        Collections.shuffle(list);
+    /**
+     * Constructs a <code>Game</code> based on a specified description provided in {@param gameParams} array.
+     * <p></p>
+     * A game of minesweeper is characterized by its description which must be known at creation time. This constructor
+     * takes as input an array of integers (<code>int</code>) representing a valid game description and creates a game
+     * based on this description.
+     * <p></p>
+     * One should know that the location of mines on the minefield is not only randomized but is chosen based on the
+     * location of the first valid left-click of the user ensuring that a user may never lose immediately because of
+     * bad luck. This, however, may not affect the outside behaviour of a <code>Game</code> object created with this
+     * constructor.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the game we wish to create.
+     *                          <code>gameParams.length</code> must be at least four. If it is any bigger, numbers
+     *                          following the first four do not matter.
+     *                          <p>
+     *                          The first 4 integers are <code>{ size, totalMines, time, hyperMines }</code>.
+     *                          <ul>
+     *                          <li><code>size</code>: The minesweeper grid or game area is a size by size square</li>
+     *                          <li><code>totalMines</code>: The total number of tiles that are mines in the game</li>
+     *                          <li><code>time</code>: Initial value of the countdown for each round. If a player takes longer
+     *                              without beating the game then they automatically lose</li>
+     *                          <li><code>hyperMines</code>: The number of hyper mines present in the constructed <code>Game</code>
+     *                              object</li>
+     *                          </ul>
+     */
+    public Game(int[] gameParams) { this(gameParams, Topology.SQUARE); }
 
-        // append at the end the safeTiles
-        list.addAll(safeTiles);
+    /**
+     * Constructs a <code>Game</code> based on a specified description, played on a board of a specific shape.
+     * <p></p>
+     * The same as {@link #Game(int[]) Game(gameParams)}, except that the tiles of the board may be arranged in any
+     * of the shapes of {@link Topology Topology}, for example on a torus where the edges of the board wrap around.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the game we wish to create.
+     * @param topology          The shape of the board.
+     */
+    public Game(int[] gameParams, Topology topology) { this(gameParams, topology, Renderer.NODES); }
 
-        // array where all the mines are stored
-        ArrayList<Tile> result = new ArrayList<>();
-        for (int i = 0; i < hyperMines; ++i) {
-            TileStackPane T = list.get(i);
-            tiles[T.x][T.y].setType(TileType.HYPERMINE);
-            result.add(tiles[T.x][T.y]);
-        }
-        for (int i = hyperMines; i < totalMines; ++i) {
-            TileStackPane T = list.get(i);
-            tiles[T.x][T.y].setType(TileType.MINE);
-            result.add(tiles[T.x][T.y]);
-        }
-        for (int i = totalMines; i < size*size; ++i) {
-            TileStackPane T = list.get(i);
-            tiles[T.x][T.y].setType(TileType.NEUTRAL);
-        }
-        return result;
+    /**
+     * Constructs a <code>Game</code> based on a specified description, played on a board of a specific shape and
+     * drawn in a specific way.
+     * <p></p>
+     * The same as {@link #Game(int[], Topology) Game(gameParams, topology)}, except that the board may also be drawn
+     * on a single canvas, see {@link Renderer Renderer}, which keeps large boards responsive.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the game we wish to create.
+     * @param topology          The shape of the board.
+     * @param renderer          The way the board is drawn.
+     */
+    public Game(int[] gameParams, Topology topology, Renderer renderer) {
+        this(gameParams, topology, renderer, ThreadLocalRandom.current().nextLong());
     }
 
-    // simply calculates the neighboring mines and returns that number
-    private int calcMines(int x, int y) {
-        int mines = 0;
-        for (TileStackPane T : gameBox.neighbors(x,y)) {
-            if (tiles[T.x][T.y].type != TileType.NEUTRAL) ++mines;
-        }
-        return mines;
+    /**
+     * Constructs a <code>Game</code> whose mines are decided by a seed.
+     * <p></p>
+     * The same as {@link #Game(int[], Topology, Renderer) Game(gameParams, topology, renderer)}, except that two games
+     * with the same description, shape and seed get the same mines, as long as the first left-click of the player is
+     * on the same tile. This makes boards reproducible, for example for bug reports or performance measurements.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the game we wish to create.
+     * @param topology          The shape of the board.
+     * @param renderer          The way the board is drawn.
+     * @param seed              The seed of the mine generator.
+     */
+    public Game(int[] gameParams, Topology topology, Renderer renderer, long seed) {
+        this(gameParams, topology, renderer, seed, false);
     }
 
-    // this function is called by the event handlers of TileStackPanes whenever a click event happens...
-    // It is a very simple way to achieve communication between the game classes.
-    void handler(int x, int y, MouseButton button) {
-        Tile tile = tiles[x][y];
-
-        // actions on revealed tiles have no effect
-        if (tile.state == TileState.REVEALED) return;
-
-        switch (button) {
-            case PRIMARY -> {
-                // left-click on a FLAGGED tile has no effect
-                if (tile.state == TileState.FLAGGED) return;
-
-                // first left-click must be on a neutral tile with no
-                // neighboring mines. If this is not true, just change the game...
-                if (!gameStarted && (tile.type != TileType.NEUTRAL || calcMines(x,y) != 0)) {
-                    completeFill(x,y);
-                }
-
-                // game has now started, we will reveal some tiles
-                gameStarted = true;
-                updateAttemptsLabel(1);
-                recurse(x, y);
-
-                // if we revealed a mine with a left-click then we lose
-                if (tile.type != TileType.NEUTRAL) {
-                    endGame(false);
-                    return;
-                }
-            }
-            case SECONDARY -> {
-                tile.flagTile();
-
-                // if we flagged a hypermine and the appropriate condition is true, we invoke its effect
-                if (hyperMineActivation(tile)) {
-                    // game has started since we will reveal some tiles
-                    gameStarted = true;
-                    revealHyperMine(x, y);
-                }
-            }
-            default -> {}
-        }
+    /**
+     * Constructs a <code>Game</code> whose mines are decided by a seed and that may be won without guessing.
+     * <p></p>
+     * The same as {@link #Game(int[], Topology, Renderer, long) Game(gameParams, topology, renderer, seed)}, except
+     * that, if <code>noGuess</code> is set, the first left-click places mines that a
+     * {@link ntua.multimedia.minesweeper.engine.Solver Solver} can clear from the revealed area without ever guessing,
+     * which is fairer for timed games.
+     * <p></p>
+     * Boards larger than what is generated whole, see {@link #isEndless(int[]) isEndless}, are always square and their
+     * mines are never checked by a solver, so they reject any other shape and <code>noGuess</code>.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the game we wish to create.
+     * @param topology          The shape of the board.
+     * @param renderer          The way the board is drawn.
+     * @param seed              The seed of the mine generator.
+     * @param noGuess           Whether the board must be solvable without guessing.
+     * @throws IllegalArgumentException If the board is endless and either its shape is not square or
+     *                                  <code>noGuess</code> is set.
+     */
+    public Game(int[] gameParams, Topology topology, Renderer renderer, long seed, boolean noGuess) {
+        this(gameParams, board(gameParams, topology, seed, noGuess), renderer);
+    }
 
-        // if we didn't lose and the click (left or right) was successful, check whether we won...
-        if (neutralRemaining <= 0) {
-            endGame(true);
+    private static Board board(int[] gameParams, Topology topology, long seed, boolean noGuess) {
+        if (!isEndless(gameParams)) return new GameEngine(gameParams, topology, seed, noGuess);
+        if (topology != Topology.SQUARE || noGuess) {
+            throw new IllegalArgumentException("Endless boards are square and may need guessing");
         }
+        return new InfiniteBoard(gameParams, seed);
     }
 
-    private boolean hyperMineActivation(Tile tile) {
-        return tile.type == TileType.HYPERMINE && tile.state == TileState.FLAGGED && attempts <= 4;
-    }
+    /**
+     * Whether a description is played on an endless board, one that is never built whole and whose mines are
+     * generated chunk by chunk as the player moves around it.
+     * <p></p>
+     * Such boards are always square, their mines may need guessing and they cannot be saved.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the game.
+     * @return                  <code>true</code> if the board is endless.
+     */
+    public static boolean isEndless(int[] gameParams) { return gameParams[0] > lazySize; }
 
-    // classic minesweeper recursion
-    private void recurse(int x, int y) {
-        Tile tile = tiles[x][y];
-        // if recursion has already executed on this tile just return
-        if (tile.recursed) return;
-        // we are going to do recursion on this tile, so mark the corresponding property as true
-        tile.recursed = true;
-        tile.revealTile(true); // unsafe = true, because if we left-clicked on a mine we might lose
-                                     // if the tile has already been revealed, this function will do nothing
-        if (tile.type != TileType.NEUTRAL) return; // if it was a mine we lose
-
-        if (calcMines(x, y) == 0) { // if all neighbors are neutral, do recursion on them
-            for (TileStackPane T : gameBox.neighbors(x,y)) recurse(T.x, T.y);
-        }
+    /**
+     * Resumes a game saved with {@link #save() save}.
+     * <p></p>
+     * The board, the counters and the remaining time are the ones of the saved game, and the round is logged under the
+     * SCENARIO-ID it was saved with. A game that was saved before its first left-click still gets the same mines.
+     * <p></p>
+     * @param snapshot          The saved game, read with {@link Snapshot#read(String) Snapshot.read}. Its
+     *                          description should have been checked beforehand.
+     * @param renderer          The way the board is drawn.
+     */
+    public Game(Snapshot snapshot, Renderer renderer) {
+        this(snapshot.getGameParams(), snapshot.restore(), renderer);
+        scenario = snapshot.getName();
     }
 
-    // hypermine effect
-    private void revealHyperMine(int x, int y) {
-        for (int i = 0; i < size; ++i) {
-            tiles[x][i].revealTile(false); // tiles on the same column
-            tiles[i][y].revealTile(false); // tiles on the same row
+    private Game(int[] gameParams, Board board, Renderer renderer) {
+        // set up logic of this game
+        size = gameParams[0];
+        totalMines = gameParams[1];
+        time = gameParams[2];
+        hyperMines = gameParams[3];
+        engine = board;
+        timeline = new Timeline();
+        this.renderer = renderer;
+
+        // the timer should stop whenever the game ends
+        engine.addListener(new GameListener() {
+            @Override
+            public void gameEnded(boolean gameWon) { timeline.stop(); }
+        });
+
+        // set up graphics, the GameBox receives every change of the engine in batches
+        gameBox = new GameBox(this, renderer);
+        recorder = new DiffRecorder(engine);
+        engine.addListener(recorder);
+        applier = new DiffApplier(gameBox);
+        if (engine instanceof GameEngine gameEngine) {
+            journal = new Journal(gameEngine, snapshotInterval);
+            engine.addListener(journal);
         }
-    }
+        else journal = null;
 
-    // simple wrappers for updating {time,flags,attempts}Label
-    private void updateTimeLabel(int inc) {
-        timeRemaining += inc;
-        gameBox.toolBar.setTimeLabel(timeRemaining);
-    }
-    private void updateFlagsLabel(int inc) {
-        flagsUsed += inc;
-        gameBox.toolBar.setFlagsLabel(flagsUsed, totalMines);
+        // timeline updates every second showing the remaining game time...
+        timeline.getKeyFrames().add(new KeyFrame(Duration.seconds(1), event -> {
+            engine.tick();
+            if (journal != null) journal.commit(); // running out of time is a move too, the journal never undoes it
+            exportMines();
+            applier.submit(recorder.take());
+            if (++sinceSave >= autosaveSeconds) save(false);
+        }));
+        timeline.setCycleCount(Animation.INDEFINITE);
     }
 
-    private void updateAttemptsLabel(int inc) {
-        attempts += inc;
-        gameBox.toolBar.setAttemptsLabel(attempts);
+    /**
+     * Constructs the <code>Game</code> described by a board code, created by {@link #getBoardCode() getBoardCode}.
+     * <p></p>
+     * If the code contains a first left-click, it is played right away, so the board is the same one, tile by tile,
+     * as the board of the game the code was taken from.
+     * <p></p>
+     * @param code              The board to rebuild. Its description should have been checked beforehand.
+     * @param renderer          The way the board is drawn.
+     */
+    public Game(BoardCode code, Renderer renderer) {
+        this(code.gameParams(), code.topology(), renderer, code.seed(), code.noGuess());
+        if (code.firstX() >= 0) handler(code.firstX(), code.firstY(), MouseButton.PRIMARY);
     }
 
-    private void endGame(boolean gameWon) {
-        // this method can be called only once
-        if (gameEnded) return;
-        gameEnded = true;
-
-        // timer should stop
-        timeline.stop();
+    /**
+     *
+     * While playing a user left-clicks on tiles in their attempt to unveil all the neutral tiles and win; This function gets these attempts.
+     * <p></p>
+     * @return                  The number of attempts the user has made so far, while playing the game.
+     */
+    public int getAttempts() { return engine.getAttempts(); }
 
-        // show all mines
-        revealMines(!gameWon);
+    /**
+     * The logic of this game, without graphics. Tools that reason about the game, for example a
+     * {@link ntua.multimedia.minesweeper.engine.Solver Solver} that gives hints, may read it.
+     * <p></p>
+     * The board must only be read on the JavaFX application thread, or while the game is not being played, and
+     * should not be changed directly: changes made through it are not shown by the <code>GameBox</code>.
+     * <p></p>
+     * @return                  The board of this game.
+     */
+    public Board getBoard() { return engine; }
 
-        // graphics set
-        gameBox.endGame(gameWon);
+    /**
+     * The {@link ProbabilityEngine ProbabilityEngine} of the whole board of this game. The same one is returned every
+     * time, so that it can reuse its results between moves. It is slow on very large boards.
+     * <p></p>
+     * @return                  The probability engine of this game.
+     */
+    public ProbabilityEngine getProbabilityEngine() {
+        if (probabilityEngine == null) probabilityEngine = new ProbabilityEngine(engine);
+        return probabilityEngine;
     }
 
-    private void revealMines(boolean gameOver) { for (Tile T : mineList) T.revealTile(gameOver); }
+    /**
+     * Starts a new round of this game on the same board, if the board fits the new description.
+     * <p></p>
+     * A new <code>Game</code> builds a new engine and a new <code>GameBox</code> with a node for every tile, which
+     * takes long enough to be noticed between the rounds of a timed session, and resizes the window if the board
+     * changes. When the new round is played on a board of the same size, shape and renderer, this function keeps the
+     * engine, the <code>GameBox</code> and all of its nodes and only resets what they show, which takes about a
+     * millisecond and allocates next to nothing. Endless boards are never reset.
+     * <p></p>
+     * The round is the same one a new <code>Game</code> with the same arguments would start. Its timer is stopped,
+     * {@link #startTime() startTime} starts it.
+     * <p></p>
+     * @param gameParams        An array of integers (<code>int</code>) which describes the new round.
+     * @param topology          The shape of the board.
+     * @param renderer          The way the board is drawn.
+     * @param seed              The seed of the mine generator.
+     * @param noGuess           Whether the board must be solvable without guessing.
+     * @return                  Whether the round was started. If not, nothing changed and a new <code>Game</code>
+     *                          should be created instead.
+     */
+    public boolean restart(int[] gameParams, Topology topology, Renderer renderer, long seed, boolean noGuess) {
+        if (!(engine instanceof GameEngine board) || gameParams[0] != size || topology != board.getTopology()
+                || renderer != this.renderer) return false;
 
-    int getTimeRemaining() { return timeRemaining; }
+        timeline.stop();
+        applier.finish(); // the previous round may have ended in a cascade that is still being shown
+
+        totalMines = gameParams[1];
+        time = gameParams[2];
+        hyperMines = gameParams[3];
+        scenario = "";
+        minesExported = false;
+        sinceSave = 0;
+        probabilityEngine = null; // it remembers the previous board
+
+        board.reset(gameParams, seed, noGuess);
+        recorder.take(); // the new mines, which the reset of the GameBox already shows as hidden tiles
+        gameBox.reset();
+        return true;
+    }
 
-    // class that holds logic about the tiles
-    class Tile {
-        private final TileStackPane tilePane; // TileStackPane to which this Tile is "connected"
-        private TileState state;
-        private TileType type;
-        private boolean recursed;
+    /**
+     * Saves this game in the background, so that it may be resumed with
+     * {@link #Game(Snapshot, Renderer) Game(Snapshot.read(PathLogger.save), renderer)}, even after the application
+     * is closed. There is one saved game: saving replaces it, and it is deleted when a game ends.
+     * <p></p>
+     * Games in progress are also saved every {@value #autosaveSeconds} seconds. Endless boards and games that ended
+     * cannot be saved.
+     * <p></p>
+     * @return                  Whether the game is being saved. A failure is shown to the player.
+     */
+    public boolean save() { return save(true); }
+
+    // autosaves report only their first failure, instead of one every half a minute
+    private boolean save(boolean manual) {
+        sinceSave = 0;
+        if (!(engine instanceof GameEngine board) || engine.isGameEnded()) return false;
+        gameBox.saveSnapshot(Snapshot.of(board, scenario), manual);
+        return true;
+    }
 
-        private Tile(TileStackPane tileStackPane) {
-            tilePane = tileStackPane;
-            state = TileState.HIDDEN;
-            type = TileType.UNASSIGNED;
-            recursed = false;
-        }
+    /**
+     * Takes back the last move of the player, or giving up. A game that had ended goes on again, with its timer
+     * running, but the time spent is not given back, so a game that ran out of time cannot be taken back.
+     * <p></p>
+     * Every move is remembered as the tiles it changed, so undoing a move costs as much as the move itself, however
+     * long the game is. Endless boards cannot undo their moves.
+     * <p></p>
+     * @return                  Whether there was a move to undo.
+     */
+    public boolean undo() { return travel(() -> journal.undo()); }
 
-        // flags a hidden tile or hides a flagged tile...
-        private void flagTile() {
-            TileState newState = state;
-            if (state == TileState.HIDDEN && flagsUsed < totalMines) {
-                updateFlagsLabel(1);
-                tilePane.setFlagged();
-                newState = TileState.FLAGGED;
-            }
-            else if (state == TileState.FLAGGED) {
-                updateFlagsLabel(-1);
-                tilePane.setHidden();
-                newState = TileState.HIDDEN;
-            }
-            state = newState; // set the tile's state appropriately
-            // if (state == TileState.REVEALED) do nothing!!!
-        }
+    /**
+     * Plays again the last move taken back by {@link #undo() undo}. A new move forgets the moves that could be
+     * redone.
+     * <p></p>
+     * @return                  Whether there was a move to redo.
+     */
+    public boolean redo() { return travel(() -> journal.redo()); }
 
-        // reveals the tile based on its type and state
-        private void revealTile(boolean unsafe) {
-            if (type == TileType.UNASSIGNED) return;
-            // if already revealed do nothing
-            if (state == TileState.REVEALED) return;
-
-            switch (type) {
-                case NEUTRAL -> {
-                    if (state == TileState.FLAGGED) { // when revealing neutral tiles, remove their flags
-                        updateFlagsLabel(-1);
-                    }
-
-                    --neutralRemaining; // since we reveal a neutral tile, there's one less remaining...
-                    tilePane.setRevealNeutral(calcMines(tilePane.x, tilePane.y));
-                }
-                case MINE -> {
-                    if (state == TileState.HIDDEN) { // when revealing a mine, we consume a flag
-                        updateFlagsLabel(1);
-                    }
-                    tilePane.setRevealMine(unsafe);
-                }
-                case HYPERMINE -> {
-                    if (state == TileState.HIDDEN) { // when revealing a mine, we consume a flag
-                        updateFlagsLabel(1);
-                    }
-                    tilePane.setRevealHyperMine(unsafe);
-                }
-            }
-            state = TileState.REVEALED; // tile is now REVEALED
-        }
+    /**
+     * Brings the game to the position after its first <code>move</code> moves, from 0, before any move, to
+     * {@link #getMoves() getMoves}, undoing or redoing as many moves as needed.
+     * <p></p>
+     * @param move              The number of moves.
+     * @return                  Whether the game is at that position now. Endless boards, games that ran out of time
+     *                          and moves that were not played do not move the game.
+     */
+    public boolean jumpTo(int move) {
+        if (journal == null || move < 0 || move > journal.size()) return false;
+        return travel(() -> journal.jumpTo(move));
+    }
 
-        private void setType(TileType tileType) {
-            if (gameStarted) return; // once the game has started Tiles must be set!
-            type = tileType;
-        }
+    /** @return The number of moves the game is at, which is less than {@link #getMoves() getMoves} after an undo. */
+    public int getMove() { return (journal != null) ? journal.getPosition() : 0; }
 
-        int getX() { return tilePane.x; }
-        int getY() { return tilePane.y; }
-    }
+    /** @return The number of moves remembered, including the ones that were undone. */
+    public int getMoves() { return (journal != null) ? journal.size() : 0; }
 
-    private enum TileState { HIDDEN, FLAGGED, REVEALED }
-    private enum TileType { NEUTRAL, MINE, HYPERMINE, UNASSIGNED }
+    // the journal changes the engine, the GameBox is then told like after a click
+    private boolean travel(BooleanSupplier step) {
+        if (journal == null) return false;
+        boolean ended = engine.isGameEnded();
+        if (!step.getAsBoolean()) return false;
 
-    private int randomPos() {
-        Random ran = new Random();
-        int num = ran.nextInt(size);
-        if (num >= 0 && num < size) {
-            return num;
-        }
-        else
-            return size/2;
+        // a game taken back before its first left-click may still move its mines, which are then exported again
+        if (engine.getAttempts() == 0 && !engine.isGameEnded()) minesExported = false;
+        exportMines();
+        applier.submit(recorder.take());
+        if (ended && !engine.isGameEnded()) timeline.play();
+        return true;
     }
 
     /**
-     * Constructs a <code>Game</code> based on a specified description provided in {@param gameParams} array.
-     * <p></p>
-     * A game of minesweeper is characterized by its description which must be known at creation time. This constructor
-     * takes as input an array of integers (<code>int</code>) representing a valid game description and creates a game
-     * based on this description.
+     * Names the description this game was created from, so that its round can be told apart from the rounds of other
+     * descriptions in the round log.
      * <p></p>
-     * One should know that the location of mines on the minefield is not only randomized but is chosen based on the
-     * location of the first valid left-click of the user ensuring that a user may never lose immediately because of
-     * bad luck. This, however, may not affect the outside behaviour of a <code>Game</code> object created with this
-     * constructor.
+     * @param scenario          The SCENARIO-ID of the description, or an empty string if there is none.
+     */
+    public void setScenario(String scenario) { this.scenario = scenario; }
+
+    /**
+     * Chooses the format of the mines file. Mines that were already exported are written again in the new format.
      * <p></p>
-     * @param gameParams        An array of integers (<code>int</code>) which describes the game we wish to create.
-     *                          <code>gameParams.length</code> must be at least four. If it is any bigger, numbers
-     *                          following the first four do not matter.
-     *                          <p>
-     *                          The first 4 integers are <code>{ size, totalMines, time, hyperMines }</code>.
-     *                          <ul>
-     *                          <li><code>size</code>: The minesweeper grid or game area is a size by size square</li>
-     *                          <li><code>totalMines</code>: The total number of tiles that are mines in the game</li>
-     *                          <li><code>time</code>: Initial value of the countdown for each round. If a player takes longer
-     *                              without beating the game then they automatically lose</li>
-     *                          <li><code>hyperMines</code>: The number of hyper mines present in the constructed <code>Game</code>
-     *                              object</li>
-     *                          </ul>
+     * @param compact           Whether the mines are written to the compact binary file, see
+     *                          {@link GameFiles#writeMinesCompact(GameEngine, String) writeMinesCompact}, instead of
+     *                          the text one.
      */
-    public Game(int[] gameParams) { this(gameParams[0], gameParams[1], gameParams[2], gameParams[3]); }
+    public void setCompactMines(boolean compact) {
+        if (compact == compactMines) return;
+        compactMines = compact;
+        if (minesExported) gameBox.exportMines();
+    }
 
     /**
-     *
-     * While playing a user left-clicks on tiles in their attempt to unveil all the neutral tiles and win; This function gets these attempts.
+     * A short text that describes the board of this game: its description, shape, seed and the first left-click of the
+     * player. Passing it to {@link #Game(BoardCode, Renderer) Game(BoardCode.decode(code), renderer)} rebuilds the same
+     * board on any machine.
      * <p></p>
-     * @return                  The number of attempts the user has made so far, while playing the game.
+     * @return                  The code of the board, as URL-safe Base64.
      */
-    public int getAttempts() { return  attempts; }
+    public String getBoardCode() { return BoardCode.of(engine, new int[] {size, totalMines, time, hyperMines}).encode(); }
 
     /**
      * <code>GameBox</code> is the graphical component (grid and some tools) of the minesweeper game.
@@ -429,6 +506,21 @@ public class Game {
      */
     public void stopTime() { timeline.stop(); }
 
+    /**
+     * Discards this game: its countdown is halted for good and the resources of its board are released.
+     * <p></p>
+     * A round that ended while its last cascade was still being drawn is still saved and announced. The game may not
+     * be used afterwards.
+     * <p></p>
+     * For example: A player starts a different game, or closes the application. Endless boards keep a spill file of
+     * their tiles, which is deleted here.
+     */
+    public void close() {
+        timeline.stop();
+        applier.finish();
+        if (engine instanceof InfiniteBoard board) board.close();
+    }
+
     /**
      * This function permanently halts a game of minesweeper.
      * <p></p>
@@ -437,11 +529,10 @@ public class Game {
      * <p></p>
      * For example: A player gives up and wishes to view the solution to the round they were player.
      */
-    public void stopGame() { endGame(false); }
+    public void stopGame() {
+        engine.stop();
+        if (journal != null) journal.commit(); // giving up is a move of its own, which may be undone
+        exportMines();
+        applier.submit(recorder.take());
+    }
 }
-
-// the implementation of method revealTile is quite expandable, if we wished for more actions we could just
-// write a function for each case of the switch statement. Furthermore, if we wished for more cases we could
-// implement this through an interface and class Tile would call the method of a class that implements that
-// interface; this way we would also avoid a large switch statement and not have bloated code.
-// This program is very simple though, so we don't need anything fancy like that...
\ No newline at end of file
@@ -1,86 +1,84 @@
 package ntua.multimedia.minesweeper.game;
 
+import javafx.application.Platform;
 import javafx.event.Event;
+import javafx.event.EventHandler;
 import javafx.scene.control.Alert;
 import javafx.scene.input.MouseEvent;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.GameListener;
+import ntua.multimedia.minesweeper.engine.Snapshot;
 import ntua.multimedia.minesweeper.utilities.AlertMessage;
+import ntua.multimedia.minesweeper.utilities.GameFiles;
 import ntua.multimedia.minesweeper.utilities.PathLogger;
+import ntua.multimedia.minesweeper.utilities.RoundLog;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-
-import static java.lang.Math.min;
-
-public class GameBox extends VBox {
+public class GameBox extends VBox implements GameListener {
     // game to which this GameBox belongs/refers to
     private final Game game;
 
-    // size (9 or 16 depending on difficulty)
-    private final int size;
+    // number of columns of the board (9 or 16 depending on difficulty)
+    private final int width;
 
-    // a GameBox has a ToolBar and a GridPane with the game Tiles.
+    // a GameBox has a ToolBar and a renderer that draws the game Tiles.
     final ToolBar toolBar;
-    final TileStackPane[][] tiles;
+    private final BoardRenderer renderer;
+
+    // swallows the clicks on the tiles once the game is over, until the board is reset
+    private final EventHandler<MouseEvent> endedFilter = Event::consume;
+
+    // whether a failed autosave was already reported
+    private boolean saveFailed;
 
-    public GameBox(Game g, int timeRemaining, int flagsUsed, int totalMines, int attempts) {
+    // a round is logged once, even if its end is undone and played again
+    private boolean roundSaved;
+
+    public GameBox(Game g, Renderer r) {
         game = g;
-        size = game.size;
+        Board board = game.engine;
+        width = board.getWidth();
 
         // set-up game area
-        GridPane grid = new GridPane();
-        tiles = new TileStackPane[size][size];
-        for (int y = 0; y < size; ++y) {
-            for (int x = 0; x < size; ++x) {
-                tiles[x][y] = new TileStackPane(x, y, game); // create tiles
-                grid.add(tiles[x][y],x,y); // add them to the grid
-            }
-        }
+        renderer = r.create(game);
 
         // set up toolBar
-        toolBar = new ToolBar(timeRemaining, flagsUsed, totalMines, attempts);
+        toolBar = new ToolBar(board.getTimeRemaining(), board.getFlagsUsed(), board.getTotalMines(), board.getAttempts());
 
-        getChildren().addAll(toolBar, grid);
+        getChildren().addAll(toolBar, renderer.getNode());
     }
 
-    // the game needs access to tiles and neighbors of tiles, so we provide these methods
-    TileStackPane getTile(int x, int y) { return tiles[x][y]; }
-    ArrayList<TileStackPane> neighbors(int x, int y) {
-        ArrayList<TileStackPane> neighbors = new ArrayList<>();
-
-        /* pairs of possible locations of neighbors */
-        int[] points = new int[] {
-                -1,-1, // top left
-                -1, 0, // on my left
-                -1, 1, // bottom left
-                0,-1, // above me
-                0, 1, // bellow me
-                1,-1, // top right
-                1, 0, // on my right
-                1, 1  // bottom right
-        };
-
-        for (int i = 0; i < points.length; ++i) {
-            int dx = points[i];
-            int dy = points[++i];
-
-            int newX = x + dx;
-            int newY = y + dy;
-
-            if (validCoords(newX, newY)) {
-                neighbors.add(tiles[newX][newY]);
-            }
-        }
-        // neighbors array does not include the (x,y) tile
-        return neighbors;
+    // the GameBox receives the changes of the engine from a DiffApplier and passes the tiles to its renderer
+    @Override
+    public void tileHidden(int x, int y) { renderer.tileHidden(x, y); }
+
+    @Override
+    public void tileFlagged(int x, int y) { renderer.tileFlagged(x, y); }
+
+    @Override
+    public void neutralRevealed(int x, int y, int mines) { renderer.neutralRevealed(x, y, mines); }
+
+    @Override
+    public void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe) {
+        renderer.mineRevealed(x, y, hyperMine, unsafe);
     }
-    boolean validCoords(int x, int y) { return x >= 0 && x < size && y >= 0 && y < size; }
 
-    void endGame(boolean gameWon) {
-        // area is no longer clickable
-        addEventFilter(MouseEvent.ANY, Event::consume);
+    @Override
+    public void flagsChanged(int flagsUsed, int totalMines) { toolBar.setFlagsLabel(flagsUsed, totalMines); }
+
+    @Override
+    public void attemptsChanged(int attempts) { toolBar.setAttemptsLabel(attempts); }
+
+    @Override
+    public void timeChanged(int timeRemaining) { toolBar.setTimeLabel(timeRemaining); }
+
+    @Override
+    public void gameEnded(boolean gameWon) {
+        renderer.gameEnded(gameWon);
+
+        // tiles are no longer clickable, but the view may still be moved around
+        addEventFilter(MouseEvent.MOUSE_CLICKED, endedFilter);
 
         // pop up message
         String[] info = new String[2];
@@ -97,83 +95,64 @@ public class GameBox extends VBox {
         alertMessage.show();
 
         // create new entry
-        createRoundsTxt(gameWon);
-    }
+        if (!roundSaved) saveRound(gameWon);
+        roundSaved = true;
 
-    // creates the mines.txt file. Tile in top left corner is (0,0). The first number is the row, the second number
-    // is the column and the third number 1 (hyper mine) or 0 (normal mine). We use a try-with-resources statement
-    // to ensure that the close method is properly called at all cases.
-    void createMinesTxt(ArrayList<Game.Tile> mineList) {
-        // in the mineList the first Tiles will be hypermines because of the way we constructed it
-        int i = game.hyperMines;
-        StringBuilder outputString = new StringBuilder();
-        if (mineList != null) {
-            for (Game.Tile T : mineList) {
-                int row = T.getY();
-                int column = T.getX();
-                int isHyper = 0;
-                if (i > 0) isHyper = 1;
-
-                outputString
-                        .append(row).append(", ")
-                        .append(column).append(", ")
-                        .append(isHyper).append("\n");
-
-                --i;
-            }
-        }
-        else {
-            outputString.append("This text file will contain the locations of mines after your first left click!");
-        }
-
-        try (FileWriter fileWriter = new FileWriter(PathLogger.medialab + "/mines.txt", false);
-             BufferedWriter writer = new BufferedWriter(fileWriter)){
+        // a finished game cannot be resumed, its last save would let the player play it again
+        GameFiles.deleteSnapshot(PathLogger.save);
+    }
 
-            writer.write(outputString.toString());
-        } catch (IOException e) {
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Mines file creation", null, "There was an error in accessing or writing to mines.txt");
-            alertMessage.show();
-        }
+    // the move that ended the game was undone
+    @Override
+    public void gameResumed() {
+        renderer.gameResumed();
+        removeEventFilter(MouseEvent.MOUSE_CLICKED, endedFilter);
     }
 
-    // after we complete playing through a round we register the results for this game
-    // we keep track of the 5 most recent rounds, with the most recent being at the top of "rounds.txt" file.
-    // We use try-with-resources statements to ensure that close is properly called at all cases.
-    void createRoundsTxt(boolean gameWon) {
-        String newEntry = "" + game.totalMines +
-                " " + game.getAttempts() +
-                " " + (game.time - game.getTimeRemaining()) +
-                " " + (gameWon ? "player" : "computer");
-
-        List<String> lines = new ArrayList<>();
-        lines.add(newEntry);
-
-        try (FileReader fileReader = new FileReader(PathLogger.rounds);
-             BufferedReader reader = new BufferedReader(fileReader)){
-
-            String line = reader.readLine();
-            while(line != null) {
-                lines.add(line);
-                line = reader.readLine();
-            }
-        } catch (IOException e) {
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.INFORMATION, "Rounds file Access", null, "Save game file did not exist.");
-            alertMessage.show();
-        }
+    // writes the final mines to mines.txt, or mines.bin for large boards, see GameFiles for their formats. The file is
+    // written in the background, only a failure comes back to the application thread
+    void exportMines() {
+        // the mines of lazily generated boards are never all known
+        if (!(game.engine instanceof GameEngine engine)) return;
+
+        GameFiles.exportMines(engine, PathLogger.mines, PathLogger.minesCompact, game.compactMines).exceptionally(e -> {
+            Platform.runLater(() -> {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Mines file creation", null, "There was an error in accessing or writing to the mines file");
+                alertMessage.show();
+            });
+            return null;
+        });
+    }
 
-        try (FileWriter fileWriter = new FileWriter(PathLogger.rounds, false);
-             BufferedWriter writer = new BufferedWriter(fileWriter)) {
+    // writes a saved game in the background. The snapshot was already taken, so the game goes on meanwhile
+    void saveSnapshot(Snapshot snapshot, boolean manual) {
+        GameFiles.saveSnapshot(snapshot, PathLogger.save).exceptionally(e -> {
+            Platform.runLater(() -> {
+                if (!manual && saveFailed) return;
+                saveFailed = true;
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Save Game", null, "There was an error in writing the saved game");
+                alertMessage.show();
+            });
+            return null;
+        });
+    }
 
-            for (int i = 0; i < min(5, lines.size()); ++i) {
-                writer.write(lines.get(i));
-                writer.newLine();
-            }
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.INFORMATION, "Rounds file Entry", null, "Game results saved.");
-            alertMessage.show();
+    // the engine was reset for a new round: the same tiles and toolbar show the new one, so neither the nodes nor the
+    // size of the window change
+    void reset() {
+        Board board = game.engine;
+        removeEventFilter(MouseEvent.MOUSE_CLICKED, endedFilter);
+        roundSaved = false;
+        renderer.reset();
+        toolBar.setTimeLabel(board.getTimeRemaining());
+        toolBar.setFlagsLabel(board.getFlagsUsed(), board.getTotalMines());
+        toolBar.setAttemptsLabel(board.getAttempts());
+    }
 
-        } catch (IOException e) {
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Rounds file Access", null, "Could not save game.");
-            alertMessage.show();
-        }
+    // after we complete playing through a round we register the results for this game. The log is written in the
+    // background, so the player never waits for the disk
+    void saveRound(boolean gameWon) {
+        RoundLog.shared().append(new RoundLog.Round(System.currentTimeMillis(), game.scenario, game.totalMines,
+                game.getAttempts(), game.time - game.getTimeRemaining(), gameWon));
     }
 }
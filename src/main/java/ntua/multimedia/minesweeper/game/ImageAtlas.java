@@ -0,0 +1,73 @@
+package ntua.multimedia.minesweeper.game;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.image.Image;
+import ntua.multimedia.minesweeper.utilities.AlertMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The images of the tiles, read once and shared by every game and renderer.
+ * <p></p>
+ * The images are resources of the application, so they are found on the classpath or inside a jlink image, wherever
+ * the game is started from. {@link #preload(double) preload} starts reading them in the background as soon as the
+ * application starts, so the first game finds them ready and never waits for the disk.
+ * <p></p>
+ * Every image is decoded once at the size a tile takes on the screen, its size in pixels times the scale of the
+ * screen, so tiles show it without scaling it again.
+ */
+public final class ImageAtlas {
+    private static final String folder = "/images/";
+
+    // the images, or null for the ones that could not be read, which tiles replace by letters
+    private record Images(Image flag, Image mine, Image hyperMine, boolean failed) {}
+
+    private static CompletableFuture<Images> images;
+    private static boolean reported;
+
+    private ImageAtlas() {}
+
+    /**
+     * Starts reading the images in the background. Later calls do nothing.
+     * <p></p>
+     * @param scale             The output scale of the screen, for example 2 on a high DPI screen.
+     */
+    public static synchronized void preload(double scale) {
+        if (images != null) return;
+        double pixels = TileStackPane.size * Math.max(1, scale);
+        images = CompletableFuture.supplyAsync(() -> {
+            Image flag = load("flag.png", pixels), mine = load("mine.png", pixels), hyperMine = load("hyperMine.png", pixels);
+            return new Images(flag, mine, hyperMine, flag == null || mine == null || hyperMine == null);
+        });
+    }
+
+    static Image getFlag() { return images().flag(); }
+    static Image getMine() { return images().mine(); }
+    static Image getHyperMine() { return images().hyperMine(); }
+
+    // waits for the images if they are still being read, which only happens if a game starts right away. A failure is
+    // reported once, on the application thread
+    private static Images images() {
+        preload(1);
+        Images loaded = images.join();
+        if (loaded.failed() && !reported && Platform.isFxApplicationThread()) {
+            reported = true;
+            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Loading Game Images", null, "Could not load game images.");
+            alertMessage.show();
+        }
+        return loaded;
+    }
+
+    private static Image load(String name, double pixels) {
+        try (InputStream stream = ImageAtlas.class.getResourceAsStream(folder + name)) {
+            if (stream == null) return null;
+            Image image = new Image(stream, pixels, pixels, true, true);
+            return image.isError() ? null : image;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ntua.multimedia.minesweeper.game;
+
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.GridPane;
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.Topology;
+
+// draws the board with one TileStackPane per tile in a GridPane
+class NodeRenderer extends GridPane implements BoardRenderer {
+    // boards with more tiles than this are too large to be shown whole, we show a part of them and let the player
+    // move around it
+    private static final int maxWholeTiles = 1024;
+    private static final int viewSize = 16;
+
+    private final Game game;
+
+    // number of columns and rows of the board
+    private final int width;
+    private final int height;
+
+    // board coordinates of the top left tile we show and the number of columns and rows we show
+    private int originX;
+    private int originY;
+    private final int viewWidth;
+    private final int viewHeight;
+
+    // helps to paint the mines of tiles that come into view after the end of the game
+    private boolean gameLost;
+
+    private final TileStackPane[][] tiles;
+
+    NodeRenderer(Game g) {
+        game = g;
+        Board board = game.engine;
+        width = board.getWidth();
+        height = board.getHeight();
+        boolean whole = (long) width * height <= maxWholeTiles;
+        viewWidth = whole ? width : Math.min(width, viewSize);
+        viewHeight = whole ? height : Math.min(height, viewSize);
+        originX = (width - viewWidth) / 2;
+        originY = (height - viewHeight) / 2;
+        gameLost = false;
+
+        // set-up game area
+        tiles = new TileStackPane[viewWidth][viewHeight];
+        for (int y = 0; y < viewHeight; ++y) {
+            for (int x = 0; x < viewWidth; ++x) {
+                TileStackPane tile = new TileStackPane(x, y); // create tiles
+                tile.setOnMouseClicked(event -> game.handler(originX + tile.x, originY + tile.y, event.getButton()));
+                // odd rows of hexagonal boards are shifted half a tile to the right
+                if (board.getTopology() == Topology.HEX && (y & 1) == 1) tile.setTranslateX(TileStackPane.size / 2.0);
+                // layers of a cube are separated by an empty row
+                add(tile, x, whole ? y + y / board.getLayerHeight() : y); // add them to the grid
+                tiles[x][y] = tile;
+            }
+        }
+        if (board.getTopology() == Topology.HEX) setPadding(new Insets(0, TileStackPane.size / 2.0, 0, 0));
+        // a resumed game already has revealed and flagged tiles
+        if (board.getAttempts() > 0 || board.getFlagsUsed() > 0) moveView(0, 0);
+
+        // the view of large boards moves with the arrow keys or the mouse wheel
+        if (!whole) {
+            setFocusTraversable(true);
+            addEventFilter(MouseEvent.MOUSE_PRESSED, event -> requestFocus());
+            setOnKeyPressed(event -> {
+                switch (event.getCode()) {
+                    case LEFT -> moveView(-1, 0);
+                    case RIGHT -> moveView(1, 0);
+                    case UP -> moveView(0, -1);
+                    case DOWN -> moveView(0, 1);
+                    default -> {}
+                }
+            });
+            setOnScroll(event -> {
+                int steps = event.getDeltaY() > 0 ? -3 : 3;
+                if (event.isShiftDown()) moveView(steps, 0);
+                else moveView(0, steps);
+            });
+        }
+    }
+
+    @Override
+    public Node getNode() { return this; }
+
+    // moves the view over the board and repaints every tile from the state of the board
+    private void moveView(int dx, int dy) {
+        originX = Math.max(0, Math.min(width - viewWidth, originX + dx));
+        originY = Math.max(0, Math.min(height - viewHeight, originY + dy));
+        Board board = game.engine;
+        for (int y = 0; y < viewHeight; ++y) {
+            for (int x = 0; x < viewWidth; ++x) {
+                TileStackPane tile = tiles[x][y];
+                int boardX = originX + x, boardY = originY + y;
+                switch (board.getState(boardX, boardY)) {
+                    case Board.HIDDEN -> tile.setHidden();
+                    case Board.FLAGGED -> tile.setFlagged();
+                    default -> {
+                        byte type = board.getType(boardX, boardY);
+                        if (type == Board.NEUTRAL) tile.setRevealNeutral(board.getAdjacent(boardX, boardY));
+                        else if (type == Board.HYPERMINE) tile.setRevealHyperMine(gameLost);
+                        else tile.setRevealMine(gameLost);
+                    }
+                }
+            }
+        }
+    }
+
+    // the tile showing board tile (x,y), or null if it is out of view
+    private TileStackPane view(int x, int y) {
+        x -= originX;
+        y -= originY;
+        if (x < 0 || x >= viewWidth || y < 0 || y >= viewHeight) return null;
+        return tiles[x][y];
+    }
+
+    @Override
+    public void tileHidden(int x, int y) {
+        TileStackPane tile = view(x, y);
+        if (tile != null) tile.setHidden();
+    }
+
+    @Override
+    public void tileFlagged(int x, int y) {
+        TileStackPane tile = view(x, y);
+        if (tile != null) tile.setFlagged();
+    }
+
+    @Override
+    public void neutralRevealed(int x, int y, int mines) {
+        TileStackPane tile = view(x, y);
+        if (tile != null) tile.setRevealNeutral(mines);
+    }
+
+    @Override
+    public void mineRevealed(int x, int y, boolean hyperMine, boolean unsafe) {
+        TileStackPane tile = view(x, y);
+        if (tile == null) return;
+        if (hyperMine) tile.setRevealHyperMine(unsafe);
+        else tile.setRevealMine(unsafe);
+    }
+
+    @Override
+    public void gameEnded(boolean gameWon) { gameLost = !gameWon; }
+
+    @Override
+    public void gameResumed() { gameLost = false; }
+
+    // the tiles are kept, only their looks change. The view stays where the player left it
+    @Override
+    public void reset() {
+        gameLost = false;
+        for (TileStackPane[] column : tiles) for (TileStackPane tile : column) tile.setHidden();
+    }
+}
@@ -0,0 +1,18 @@
+package ntua.multimedia.minesweeper.game;
+
+/**
+ * The ways a {@link GameBox GameBox} may draw its board.
+ */
+public enum Renderer {
+    /** One JavaFX node per tile, the classic look. Large boards show a window of 16 by 16 tiles. */
+    NODES,
+    /** A single canvas that draws only the visible tiles and may be zoomed and dragged around. Suits large boards. */
+    CANVAS;
+
+    BoardRenderer create(Game game) {
+        return switch (this) {
+            case NODES -> new NodeRenderer(game);
+            case CANVAS -> new CanvasRenderer(game);
+        };
+    }
+}
@@ -1,61 +1,32 @@
 package ntua.multimedia.minesweeper.game;
 
 import javafx.geometry.Pos;
-import javafx.scene.control.Alert;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
-import ntua.multimedia.minesweeper.utilities.AlertMessage;
-import ntua.multimedia.minesweeper.utilities.PathLogger;
-
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 
 // graphical representation of a tile
 public class TileStackPane extends StackPane {
     // tiles are squares of size by size
-    private static final int size = 40;
+    static final int size = 40;
 
     // coordinates of this tile
     final int x;
     final int y;
 
-    // we only need one function from the Game object. It
-    // is triggered whenever we click on a Tile. This is a very
-    // simple way to achieve communication among the controlling object of the game
-    // and the game tiles
-    private final Game game;
-
-    // the images we use... They are the same for all Tiles
-    private static Image flag = null;
-    private static Image mine = null;
-    private static Image hyperMine = null;
-    private static boolean loadedImages = false;
-
     // graphics related stuff
     private final Rectangle rectangle;
     private final ImageView imageView;
     private final Text text;
 
-    TileStackPane(int X, int Y, Game g) {
+    // the renderer that creates the tile decides what a click on it means
+    TileStackPane(int X, int Y) {
         // get related game information
         x = X;
         y = Y;
-        game = g;
-
-        // If this is the first tile being created, load images...
-        if (!loadedImages) {
-            loadedImages = true;
-
-            flag = loadImage(PathLogger.images + "/flag.png");
-            mine = loadImage(PathLogger.images + "/mine.png");
-            hyperMine = loadImage(PathLogger.images + "/hyperMine.png");
-        }
 
         // graphics set-up
         rectangle = new Rectangle(size, size);
@@ -63,51 +34,30 @@ public class TileStackPane extends StackPane {
         rectangle.setArcWidth(size / 8);
         rectangle.setArcHeight(size / 8);
 
+        // the images are decoded at the size of a tile, on high DPI screens at more pixels than that
         imageView = new ImageView();
+        imageView.setFitWidth(size);
+        imageView.setFitHeight(size);
         text = new Text();
 
         // all rectangles start as hidden
         setHidden();
         setAlignment(Pos.CENTER);
         getChildren().addAll(rectangle, imageView, text);
-
-        // set event handler
-        setOnMouseClicked(event -> game.handler(x, y, event.getButton()));
-        // we needed the game field only to call this function, we do not care about other members of the Game object
-    }
-
-    // safe way to load an Image. We use a try-with-resource statement to guarantee that the resources are closed
-    // whether reading succeeds or fails
-    private static Image loadImage(String filePath) {
-        try (FileInputStream inputStream = new FileInputStream(filePath);
-             BufferedInputStream bIS = new BufferedInputStream(inputStream)) {
-            return new Image(bIS);
-        } catch (FileNotFoundException e) {
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Loading Game Images", null, "Could not load game images.");
-            alertMessage.show();
-            return null;
-        } catch (IOException e) {
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Loading Game Images", null, "Could not close image files.");
-            alertMessage.show();
-            return null;
-        }
     }
 
     void setHidden() {
         rectangle.setFill(Color.LIGHTGRAY);
         rectangle.setStroke(Color.DARKGRAY);
         imageView.setImage(null);
-        imageView.setFitHeight(size);
-        imageView.setFitWidth(size);
         text.setText("");
     }
 
     void setFlagged() {
         rectangle.setFill(Color.LIGHTCYAN);
         rectangle.setStroke(Color.SKYBLUE);
+        Image flag = ImageAtlas.getFlag();
         imageView.setImage(flag);
-        imageView.setFitHeight(size);
-        imageView.setFitWidth(size);
         text.setText("");
 
         // in case a flag image could not be loaded
@@ -118,8 +68,6 @@ public class TileStackPane extends StackPane {
         rectangle.setFill(Color.WHITE);
         rectangle.setStroke(Color.LIGHTGRAY);
         imageView.setImage(null);
-        imageView.setFitHeight(size);
-        imageView.setFitWidth(size);
 
         String content = "";
         if (mines > 0) { // if there are neighboring mines, show them
@@ -144,17 +92,16 @@ public class TileStackPane extends StackPane {
 
         String textContent;
         if (isNormalMine) {
+            Image mine = ImageAtlas.getMine();
             imageView.setImage(mine);
             textContent = (mine == null) ? "X" : "";
         }
         else {
+            Image hyperMine = ImageAtlas.getHyperMine();
             imageView.setImage(hyperMine);
             textContent = (hyperMine == null) ? "H" : "";
         }
 
-        imageView.setFitWidth(size);
-        imageView.setFitHeight(size);
-
         // setting textContent like this allows us to accommodate the case of failure to load game images
         text.setText(textContent);
     }
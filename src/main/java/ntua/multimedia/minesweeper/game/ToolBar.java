@@ -45,7 +45,9 @@ public class ToolBar extends GridPane {
         timeLabel.setText("Time: " + timeRemaining + " seconds");
     }
     void setFlagsLabel(int flagsUsed, int mines) {
-        flagsLabel.setText("Flags Used: " + flagsUsed + "/" + mines);
+        // the mines of lazily generated boards can't be counted
+        if (mines < 0) flagsLabel.setText("Flags Used: " + flagsUsed);
+        else flagsLabel.setText("Flags Used: " + flagsUsed + "/" + mines);
     }
     void setAttemptsLabel(int attempts) {
         attemptsLabel.setText("Attempts: " + attempts);
@@ -6,9 +6,12 @@ import java.io.IOException;
 
 // a clas which checks our errors and formats the game parameters of valid games
 public class ErrorChecker {
+    // the third difficulty is an endless board of a million by a million tiles, generated as the player explores it.
+    // Its number of mines is a density instead, the number of mines per thousand tiles
     private static final DescriptionRules[] dRules = new DescriptionRules[] {
       new DescriptionRules(9,11,120,180,0, 9),
-      new DescriptionRules(35,45,240,360,1,16)
+      new DescriptionRules(35,45,240,360,1,16),
+      new DescriptionRules(120,250,60,3600,0,1000000)
     };
 
     private final int[] params;
@@ -18,6 +21,41 @@ public class ErrorChecker {
         params = valueChecker(lines);
     }
 
+    /**
+     * Reads and checks a game description file, for tools that run without the menus, such as the simulations.
+     * <p></p>
+     * @param path              Path of the description file.
+     * @return                  The game parameters <code>{ size, totalMines, time, hyperMines }</code>.
+     * @throws InvalidException If the file does not have four lines or a value is out of range. The reason is in
+     *                          {@link InvalidException#getMyMessage() getMyMessage}.
+     * @throws IOException      If the file cannot be read.
+     */
+    public static int[] check(String path) throws InvalidException, IOException {
+        return valueChecker(descriptionChecker(path));
+    }
+
+    /**
+     * Checks a description that did not come from a file, for tools that receive it over the network, such as the
+     * game server. The difficulty is found from the size of the board.
+     * <p></p>
+     * @param gameParams        The game parameters <code>{ size, totalMines, time, hyperMines }</code>.
+     * @return                  A copy of the game parameters.
+     * @throws InvalidException If the size is not the size of a difficulty or a value is out of range.
+     */
+    public static int[] check(int[] gameParams) throws InvalidException { return paramsChecker(gameParams); }
+
+    // checks a description that did not come from a file, for example one read from a board code. The difficulty
+    // is found from the size of the board
+    static int[] paramsChecker(int[] gameParams) throws InvalidValueException {
+        int index = -1;
+        for (int i = 0; i < dRules.length; ++i) {
+            if (dRules[i].size() == gameParams[0]) index = i;
+        }
+        if (index < 0) throw new InvalidValueException(new boolean[] {true, false, false, false});
+
+        return valueChecker(new String[] {"" + (index + 1), "" + gameParams[1], "" + gameParams[2], "" + gameParams[3]});
+    }
+
     private static String[] descriptionChecker(String path) throws InvalidDescriptionException, IOException {
         try (FileReader fileReader = new FileReader(path);
              BufferedReader reader = new BufferedReader(fileReader)) {
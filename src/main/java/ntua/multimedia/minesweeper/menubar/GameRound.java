@@ -3,12 +3,16 @@ package ntua.multimedia.minesweeper.menubar;
 // this class needed to be this way so that in order for the
 // tableview to work properly
 public class GameRound {
+    private String date;
+    private String scenario;
     private String mines;
     private String attempts;
     private String time;
     private String winner;
 
-    public GameRound(String mines, String attempts, String time, String winner) {
+    public GameRound(String date, String scenario, String mines, String attempts, String time, String winner) {
+        this.date = date;
+        this.scenario = scenario;
         this.mines = mines;
         this.attempts = attempts;
         this.time = time;
@@ -16,6 +20,12 @@ public class GameRound {
     }
 
     /* setters and getters are needed for table representation I think */
+    public String getDate() {
+        return date;
+    }
+    public String getScenario() {
+        return scenario;
+    }
     public String getMines() {
         return mines;
     }
@@ -29,6 +39,12 @@ public class GameRound {
         return winner;
     }
 
+    public void setDate(String date) {
+        this.date = date;
+    }
+    public void setScenario(String scenario) {
+        this.scenario = scenario;
+    }
     public void setMines(String mines) {
         this.mines = mines;
     }
@@ -3,24 +3,71 @@ package ntua.multimedia.minesweeper.menubar;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.BoardCode;
+import ntua.multimedia.minesweeper.engine.PatternEngine;
+import ntua.multimedia.minesweeper.engine.ProbabilityEngine;
+import ntua.multimedia.minesweeper.engine.Snapshot;
+import ntua.multimedia.minesweeper.engine.Solver;
+import ntua.multimedia.minesweeper.engine.Topology;
 import ntua.multimedia.minesweeper.game.Game;
+import ntua.multimedia.minesweeper.game.Renderer;
 import ntua.multimedia.minesweeper.utilities.AlertMessage;
 import ntua.multimedia.minesweeper.utilities.PathLogger;
+import ntua.multimedia.minesweeper.utilities.RoundHistory;
+import ntua.multimedia.minesweeper.utilities.RoundLog;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class MinesweeperMenuBar extends MenuBar {
     private final VBox rootApp; // VBox where the MenuBar and the game are hosted
     private Game game = null; // the game the user is currently playing
     private int[] gameParams = null; // 0 --> size, 1 --> mines, 2 --> time, 3 --> hyper mines
+    private Long seed = null; // seed of the mines when a board code was loaded, null for random boards
+    private String scenario = ""; // SCENARIO-ID of the loaded description, empty for board codes
+    private Topology topology = Topology.SQUARE; // shape of the board of the next game
+    private Renderer renderer = Renderer.NODES; // how the board of the next game is drawn
+    private boolean noGuess = false; // whether the next game must be solvable without guessing
+    private final CheckMenuItem noGuessItem = new CheckMenuItem("No Guessing");
+    private boolean compactMines = false; // whether the mines file is the compact binary one instead of mines.txt
+    private final ToggleGroup topologyGroup = new ToggleGroup(); // radio items of the board shapes
+
+    // the descriptions of the medialab folder, checked once and kept up to date
+    private final ScenarioCatalog catalog = new ScenarioCatalog(PathLogger.medialab,
+            Set.of(Path.of(PathLogger.mines).getFileName().toString()));
+
+    private PatternEngine patterns = null; // read on the first hint
+    private boolean patternsFailed = false; // whether reading it failed, so that it is not tried again
+
+    private static final int hintWindow = 1024; // tiles per side that a hint looks at
+    private static final long hintBudget = 200; // milliseconds a hint may take
+
+    private static final int roundsPage = 20; // rounds per page of the Rounds window
+    private static final String allScenarios = "All"; // items of the scenario box that are not scenarios
+    private static final String noScenario = "(none)";
+    private static final DateTimeFormatter dateFormat =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
 
     public MinesweeperMenuBar(VBox RootApp) {
         rootApp = RootApp;
@@ -34,13 +81,22 @@ public class MinesweeperMenuBar extends MenuBar {
         MenuItem loadItem = new MenuItem("Load");
         loadItem.setOnAction(actionEvent -> loadAct());
 
+        MenuItem loadCodeItem = new MenuItem("Load Code");
+        loadCodeItem.setOnAction(actionEvent -> loadCodeAct());
+
         MenuItem startItem = new MenuItem("Start");
         startItem.setOnAction(actionEvent -> startAct());
 
+        MenuItem saveItem = new MenuItem("Save");
+        saveItem.setOnAction(actionEvent -> saveAct());
+
+        MenuItem resumeItem = new MenuItem("Resume");
+        resumeItem.setOnAction(actionEvent -> resumeAct());
+
         MenuItem exitItem = new MenuItem("Exit");
         exitItem.setOnAction(actionEvent -> exitAct());
 
-        appMenu.getItems().addAll(createItem, loadItem, startItem, exitItem);
+        appMenu.getItems().addAll(createItem, loadItem, loadCodeItem, startItem, saveItem, resumeItem, exitItem);
 
         // creating details menu
         Menu detailsMenu = new Menu("Details");
@@ -51,9 +107,72 @@ public class MinesweeperMenuBar extends MenuBar {
         MenuItem solutionItem = new MenuItem("Solution");
         solutionItem.setOnAction(actionEvent -> solutionAct());
 
-        detailsMenu.getItems().addAll(roundsItem, solutionItem);
+        MenuItem hintItem = new MenuItem("Hint");
+        hintItem.setOnAction(actionEvent -> hintAct());
+
+        MenuItem codeItem = new MenuItem("Board Code");
+        codeItem.setOnAction(actionEvent -> codeAct());
+
+        detailsMenu.getItems().addAll(roundsItem, solutionItem, hintItem, codeItem);
+
+        // creating moves menu, the moves of the game being played
+        Menu movesMenu = new Menu("Moves");
+
+        MenuItem undoItem = new MenuItem("Undo");
+        undoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        undoItem.setOnAction(actionEvent -> { if (game != null) game.undo(); });
+
+        MenuItem redoItem = new MenuItem("Redo");
+        redoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        redoItem.setOnAction(actionEvent -> { if (game != null) game.redo(); });
+
+        MenuItem jumpItem = new MenuItem("Jump to Move");
+        jumpItem.setOnAction(actionEvent -> jumpAct());
+
+        movesMenu.getItems().addAll(undoItem, redoItem, jumpItem);
+
+        // creating options menu, the chosen board shape and renderer are used from the next Start
+        Menu optionsMenu = new Menu("Options");
+
+        Menu topologyMenu = new Menu("Board Shape");
+        String[] topologyNames = new String[] {"Square", "Torus", "Hexagonal", "Cube"};
+        Topology[] topologies = new Topology[] {Topology.SQUARE, Topology.TORUS, Topology.HEX, Topology.CUBE};
+        for (int i = 0; i < topologies.length; ++i) {
+            Topology t = topologies[i];
+            RadioMenuItem topologyItem = new RadioMenuItem(topologyNames[i]);
+            topologyItem.setToggleGroup(topologyGroup);
+            topologyItem.setUserData(t);
+            topologyItem.setSelected(t == topology);
+            topologyItem.setOnAction(actionEvent -> topology = t);
+            topologyMenu.getItems().add(topologyItem);
+        }
+
+        Menu rendererMenu = new Menu("Renderer");
+        ToggleGroup rendererGroup = new ToggleGroup();
+        String[] rendererNames = new String[] {"Tiles", "Canvas"};
+        Renderer[] renderers = new Renderer[] {Renderer.NODES, Renderer.CANVAS};
+        for (int i = 0; i < renderers.length; ++i) {
+            Renderer r = renderers[i];
+            RadioMenuItem rendererItem = new RadioMenuItem(rendererNames[i]);
+            rendererItem.setToggleGroup(rendererGroup);
+            rendererItem.setSelected(r == renderer);
+            rendererItem.setOnAction(actionEvent -> renderer = r);
+            rendererMenu.getItems().add(rendererItem);
+        }
+
+        noGuessItem.setOnAction(actionEvent -> noGuess = noGuessItem.isSelected());
+
+        // the text file is the one the assignment asks for, the compact one suits large boards
+        CheckMenuItem compactItem = new CheckMenuItem("Compact Mines File");
+        compactItem.setSelected(compactMines);
+        compactItem.setOnAction(actionEvent -> {
+            compactMines = compactItem.isSelected();
+            if (game != null) game.setCompactMines(compactMines);
+        });
 
-        getMenus().addAll(appMenu, detailsMenu);
+        optionsMenu.getItems().addAll(topologyMenu, rendererMenu, noGuessItem, compactItem);
+
+        getMenus().addAll(appMenu, detailsMenu, movesMenu, optionsMenu);
     }
 
     // As requested in the problem description the user gives input in the order:
@@ -95,12 +214,13 @@ public class MinesweeperMenuBar extends MenuBar {
 
             try (FileWriter fileWriter = new FileWriter(filePath, false)) {
                 fileWriter.write(fileContent);
-
-                stage.close();
             } catch (IOException e) {
                 AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Save Game Description", null, "Could not save this game.");
                 alertMessage.show();
+                return;
             }
+            catalog.update(fileName); // the catalog would notice the file a little later anyway
+            stage.close();
         });
 
         GridPane grid = new GridPane();
@@ -127,7 +247,8 @@ public class MinesweeperMenuBar extends MenuBar {
         stage.show();
     }
 
-    // checks if a game description is valid and initializes the gameParams array
+    // lets the user pick a scenario of the catalog, whose descriptions are already checked, and initializes the
+    // gameParams array. The list follows the files of the medialab folder while the window is open
     private void loadAct() {
         Stage stage = new Stage();
         stage.initStyle(StageStyle.UTILITY);
@@ -135,26 +256,51 @@ public class MinesweeperMenuBar extends MenuBar {
 
         Label fileIDLabel = new Label("SCENARIO-ID:");
         TextField fileIDField = new TextField();
+        fileIDField.setPromptText("Filter");
+
+        ObservableList<String> ids = FXCollections.observableArrayList(catalog.ids());
+        FilteredList<String> shown = new FilteredList<>(ids);
+        ListView<String> list = new ListView<>(shown);
+        list.setPrefHeight(220);
+        fileIDField.textProperty().addListener((observable, before, text) -> {
+            String filter = text.strip();
+            shown.setPredicate(id -> id.contains(filter));
+        });
 
-        Button loadButton = new Button("Load");
-        loadButton.setOnAction(actionEvent -> {
-            String filePath = PathLogger.medialab + "/" + fileIDField.getText().strip() + ".txt";
+        Runnable listener = () -> Platform.runLater(() -> ids.setAll(catalog.ids()));
+        catalog.addListener(listener);
+        stage.setOnHidden(windowEvent -> catalog.removeListener(listener));
 
-            try {
-                ErrorChecker errorChecker = new ErrorChecker(filePath);
-                gameParams = errorChecker.getParams();
+        Button loadButton = new Button("Load");
+        Runnable load = () -> {
+            // the selected scenario, or the one typed in full
+            String fileID = list.getSelectionModel().getSelectedItem();
+            if (fileID == null) fileID = fileIDField.getText().strip();
 
-                stage.close();
-            }  catch (InvalidDescriptionException e) {
-                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Game Description Error", null, e.getMyMessage());
+            ScenarioCatalog.Scenario found = catalog.get(fileID);
+            if (found == null) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "File Error", null, "Could not read game description file.");
                 alertMessage.show();
-            } catch (InvalidValueException e) {
-                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Description Values Error", null, e.getMyMessage());
+            }
+            else if (found.error() instanceof InvalidDescriptionException) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Game Description Error", null, found.error().getMyMessage());
                 alertMessage.show();
-            } catch (IOException e) {
-                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "File Error", null, "Could not read game description file.");
+            }
+            else if (found.error() != null) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Description Values Error", null, found.error().getMyMessage());
                 alertMessage.show();
             }
+            else {
+                gameParams = found.params().clone();
+                seed = null; // a new description gets random boards
+                scenario = fileID;
+
+                stage.close();
+            }
+        };
+        loadButton.setOnAction(actionEvent -> load.run());
+        list.setOnMouseClicked(mouseEvent -> {
+            if (mouseEvent.getClickCount() == 2 && list.getSelectionModel().getSelectedItem() != null) load.run();
         });
 
         GridPane grid = new GridPane();
@@ -163,28 +309,251 @@ public class MinesweeperMenuBar extends MenuBar {
         grid.setHgap(10);
         grid.add(fileIDLabel,0,0);
         grid.add(fileIDField,1,0);
-        grid.add(loadButton,0,1);
+        grid.add(list,0,1,2,1);
+        grid.add(loadButton,0,2);
 
-        Scene scene = new Scene(grid, 300, 300);
+        Scene scene = new Scene(grid, 300, 320);
         stage.setScene(scene);
         stage.show();
     }
+    // a board code contains a description, a shape, a seed and maybe the first click of a game. The game starts
+    // right away with the same board, and later Starts keep using the same seed
+    private void loadCodeAct() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Load Board Code");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Board code:");
+        dialog.showAndWait().ifPresent(text -> {
+            try {
+                BoardCode code = BoardCode.decode(text);
+                gameParams = ErrorChecker.paramsChecker(code.gameParams());
+                topology = code.topology();
+                topologyGroup.getToggles().forEach(toggle -> toggle.setSelected(toggle.getUserData() == topology));
+                seed = code.seed();
+                noGuess = code.noGuess();
+                noGuessItem.setSelected(noGuess);
+                scenario = "";
+                showGame(new Game(code, renderer));
+            } catch (IllegalArgumentException e) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Board Code Error", null, "This is not a valid board code.");
+                alertMessage.show();
+            } catch (InvalidValueException e) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Description Values Error", null, e.getMyMessage());
+                alertMessage.show();
+            }
+        });
+    }
+
+    // any move from the first position to the last one remembered, undone moves included
+    private void jumpAct() {
+        if (game == null) return;
+        TextInputDialog dialog = new TextInputDialog("" + game.getMove());
+        dialog.setTitle("Jump to Move");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Move (0 to " + game.getMoves() + "):");
+        dialog.showAndWait().ifPresent(text -> {
+            int move;
+            try {
+                move = Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                move = -1;
+            }
+            if (move < 0 || move > game.getMoves()) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Jump to Move", null, "There is no move " + text.trim() + " in this game.");
+                alertMessage.show();
+            }
+            else if (!game.jumpTo(move) && game.getMoves() > 0) { // the time ran out, which is never taken back
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Jump to Move", null, "The time of this game ran out.");
+                alertMessage.show();
+            }
+        });
+    }
+
     private void startAct() {
         if (gameParams == null) return; // no game description loaded
 
+        // endless boards only come in one shape and are never generated to be solved, so these options can't be kept
+        if (Game.isEndless(gameParams) && (topology != Topology.SQUARE || noGuess)) {
+            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.INFORMATION, "Start Game", null, "Endless boards are always square and may need guessing. Choose the Square shape and turn off No Guessing to play them.");
+            alertMessage.show();
+            return;
+        }
+
+        long gameSeed = (seed == null) ? ThreadLocalRandom.current().nextLong() : seed;
+
+        // a board of the same size is reset for the new round, so its tiles are not built again
+        if (game != null && game.restart(gameParams, topology, renderer, gameSeed, noGuess)) {
+            game.setScenario(scenario);
+            game.startTime();
+            return;
+        }
+
+        // create a new game
+        Game newGame = new Game(gameParams, topology, renderer, gameSeed, noGuess);
+        newGame.setScenario(scenario);
+        showGame(newGame);
+    }
+
+    // the game is packed right away and written in the background
+    private void saveAct() {
+        if (game == null) return;
+        if (!game.save()) {
+            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.INFORMATION, "Save Game", null, "Only games in progress on boards that are not endless can be saved.");
+            alertMessage.show();
+        }
+    }
+
+    // a saved game and its checked description
+    private record Saved(Snapshot snapshot, int[] gameParams) {}
+
+    // the saved game is read in the background. Its description becomes the loaded one, so Start plays new rounds
+    // of it
+    private void resumeAct() {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                Snapshot snapshot = Snapshot.read(PathLogger.save);
+                return new Saved(snapshot, ErrorChecker.paramsChecker(snapshot.getGameParams()));
+            } catch (IOException | InvalidValueException e) {
+                return null;
+            }
+        }).thenAccept(saved -> Platform.runLater(() -> {
+            if (saved == null) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Resume Game", null, "There is no saved game, or it could not be read.");
+                alertMessage.show();
+                return;
+            }
+            Snapshot snapshot = saved.snapshot();
+            gameParams = saved.gameParams();
+            topology = snapshot.getTopology();
+            topologyGroup.getToggles().forEach(toggle -> toggle.setSelected(toggle.getUserData() == topology));
+            seed = null;
+            noGuess = snapshot.isNoGuess();
+            noGuessItem.setSelected(noGuess);
+            scenario = snapshot.getName();
+            showGame(new Game(snapshot, renderer));
+        }));
+    }
+
+    // replaces the game the user is currently playing, if any
+    private void showGame(Game newGame) {
         if (game != null) { // game != null means that the user is already playing a game
-            game.stopTime(); // stop the timeline! This game should no longer be running
+            game.close(); // stop the timeline and release the board! This game should no longer be running
             rootApp.getChildren().remove(game.getGameBox()); // remove the game
         }
         else if ((long) rootApp.getChildren().size() == 2) {
             rootApp.getChildren().remove(1); // remove the descriptive text in the start screen
         }
 
-        game = new Game(gameParams); // create a new game
+        game = newGame;
+        game.setCompactMines(compactMines);
         rootApp.getChildren().add(game.getGameBox()); // new game should be visible to the user
         game.startTime(); // start the game after all these initializations are over
     }
 
+    /**
+     * Closes the game the user is currently playing, if any, so that the files of its board are released.
+     * <p></p>
+     * For example: The application is about to exit.
+     */
+    public void close() {
+        if (game != null) game.close();
+    }
+
+    // asks the solver for a tile that is certainly safe. Endless boards are only solved around the first click
+    private void hintAct() {
+        if (game == null) return;
+        Board board = game.getBoard();
+        if (board.isGameEnded()) return;
+
+        int x0 = 0, y0 = 0, width = board.getWidth(), height = board.getHeight();
+        boolean whole = (long) width * height <= hintWindow * hintWindow;
+        if (!whole) {
+            if (board.getFirstX() < 0) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.INFORMATION, "Hint", null, "Reveal a tile first.");
+                alertMessage.show();
+                return;
+            }
+            x0 = Math.max(0, Math.min(board.getWidth() - hintWindow, board.getFirstX() - hintWindow / 2));
+            y0 = Math.max(0, Math.min(board.getHeight() - hintWindow, board.getFirstY() - hintWindow / 2));
+            width = hintWindow;
+            height = hintWindow;
+        }
+
+        // the pattern table answers most hints at once, the solver the rest
+        PatternEngine patterns = loadPatterns();
+        Solver.Result found = (patterns != null) ? patterns.find(board, x0, y0, width, height) : null;
+        Solver.Result result = (found != null && found.safe().length > 0) ? found
+                : new Solver(board, x0, y0, width, height).solve(hintBudget, TimeUnit.MILLISECONDS);
+
+        String message;
+        if (result == found) {
+            long tile = result.safe()[0];
+            message = "Row " + tile / board.getWidth() + ", column " + tile % board.getWidth() + " is safe.";
+        }
+        else if (result.safe().length > 0) {
+            long tile = result.safe()[0];
+            message = "Row " + tile / board.getWidth() + ", column " + tile % board.getWidth() + " is safe.\n" +
+                      result.safe().length + " safe tiles and " + result.mines().length + " mines are certain.";
+        }
+        else if (whole) {
+            // no certain tile, the best guess is the one least likely to be a mine
+            ProbabilityEngine.Result probabilities = game.getProbabilityEngine().compute(hintBudget, TimeUnit.MILLISECONDS);
+            long tile = probabilities.safest();
+            if (tile >= 0) {
+                message = "No tile is certainly safe, the safest guess is row " + tile / board.getWidth() + ", column " +
+                          tile % board.getWidth() + ".\nIt is a mine with probability " +
+                          percent(probabilities.probability(tile)) + ".";
+            }
+            else {
+                message = "No tile is certainly safe, the safest guess is any tile away from the numbers.\n" +
+                          "Each is a mine with probability " + percent(probabilities.interior()) + ".";
+            }
+            if (!probabilities.complete()) message += "\nThis is an estimate, there was not enough time.";
+        }
+        else if (result.complete()) message = "No tile is certainly safe, you have to guess.";
+        else message = "No safe tile was found in time.";
+        AlertMessage alertMessage = new AlertMessage(Alert.AlertType.INFORMATION, "Hint", null, message);
+        alertMessage.show();
+    }
+
+    // the pattern table is read on the first hint. If it cannot be read, hints use only the solver
+    private PatternEngine loadPatterns() {
+        if (patterns == null && !patternsFailed) {
+            try {
+                patterns = PatternEngine.load();
+            } catch (IOException e) {
+                patternsFailed = true;
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Loading Patterns", null, "Could not read the pattern table, hints will be slower.");
+                alertMessage.show();
+            }
+        }
+        return patterns;
+    }
+
+    private static String percent(double probability) { return String.format("%.1f%%", probability * 100); }
+
+    // shows the code of the current board in a field the user can copy from
+    private void codeAct() {
+        if (game == null) return;
+
+        TextField codeField = new TextField(game.getBoardCode());
+        codeField.setEditable(false);
+        codeField.setPrefColumnCount(28);
+
+        Label message = new Label("Load Code rebuilds this board on any machine.");
+
+        VBox box = new VBox(codeField, message);
+        box.setPadding(new Insets(10,10,10,10));
+        box.setSpacing(8);
+
+        Stage stage = new Stage();
+        stage.initStyle(StageStyle.UTILITY);
+        stage.setTitle("Board Code");
+        stage.setScene(new Scene(box));
+        stage.show();
+        codeField.selectAll();
+    }
+
     private void exitAct() {
         if (game != null) {
             game.stopTime();
@@ -192,10 +561,18 @@ public class MinesweeperMenuBar extends MenuBar {
         Platform.exit();
     }
 
-    // we are using a TableView to display previously completed rounds
+    // we are using a TableView to page through the round history, roundsPage rounds at a time, with the statistics
+    // of the chosen scenario above it. The history reads the new rounds of the log in the background, then the window
+    // is filled
     private void roundsAct() {
         TableView<GameRound> table = new TableView<>();
 
+        TableColumn<GameRound, String> dateColumn = new TableColumn<>("Date");
+        dateColumn.setCellValueFactory(new PropertyValueFactory<>("date"));
+
+        TableColumn<GameRound, String> scenarioColumn = new TableColumn<>("Scenario");
+        scenarioColumn.setCellValueFactory(new PropertyValueFactory<>("scenario"));
+
         TableColumn<GameRound, String> minesColumn = new TableColumn<>("Mines");
         minesColumn.setCellValueFactory(new PropertyValueFactory<>("mines"));
 
@@ -208,41 +585,141 @@ public class MinesweeperMenuBar extends MenuBar {
         TableColumn<GameRound, String> winnerColumn = new TableColumn<>("Winner");
         winnerColumn.setCellValueFactory(new PropertyValueFactory<>("winner"));
 
+        table.getColumns().add(dateColumn);
+        table.getColumns().add(scenarioColumn);
         table.getColumns().add(minesColumn);
         table.getColumns().add(attemptsColumn);
         table.getColumns().add(timeColumn);
         table.getColumns().add(winnerColumn);
 
-        ObservableList<GameRound> data = FXCollections.observableArrayList();
-
-        try (FileReader fileReader = new FileReader(PathLogger.rounds);
-             BufferedReader reader = new BufferedReader(fileReader)) {
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // rounds are saved as mines attempts time winner, separated only by blank spaces
-                String[] tokens = line.split(" ");
-                data.add(new GameRound(
-                        tokens[0], // mines
-                        tokens[1], // attempts
-                        tokens[2], // time
-                        tokens[3])); // winner
-            }
-        } catch (IOException e) {
-            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Error Retrieving Past Rounds", null, null);
+        ComboBox<String> scenarioBox = new ComboBox<>();
+        DatePicker dayPicker = new DatePicker();
+        dayPicker.setPromptText("Any day");
+        Label statsLabel = new Label("Reading rounds...");
+        Pagination pagination = new Pagination(1);
+
+        // shows the first page of the chosen scenario and day
+        Runnable update = () -> {
+            String scenario = scenarioOf(scenarioBox.getValue());
+            LocalDate day = dayPicker.getValue();
+            statsLabel.setText(statsText(RoundHistory.shared().stats(scenario)));
+            int count = RoundHistory.shared().count(scenario, day);
+            pagination.setPageCount(Math.max(1, (count + roundsPage - 1) / roundsPage));
+            pagination.setCurrentPageIndex(0);
+            pagination.setPageFactory(page -> {
+                showRoundsPage(table, scenario, day, page);
+                return table;
+            });
+        };
+
+        CompletableFuture.runAsync(() -> {
+            RoundLog.shared().flush(1000);
+            try {
+                RoundHistory.shared().refresh();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((ignored, e) -> Platform.runLater(() -> {
+            if (e != null) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Error Retrieving Past Rounds", null, null);
+                alertMessage.show();
+            }
+            scenarioBox.getItems().add(allScenarios);
+            for (String scenario : RoundHistory.shared().scenarios()) {
+                scenarioBox.getItems().add(scenario.isEmpty() ? noScenario : scenario);
+            }
+            scenarioBox.setValue(allScenarios);
+            scenarioBox.setOnAction(actionEvent -> update.run());
+            dayPicker.setOnAction(actionEvent -> update.run());
+            update.run();
+        }));
+
+        // rounds are saved in the background, so a failure is only reported here
+        if (RoundLog.shared().takeError() != null) {
+            AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Rounds file Access", null, "Some rounds could not be saved.");
             alertMessage.show();
         }
 
-        table.setItems(data);
+        HBox filters = new HBox(new Label("Scenario:"), scenarioBox, new Label("Day:"), dayPicker);
+        filters.setSpacing(8);
+        filters.setAlignment(Pos.CENTER_LEFT);
+
+        VBox box = new VBox(filters, statsLabel, pagination);
+        box.setPadding(new Insets(10,10,10,10));
+        box.setSpacing(8);
 
         Stage stage = new Stage();
         stage.initStyle(StageStyle.UTILITY);
         stage.setTitle("Rounds");
 
-        Scene scene = new Scene(table);
+        Scene scene = new Scene(box);
         stage.setScene(scene);
         stage.show();
     }
+
+    // empties the table and fills it with a page of the Rounds window once the page is read. The log is read in the
+    // background, and a page that arrives after another one was asked for is dropped
+    private void showRoundsPage(TableView<GameRound> table, String scenario, LocalDate day, int page) {
+        Object request = new Object();
+        table.setUserData(request);
+        table.setItems(FXCollections.observableArrayList());
+        table.setPlaceholder(new Label("Reading rounds..."));
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return roundsPage(scenario, day, page);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((data, e) -> Platform.runLater(() -> {
+            if (table.getUserData() != request) return;
+            table.setPlaceholder(new Label("No rounds."));
+            if (e != null) {
+                AlertMessage alertMessage = new AlertMessage(Alert.AlertType.ERROR, "Error Retrieving Past Rounds", null, null);
+                alertMessage.show();
+                return;
+            }
+            table.setItems(data);
+        }));
+    }
+
+    // the rows of a page of the Rounds window
+    private ObservableList<GameRound> roundsPage(String scenario, LocalDate day, int page) throws IOException {
+        ObservableList<GameRound> data = FXCollections.observableArrayList();
+        for (RoundLog.Round round : RoundHistory.shared().page(scenario, day, page * roundsPage, roundsPage)) {
+            data.add(new GameRound(
+                    dateFormat.format(Instant.ofEpochMilli(round.timestamp())),
+                    round.scenario(),
+                    "" + round.mines(),
+                    "" + round.attempts(),
+                    "" + round.time(),
+                    round.won() ? "player" : "computer"));
+        }
+        return data;
+    }
+
+    // the scenario of an item of the scenario box, null for all of them
+    private static String scenarioOf(String item) {
+        if (item == null || item.equals(allScenarios)) return null;
+        return item.equals(noScenario) ? "" : item;
+    }
+
+    private static String statsText(RoundHistory.Stats stats) {
+        if (stats.getGames() == 0) return "No rounds yet.";
+
+        StringBuilder text = new StringBuilder();
+        text.append(stats.getGames()).append(" rounds, ").append(percent(stats.getWinRate())).append(" won.");
+        if (stats.getWins() > 0) {
+            text.append(String.format(" Time of the wins: mean %.1f s, median %d s, 90th percentile %d s.",
+                    stats.getMeanTime(), stats.getTimePercentile(0.5), stats.getTimePercentile(0.9)));
+        }
+        text.append("\nMean attempts by mines:");
+        stats.getMeanAttempts().forEach((mines, attempts) ->
+                text.append(String.format(" %d mines %.1f,", mines, attempts)));
+        text.setLength(text.length() - 1);
+        return text.toString();
+    }
+
     private void solutionAct() {
         if (game == null) return;
         game.stopGame();
@@ -0,0 +1,129 @@
+package ntua.multimedia.minesweeper.menubar;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The game descriptions of a folder, read and checked once and then kept up to date, so that loading a scenario is a
+// lookup. A daemon thread scans the folder when the catalog is created and then waits for a WatchService to report
+// the files that were created, changed or deleted. Only those files are read again, and if the service loses events
+// the whole folder is scanned again. Listeners are called on that thread after every change.
+final class ScenarioCatalog {
+    // a checked description: its parameters, or the reason it is not valid
+    record Scenario(String id, int[] params, InvalidException error) {}
+
+    private static final String extension = ".txt";
+
+    private final Path folder;
+    private final Set<String> ignored; // files of the folder that are not descriptions
+    private final Map<String, Scenario> scenarios = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    ScenarioCatalog(String folder, Set<String> ignored) {
+        this.folder = Path.of(folder);
+        this.ignored = ignored;
+        Thread watcher = new Thread(this::watch, "Scenario catalog");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    void addListener(Runnable listener) { listeners.add(listener); }
+
+    void removeListener(Runnable listener) { listeners.remove(listener); }
+
+    // the SCENARIO-IDs of the folder, in alphabetical order
+    List<String> ids() {
+        List<String> ids = new ArrayList<>(scenarios.keySet());
+        ids.sort(null);
+        return ids;
+    }
+
+    // the scenario of an id, read now if the catalog has not seen it yet. Null if there is no such file
+    Scenario get(String id) {
+        Scenario scenario = scenarios.get(id);
+        return (scenario != null) ? scenario : update(id);
+    }
+
+    // reads the file of an id again, for files that the game itself just wrote
+    Scenario update(String id) {
+        Scenario scenario = read(id);
+        if (scenario == null) scenarios.remove(id);
+        else scenarios.put(id, scenario);
+        return scenario;
+    }
+
+    private Scenario read(String id) {
+        try {
+            int[] params = new ErrorChecker(folder.resolve(id + extension).toString()).getParams();
+            return new Scenario(id, params, null);
+        } catch (InvalidDescriptionException | InvalidValueException e) {
+            return new Scenario(id, null, e);
+        } catch (IOException e) { // deleted, or cannot be read
+            return null;
+        }
+    }
+
+    private void watch() {
+        try (WatchService service = folder.getFileSystem().newWatchService()) {
+            // registering first, so that nothing changed during the scan is missed
+            folder.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+            scan();
+            while (true) {
+                WatchKey key = service.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        scan();
+                        continue;
+                    }
+                    String id = idOf((Path) event.context());
+                    if (id == null) continue;
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) scenarios.remove(id);
+                    else update(id);
+                }
+                changed();
+                if (!key.reset()) return; // the folder is gone
+            }
+        } catch (IOException e) { // the folder cannot be watched, it is only read once
+            scan();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scan() {
+        Set<String> found = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + extension)) {
+            for (Path file : files) {
+                String id = idOf(file.getFileName());
+                if (id != null && update(id) != null) found.add(id);
+            }
+        } catch (IOException e) {
+            return; // keep what we have
+        }
+        scenarios.keySet().retainAll(found);
+        changed();
+    }
+
+    private String idOf(Path file) {
+        String name = file.toString();
+        if (!name.endsWith(extension) || ignored.contains(name)) return null;
+        return name.substring(0, name.length() - extension.length());
+    }
+
+    private void changed() {
+        for (Runnable listener : listeners) listener.run();
+    }
+}
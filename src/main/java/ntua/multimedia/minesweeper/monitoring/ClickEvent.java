@@ -0,0 +1,35 @@
+package ntua.multimedia.minesweeper.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A click on a tile of a game: the engine playing it and the changes it made being collected for the
+ * <code>GameBox</code>. How long the changes then take to be shown is recorded by
+ * {@link DiffAppliedEvent DiffAppliedEvent}.
+ */
+@Name("minesweeper.Click")
+@Label("Click")
+@Category({"Minesweeper", "Game"})
+@Description("A click on a tile, from the handler of the game to the changes submitted to the GameBox")
+@StackTrace(false)
+public final class ClickEvent extends Event {
+    @Label("Button")
+    public String button;
+
+    @Label("Column")
+    public int x;
+
+    @Label("Row")
+    public int y;
+
+    @Label("Tiles Changed")
+    public int tiles;
+
+    /** An empty click, filled in by the handler of the game once the click is played. */
+    public ClickEvent() {}
+}
@@ -0,0 +1,38 @@
+package ntua.multimedia.minesweeper.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The changes of one action of a game being shown, from when they are submitted to the <code>GameBox</code> until its
+ * last tile is. Large changes are applied over several pulses. The tiles are painted on the pulse that follows.
+ */
+@Name("minesweeper.DiffApplied")
+@Label("Diff Applied")
+@Category({"Minesweeper", "Game"})
+@Description("The changes of one action being applied to the GameBox, possibly over several pulses")
+@StackTrace(false)
+public final class DiffAppliedEvent extends Event {
+    @Label("Tiles")
+    public int tiles;
+
+    @Label("Pulses")
+    public int pulses;
+
+    @Label("From Click")
+    @Description("Whether a click on a tile caused the changes, rather than the timer or an undo")
+    public boolean fromClick;
+
+    @Label("Input Latency")
+    @Description("From the input that caused the changes until they were all applied")
+    @Timespan(Timespan.NANOSECONDS)
+    public long inputLatency;
+
+    /** An empty application, filled in by the applier of a game as the changes are shown. */
+    public DiffAppliedEvent() {}
+}
@@ -0,0 +1,33 @@
+package ntua.multimedia.minesweeper.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A file written for a game in the background: its mines, a saved game or rounds of the round log.
+ */
+@Name("minesweeper.FileWrite")
+@Label("File Write")
+@Category({"Minesweeper", "Files"})
+@Description("A file written in the background for a game: its mines, a saved game or rounds of the round log")
+@StackTrace(false)
+public final class FileWriteEvent extends Event {
+    @Label("Kind")
+    @Description("mines, snapshot or rounds")
+    public String kind;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    /** An empty write, filled in by the writer once the file is on the disk. */
+    public FileWriteEvent() {}
+}
@@ -0,0 +1,34 @@
+package ntua.multimedia.minesweeper.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The reveal of a tile and of the empty area around it, by a left-click on any kind of board.
+ */
+@Name("minesweeper.FloodFill")
+@Label("Flood Fill")
+@Category({"Minesweeper", "Engine"})
+@Description("The reveal of a tile and of the area around it that has no neighboring mines")
+@StackTrace(false)
+public final class FloodFillEvent extends Event {
+    @Label("Column")
+    public int x;
+
+    @Label("Row")
+    public int y;
+
+    @Label("Tiles Visited")
+    @Description("Tiles taken from the work list, including the ones that were already revealed")
+    public long visited;
+
+    @Label("Tiles Revealed")
+    public long revealed;
+
+    /** An empty reveal, filled in by the engine once the area is revealed. */
+    public FloodFillEvent() {}
+}
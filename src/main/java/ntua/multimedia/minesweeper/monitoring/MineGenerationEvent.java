@@ -0,0 +1,32 @@
+package ntua.multimedia.minesweeper.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The mines of a board being placed: a whole board when it is created or moved by its first left-click, or a chunk of
+ * an endless board.
+ */
+@Name("minesweeper.MineGeneration")
+@Label("Mine Generation")
+@Category({"Minesweeper", "Engine"})
+@Description("The mines of a board, or of a chunk of an endless board, being placed")
+@StackTrace(false)
+public final class MineGenerationEvent extends Event {
+    @Label("Kind")
+    @Description("board, first click, no guess or chunk")
+    public String kind;
+
+    @Label("Tiles")
+    public long tiles;
+
+    @Label("Mines")
+    public long mines;
+
+    /** An empty generation, filled in by the engine once the mines are placed. */
+    public MineGenerationEvent() {}
+}
@@ -0,0 +1,90 @@
+package ntua.multimedia.minesweeper.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts headless games of Minesweeper for many clients at once, on a TCP port of the loopback interface:
+ * <pre>
+ *     java -cp target/classes ntua.multimedia.minesweeper.server.GameServer [port]
+ * </pre>
+ * Every connection is a session that plays one game at a time, with the requests and answers of
+ * {@link Protocol Protocol}. A session reads its requests on a virtual thread and plays them on another one, as an
+ * actor with a mailbox that is never locked, so thousands of sessions cost thousands of small virtual threads rather
+ * than platform threads. The countdown of every game is advanced by a single clock, once a second.
+ * <p></p>
+ * {@link LoadGenerator LoadGenerator} measures how many moves a server plays per second and how long they take.
+ */
+public final class GameServer implements AutoCloseable {
+    public static final int defaultPort = 7650;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService clock;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts a server.
+     * <p></p>
+     * @param port              The port to listen to, 0 for any free port.
+     * @throws IOException      If the port cannot be bound.
+     */
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+        clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Session clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        clock.scheduleAtFixedRate(() -> {
+            for (Session session : sessions) session.tick();
+        }, 1, 1, TimeUnit.SECONDS);
+        Thread.ofVirtual().name("Game server").start(this::accept);
+    }
+
+    /** @return The port the server listens to. */
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    /** @return The number of open sessions. */
+    public int getSessions() { return sessions.size(); }
+
+    private void accept() {
+        while (true) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true); // answers are small and a client waits for each of them
+                Session session = new Session(socket, executor, sessions::remove);
+                sessions.add(session);
+                executor.execute(session::read);
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+                // a connection that failed while it was being accepted, the next ones may be fine
+            }
+        }
+    }
+
+    /** Stops listening and ends every session. */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        clock.shutdownNow();
+        for (Session session : sessions) session.close();
+        executor.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : defaultPort;
+        try (GameServer server = new GameServer(port)) {
+            System.out.println("Serving games on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+            Thread.currentThread().join(); // until the process is stopped
+        }
+    }
+}
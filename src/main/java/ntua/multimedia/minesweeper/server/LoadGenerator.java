@@ -0,0 +1,154 @@
+package ntua.multimedia.minesweeper.server;
+
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.Topology;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many sessions against a {@link GameServer GameServer} on the loopback interface and reports the moves played
+ * per second and the latency of a move, from sending it to reading its answer:
+ * <pre>
+ *     java -cp target/classes ntua.multimedia.minesweeper.server.LoadGenerator [sessions] [seconds] [port]
+ * </pre>
+ * Without a port the generator starts a server of its own in the same process. Every session is a client on a virtual
+ * thread that keeps revealing random hidden tiles of a game of the second difficulty, one move at a time, and starts
+ * a new game whenever one ends.
+ */
+public final class LoadGenerator {
+    private static final int defaultSessions = 1000;
+    private static final int defaultSeconds = 10;
+    // a valid description of the second difficulty
+    private static final int[] gameParams = {16, 40, 360, 1};
+
+    private LoadGenerator() {}
+
+    // what one session measured, latencies in microseconds
+    private static final class Client {
+        int[] latencies = new int[1024];
+        int moves;
+        int games;
+
+        void add(long nanos) {
+            if (moves == latencies.length) latencies = Arrays.copyOf(latencies, moves * 2);
+            latencies[moves++] = (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+        }
+    }
+
+    private static Client play(int port, long deadline, long seed) throws IOException {
+        Client client = new Client();
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 12));
+
+            int id = 0;
+            byte[] states = null;
+            int width = 0;
+            boolean playing = false;
+            while (System.nanoTime() < deadline) {
+                if (!playing) {
+                    Protocol.writeNewGame(out, ++id, gameParams, random.nextLong(), Topology.SQUARE, false);
+                    out.flush();
+                    Protocol.Diff diff = answer(in, id);
+                    width = diff.width();
+                    if (states == null || states.length != width * diff.height()) states = new byte[width * diff.height()];
+                    Arrays.fill(states, Board.HIDDEN);
+                    playing = true;
+                    ++client.games;
+                    continue;
+                }
+
+                // some hidden tile remains while the game is on
+                int tile;
+                do tile = random.nextInt(states.length); while (states[tile] != Board.HIDDEN);
+
+                long start = System.nanoTime();
+                Protocol.writeMove(out, ++id, tile % width, tile / width, Protocol.REVEAL);
+                out.flush();
+                Protocol.Diff diff = answer(in, id);
+                client.add(System.nanoTime() - start);
+
+                for (int k = 0; k < diff.tiles().length; ++k) states[diff.tiles()[k]] = Protocol.state(diff.looks()[k]);
+                playing = diff.status() == Protocol.PLAYING;
+            }
+        }
+        return client;
+    }
+
+    // the answer of a request, skipping the countdown the server pushes in between
+    private static Protocol.Diff answer(DataInputStream in, int id) throws IOException {
+        while (true) {
+            Protocol.Diff diff = Protocol.readDiff(in);
+            if (diff.id() == id) return diff;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = (args.length > 0) ? Integer.parseInt(args[0]) : defaultSessions;
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : defaultSeconds;
+        GameServer server = (args.length > 2) ? null : new GameServer(0);
+        int port = (server != null) ? server.getPort() : Integer.parseInt(args[2]);
+
+        long start = System.nanoTime(), deadline = start + seconds * 1_000_000_000L;
+        List<Client> clients = new ArrayList<>();
+        int failed = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Client>> futures = new ArrayList<>();
+            for (int k = 0; k < sessions; ++k) {
+                long seed = start + k;
+                futures.add(executor.submit(() -> play(port, deadline, seed)));
+            }
+            for (Future<Client> future : futures) {
+                try {
+                    clients.add(future.get());
+                } catch (Exception e) {
+                    if (failed++ == 0) System.err.println("A session failed: " + e.getCause());
+                }
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        if (server != null) server.close();
+
+        long moves = 0, games = 0;
+        for (Client client : clients) {
+            moves += client.moves;
+            games += client.games;
+        }
+        int[] latencies = new int[(int) moves];
+        int position = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, position, client.moves);
+            position += client.moves;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf(Locale.ROOT, "sessions     %d on port %d%s, %d failed%n", sessions, port,
+                          (server != null) ? " (in process)" : "", failed);
+        System.out.printf(Locale.ROOT, "moves        %d in %.1f s, %.0f moves/s, %d games%n",
+                          moves, elapsed, moves / elapsed, games);
+        System.out.printf(Locale.ROOT, "latency us   p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n",
+                          percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                          percentile(latencies, 0.999), percentile(latencies, 1));
+    }
+
+    private static int percentile(int[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(q * sorted.length) - 1))];
+    }
+}
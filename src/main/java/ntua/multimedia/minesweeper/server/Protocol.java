@@ -0,0 +1,240 @@
+package ntua.multimedia.minesweeper.server;
+
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.RevealDiff;
+import ntua.multimedia.minesweeper.engine.Topology;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+
+/**
+ * The binary protocol of the {@link GameServer GameServer}, spoken over a TCP connection.
+ * <p></p>
+ * Every message is a frame: its length in bytes (an int, not counting itself), its kind (a byte) and a request id (an
+ * int), followed by the fields of its kind, big-endian. Clients number their requests from 1 and the server answers
+ * every request with exactly one frame with the same id, in the order of the requests. Frames with id 0 are pushed by
+ * the server, one {@link #DIFF DIFF} for every second of the countdown of a game in progress.
+ * <p></p>
+ * Requests:
+ * <ul>
+ * <li>{@link #NEW_GAME NEW_GAME}: size, totalMines, time and hyperMines (ints), seed (a long), the ordinal of a
+ *     {@link Topology Topology} (a byte) and noGuess (a byte). Starts a new game, abandoning the previous one. The
+ *     description is checked like a description file.</li>
+ * <li>{@link #MOVE MOVE}: x and y (ints) and a button, {@link #REVEAL REVEAL} or {@link #FLAG FLAG} (a byte).</li>
+ * <li>{@link #STOP STOP}: gives up the game, which reveals its mines.</li>
+ * </ul>
+ * Answers:
+ * <ul>
+ * <li>{@link #DIFF DIFF}: width, height, flagsUsed, totalMines, attempts and timeRemaining (ints), the status of the
+ *     game, {@link #PLAYING PLAYING}, {@link #WON WON} or {@link #LOST LOST} (a byte), the number of changed tiles (an
+ *     int) and for every changed tile its index <code>y * width + x</code> (an int) and its look (a short): the state
+ *     in bits 14-15, the type in bits 12-13 and the value in the rest, that is the neighboring mines of a revealed
+ *     neutral tile or 1 for an unsafe mine. Hidden and flagged tiles have no type.</li>
+ * <li>{@link #ERROR ERROR}: the reason a request was refused, as written by
+ *     {@link DataOutputStream#writeUTF(String) writeUTF}. The session goes on.</li>
+ * </ul>
+ */
+public final class Protocol {
+    public static final byte NEW_GAME = 1;
+    public static final byte MOVE = 2;
+    public static final byte STOP = 3;
+    public static final byte DIFF = 16;
+    public static final byte ERROR = 17;
+
+    public static final byte REVEAL = 0;
+    public static final byte FLAG = 1;
+
+    public static final byte PLAYING = 0;
+    public static final byte WON = 1;
+    public static final byte LOST = 2;
+
+    // the longest request, a NEW_GAME. Longer frames close the connection
+    static final int maxRequest = 1 + 4 + 4 * 4 + 8 + 2;
+    // the server plays boards of at most this many tiles, so an answer is at most a DIFF of all of them
+    static final int maxTiles = 1 << 16;
+    private static final int maxAnswer = 1 + 4 + 6 * 4 + 1 + 4 + maxTiles * 6;
+
+    /** A request of a client, as the server reads it. */
+    sealed interface Request permits NewGame, Move, Stop {
+        int id();
+    }
+
+    record NewGame(int id, int[] gameParams, long seed, Topology topology, boolean noGuess) implements Request {}
+
+    record Move(int id, int x, int y, byte button) implements Request {}
+
+    record Stop(int id) implements Request {}
+
+    /**
+     * A {@link #DIFF DIFF} as a client reads it.
+     * <p></p>
+     * @param id                The id of the request it answers, 0 if it was pushed by the countdown.
+     * @param tiles             The indices of the changed tiles, <code>y * width + x</code>.
+     * @param looks             Their looks, see {@link #state(short) state}, {@link #type(short) type} and
+     *                          {@link #value(short) value}.
+     */
+    public record Diff(int id, int width, int height, int flagsUsed, int totalMines, int attempts, int timeRemaining,
+                       byte status, int[] tiles, short[] looks) {}
+
+    private Protocol() {}
+
+    /** @return The state of a tile look of a {@link Diff Diff}, for example {@link Board#REVEALED REVEALED}. */
+    public static byte state(short look) { return (byte) ((look >>> 14) & 3); }
+    /** @return The type of a tile look of a {@link Diff Diff}, for example {@link Board#MINE MINE}. */
+    public static byte type(short look) { return (byte) ((look >>> 12) & 3); }
+    /** @return The value of a tile look of a {@link Diff Diff}. */
+    public static int value(short look) { return look & 0xFFF; }
+
+    /**
+     * Sends a {@link #NEW_GAME NEW_GAME} request. The stream is not flushed.
+     * <p></p>
+     * @param out               The stream of the connection.
+     * @param id                The id of the request, above 0.
+     * @param gameParams        The description, <code>{ size, totalMines, time, hyperMines }</code>.
+     * @param seed              The seed of the mine generator.
+     * @param topology          The shape of the board.
+     * @param noGuess           Whether the board must be solvable without guessing.
+     * @throws IOException      If the stream cannot be written.
+     */
+    public static void writeNewGame(DataOutputStream out, int id, int[] gameParams, long seed, Topology topology,
+                                    boolean noGuess) throws IOException {
+        out.writeInt(maxRequest);
+        out.writeByte(NEW_GAME);
+        out.writeInt(id);
+        for (int k = 0; k < 4; ++k) out.writeInt(gameParams[k]);
+        out.writeLong(seed);
+        out.writeByte(topology.ordinal());
+        out.writeByte(noGuess ? 1 : 0);
+    }
+
+    /**
+     * Sends a {@link #MOVE MOVE} request. The stream is not flushed.
+     * <p></p>
+     * @param out               The stream of the connection.
+     * @param id                The id of the request, above 0.
+     * @param x                 Column of the tile.
+     * @param y                 Row of the tile.
+     * @param button            {@link #REVEAL REVEAL} or {@link #FLAG FLAG}.
+     * @throws IOException      If the stream cannot be written.
+     */
+    public static void writeMove(DataOutputStream out, int id, int x, int y, byte button) throws IOException {
+        out.writeInt(1 + 4 + 4 + 4 + 1);
+        out.writeByte(MOVE);
+        out.writeInt(id);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeByte(button);
+    }
+
+    /**
+     * Sends a {@link #STOP STOP} request. The stream is not flushed.
+     * <p></p>
+     * @param out               The stream of the connection.
+     * @param id                The id of the request, above 0.
+     * @throws IOException      If the stream cannot be written.
+     */
+    public static void writeStop(DataOutputStream out, int id) throws IOException {
+        out.writeInt(1 + 4);
+        out.writeByte(STOP);
+        out.writeInt(id);
+    }
+
+    /**
+     * Reads the next answer of the server.
+     * <p></p>
+     * @param in                The stream of the connection.
+     * @return                  The answer.
+     * @throws ProtocolException If the server refused the request, with its reason, or the frame is not an answer.
+     * @throws IOException      If the stream cannot be read.
+     */
+    public static Diff readDiff(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 5 || length > maxAnswer) throw new ProtocolException("Bad frame length " + length);
+        byte kind = in.readByte();
+        int id = in.readInt();
+        if (kind == ERROR) throw new ProtocolException("Request " + id + ": " + in.readUTF());
+        if (kind != DIFF) throw new ProtocolException("Unknown answer " + kind);
+
+        int width = in.readInt(), height = in.readInt();
+        int flagsUsed = in.readInt(), totalMines = in.readInt(), attempts = in.readInt(), timeRemaining = in.readInt();
+        byte status = in.readByte();
+        int count = in.readInt();
+        if (count < 0 || length != 1 + 4 + 6 * 4 + 1 + 4 + count * 6) throw new ProtocolException("Bad diff length");
+        int[] tiles = new int[count];
+        short[] looks = new short[count];
+        for (int k = 0; k < count; ++k) {
+            tiles[k] = in.readInt();
+            looks[k] = in.readShort();
+        }
+        return new Diff(id, width, height, flagsUsed, totalMines, attempts, timeRemaining, status, tiles, looks);
+    }
+
+    // reads the next request of a client. Null at the end of the stream
+    static Request readRequest(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 5 || length > maxRequest) throw new ProtocolException("Bad frame length " + length);
+        byte kind = in.readByte();
+        int id = in.readInt();
+        switch (kind) {
+            case NEW_GAME -> {
+                if (length != maxRequest) break;
+                int[] gameParams = {in.readInt(), in.readInt(), in.readInt(), in.readInt()};
+                long seed = in.readLong();
+                int topology = in.readUnsignedByte();
+                boolean noGuess = in.readByte() != 0;
+                if (topology >= Topology.values().length) throw new ProtocolException("Unknown topology " + topology);
+                return new NewGame(id, gameParams, seed, Topology.values()[topology], noGuess);
+            }
+            case MOVE -> {
+                if (length != 1 + 4 + 4 + 4 + 1) break;
+                return new Move(id, in.readInt(), in.readInt(), in.readByte());
+            }
+            case STOP -> {
+                if (length != 1 + 4) break;
+                return new Stop(id);
+            }
+            default -> throw new ProtocolException("Unknown request " + kind);
+        }
+        throw new ProtocolException("Bad length " + length + " of request " + kind);
+    }
+
+    // answers a request, or pushes the countdown with id 0, with the changes of a diff and the counters of its engine
+    static void writeDiff(DataOutputStream out, int id, GameEngine board, RevealDiff diff) throws IOException {
+        int count = diff.size();
+        out.writeInt(1 + 4 + 6 * 4 + 1 + 4 + count * 6);
+        out.writeByte(DIFF);
+        out.writeInt(id);
+        out.writeInt(board.getWidth());
+        out.writeInt(board.getHeight());
+        out.writeInt(board.getFlagsUsed());
+        out.writeInt(board.getTotalMines());
+        out.writeInt(board.getAttempts());
+        out.writeInt(board.getTimeRemaining());
+        out.writeByte(!board.isGameEnded() ? PLAYING : (board.getNeutralRemaining() == 0) ? WON : LOST);
+        out.writeInt(count);
+        for (int k = 0; k < count; ++k) {
+            out.writeInt((int) diff.getCell(k));
+            out.writeShort(diff.getState(k) << 14 | diff.getType(k) << 12 | diff.getValue(k) & 0xFFF);
+        }
+    }
+
+    // errors are rare, so the message is encoded first to learn the length of the frame
+    static void writeError(DataOutputStream out, int id, String message) throws IOException {
+        ByteArrayOutputStream utf = new ByteArrayOutputStream();
+        new DataOutputStream(utf).writeUTF(message);
+        out.writeInt(1 + 4 + utf.size());
+        out.writeByte(ERROR);
+        out.writeInt(id);
+        utf.writeTo(out);
+    }
+}
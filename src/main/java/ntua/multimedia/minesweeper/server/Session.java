@@ -0,0 +1,193 @@
+package ntua.multimedia.minesweeper.server;
+
+import ntua.multimedia.minesweeper.engine.DiffRecorder;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.Topology;
+import ntua.multimedia.minesweeper.menubar.ErrorChecker;
+import ntua.multimedia.minesweeper.menubar.InvalidException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// The game of one connection, an actor. The reader thread decodes the requests of the client into a lock-free mailbox
+// and schedules the actor, which then runs on a virtual thread of its own until the mailbox is empty. The mailbox holds
+// at most maxPending requests: past them the reader stops reading until the actor catches up, so a client that sends
+// faster than its game is played is slowed down by its TCP window instead of filling the heap. The scheduled
+// flag lets a single run exist at a time, so the engine, the recorder and the output stream are only ever used by one
+// thread at a time and need no locks. The countdown and the end of the connection are flags rather than messages, so
+// a session that falls behind gets one tick, not a queue of them.
+final class Session implements Runnable {
+    // requests handled per run, then the actor lets the other sessions have the carrier threads
+    private static final int batch = 64;
+    // requests read but not yet handled, enough for any client that waits for its answers now and then
+    static final int maxPending = 1024;
+
+    private final Socket socket;
+    private final Executor executor;
+    private final Consumer<Session> onClose;
+    private final DataOutputStream out;
+
+    private final Queue<Protocol.Request> mailbox = new ConcurrentLinkedQueue<>();
+    private final Semaphore room = new Semaphore(maxPending); // free places of the mailbox
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean tickDue = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    // confined to the actor
+    private GameEngine engine;
+    private DiffRecorder recorder;
+    private boolean closed;
+
+    Session(Socket socket, Executor executor, Consumer<Session> onClose) throws IOException {
+        this.socket = socket;
+        this.executor = executor;
+        this.onClose = onClose;
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+    }
+
+    // the reader thread: decodes requests until the client hangs up or breaks the protocol
+    void read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 12))) {
+            Protocol.Request request;
+            while ((request = Protocol.readRequest(in)) != null) {
+                room.acquire();
+                if (closing.get()) break;
+                mailbox.add(request);
+                schedule();
+            }
+        } catch (IOException e) {
+            // the connection was lost or closed, or the client sent a frame that isn't ours
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        close();
+    }
+
+    // called by the clock of the server every second
+    void tick() {
+        tickDue.set(true);
+        schedule();
+    }
+
+    // ends the session, from any thread. The actor closes the socket on its next run
+    void close() {
+        closing.set(true);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) { // the server is closing, and nothing else runs the actor now
+            shutdown();
+        }
+    }
+
+    private boolean hasWork() { return !mailbox.isEmpty() || tickDue.get() || closing.get(); }
+
+    // the actor
+    @Override
+    public void run() {
+        if (closed) return;
+        try {
+            if (closing.get()) throw new IOException("closed");
+            Protocol.Request request;
+            for (int k = 0; k < batch && (request = mailbox.poll()) != null; ++k) {
+                room.release();
+                handle(request);
+            }
+            if (tickDue.getAndSet(false) && engine != null && !engine.isGameEnded()) {
+                engine.tick();
+                Protocol.writeDiff(out, 0, engine, recorder.take());
+            }
+            out.flush(); // the answers of the whole batch leave together
+        } catch (IOException e) {
+            shutdown();
+            return;
+        }
+
+        // a request may have arrived after the last poll but before the flag was cleared, then we run again
+        scheduled.set(false);
+        if (hasWork()) schedule();
+    }
+
+    private void handle(Protocol.Request request) throws IOException {
+        switch (request) {
+            case Protocol.NewGame newGame -> newGame(newGame);
+            case Protocol.Move move -> {
+                if (engine == null) {
+                    Protocol.writeError(out, move.id(), "No game has been started");
+                    return;
+                }
+                if (move.x() < 0 || move.x() >= engine.getWidth() || move.y() < 0 || move.y() >= engine.getHeight()) {
+                    Protocol.writeError(out, move.id(), "No tile (" + move.x() + "," + move.y() + ")");
+                    return;
+                }
+                if (move.button() == Protocol.FLAG) engine.flag(move.x(), move.y());
+                else engine.reveal(move.x(), move.y());
+                Protocol.writeDiff(out, move.id(), engine, recorder.take());
+            }
+            case Protocol.Stop stop -> {
+                if (engine == null) {
+                    Protocol.writeError(out, stop.id(), "No game has been started");
+                    return;
+                }
+                engine.stop();
+                Protocol.writeDiff(out, stop.id(), engine, recorder.take());
+            }
+        }
+    }
+
+    // boards of the same size and shape are reset instead of allocated again, as back-to-back games usually are
+    private void newGame(Protocol.NewGame request) throws IOException {
+        int[] gameParams;
+        try {
+            gameParams = ErrorChecker.check(request.gameParams());
+        } catch (InvalidException e) {
+            Protocol.writeError(out, request.id(), e.getMyMessage());
+            return;
+        }
+        long size = gameParams[0], tiles = size * size * (request.topology() == Topology.CUBE ? size : 1);
+        if (tiles > Protocol.maxTiles) { // the endless difficulty
+            Protocol.writeError(out, request.id(), "Boards of more than " + Protocol.maxTiles + " tiles are not served");
+            return;
+        }
+
+        if (engine != null && engine.getSize() == gameParams[0] && engine.getTopology() == request.topology()) {
+            engine.reset(gameParams, request.seed(), request.noGuess());
+        }
+        else {
+            engine = new GameEngine(gameParams, request.topology(), request.seed(), request.noGuess());
+            recorder = new DiffRecorder(engine);
+            engine.addListener(recorder);
+        }
+        // the answer has the size of the board and the counters, the mines stay on the server until they are revealed
+        tickDue.set(false);
+        Protocol.writeDiff(out, request.id(), engine, recorder.take());
+    }
+
+    private void shutdown() {
+        closed = true;
+        closing.set(true);
+        mailbox.clear();
+        room.release(maxPending); // a reader waiting for room wakes up, and finds the session closed
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to do with it
+        }
+        onClose.accept(this);
+    }
+}
@@ -0,0 +1,13 @@
+package ntua.multimedia.minesweeper.simulation;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+
+import java.util.SplittableRandom;
+
+// A player for simulated games. The simulation makes the first click itself and then asks the bot for moves until the
+// game ends. Every move must reveal at least one hidden tile, or the game would never end. Bots are shared by all the
+// workers of a simulation, so they should keep no state of their own: the random numbers they need come from the
+// generator of the worker that plays the game.
+public interface Bot {
+    void move(GameEngine engine, SplittableRandom random);
+}
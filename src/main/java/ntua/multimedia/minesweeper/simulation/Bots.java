@@ -0,0 +1,101 @@
+package ntua.multimedia.minesweeper.simulation;
+
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.ProbabilityEngine;
+import ntua.multimedia.minesweeper.engine.Solver;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// the bots that come with the simulation, from the weakest to the strongest
+public enum Bots implements Bot {
+    // reveals any hidden tile, a lower bound for a player that does not think at all
+    RANDOM {
+        @Override
+        public void move(GameEngine engine, SplittableRandom random) {
+            revealRandom(engine, random, new long[0]);
+        }
+    },
+
+    // reveals every tile the solver proves safe, and guesses among the tiles that are not proven mines otherwise
+    SOLVER {
+        @Override
+        public void move(GameEngine engine, SplittableRandom random) {
+            Solver.Result result = new Solver(engine).solve(stepBudget, TimeUnit.SECONDS);
+            if (result.safe().length > 0) {
+                for (long tile : result.safe()) reveal(engine, tile);
+                return;
+            }
+            long[] mines = result.mines().clone();
+            Arrays.sort(mines);
+            revealRandom(engine, random, mines);
+        }
+    },
+
+    // reveals the tiles that are certainly safe and otherwise guesses the tile least likely to be a mine, a good
+    // estimate of how often a careful player can win
+    PROBABILITY {
+        @Override
+        public void move(GameEngine engine, SplittableRandom random) {
+            ProbabilityEngine.Result result = new ProbabilityEngine(engine).compute(stepBudget, TimeUnit.SECONDS);
+            long[] cells = result.cells();
+            double[] probabilities = result.probabilities();
+
+            boolean revealed = false;
+            for (int k = 0; k < cells.length; ++k) {
+                if (probabilities[k] == 0) {
+                    reveal(engine, cells[k]);
+                    revealed = true;
+                }
+            }
+            if (revealed) return;
+
+            long safest = result.safest();
+            if (safest >= 0) reveal(engine, safest);
+            // the interior is safest, so any tile away from the frontier will do
+            else if (!revealRandom(engine, random, cells)) {
+                int best = 0;
+                for (int k = 1; k < cells.length; ++k) if (probabilities[k] < probabilities[best]) best = k;
+                reveal(engine, cells[best]);
+            }
+        }
+    };
+
+    // time a bot may think about one move, far more than it needs on the boards of the game
+    private static final long stepBudget = 1;
+
+    private static void reveal(GameEngine engine, long tile) {
+        engine.reveal((int) (tile % engine.getWidth()), (int) (tile / engine.getWidth()));
+    }
+
+    // reveals a hidden tile that is not one of the sorted excluded tiles, all of them equally likely. Returns false if
+    // there is no such tile
+    private static boolean revealRandom(GameEngine engine, SplittableRandom random, long[] excluded) {
+        int width = engine.getWidth(), height = engine.getHeight();
+        int count = 0;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (engine.getState(x, y) == Board.HIDDEN && !contains(excluded, (long) y * width + x)) ++count;
+            }
+        }
+        if (count == 0) return false;
+
+        int rank = random.nextInt(count);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (engine.getState(x, y) != Board.HIDDEN || contains(excluded, (long) y * width + x)) continue;
+                if (rank-- == 0) {
+                    engine.reveal(x, y);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(long[] sorted, long tile) {
+        return sorted.length > 0 && Arrays.binarySearch(sorted, tile) >= 0;
+    }
+}
@@ -0,0 +1,208 @@
+package ntua.multimedia.minesweeper.simulation;
+
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.NeighborTable;
+import ntua.multimedia.minesweeper.engine.Topology;
+import ntua.multimedia.minesweeper.menubar.ErrorChecker;
+import ntua.multimedia.minesweeper.menubar.InvalidException;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many headless games of a description with a {@link Bot Bot}, to choose the number of mines and the time limit
+ * of the descriptions in <code>src/main/resources/medialab</code> from data:
+ * <pre>
+ *     java -cp target/classes ntua.multimedia.minesweeper.simulation.Simulation description [games] [bot] [topology] [seed] [3BV/s]
+ * </pre>
+ * The games are split in halves until a few dozen are left, and the halves are played in parallel on the common
+ * {@link ForkJoinPool ForkJoinPool}. Every half gets its own generator, split from the generator of its parent before
+ * any game is played, so the same seed gives the same games and the same results whatever the number of processors.
+ * <p></p>
+ * Every game starts with a left-click on a random tile, like the first click of a player, which never loses.
+ */
+public final class Simulation {
+    // fewer games than this are played by one worker
+    private static final int leafGames = 64;
+    // larger boards are endless ones, which the engine generates as the player explores them and cannot be cleared
+    private static final int maxSize = 4096;
+
+    private static final long defaultGames = 100000;
+    private static final double defaultPace = 1;
+
+    private Simulation() {}
+
+    /**
+     * Plays <code>games</code> games of a description.
+     * <p></p>
+     * @param gameParams        The description, <code>{ size, totalMines, time, hyperMines }</code>.
+     * @param topology          The shape of the board.
+     * @param bot               The player.
+     * @param games             How many games to play.
+     * @param seed              Seed of the games. The same seed and bot give the same results.
+     * @return                  What was measured.
+     */
+    public static SimulationResult run(int[] gameParams, Topology topology, Bot bot, long games, long seed) {
+        return run(gameParams, topology, bot, games, seed, ForkJoinPool.commonPool());
+    }
+
+    // the same on a pool of any size, which must not change the results
+    static SimulationResult run(int[] gameParams, Topology topology, Bot bot, long games, long seed,
+                                ForkJoinPool pool) {
+        if (gameParams[0] > maxSize) throw new IllegalArgumentException("Endless boards cannot be simulated");
+        int cells = topology.table(gameParams[0], gameParams[0], gameParams[0]).getCells();
+
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(
+                new Games(gameParams, topology, bot, cells, 0, games, new SplittableRandom(seed)));
+        result.setNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    // plays games lo to hi-1, halving the range until a few games are left
+    private static final class Games extends RecursiveTask<SimulationResult> {
+        // tasks are serializable like every ForkJoinTask, but are never serialized, so the fields that could not be
+        // are transient
+        private static final long serialVersionUID = 1L;
+
+        private final int[] gameParams;
+        private final Topology topology;
+        private final transient Bot bot;
+        private final int cells;
+        private final long lo;
+        private final long hi;
+        private final transient SplittableRandom random;
+
+        Games(int[] gameParams, Topology topology, Bot bot, int cells, long lo, long hi, SplittableRandom random) {
+            this.gameParams = gameParams;
+            this.topology = topology;
+            this.bot = bot;
+            this.cells = cells;
+            this.lo = lo;
+            this.hi = hi;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (hi - lo <= leafGames) {
+                SimulationResult result = new SimulationResult(cells);
+                for (long game = lo; game < hi; ++game) play(gameParams, topology, bot, random, result);
+                return result;
+            }
+            long mid = (lo + hi) >>> 1;
+            Games left = new Games(gameParams, topology, bot, cells, lo, mid, random.split());
+            Games right = new Games(gameParams, topology, bot, cells, mid, hi, random);
+            invokeAll(left, right);
+            SimulationResult result = left.join();
+            result.add(right.join());
+            return result;
+        }
+    }
+
+    private static void play(int[] gameParams, Topology topology, Bot bot, SplittableRandom random,
+                             SimulationResult result) {
+        GameEngine engine = new GameEngine(gameParams, topology, random.nextLong());
+        engine.reveal(random.nextInt(engine.getWidth()), random.nextInt(engine.getHeight()));
+        int gameBbv = bbv(engine);
+
+        while (!engine.isGameEnded()) {
+            int attempts = engine.getAttempts();
+            bot.move(engine, random);
+            if (engine.getAttempts() == attempts) throw new IllegalStateException("The bot revealed no tile");
+        }
+        result.add(engine.getNeutralRemaining() == 0, engine.getAttempts(), gameBbv);
+    }
+
+    /**
+     * @param engine            A game whose mines are final, that is after its first left-click.
+     * @return                  The 3BV of its board, the least number of left-clicks that clear it.
+     */
+    static int bbv(GameEngine engine) {
+        NeighborTable table = engine.getNeighbors();
+        int width = engine.getWidth(), cells = table.getCells();
+        boolean[] counted = new boolean[cells];
+        int[] stack = new int[cells];
+        int result = 0;
+
+        // one click for every opening, which also reveals the numbers around it
+        for (int i = 0; i < cells; ++i) {
+            if (counted[i] || !opening(engine, i, width)) continue;
+            ++result;
+            counted[i] = true;
+            int top = 0;
+            stack[top++] = i;
+            while (top > 0) {
+                int tile = stack[--top];
+                int c = table.classOf(tile);
+                for (int k = table.begin(c); k < table.end(c); ++k) {
+                    int neighbor = tile + table.delta(k);
+                    if (counted[neighbor]) continue;
+                    counted[neighbor] = true; // the neighbors of an opening are never mines
+                    if (opening(engine, neighbor, width)) stack[top++] = neighbor;
+                }
+            }
+        }
+
+        // and one for every other safe tile
+        for (int i = 0; i < cells; ++i) {
+            if (!counted[i] && engine.getType(i % width, i / width) == Board.NEUTRAL) ++result;
+        }
+        return result;
+    }
+
+    private static boolean opening(GameEngine engine, int tile, int width) {
+        int x = tile % width, y = tile / width;
+        return engine.getType(x, y) == Board.NEUTRAL && engine.getAdjacent(x, y) == 0;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: Simulation description [games] [bot] [topology] [seed] [3BV/s]");
+            System.exit(2);
+        }
+        long games = (args.length > 1) ? Long.parseLong(args[1]) : defaultGames;
+        Bots bot = (args.length > 2) ? Bots.valueOf(args[2].toUpperCase(Locale.ROOT)) : Bots.SOLVER;
+        Topology topology = (args.length > 3) ? Topology.valueOf(args[3].toUpperCase(Locale.ROOT)) : Topology.SQUARE;
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+        double pace = (args.length > 5) ? Double.parseDouble(args[5]) : defaultPace;
+
+        int[] gameParams;
+        try {
+            gameParams = ErrorChecker.check(args[0]);
+        } catch (InvalidException e) {
+            System.err.print(args[0] + ":\n" + e.getMyMessage());
+            System.exit(1);
+            return;
+        } catch (IOException e) {
+            System.err.println(args[0] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        SimulationResult result = run(gameParams, topology, bot, games, seed);
+
+        System.out.printf(Locale.ROOT, "%s: %d tiles a side, %s, %d mines, %d hypermines, %d s, bot %s, seed %d%n",
+                          args[0], gameParams[0], topology, gameParams[1], gameParams[3], gameParams[2], bot, seed);
+        System.out.printf(Locale.ROOT, "games        %d in %.1f s, %.0f games/s%n",
+                          result.getGames(), result.getSeconds(), result.getGamesPerSecond());
+        System.out.printf(Locale.ROOT, "won          %.2f%% +- %.2f%%%n",
+                          100 * result.getWinRate(), 100 * result.getWinRateError());
+        System.out.printf(Locale.ROOT, "won in time  %.2f%% at %.2f 3BV/s%n",
+                          100 * result.getWinRateWithin(gameParams[2], pace), pace);
+        printDistribution("clicks", result.getClicks());
+        printDistribution("3BV", result.getBbv());
+        printDistribution("3BV of wins", result.getWonBbv());
+    }
+
+    private static void printDistribution(String name, long[] histogram) {
+        System.out.printf(Locale.ROOT, "%-12s mean %.1f, p10 %d, p50 %d, p90 %d, p99 %d, max %d%n", name,
+                          SimulationResult.mean(histogram), SimulationResult.percentile(histogram, 0.1),
+                          SimulationResult.percentile(histogram, 0.5), SimulationResult.percentile(histogram, 0.9),
+                          SimulationResult.percentile(histogram, 0.99), SimulationResult.percentile(histogram, 1));
+    }
+}
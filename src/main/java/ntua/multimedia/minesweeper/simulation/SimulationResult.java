@@ -0,0 +1,117 @@
+package ntua.multimedia.minesweeper.simulation;
+
+/**
+ * What a {@link Simulation Simulation} measured: how many games were won, and the distributions of the clicks and of
+ * the 3BV of the games.
+ * <p></p>
+ * The 3BV of a board is the least number of left-clicks that clear it: one for every opening (a connected area of
+ * tiles with no neighboring mines) and one for every other safe tile that no opening reveals. It does not depend on the
+ * bot, so it measures how much work a description asks of the player.
+ * <p></p>
+ * Distributions are histograms: element <code>k</code> is the number of games with value <code>k</code>.
+ */
+public final class SimulationResult {
+    private long games;
+    private long wins;
+    private final long[] clicks;
+    private final long[] bbv;
+    private final long[] wonBbv;
+    private long nanos;
+
+    SimulationResult(int cells) {
+        clicks = new long[cells + 1];
+        bbv = new long[cells + 1];
+        wonBbv = new long[cells + 1];
+    }
+
+    void add(boolean won, int gameClicks, int gameBbv) {
+        ++games;
+        ++clicks[gameClicks];
+        ++bbv[gameBbv];
+        if (won) {
+            ++wins;
+            ++wonBbv[gameBbv];
+        }
+    }
+
+    void add(SimulationResult other) {
+        games += other.games;
+        wins += other.wins;
+        for (int k = 0; k < clicks.length; ++k) {
+            clicks[k] += other.clicks[k];
+            bbv[k] += other.bbv[k];
+            wonBbv[k] += other.wonBbv[k];
+        }
+    }
+
+    void setNanos(long nanos) { this.nanos = nanos; }
+
+    public long getGames() { return games; }
+
+    public long getWins() { return wins; }
+
+    public double getWinRate() { return (games == 0) ? 0 : (double) wins / games; }
+
+    /** @return Half the width of the 95% confidence interval of the win rate. */
+    public double getWinRateError() {
+        if (games == 0) return 0;
+        double p = getWinRate();
+        return 1.96 * Math.sqrt(p * (1 - p) / games);
+    }
+
+    /**
+     * The share of games that were won in time, by a player who clears the board at a steady pace.
+     * <p></p>
+     * @param time              The time limit of the description, in seconds.
+     * @param bbvPerSecond      The pace of the player, in 3BV per second.
+     * @return                  The share of all games that were won within the time limit.
+     */
+    public double getWinRateWithin(int time, double bbvPerSecond) {
+        if (games == 0) return 0;
+        long inTime = 0;
+        for (int k = 0; k < wonBbv.length && k <= time * bbvPerSecond; ++k) inTime += wonBbv[k];
+        return (double) inTime / games;
+    }
+
+    /** @return The number of left-clicks of the games, won or lost. */
+    public long[] getClicks() { return clicks.clone(); }
+
+    /** @return The 3BV of the boards of all games. */
+    public long[] getBbv() { return bbv.clone(); }
+
+    /** @return The 3BV of the boards of the games that were won. */
+    public long[] getWonBbv() { return wonBbv.clone(); }
+
+    public double getSeconds() { return nanos / 1e9; }
+
+    public double getGamesPerSecond() { return (nanos == 0) ? 0 : games / getSeconds(); }
+
+    /** @return The mean of a histogram, or 0 if it is empty. */
+    public static double mean(long[] histogram) {
+        long count = 0;
+        double sum = 0;
+        for (int k = 0; k < histogram.length; ++k) {
+            count += histogram[k];
+            sum += (double) k * histogram[k];
+        }
+        return (count == 0) ? 0 : sum / count;
+    }
+
+    /**
+     * @param histogram         A histogram.
+     * @param q                 The quantile, between 0 and 1.
+     * @return                  The least value that at least a share <code>q</code> of the histogram does not exceed,
+     *                          or 0 if it is empty.
+     */
+    public static int percentile(long[] histogram, double q) {
+        long count = 0;
+        for (long c : histogram) count += c;
+        long target = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int k = 0; k < histogram.length; ++k) {
+            seen += histogram[k];
+            if (seen >= target && seen > 0) return k;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,192 @@
+package ntua.multimedia.minesweeper.utilities;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.Snapshot;
+import ntua.multimedia.minesweeper.monitoring.FileWriteEvent;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// the solution files a game writes, without any graphics, so that they may also be written (and measured) in batch
+// jobs. Errors are thrown to the caller, which decides how to report them. We use try-with-resources statements to
+// ensure that close is properly called at all cases.
+public final class GameFiles {
+    private static final int magic = 0x4d534d4e; // "MSMN"
+    private static final int version = 1;
+
+    // a single thread writes the files in the order they were asked for, so the last layout is the one left on disk
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Mines writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private GameFiles() {}
+
+    // the mines of a board, copied so that the writer thread never reads an engine that the game may still change
+    private record Mines(int[] tiles, int hyperMines, int width, int height) {
+        static Mines of(GameEngine engine) {
+            int[] tiles = new int[engine.getMineCount()];
+            for (int k = 0; k < tiles.length; ++k) tiles[k] = engine.getMine(k);
+            return new Mines(tiles, engine.getHyperMines(), engine.getWidth(), engine.getHeight());
+        }
+    }
+
+    // writes the mines of an engine in the background, to textPath or, if compact is set, to compactPath, and
+    // deletes the file of the other format so that only the latest layout is left. The compact file is much smaller
+    // and faster to write for large boards. The mines of the engine must be final, that is its first left-click must
+    // have been played or the game must be over. They are copied before this returns, on the thread that plays the
+    // game. The future fails with an UncheckedIOException if the file cannot be written
+    public static CompletableFuture<Void> exportMines(GameEngine engine, String textPath, String compactPath,
+                                                     boolean compact) {
+        Mines mines = Mines.of(engine);
+        return CompletableFuture.runAsync(() -> {
+            try {
+                FileWriteEvent event = new FileWriteEvent();
+                event.begin();
+                if (compact) writeMinesCompact(mines, compactPath);
+                else writeMines(mines, textPath);
+                Files.deleteIfExists(Path.of(compact ? textPath : compactPath));
+                commit(event, "mines", compact ? compactPath : textPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    // writes a saved game in the background, after the files that were asked for before it. The future fails with an
+    // UncheckedIOException if the file cannot be written
+    public static CompletableFuture<Void> saveSnapshot(Snapshot snapshot, String path) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                FileWriteEvent event = new FileWriteEvent();
+                event.begin();
+                snapshot.write(path);
+                commit(event, "snapshot", path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    // the size of the file is only looked up when the event is recorded
+    private static void commit(FileWriteEvent event, String kind, String path) throws IOException {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.kind = kind;
+        event.path = path;
+        event.bytes = Files.size(Path.of(path));
+        event.commit();
+    }
+
+    // deletes a saved game in the background, after any save of it that is still being written
+    public static CompletableFuture<Void> deleteSnapshot(String path) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(Path.of(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    // writes the mines of an engine, one per line. Tile in top left corner is (0,0). The first number is the row, the
+    // second number is the column and the third number 1 (hyper mine) or 0 (normal mine)
+    public static void writeMines(GameEngine engine, String path) throws IOException {
+        writeMines(Mines.of(engine), path);
+    }
+
+    private static void writeMines(Mines mines, String path) throws IOException {
+        int width = mines.width();
+
+        try (FileWriter fileWriter = new FileWriter(path, false);
+             BufferedWriter writer = new BufferedWriter(fileWriter, 1 << 16)) {
+
+            // in the engine the first mines are hypermines because of the way we constructed it
+            for (int k = 0; k < mines.tiles().length; ++k) {
+                int mine = mines.tiles()[k];
+                int row = mine / width;
+                int column = mine % width;
+                int isHyper = (k < mines.hyperMines()) ? 1 : 0;
+
+                writer.write(row + ", " + column + ", " + isHyper + "\n");
+            }
+        }
+    }
+
+    // writes the mines of an engine in a compact binary form: "MSMN", the version, the width, the height, the number
+    // of mines and the number of hypermines as integers, then the tiles (row * width + column) of the hypermines and,
+    // in increasing order, the number of safe tiles before each of the other mines, as variable-length integers of 7
+    // bits per byte. Runs are short on dense boards and rare on sparse ones, so most mines take a single byte
+    public static void writeMinesCompact(GameEngine engine, String path) throws IOException {
+        writeMinesCompact(Mines.of(engine), path);
+    }
+
+    private static void writeMinesCompact(Mines board, String path) throws IOException {
+        int hyperMines = board.hyperMines(), mineCount = board.tiles().length;
+        int[] mines = Arrays.copyOfRange(board.tiles(), hyperMines, mineCount);
+        Arrays.sort(mines);
+
+        try (FileOutputStream fileStream = new FileOutputStream(path, false);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream, 1 << 16))) {
+
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeInt(board.width());
+            out.writeInt(board.height());
+            out.writeInt(mineCount);
+            out.writeInt(hyperMines);
+            for (int k = 0; k < hyperMines; ++k) writeVarInt(out, board.tiles()[k]);
+            int next = 0; // the first tile after the previous mine
+            for (int mine : mines) {
+                writeVarInt(out, mine - next);
+                next = mine + 1;
+            }
+        }
+    }
+
+    // reads a file of writeMinesCompact. Returns the tiles of the mines, hypermines first
+    public static int[] readMinesCompact(String path) throws IOException {
+        try (FileInputStream fileStream = new FileInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fileStream, 1 << 16))) {
+
+            if (in.readInt() != magic || in.readInt() != version) throw new IOException("Not a mines file: " + path);
+            in.readInt(); // width
+            in.readInt(); // height
+            int mineCount = in.readInt(), hyperMines = in.readInt();
+            if (mineCount < 0 || hyperMines < 0 || hyperMines > mineCount) throw new IOException("Corrupt mines file: " + path);
+
+            int[] mines = new int[mineCount];
+            for (int k = 0; k < hyperMines; ++k) mines[k] = readVarInt(in);
+            int next = 0;
+            for (int k = hyperMines; k < mineCount; ++k) {
+                mines[k] = next + readVarInt(in);
+                next = mines[k] + 1;
+            }
+            return mines;
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupt mines file");
+    }
+}
@@ -10,11 +10,15 @@ public final class PathLogger {
     private static final String medialabLocal = "medialab";
     public static final String medialab = resources + "/" + medialabLocal;
 
-    // path to rounds file, this file saves previous games played
-    private static final String roundsLocal = "rounds/rounds.txt";
-    public static final String rounds = resources + "/" + roundsLocal;
+    // paths to the solution of the current game, mines.bin replaces mines.txt for large boards
+    public static final String mines = medialab + "/mines.txt";
+    public static final String minesCompact = medialab + "/mines.bin";
+
+    // path to the saved game in progress, see Snapshot for its format
+    private static final String saveLocal = "saves/save.bin";
+    public static final String save = resources + "/" + saveLocal;
 
-    //path to images folder, contains images used in the game
-    private static final String imagesLocal = "images";
-    public static final String images = resources + "/" + imagesLocal;
+    // path to rounds file, this file saves previous games played, see RoundLog for its format
+    private static final String roundsLocal = "rounds/rounds.bin";
+    public static final String rounds = resources + "/" + roundsLocal;
 }
@@ -0,0 +1,270 @@
+package ntua.multimedia.minesweeper.utilities;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Statistics and indexes over a {@link RoundLog RoundLog}, for logs of millions of rounds.
+ * <p></p>
+ * The history never keeps the rounds themselves. It remembers how many rounds of the log it has seen, and
+ * {@link #refresh() refresh} reads only the rounds added since then, by this game or by any other instance, and adds
+ * them to the statistics and the indexes. The statistics, {@link Stats Stats}, are updated one round at a time, so
+ * they are never computed again from the start.
+ * <p></p>
+ * The indexes hold the numbers of the rounds of every scenario and of every day, about eight bytes per round, so
+ * {@link #page(String, LocalDate, int, int) page} reads from the log only the rounds it returns.
+ */
+public final class RoundHistory {
+    // longest time limit of a description, longer solve times share the last bucket of the histograms
+    private static final int maxTime = 3600;
+    // rounds read from the log at a time while catching up
+    private static final int chunk = 16384;
+
+    private final String path;
+    private final ZoneId zone;
+
+    private long seen; // rounds of the log already added
+    private final Stats all = new Stats();
+    private final Map<String, Stats> byScenario = new HashMap<>();
+    private final Map<String, IntList> scenarioIndex = new HashMap<>();
+    private final Map<Long, IntList> dayIndex = new HashMap<>(); // by epoch day
+
+    // the last selection of a scenario and a day, which is the intersection of two indexes
+    private String cachedScenario;
+    private LocalDate cachedDay;
+    private IntList cached;
+
+    // the history of the game, created on first use
+    private static final class Shared {
+        static final RoundHistory history = new RoundHistory(PathLogger.rounds, ZoneId.systemDefault());
+    }
+
+    /**
+     * A history that has seen no round yet.
+     * <p></p>
+     * @param path              The file of the round log.
+     * @param zone              The time zone whose days the rounds are indexed by.
+     */
+    public RoundHistory(String path, ZoneId zone) {
+        this.path = path;
+        this.zone = zone;
+    }
+
+    /** @return The history of the rounds of the game, over {@link RoundLog#shared() RoundLog.shared}. */
+    public static RoundHistory shared() { return Shared.history; }
+
+    /**
+     * Adds the rounds that were appended to the log since the last call. The first call reads the whole log, so it
+     * should not run on the JavaFX application thread.
+     * <p></p>
+     * @return                  The number of rounds added.
+     * @throws IOException      If the log cannot be read.
+     */
+    public synchronized long refresh() throws IOException {
+        long before = seen;
+        while (true) {
+            List<RoundLog.Round> rounds = RoundLog.read(path, seen, chunk);
+            for (RoundLog.Round round : rounds) add(round, (int) seen++);
+            if (rounds.size() < chunk) break;
+        }
+        if (seen != before) cached = null;
+        return seen - before;
+    }
+
+    private void add(RoundLog.Round round, int number) {
+        all.add(round);
+        byScenario.computeIfAbsent(round.scenario(), s -> new Stats()).add(round);
+        scenarioIndex.computeIfAbsent(round.scenario(), s -> new IntList()).add(number);
+        dayIndex.computeIfAbsent(day(round), d -> new IntList()).add(number);
+    }
+
+    private long day(RoundLog.Round round) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(round.timestamp()), zone).toEpochDay();
+    }
+
+    /** @return The scenarios that have rounds, in alphabetical order. Rounds without a scenario have an empty one. */
+    public synchronized List<String> scenarios() {
+        List<String> scenarios = new ArrayList<>(scenarioIndex.keySet());
+        scenarios.sort(null);
+        return scenarios;
+    }
+
+    /**
+     * @param scenario          A scenario, or null for all rounds.
+     * @return                  A copy of the statistics of the rounds of the scenario.
+     */
+    public synchronized Stats stats(String scenario) {
+        Stats stats = (scenario == null) ? all : byScenario.get(scenario);
+        return (stats == null) ? new Stats() : new Stats(stats);
+    }
+
+    /**
+     * @param scenario          A scenario, or null for any.
+     * @param day               A day, or null for any.
+     * @return                  The number of rounds of the scenario played on the day.
+     */
+    public synchronized int count(String scenario, LocalDate day) {
+        IntList selection = select(scenario, day);
+        return (selection == null) ? (int) seen : selection.size;
+    }
+
+    /**
+     * A page of the rounds of a scenario played on a day, most recent first.
+     * <p></p>
+     * @param scenario          A scenario, or null for any.
+     * @param day               A day, or null for any.
+     * @param from              The position of the first round of the page, 0 for the most recent round.
+     * @param count             The size of the page.
+     * @return                  The rounds of the page, fewer if the selection ends first.
+     * @throws IOException      If the log cannot be read.
+     */
+    public synchronized List<RoundLog.Round> page(String scenario, LocalDate day, int from, int count)
+            throws IOException {
+        IntList selection = select(scenario, day);
+        int size = (selection == null) ? (int) seen : selection.size;
+        int to = Math.min(size, from + count);
+
+        // the round numbers of the page, newest first, read from the log in runs of consecutive numbers
+        List<RoundLog.Round> rounds = new ArrayList<>();
+        int k = from;
+        while (k < to) {
+            int newest = number(selection, size, k), oldest = newest;
+            int j = k + 1;
+            while (j < to && number(selection, size, j) == oldest - 1) {
+                --oldest;
+                ++j;
+            }
+            List<RoundLog.Round> run = RoundLog.read(path, oldest, newest - oldest + 1);
+            for (int r = run.size() - 1; r >= 0; --r) rounds.add(run.get(r));
+            k = j;
+        }
+        return rounds;
+    }
+
+    // the number of the round at a position of a selection, newest first. A null selection is every round
+    private static int number(IntList selection, int size, int position) {
+        return (selection == null) ? size - 1 - position : selection.values[size - 1 - position];
+    }
+
+    // the numbers of the rounds of a scenario and a day, in increasing order, or null for all rounds
+    private IntList select(String scenario, LocalDate day) {
+        if (scenario == null && day == null) return null;
+        IntList byName = (scenario == null) ? null : scenarioIndex.getOrDefault(scenario, IntList.empty);
+        IntList byDay = (day == null) ? null : dayIndex.getOrDefault(day.toEpochDay(), IntList.empty);
+        if (byName == null) return byDay;
+        if (byDay == null) return byName;
+
+        if (cached == null || !scenario.equals(cachedScenario) || !day.equals(cachedDay)) {
+            cached = IntList.intersect(byName, byDay);
+            cachedScenario = scenario;
+            cachedDay = day;
+        }
+        return cached;
+    }
+
+    /**
+     * Statistics of a set of rounds, updated one round at a time: the win rate, the distribution of the times of the
+     * rounds that were won and the mean attempts of the rounds of every number of mines.
+     */
+    public static final class Stats {
+        private long games;
+        private long wins;
+        private long timeSum; // of the rounds that were won
+        private final long[] times; // histogram of the times of the rounds that were won
+        private final SortedMap<Integer, long[]> attempts; // mines to { rounds, attempts }
+
+        Stats() {
+            times = new long[maxTime + 1];
+            attempts = new TreeMap<>();
+        }
+
+        Stats(Stats other) {
+            games = other.games;
+            wins = other.wins;
+            timeSum = other.timeSum;
+            times = other.times.clone();
+            attempts = new TreeMap<>();
+            other.attempts.forEach((mines, sums) -> attempts.put(mines, sums.clone()));
+        }
+
+        void add(RoundLog.Round round) {
+            ++games;
+            if (round.won()) {
+                ++wins;
+                int time = Math.max(0, Math.min(maxTime, round.time()));
+                timeSum += time;
+                ++times[time];
+            }
+            long[] sums = attempts.computeIfAbsent(round.mines(), m -> new long[2]);
+            ++sums[0];
+            sums[1] += round.attempts();
+        }
+
+        public long getGames() { return games; }
+
+        public long getWins() { return wins; }
+
+        public double getWinRate() { return (games == 0) ? 0 : (double) wins / games; }
+
+        /** @return The mean time of the rounds that were won, in seconds, 0 if there are none. */
+        public double getMeanTime() { return (wins == 0) ? 0 : (double) timeSum / wins; }
+
+        /**
+         * @param q                 The quantile, between 0 and 1.
+         * @return                  The least time that a share <code>q</code> of the rounds that were won did not
+         *                          exceed, in seconds, 0 if there are none.
+         */
+        public int getTimePercentile(double q) {
+            long target = Math.max(1, (long) Math.ceil(q * wins)), count = 0;
+            for (int t = 0; t < times.length; ++t) {
+                count += times[t];
+                if (count >= target) return t;
+            }
+            return 0;
+        }
+
+        /** @return The mean attempts of the rounds of every number of mines, by number of mines. */
+        public SortedMap<Integer, Double> getMeanAttempts() {
+            SortedMap<Integer, Double> means = new TreeMap<>();
+            attempts.forEach((mines, sums) -> means.put(mines, (double) sums[1] / sums[0]));
+            return means;
+        }
+    }
+
+    // a growable array of increasing round numbers
+    private static final class IntList {
+        static final IntList empty = new IntList();
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        static IntList intersect(IntList a, IntList b) {
+            IntList result = new IntList();
+            int i = 0, j = 0;
+            while (i < a.size && j < b.size) {
+                if (a.values[i] < b.values[j]) ++i;
+                else if (a.values[i] > b.values[j]) ++j;
+                else {
+                    result.add(a.values[i]);
+                    ++i;
+                    ++j;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package ntua.multimedia.minesweeper.utilities;
+
+import ntua.multimedia.minesweeper.monitoring.FileWriteEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The log of every round played, an append-only binary file.
+ * <p></p>
+ * The file starts with a header of {@value #headerSize} bytes and continues with records of {@value #recordSize} bytes,
+ * one per round, oldest first: the time the round ended, the number of mines, the attempts, the seconds played, the
+ * winner and the name of the scenario. Since the records have a fixed size the latest ones are read straight from the
+ * end of the file, however long it gets.
+ * <p></p>
+ * Rounds are handed to {@link #append(Round) append}, which returns at once, and written by a background thread. The
+ * thread writes all the rounds that are waiting in one go and syncs them to the disk once (a group commit), while
+ * holding a lock on the file, so several instances of the game may share the log. A record cut short by a crash is
+ * dropped by the next write.
+ * <p></p>
+ * Older versions of the game kept the five latest rounds in a text file, <code>rounds.txt</code>, with a line
+ * <code>mines attempts time winner</code> per round. If that file is next to the log when the log is created, its
+ * rounds become the first records of the log, dated when the text file was last written and without a scenario.
+ */
+public final class RoundLog implements AutoCloseable {
+    /**
+     * A round of the log.
+     * <p></p>
+     * @param timestamp         When the round ended, in milliseconds since the epoch.
+     * @param scenario          The SCENARIO-ID of the description, empty if there was none. At most
+     *                          {@value #nameSize} bytes of it are kept.
+     * @param mines             The number of mines, or the density of an endless board.
+     * @param attempts          The left-clicks of the player.
+     * @param time              The seconds played.
+     * @param won               Whether the player won.
+     */
+    public record Round(long timestamp, String scenario, int mines, int attempts, int time, boolean won) {}
+
+    private static final int magic = 0x4d53524c; // "MSRL"
+    private static final int version = 1;
+    public static final int headerSize = 8;
+    public static final int recordSize = 64;
+    public static final int nameSize = recordSize - 22;
+
+    // how long reading the tail waits for the rounds that are still being written
+    private static final long flushTimeout = 1000;
+
+    // the text file of older versions, next to the log
+    private static final String legacyName = "rounds.txt";
+
+    // a channel of this JVM may not lock a region that another channel of it has locked, even for reading, so the
+    // readers and writers of this JVM take turns here and only wait for the file locks of other instances
+    private static final Object fileLock = new Object();
+
+    // tells the writer to stop, compared by identity
+    private static final Round end = new Round(0, "", 0, 0, 0, false);
+
+    private final String path;
+    private final BlockingQueue<Round> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // rounds handed to append and rounds the writer is done with, guarded by this
+    private long submitted;
+    private long written;
+    private boolean closed;
+    private IOException error;
+
+    // the log of the game, created on first use
+    private static final class Shared {
+        static final RoundLog log = new RoundLog(PathLogger.rounds);
+    }
+
+    /**
+     * Starts a log and its writer thread.
+     * <p></p>
+     * @param path              The file of the log. It and its folder are created on the first write.
+     */
+    public RoundLog(String path) {
+        this.path = path;
+        writer = new Thread(this::write, "Round log writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** @return The log of the rounds of the game, in {@link PathLogger#rounds PathLogger.rounds}. */
+    public static RoundLog shared() { return Shared.log; }
+
+    /**
+     * Hands a round to the writer and returns without waiting for the disk.
+     * <p></p>
+     * @param round             The round to add at the end of the log.
+     */
+    public synchronized void append(Round round) {
+        if (closed) throw new IllegalStateException("The round log is closed");
+        ++submitted;
+        queue.add(round);
+    }
+
+    /**
+     * Waits until the rounds appended so far are written, or could not be written.
+     * <p></p>
+     * @param timeout           The longest wait, in milliseconds.
+     * @return                  Whether they were all written in time.
+     */
+    public synchronized boolean flush(long timeout) {
+        long target = submitted, deadline = System.currentTimeMillis() + timeout;
+        while (written < target) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            try {
+                wait(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The latest rounds, after the ones appended so far are written.
+     * <p></p>
+     * This waits for the writer for up to a second, so it should not be called on the JavaFX application thread.
+     * {@link #tail(String, int) tail(path, count)} reads the rounds already on the disk without waiting.
+     * <p></p>
+     * @param count             How many rounds to read at most.
+     * @return                  The rounds, most recent first.
+     * @throws IOException      If the log cannot be read.
+     */
+    public List<Round> tail(int count) throws IOException {
+        flush(flushTimeout);
+        return tail(path, count);
+    }
+
+    /** @return The error of the last write that failed, if any, which is then forgotten. Its rounds are lost. */
+    public synchronized IOException takeError() {
+        IOException e = error;
+        error = null;
+        return e;
+    }
+
+    /** Writes the rounds that are waiting and stops the writer. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            queue.add(end);
+        }
+        try {
+            writer.join(flushTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the writer thread: takes every round that is waiting and writes them together
+    private void write() {
+        List<Round> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            stop = batch.removeIf(round -> round == end); // nothing is appended after the end
+
+            int count = batch.size();
+            try {
+                if (count > 0) {
+                    FileWriteEvent event = new FileWriteEvent();
+                    event.begin();
+                    write(path, batch);
+                    event.kind = "rounds";
+                    event.path = path;
+                    event.bytes = (long) count * recordSize;
+                    event.commit();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    error = e;
+                }
+            }
+            synchronized (this) {
+                written += count;
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Appends rounds to a log right away, holding a lock on the file and syncing it to the disk before returning.
+     * <p></p>
+     * @param path              The file of the log, created with its folder if it does not exist.
+     * @param rounds            The rounds, oldest first.
+     * @throws IOException      If the file cannot be written or is not a round log.
+     */
+    public static void write(String path, List<Round> rounds) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+        synchronized (fileLock) {
+            writeLocked(file, path, rounds);
+        }
+    }
+
+    private static void writeLocked(Path file, String path, List<Round> rounds) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+
+            long size = channel.size();
+            if (size < headerSize) { // new, or a header cut short
+                ByteBuffer header = ByteBuffer.allocate(headerSize).putInt(magic).putInt(version).flip();
+                writeFully(channel, header, 0);
+                size = headerSize;
+
+                List<Round> legacy = legacy(file);
+                if (!legacy.isEmpty()) {
+                    legacy.addAll(rounds);
+                    rounds = legacy;
+                }
+            }
+            else checkHeader(channel, path);
+
+            // records cut short by a crash are dropped
+            long end = headerSize + (size - headerSize) / recordSize * recordSize;
+            channel.truncate(end);
+
+            ByteBuffer buffer = ByteBuffer.allocate(rounds.size() * recordSize);
+            for (Round round : rounds) encode(round, buffer);
+            writeFully(channel, buffer.flip(), end);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the latest rounds of a log, holding a shared lock on the file.
+     * <p></p>
+     * @param path              The file of the log.
+     * @param count             How many rounds to read at most.
+     * @return                  The rounds, most recent first. None if the file does not exist.
+     * @throws IOException      If the file cannot be read or is not a round log.
+     */
+    public static List<Round> tail(String path, int count) throws IOException {
+        long records = count(path);
+        List<Round> rounds = read(path, Math.max(0, records - count), (int) Math.min(count, records));
+        Collections.reverse(rounds);
+        return rounds;
+    }
+
+    /**
+     * @param path              The file of the log.
+     * @return                  The number of rounds in the log, 0 if the file does not exist.
+     * @throws IOException      If the file cannot be read.
+     */
+    public static long count(String path) throws IOException {
+        Path file = Path.of(path);
+        if (!Files.exists(file)) return 0;
+        return Math.max(0, (Files.size(file) - headerSize) / recordSize);
+    }
+
+    /**
+     * Reads consecutive rounds of a log, holding a shared lock on the file. Rounds are numbered from 0, oldest first,
+     * and keep their numbers as the log grows, so they may be read in any order.
+     * <p></p>
+     * @param path              The file of the log.
+     * @param first             The number of the first round to read.
+     * @param count             How many rounds to read at most. Fewer are read if the log ends first.
+     * @return                  The rounds, oldest first. None if the file does not exist.
+     * @throws IOException      If the file cannot be read or is not a round log.
+     */
+    public static List<Round> read(String path, long first, int count) throws IOException {
+        Path file = Path.of(path);
+        List<Round> rounds = new ArrayList<>();
+        if (!Files.exists(file) || count <= 0) return rounds;
+
+        synchronized (fileLock) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                 FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+
+                long size = channel.size();
+                if (size < headerSize) return rounds;
+                checkHeader(channel, path);
+
+                long records = (size - headerSize) / recordSize;
+                int n = (int) Math.max(0, Math.min(count, records - first));
+                ByteBuffer buffer = ByteBuffer.allocate(n * recordSize);
+                readFully(channel, buffer, headerSize + first * recordSize);
+                buffer.flip();
+                for (int k = 0; k < n; ++k) rounds.add(decode(buffer));
+            }
+        }
+        return rounds;
+    }
+
+    // the rounds of the text file of older versions next to the log, oldest first. Lines that cannot be read are
+    // skipped, and the file itself is left alone
+    private static List<Round> legacy(Path log) throws IOException {
+        Path file = (log.getParent() == null) ? Path.of(legacyName) : log.getParent().resolve(legacyName);
+        List<Round> rounds = new ArrayList<>();
+        if (!Files.isRegularFile(file)) return rounds;
+
+        long timestamp = Files.getLastModifiedTime(file).toMillis();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.strip().split("\\s+");
+            if (fields.length != 4) continue;
+            try {
+                rounds.add(new Round(timestamp, "", Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                                     Integer.parseInt(fields[2]), fields[3].equals("player")));
+            } catch (NumberFormatException e) { // not a round
+            }
+        }
+        Collections.reverse(rounds); // the text file had the most recent round first
+        return rounds;
+    }
+
+    private static void checkHeader(FileChannel channel, String path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != magic || header.getInt() != version) throw new IOException("Not a round log: " + path);
+    }
+
+    // the name takes the rest of the record: its length in a byte and then its UTF-8 bytes, cut to fit
+    private static void encode(Round round, ByteBuffer buffer) {
+        byte[] name = round.scenario().getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(name.length, nameSize);
+        while (length < name.length && (name[length] & 0xC0) == 0x80) --length; // do not cut a character in two
+
+        int start = buffer.position();
+        buffer.putLong(round.timestamp())
+              .putInt(round.mines())
+              .putInt(round.attempts())
+              .putInt(round.time())
+              .put((byte) (round.won() ? 1 : 0))
+              .put((byte) length)
+              .put(name, 0, length);
+        buffer.position(start + recordSize);
+    }
+
+    private static Round decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        long timestamp = buffer.getLong();
+        int mines = buffer.getInt(), attempts = buffer.getInt(), time = buffer.getInt();
+        boolean won = buffer.get() != 0;
+        byte[] name = new byte[Math.min(buffer.get() & 0xFF, nameSize)];
+        buffer.get(name);
+        buffer.position(start + recordSize);
+        return new Round(timestamp, new String(name, StandardCharsets.UTF_8), mines, attempts, time, won);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Round log ended early");
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a code must give back the same board, tile by tile, and reject text it did not write
+class BoardCodeTest {
+    @Test
+    void decodesWhatItEncodes() {
+        for (Topology topology : Topology.values()) {
+            BoardCode code = new BoardCode(new int[] {16, 40, 300, 1}, topology, -1234567890123L, 15, 0, true);
+            BoardCode decoded = BoardCode.decode(code.encode());
+            assertArrayEquals(code.gameParams(), decoded.gameParams());
+            assertEquals(topology, decoded.topology());
+            assertEquals(code.seed(), decoded.seed());
+            assertEquals(15, decoded.firstX());
+            assertEquals(0, decoded.firstY());
+            assertTrue(decoded.noGuess());
+        }
+    }
+
+    @Test
+    void keepsBoardsWithoutAFirstClick() {
+        BoardCode code = new BoardCode(new int[] {1_000_000, 250, 3600, 0}, Topology.SQUARE, 0, -1, -1, false);
+        BoardCode decoded = BoardCode.decode(code.encode());
+        assertEquals(-1, decoded.firstX());
+        assertEquals(-1, decoded.firstY());
+        assertEquals(1_000_000, decoded.gameParams()[0]);
+    }
+
+    @Test
+    void buildsTheSameMinesAgain() {
+        int[] gameParams = {16, 40, 300, 1};
+        GameEngine original = new GameEngine(gameParams, Topology.HEX, 42L, false);
+        original.reveal(3, 7);
+
+        BoardCode code = BoardCode.decode(BoardCode.of(original, gameParams).encode());
+        GameEngine copy = new GameEngine(code.gameParams(), code.topology(), code.seed(), code.noGuess());
+        copy.reveal(code.firstX(), code.firstY());
+
+        assertEquals(original.getMineCount(), copy.getMineCount());
+        for (int k = 0; k < original.getMineCount(); ++k) assertEquals(original.getMine(k), copy.getMine(k));
+        assertArrayEquals(original.states(), copy.states());
+    }
+
+    @Test
+    void rejectsOtherText() {
+        String code = new BoardCode(new int[] {9, 10, 120, 0}, Topology.TORUS, 7L, -1, -1, false).encode();
+        assertThrows(IllegalArgumentException.class, () -> BoardCode.decode(code.substring(0, code.length() - 4)));
+        assertThrows(IllegalArgumentException.class, () -> BoardCode.decode(code + "AAAA"));
+        assertThrows(IllegalArgumentException.class, () -> BoardCode.decode("not a code!"));
+        assertThrows(IllegalArgumentException.class, () -> BoardCode.decode("Ag"));
+    }
+}
@@ -0,0 +1,111 @@
+package ntua.multimedia.minesweeper.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// what can be known about a small square or toroidal board, found by trying every arrangement of mines on the hidden
+// tiles next to the revealed numbers. Slow, but too simple to be wrong
+final class BruteForce {
+    private final int[] frontier; // hidden tiles next to a revealed number
+    private final int interior; // other hidden tiles
+    private final List<boolean[]> arrangements = new ArrayList<>(); // of the frontier, that agree with every number
+
+    BruteForce(GameEngine engine) {
+        int width = engine.getWidth(), height = engine.getHeight();
+        boolean torus = engine.getTopology() == Topology.TORUS;
+        byte[] states = engine.states();
+
+        List<int[]> numbers = new ArrayList<>(); // { tile, mines }
+        List<Integer> frontierTiles = new ArrayList<>();
+        for (int i = 0; i < states.length; ++i) {
+            if (states[i] == Board.REVEALED) {
+                numbers.add(new int[] {i, engine.getAdjacent(i % width, i / width)});
+                continue;
+            }
+            for (int n : neighbors(i, width, height, torus)) {
+                if (states[n] == Board.REVEALED) {
+                    frontierTiles.add(i);
+                    break;
+                }
+            }
+        }
+        frontier = frontierTiles.stream().mapToInt(Integer::intValue).toArray();
+        int hidden = 0;
+        for (byte state : states) if (state != Board.REVEALED) ++hidden;
+        interior = hidden - frontier.length;
+
+        boolean[] mine = new boolean[states.length];
+        for (long bits = 0; bits < 1L << frontier.length; ++bits) {
+            for (int k = 0; k < frontier.length; ++k) mine[frontier[k]] = (bits >> k & 1) != 0;
+            boolean valid = true;
+            for (int[] number : numbers) {
+                int count = 0;
+                for (int n : neighbors(number[0], width, height, torus)) if (mine[n]) ++count;
+                if (count != number[1]) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (!valid) continue;
+            boolean[] arrangement = new boolean[frontier.length];
+            for (int k = 0; k < frontier.length; ++k) arrangement[k] = mine[frontier[k]];
+            arrangements.add(arrangement);
+        }
+    }
+
+    // the distinct neighbors of a tile, the tile itself excluded
+    private static List<Integer> neighbors(int i, int width, int height, boolean torus) {
+        List<Integer> neighbors = new ArrayList<>();
+        int x = i % width, y = i / width;
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                int nx = x + dx, ny = y + dy;
+                if (torus) {
+                    nx = Math.floorMod(nx, width);
+                    ny = Math.floorMod(ny, height);
+                }
+                else if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                int n = ny * width + nx;
+                if (n != i && !neighbors.contains(n)) neighbors.add(n);
+            }
+        }
+        return neighbors;
+    }
+
+    int[] frontier() { return frontier; }
+
+    // whether the tile of the frontier at position k is a mine in every arrangement (1), in none (0) or neither (-1)
+    int certain(int k) {
+        boolean mine = false, safe = false;
+        for (boolean[] arrangement : arrangements) {
+            if (arrangement[k]) mine = true;
+            else safe = true;
+        }
+        return (mine && safe) ? -1 : (mine ? 1 : 0);
+    }
+
+    // the probability that each tile of the frontier is a mine, then that of an interior tile, when the board has
+    // mines in total: every arrangement weighs as many ways as the rest of its mines fit in the interior
+    double[] probabilities(int mines) {
+        double[] weights = new double[frontier.length + 1];
+        double total = 0;
+        for (boolean[] arrangement : arrangements) {
+            int used = 0;
+            for (boolean mine : arrangement) if (mine) ++used;
+            int rest = mines - used;
+            if (rest < 0 || rest > interior) continue;
+            double ways = binomial(interior, rest);
+            total += ways;
+            for (int k = 0; k < frontier.length; ++k) if (arrangement[k]) weights[k] += ways;
+            if (interior > 0) weights[frontier.length] += ways * rest / interior;
+        }
+        for (int k = 0; k < weights.length; ++k) weights[k] /= total;
+        return weights;
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int j = 1; j <= k; ++j) result = result * (n - k + j) / j;
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// chunks must keep every value through evictions and reloads, and the counters must tell where each access went
+class ChunkStoreTest {
+    private static final int tiles = 64 * 64;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void keepsEveryValueThroughEvictions() {
+        Map<Long, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1L);
+        try (ChunkStore store = new ChunkStore(tiles, 4, folder.resolve("spill.bin"))) {
+            // many more chunks than the heap holds, with keys that use both halves of the long
+            for (int k = 0; k < 20_000; ++k) {
+                long key = ((long) random.nextInt(-30, 30) << 32) | (random.nextInt(40) & 0xFFFFFFFFL);
+                int tile = random.nextInt(tiles), value = random.nextInt(4);
+                store.set(key, tile, value);
+                expected.put(key * tiles + tile, value);
+            }
+            assertTrue(store.getEvictions() > 0);
+            assertTrue(store.getHotChunks() <= 4);
+
+            for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+                long key = Math.floorDiv(entry.getKey(), tiles);
+                int tile = (int) Math.floorMod(entry.getKey(), tiles);
+                assertEquals(entry.getValue(), store.get(key, tile));
+            }
+            assertEquals(0, store.get(1L << 40, 7)); // never written
+        }
+        assertTrue(Files.exists(folder.resolve("spill.bin"))); // only temporary files are deleted
+    }
+
+    @Test
+    void countsHitsMissesAndEvictions() {
+        try (ChunkStore store = new ChunkStore(tiles, 2)) {
+            store.set(1, 0, 1); // miss, created
+            store.set(1, 1, 2); // hit, the chunk used last
+            store.set(2, 0, 3); // miss, created
+            assertEquals(0, store.get(3, 0)); // miss, never written so nothing is created
+            assertEquals(3, store.getMisses());
+            assertEquals(1, store.getHits());
+            assertEquals(0, store.getEvictions());
+            assertEquals(2, store.getHotChunks());
+
+            assertEquals(1, store.get(1, 0)); // hit
+            store.set(3, 0, 1); // miss, evicts chunk 2 which was used least recently
+            assertEquals(1, store.getEvictions());
+            assertEquals(1, store.getSpilledChunks());
+            assertEquals(4, store.getMisses());
+            assertEquals(2, store.getHits());
+
+            assertEquals(3, store.get(2, 0)); // miss, read back from the spill file and evicting chunk 1
+            assertEquals(5, store.getMisses());
+            assertEquals(2, store.getEvictions());
+            assertEquals(2, store.getSpilledChunks());
+            assertEquals(2, store.get(1, 1)); // and chunk 1 comes back as well
+            assertEquals(6, store.getMisses());
+            assertEquals(3, store.keys().size()); // 1, 2 and 3 were written
+        }
+    }
+
+    @Test
+    void keepsTheChunkInUseOnTheHeap() {
+        try (ChunkStore store = new ChunkStore(tiles, 2)) {
+            store.set(1, 0, 1);
+            store.set(2, 0, 1);
+            // chunk 1 is used again, then many times through the fast path, so chunk 2 is the least recently used
+            for (int k = 0; k < 100; ++k) store.set(1, k, 2);
+            store.set(3, 0, 1);
+            assertEquals(1, store.getEvictions());
+
+            long misses = store.getMisses();
+            assertEquals(2, store.get(1, 50));
+            assertEquals(misses, store.getMisses());
+            assertFalse(store.getHotChunks() > 2);
+        }
+    }
+}
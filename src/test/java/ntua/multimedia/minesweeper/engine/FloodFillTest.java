@@ -0,0 +1,45 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the reveal of an empty area is iterative, so a region of any size fits in the work list instead of the stack
+class FloodFillTest {
+    @Test
+    void revealsMillionsOfTilesWithoutOverflowingTheStack() {
+        int size = 10_000;
+        // a few mines in the corner opposite to the click, every other tile is one open region
+        int[] placed = {size * size - 1, size * size - 2, (size - 1) * size - 1, (size - 1) * size - 2};
+        GameEngine engine = new GameEngine(new int[] {size, placed.length, 600, 0}, Topology.SQUARE, placed);
+
+        engine.reveal(0, 0);
+
+        long revealed = 0;
+        for (byte state : engine.states()) if (state == Board.REVEALED) ++revealed;
+        // every neutral tile, and the mines revealed at the end of the won game
+        assertEquals((long) size * size, revealed);
+        assertEquals(0, engine.getNeutralRemaining());
+        assertTrue(engine.isGameEnded());
+    }
+
+    @Test
+    void stopsAtTheNumbersAroundTheMines() {
+        // a mine in the middle of a 9x9 board: its eight neighbors are numbers and everything else is empty
+        GameEngine engine = new GameEngine(new int[] {9, 1, 60, 0}, Topology.SQUARE, new int[] {4 * 9 + 4});
+
+        engine.reveal(0, 0);
+
+        for (int y = 3; y <= 5; ++y) {
+            for (int x = 3; x <= 5; ++x) {
+                if (x == 4 && y == 4) continue;
+                assertEquals(Board.REVEALED, engine.getState(x, y));
+                assertEquals(1, engine.getAdjacent(x, y));
+            }
+        }
+        // all 80 neutral tiles were revealed by one click, which won the game and then showed the mine
+        assertTrue(engine.isGameEnded());
+        assertEquals(0, engine.getNeutralRemaining());
+    }
+}
@@ -0,0 +1,89 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the flood fill of an endless board must not stop at the edges of its chunks, and a seed must always give its mines
+class InfiniteBoardTest {
+    private static final int size = 1_000_000;
+    private static final int chunk = InfiniteBoard.chunkSize;
+
+    // every revealed tile without mines around it must have all its neighbors revealed, inside a window that holds
+    // the whole cascade. Returns the number of revealed tiles of the window
+    private static long checkFlood(InfiniteBoard board, int fromX, int fromY, int side) {
+        long revealed = 0;
+        for (int y = fromY; y < fromY + side; ++y) {
+            for (int x = fromX; x < fromX + side; ++x) {
+                if (board.getState(x, y) != Board.REVEALED) continue;
+                ++revealed;
+                if (board.getAdjacent(x, y) != 0) continue;
+                for (int dy = -1; dy <= 1; ++dy) {
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        int nx = x + dx, ny = y + dy;
+                        if (nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+                        assertEquals(Board.REVEALED, board.getState(nx, ny), "(" + nx + ", " + ny + ")");
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    @Test
+    void floodsAcrossChunks() {
+        // without mines a cascade from the corner of four chunks reveals the whole of a small board
+        InfiniteBoard empty = new InfiniteBoard(new int[] {3 * chunk, 0, 60, 0}, 1L);
+        empty.reveal(chunk - 1, chunk - 1);
+        assertEquals(9L * chunk * chunk, empty.getRevealed());
+        assertEquals(9, empty.getTouchedChunks());
+        assertFalse(empty.isGameEnded());
+        empty.close();
+
+        // with mines, the first boards whose cascade from a chunk edge reaches the next chunk
+        int crossed = 0;
+        for (long seed = 0; seed < 50 && crossed < 3; ++seed) {
+            InfiniteBoard board = new InfiniteBoard(new int[] {size, 120, 60, 0}, seed);
+            int x = 5 * chunk - 1, y = 5 * chunk + chunk / 2;
+            board.reveal(x, y);
+            assertEquals(Board.REVEALED, board.getState(x + 1, y)); // the safe area spans both chunks
+
+            assertEquals(board.getRevealed(), checkFlood(board, x - 3 * chunk, y - 3 * chunk, 6 * chunk));
+            if (board.getTouchedChunks() > 2) ++crossed;
+            board.close();
+        }
+        assertEquals(3, crossed);
+    }
+
+    @Test
+    void buildsTheSameMinesFromTheSameSeed() {
+        int[] gameParams = {size, 150, 60, 0};
+        InfiniteBoard first = new InfiniteBoard(gameParams, 42L), second = new InfiniteBoard(gameParams, 42L);
+        InfiniteBoard other = new InfiniteBoard(gameParams, 43L);
+        first.reveal(500_000, 500_000);
+        second.reveal(500_000, 500_000);
+        other.reveal(500_000, 500_000);
+
+        // tiles near the click, far from it and in the last chunk, which is cut by the edge of the board
+        int[][] corners = {{500_000 - 100, 500_000 - 100}, {0, 0}, {123_456, 987_654}, {size - 100, size - 100}};
+        int different = 0;
+        for (int[] corner : corners) {
+            for (int y = corner[1]; y < corner[1] + 100; ++y) {
+                for (int x = corner[0]; x < corner[0] + 100; ++x) {
+                    assertEquals(first.getType(x, y), second.getType(x, y));
+                    assertEquals(first.getAdjacent(x, y), second.getAdjacent(x, y));
+                    if (first.getType(x, y) != other.getType(x, y)) ++different;
+                }
+            }
+        }
+        assertNotEquals(0, different);
+        assertEquals(first.getRevealed(), second.getRevealed());
+        assertTrue(first.getRevealed() >= 9);
+        first.close();
+        second.close();
+        other.close();
+    }
+}
@@ -0,0 +1,167 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// undo, redo and jumps must bring back exactly the board and the counters of every position
+class JournalTest {
+    // what a position of the game looks like from the outside
+    private record Position(byte[] states, int flagsUsed, int attempts, boolean gameStarted, boolean gameEnded,
+                            int neutralRemaining) {
+        static Position of(GameEngine engine) {
+            return new Position(engine.states().clone(), engine.getFlagsUsed(), engine.getAttempts(),
+                                engine.isGameStarted(), engine.isGameEnded(), engine.getNeutralRemaining());
+        }
+
+        void check(GameEngine engine) {
+            assertArrayEquals(states, engine.states());
+            assertEquals(flagsUsed, engine.getFlagsUsed());
+            assertEquals(attempts, engine.getAttempts());
+            assertEquals(gameStarted, engine.isGameStarted());
+            assertEquals(gameEnded, engine.isGameEnded());
+            assertEquals(neutralRemaining, engine.getNeutralRemaining());
+        }
+    }
+
+    private static GameEngine engine() {
+        return new GameEngine(new int[] {16, 40, 300, 1}, Topology.SQUARE, 11L, false);
+    }
+
+    private static Journal journal(GameEngine engine, int snapshotInterval) {
+        Journal journal = new Journal(engine, snapshotInterval);
+        engine.addListener(journal);
+        return journal;
+    }
+
+    // random clicks, mostly flags, until the game ends or the moves run out. Every position is remembered
+    private static List<Position> play(GameEngine engine, Journal journal, int moves, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Position> positions = new ArrayList<>();
+        positions.add(Position.of(engine));
+        while (positions.size() <= moves && !engine.isGameEnded()) {
+            int x = random.nextInt(engine.getWidth()), y = random.nextInt(engine.getHeight());
+            if (random.nextInt(4) == 0 || !engine.isGameStarted()) engine.reveal(x, y);
+            else engine.flag(x, y);
+            if (journal.commit()) positions.add(Position.of(engine));
+        }
+        return positions;
+    }
+
+    @Test
+    void undoesAndRedoesEveryMove() {
+        GameEngine engine = engine();
+        Journal journal = journal(engine, 4);
+        List<Position> positions = play(engine, journal, 40, 1L);
+        int last = positions.size() - 1;
+        assertEquals(last, journal.size());
+
+        for (int k = last - 1; k >= 0; --k) {
+            assertTrue(journal.undo());
+            positions.get(k).check(engine);
+        }
+        assertFalse(journal.undo());
+        assertFalse(journal.canUndo());
+        for (int k = 1; k <= last; ++k) {
+            assertTrue(journal.redo());
+            positions.get(k).check(engine);
+        }
+        assertFalse(journal.redo());
+        assertEquals(last, journal.getPosition());
+    }
+
+    @Test
+    void jumpsToAnyPosition() {
+        GameEngine engine = engine();
+        Journal journal = journal(engine, 4);
+        List<Position> positions = play(engine, journal, 40, 2L);
+
+        SplittableRandom random = new SplittableRandom(3L);
+        for (int jump = 0; jump < 100; ++jump) {
+            int move = random.nextInt(positions.size());
+            assertTrue(journal.jumpTo(move));
+            assertEquals(move, journal.getPosition());
+            positions.get(move).check(engine);
+        }
+        assertThrows(IllegalArgumentException.class, () -> journal.jumpTo(positions.size()));
+        assertThrows(IllegalArgumentException.class, () -> journal.jumpTo(-1));
+    }
+
+    @Test
+    void aNewMoveDropsTheMovesThatCouldBeRedone() {
+        GameEngine engine = engine();
+        Journal journal = journal(engine, 4);
+        List<Position> positions = play(engine, journal, 20, 4L);
+
+        journal.jumpTo(5);
+        assertTrue(journal.canRedo());
+        int x = 0;
+        while (engine.states()[x] == Board.REVEALED) ++x;
+        engine.flag(x, 0);
+        assertFalse(journal.canRedo());
+        assertTrue(journal.commit());
+        assertEquals(6, journal.size());
+
+        assertTrue(journal.undo());
+        positions.get(5).check(engine);
+        assertFalse(journal.commit()); // nothing changed since
+    }
+
+    @Test
+    void undoesALoss() {
+        GameEngine engine = engine();
+        Journal journal = journal(engine, 64);
+        engine.reveal(0, 0);
+        journal.commit();
+        Position before = Position.of(engine);
+
+        engine.stop();
+        assertTrue(journal.commit());
+        assertTrue(engine.isGameEnded());
+
+        assertTrue(journal.undo());
+        before.check(engine);
+        assertFalse(engine.isGameEnded());
+    }
+
+    @Test
+    void neverUndoesRunningOutOfTime() {
+        GameEngine engine = new GameEngine(new int[] {9, 10, 2, 0}, Topology.SQUARE, 5L, false);
+        Journal journal = journal(engine, 64);
+        engine.reveal(4, 4);
+        journal.commit();
+        engine.tick();
+        journal.commit();
+        assertTrue(journal.canUndo());
+
+        engine.tick();
+        journal.commit();
+        assertTrue(engine.isGameEnded());
+        assertFalse(journal.canUndo());
+        assertFalse(journal.undo());
+        assertFalse(journal.jumpTo(0));
+        assertTrue(engine.isGameEnded());
+    }
+
+    @Test
+    void forgetsTheMovesOfAnotherRound() {
+        GameEngine engine = engine();
+        Journal journal = journal(engine, 4);
+        play(engine, journal, 10, 5L);
+
+        engine.reset(new int[] {16, 35, 120, 0}, 6L, false);
+        assertEquals(0, journal.size());
+        assertFalse(journal.canUndo());
+        List<Position> positions = play(engine, journal, 10, 7L);
+        assertTrue(journal.jumpTo(0));
+        positions.get(0).check(engine);
+    }
+}
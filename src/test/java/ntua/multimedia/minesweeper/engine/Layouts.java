@@ -0,0 +1,11 @@
+package ntua.multimedia.minesweeper.engine;
+
+// boards with chosen mines, for the tests of the other packages, which cannot place mines themselves
+public final class Layouts {
+    private Layouts() {}
+
+    // a game whose mines are the given tiles, y * width + x, hypermines first
+    public static GameEngine of(int[] gameParams, Topology topology, int... mines) {
+        return new GameEngine(gameParams, topology, mines);
+    }
+}
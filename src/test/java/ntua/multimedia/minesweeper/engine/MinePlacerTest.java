@@ -0,0 +1,78 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// small boards and striped ones must get exactly their mines, on distinct tiles that are not safe, the same for a seed
+class MinePlacerTest {
+    private static void checkMines(int cells, int count, int[] safe, int[] mines) {
+        assertEquals(count, mines.length);
+        BitSet seen = new BitSet(cells);
+        for (int mine : mines) {
+            assertTrue(mine >= 0 && mine < cells, () -> "tile " + mine);
+            assertFalse(seen.get(mine), () -> "tile " + mine + " twice");
+            seen.set(mine);
+        }
+        for (int tile : safe) assertFalse(seen.get(tile), () -> "safe tile " + tile);
+    }
+
+    private static void checkPlacer(int cells, int count, int[] safe) {
+        int[] mines = MinePlacer.place(cells, count, safe, new SplittableRandom(5L));
+        checkMines(cells, count, safe, mines);
+        assertArrayEquals(mines, MinePlacer.place(cells, count, safe, new SplittableRandom(5L)));
+        if (count > 0 && count < cells - safe.length) {
+            assertFalse(Arrays.equals(mines, MinePlacer.place(cells, count, safe, new SplittableRandom(6L))));
+        }
+    }
+
+    @Test
+    void placesTheMinesOfSmallBoards() {
+        checkPlacer(81, 10, new int[] {30, 31, 32, 39, 40, 41, 48, 49, 50});
+        checkPlacer(81, 10, new int[] {0, 1, 9, 10}); // a corner
+        checkPlacer(81, 72, new int[] {30, 31, 32, 39, 40, 41, 48, 49, 50}); // every tile that is not safe
+        checkPlacer(256, 0, new int[] {0});
+        checkPlacer(1_000_000, 250_000, new int[] {499_000, 499_001, 500_000, 500_001});
+        checkPlacer(MinePlacer.parallelCells - 1, 1000, new int[] {0, 1, 2});
+    }
+
+    @Test
+    void placesTheMinesOfStripedBoards() {
+        // safe tiles on both sides of the edge of two stripes, and a last stripe that is shorter than the others
+        int edge = 1 << 20;
+        int[] safe = {edge - 2, edge - 1, edge, edge + 1};
+        checkPlacer(MinePlacer.parallelCells, 100_000, safe);
+        checkPlacer(MinePlacer.parallelCells + 12_345, 10, safe);
+        checkPlacer(5_000_000, 4_000_000, safe);
+
+        // every stripe gets about its share of the mines
+        int cells = 8 << 20;
+        int[] mines = MinePlacer.place(cells, 800_000, safe, new SplittableRandom(7L));
+        int[] perStripe = new int[8];
+        for (int mine : mines) ++perStripe[mine / edge];
+        for (int count : perStripe) assertTrue(Math.abs(count - 100_000) < 2_000, () -> Arrays.toString(perStripe));
+    }
+
+    @Test
+    void drawsTheMeanOfTheHypergeometricDistribution() {
+        SplittableRandom random = new SplittableRandom(8L);
+        long total = 16_000_000, marked = 1_000_000, n = 1 << 20;
+        double sum = 0;
+        for (int k = 0; k < 2000; ++k) {
+            int drawn = MinePlacer.hypergeometric(total, marked, n, random);
+            assertTrue(drawn >= 0 && drawn <= n);
+            sum += drawn;
+        }
+        // the standard deviation of one draw is about 240, so that of the mean of 2000 draws is about 5
+        assertEquals((double) n * marked / total, sum / 2000, 25);
+        assertEquals(0, MinePlacer.hypergeometric(100, 0, 50, random));
+        assertEquals(50, MinePlacer.hypergeometric(100, 100, 50, random));
+    }
+}
@@ -0,0 +1,89 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a no-guess board must be the lowest candidate the solver clears, whatever the timing, and keep the click safe
+class NoGuessGeneratorTest {
+    // the clicked tile of a square board and its neighbors, in increasing order
+    private static int[] safe(int size, int x, int y) {
+        int[] safe = new int[9];
+        int count = 0;
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                int nx = x + dx, ny = y + dy;
+                if (nx >= 0 && ny >= 0 && nx < size && ny < size) safe[count++] = ny * size + nx;
+            }
+        }
+        return Arrays.copyOf(safe, count);
+    }
+
+    private static long deadline() { return System.nanoTime() + TimeUnit.MINUTES.toNanos(1); }
+
+    @Test
+    void findsTheLowestCandidateThatIsCleared() throws TimeoutException {
+        int[][] boards = {{9, 10, 120, 0}, {16, 40, 300, 1}};
+        for (int[] gameParams : boards) {
+            for (long seed = 1; seed <= 4; ++seed) {
+                int size = gameParams[0], x = size / 2, y = size / 3, clicked = y * size + x;
+                int[] safe = safe(size, x, y);
+                int[] mines = NoGuessGenerator.generate(gameParams, Topology.SQUARE, seed, clicked, safe);
+                assertNotNull(mines);
+
+                // the same search, one candidate at a time
+                int[] lowest;
+                int k = 0;
+                do lowest = NoGuessGenerator.candidate(gameParams, Topology.SQUARE, seed, clicked, safe, k++);
+                while (!NoGuessGenerator.solvable(gameParams, Topology.SQUARE, lowest, clicked, deadline()));
+                assertArrayEquals(lowest, mines);
+                assertTrue(NoGuessGenerator.solvable(gameParams, Topology.SQUARE, mines, clicked, deadline()));
+
+                assertEquals(gameParams[1], mines.length);
+                assertEquals(gameParams[1], Arrays.stream(mines).distinct().count());
+                for (int mine : mines) {
+                    assertTrue(mine >= 0 && mine < size * size);
+                    assertTrue(Arrays.binarySearch(safe, mine) < 0, () -> "mine " + mine + " in the safe area");
+                }
+            }
+        }
+    }
+
+    @Test
+    void givesTheEngineTheSameMinesForTheSameClick() {
+        int[] gameParams = {16, 40, 300, 1};
+        for (long seed = 10; seed <= 13; ++seed) {
+            GameEngine first = new GameEngine(gameParams, Topology.SQUARE, seed, true);
+            GameEngine second = new GameEngine(gameParams, Topology.SQUARE, seed, true);
+            first.reveal(3, 12);
+            second.reveal(3, 12);
+            for (int k = 0; k < first.getMineCount(); ++k) assertEquals(first.getMine(k), second.getMine(k));
+
+            int[] expected = NoGuessGenerator.generate(gameParams, Topology.SQUARE, seed, 12 * 16 + 3, safe(16, 3, 12));
+            assertNotNull(expected);
+            for (int k = 0; k < first.getMineCount(); ++k) assertEquals(expected[k], first.getMine(k));
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) assertEquals(Board.NEUTRAL, first.getType(3 + dx, 12 + dy));
+            }
+        }
+    }
+
+    @Test
+    void givesUpWithinItsBudget() {
+        // boards far too dense to be cleared without guessing, so the search tries candidates until it is stopped
+        int[] gameParams = {40, 600, 300, 0};
+        long start = System.nanoTime();
+        int[] mines = NoGuessGenerator.generate(gameParams, Topology.SQUARE, 7L, 20 * 40 + 20, safe(40, 20, 20));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertNull(mines);
+        assertTrue(millis < NoGuessGenerator.searchBudget + 1000, () -> "searched for " + millis + " ms");
+    }
+}
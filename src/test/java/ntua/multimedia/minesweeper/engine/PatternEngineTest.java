@@ -0,0 +1,65 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the table ships on the class path, so hints work whatever folder the game is started from, and every tile it calls
+// certain must be certain in every arrangement of mines that brute force finds
+class PatternEngineTest {
+    @Test
+    void loadsTheTableOfTheClassPath() throws IOException {
+        PatternEngine patterns = PatternEngine.load();
+        assertTrue(patterns.size() > 0);
+        assertEquals(patterns.size(), PatternEngine.load("src/main/resources" + PatternEngine.resource).size());
+    }
+
+    @Test
+    void findsOnlyTilesThatBruteForceProves() throws IOException {
+        PatternEngine patterns = PatternEngine.load();
+        SplittableRandom random = new SplittableRandom(1L);
+        int looked = 0, found = 0;
+        for (Topology topology : new Topology[] {Topology.SQUARE, Topology.TORUS}) {
+            for (int[] gameParams : new int[][] {{5, 4, 120, 0}, {6, 4, 120, 0}}) {
+                for (GameEngine engine : SolverTest.positions(topology, gameParams)) {
+                    BruteForce oracle = new BruteForce(engine);
+                    Map<Long, Integer> certain = new HashMap<>();
+                    for (int k = 0; k < oracle.frontier().length; ++k) {
+                        certain.put((long) oracle.frontier()[k], oracle.certain(k));
+                    }
+                    String board = Arrays.toString(engine.states());
+
+                    // the windows around a few revealed tiles, then the search of the whole board
+                    boolean anySafe = false;
+                    for (int k = 0; k < 8; ++k) {
+                        int i = random.nextInt(engine.states().length);
+                        Solver.Result result = patterns.at(engine, i % engine.getWidth(), i / engine.getWidth());
+                        check(certain, result, board);
+                        assertFalse(result.complete());
+                        anySafe |= result.safe().length > 0;
+                        ++looked;
+                    }
+                    Solver.Result result = patterns.find(engine);
+                    check(certain, result, board);
+                    if (anySafe) assertTrue(result.safe().length > 0, () -> "no safe tile found on " + board);
+                    if (result.safe().length + result.mines().length > 0) ++found;
+                }
+            }
+        }
+        assertTrue(looked > 1000);
+        assertTrue(found > 100);
+    }
+
+    private static void check(Map<Long, Integer> certain, Solver.Result result, String board) {
+        for (long tile : result.safe()) assertEquals(0, certain.get(tile), () -> "safe tile " + tile + " of " + board);
+        for (long tile : result.mines()) assertEquals(1, certain.get(tile), () -> "mine " + tile + " of " + board);
+    }
+}
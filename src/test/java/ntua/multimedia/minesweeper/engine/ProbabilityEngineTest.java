@@ -0,0 +1,54 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the probabilities must be those of counting every arrangement of the mines of the board
+class ProbabilityEngineTest {
+    @Test
+    void weighsTilesLikeBruteForce() {
+        int[] gameParams = {5, 4, 120, 0};
+        for (Topology topology : new Topology[] {Topology.SQUARE, Topology.TORUS}) {
+            for (GameEngine engine : SolverTest.positions(topology, gameParams)) {
+                ProbabilityEngine.Result result = new ProbabilityEngine(engine).compute(10, TimeUnit.SECONDS);
+                assertTrue(result.complete());
+
+                BruteForce oracle = new BruteForce(engine);
+                double[] expected = oracle.probabilities(gameParams[1]);
+                int[] frontier = oracle.frontier();
+                boolean[] inFrontier = new boolean[engine.states().length];
+                for (int k = 0; k < frontier.length; ++k) {
+                    assertEquals(expected[k], result.probability(frontier[k]), 1e-9);
+                    inFrontier[frontier[k]] = true;
+                }
+                for (int i = 0; i < engine.states().length; ++i) {
+                    if (engine.states()[i] == Board.REVEALED || inFrontier[i]) continue;
+                    assertEquals(expected[frontier.length], result.probability(i), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void remembersComponentsBetweenMoves() {
+        // the same engine asked again after a move must answer like a new one
+        for (GameEngine engine : SolverTest.positions(Topology.SQUARE, new int[] {5, 4, 120, 0})) {
+            ProbabilityEngine cached = new ProbabilityEngine(engine);
+            cached.compute(10, TimeUnit.SECONDS);
+            Solver.Result certain = new Solver(engine).solve(10, TimeUnit.SECONDS);
+            if (certain.safe().length == 0) continue;
+            long tile = certain.safe()[0];
+            engine.reveal((int) (tile % engine.getWidth()), (int) (tile / engine.getWidth()));
+            if (engine.isGameEnded()) continue;
+
+            ProbabilityEngine.Result again = cached.compute(10, TimeUnit.SECONDS);
+            ProbabilityEngine.Result fresh = new ProbabilityEngine(engine).compute(10, TimeUnit.SECONDS);
+            assertEquals(fresh.interior(), again.interior(), 1e-12);
+            for (long cell : fresh.cells()) assertEquals(fresh.probability(cell), again.probability(cell), 1e-12);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a reset engine must be the engine a constructor with the same arguments builds, whatever the previous round left
+class ResetTest {
+    private static void assertSameEngine(GameEngine expected, GameEngine actual) {
+        assertArrayEquals(expected.states(), actual.states());
+        assertArrayEquals(expected.types(), actual.types());
+        assertEquals(expected.getMineCount(), actual.getMineCount());
+        for (int k = 0; k < expected.getMineCount(); ++k) assertEquals(expected.getMine(k), actual.getMine(k));
+        for (int y = 0; y < expected.getHeight(); ++y) {
+            for (int x = 0; x < expected.getWidth(); ++x) {
+                assertEquals(expected.getAdjacent(x, y), actual.getAdjacent(x, y));
+            }
+        }
+        assertEquals(expected.getTotalMines(), actual.getTotalMines());
+        assertEquals(expected.getHyperMines(), actual.getHyperMines());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getTimeRemaining(), actual.getTimeRemaining());
+        assertEquals(expected.getFlagsUsed(), actual.getFlagsUsed());
+        assertEquals(expected.getAttempts(), actual.getAttempts());
+        assertEquals(expected.getNeutralRemaining(), actual.getNeutralRemaining());
+        assertEquals(expected.isGameStarted(), actual.isGameStarted());
+        assertEquals(expected.isGameEnded(), actual.isGameEnded());
+        assertEquals(expected.getFirstX(), actual.getFirstX());
+        assertEquals(expected.getFirstY(), actual.getFirstY());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.isNoGuess(), actual.isNoGuess());
+    }
+
+    // a round that leaves flags, reveals, spent time and a loss behind
+    private static void playAndLose(GameEngine engine) {
+        engine.reveal(4, 4);
+        for (int i = 0; i < engine.states().length; ++i) {
+            int x = i % engine.getWidth(), y = i / engine.getWidth();
+            if (engine.states()[i] == Board.HIDDEN && engine.getType(x, y) != Board.NEUTRAL) {
+                engine.flag(x, y);
+                break;
+            }
+        }
+        engine.tick();
+        engine.stop();
+        assertTrue(engine.isGameEnded());
+    }
+
+    @Test
+    void startsTheSameRoundAsANewEngine() {
+        for (Topology topology : new Topology[] {Topology.SQUARE, Topology.TORUS, Topology.HEX, Topology.CUBE}) {
+            GameEngine engine = new GameEngine(new int[] {9, 10, 120, 0}, topology, 1L, false);
+            playAndLose(engine);
+
+            engine.reset(new int[] {9, 11, 150, 1}, 2L, false);
+            GameEngine fresh = new GameEngine(new int[] {9, 11, 150, 1}, topology, 2L, false);
+            assertSameEngine(fresh, engine);
+            assertFalse(engine.isGameEnded());
+            assertEquals(0, engine.getFlagsUsed());
+            assertEquals(150, engine.getTimeRemaining());
+
+            // and the first left-click places the mines the same way
+            engine.reveal(3, 5);
+            fresh.reveal(3, 5);
+            assertSameEngine(fresh, engine);
+        }
+    }
+
+    @Test
+    void keepsTheNoGuessFlag() {
+        GameEngine engine = new GameEngine(new int[] {16, 40, 300, 0}, Topology.SQUARE, 3L, false);
+        playAndLose(engine);
+
+        engine.reset(new int[] {16, 40, 300, 0}, 4L, true);
+        GameEngine fresh = new GameEngine(new int[] {16, 40, 300, 0}, Topology.SQUARE, 4L, true);
+        assertTrue(engine.isNoGuess());
+        engine.reveal(8, 8);
+        fresh.reveal(8, 8);
+        assertSameEngine(fresh, engine);
+
+        engine.reset(new int[] {16, 40, 300, 0}, 4L, false);
+        assertFalse(engine.isNoGuess());
+    }
+
+    @Test
+    void tellsItsListenersAndKeepsTheSize() {
+        GameEngine engine = new GameEngine(new int[] {9, 10, 120, 0}, Topology.SQUARE, 5L, false);
+        int[] resets = new int[1];
+        engine.addListener(new GameListener() {
+            @Override
+            public void boardReset(Board board) { ++resets[0]; }
+        });
+        engine.reset(new int[] {9, 10, 120, 0}, 6L, false);
+        assertEquals(1, resets[0]);
+        assertThrows(IllegalArgumentException.class, () -> engine.reset(new int[] {16, 40, 300, 0}, 7L, false));
+    }
+}
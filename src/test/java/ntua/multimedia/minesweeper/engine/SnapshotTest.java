@@ -0,0 +1,134 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a resumed game must be the game that was saved, tile by tile and counter by counter
+class SnapshotTest {
+    @TempDir
+    Path folder;
+
+    private static void assertSameGame(GameEngine expected, GameEngine actual) {
+        assertEquals(expected.getTopology(), actual.getTopology());
+        assertArrayEquals(expected.states(), actual.states());
+        assertArrayEquals(expected.types(), actual.types());
+        for (int y = 0; y < expected.getHeight(); ++y) {
+            for (int x = 0; x < expected.getWidth(); ++x) {
+                assertEquals(expected.getAdjacent(x, y), actual.getAdjacent(x, y));
+            }
+        }
+        assertEquals(expected.getFlagsUsed(), actual.getFlagsUsed());
+        assertEquals(expected.getAttempts(), actual.getAttempts());
+        assertEquals(expected.getTimeRemaining(), actual.getTimeRemaining());
+        assertEquals(expected.getNeutralRemaining(), actual.getNeutralRemaining());
+        assertEquals(expected.isGameStarted(), actual.isGameStarted());
+        assertEquals(expected.isGameEnded(), actual.isGameEnded());
+        assertEquals(expected.getFirstX(), actual.getFirstX());
+        assertEquals(expected.getFirstY(), actual.getFirstY());
+    }
+
+    // a few safe reveals and a flag on a mine, so that the game goes on
+    private static void play(GameEngine engine) {
+        engine.reveal(engine.getWidth() / 2, engine.getHeight() / 2);
+        int revealed = 0;
+        for (int i = 0; i < engine.states().length && revealed < 3; ++i) {
+            int x = i % engine.getWidth(), y = i / engine.getWidth();
+            if (engine.states()[i] != Board.HIDDEN) continue;
+            if (engine.getType(x, y) == Board.NEUTRAL) {
+                engine.reveal(x, y);
+                ++revealed;
+            }
+        }
+        for (int i = 0; i < engine.states().length; ++i) {
+            int x = i % engine.getWidth(), y = i / engine.getWidth();
+            if (engine.states()[i] == Board.HIDDEN && engine.getType(x, y) != Board.NEUTRAL) {
+                engine.flag(x, y);
+                break;
+            }
+        }
+        engine.tick();
+        engine.tick();
+    }
+
+    @Test
+    void resumesTheGameThatWasSaved() throws IOException {
+        for (Topology topology : Topology.values()) {
+            GameEngine engine = new GameEngine(new int[] {9, 10, 120, 1}, topology, 5L, false);
+            play(engine);
+            String path = folder.resolve("saves/" + topology + ".bin").toString();
+            Snapshot.of(engine, "SCENARIO-1").write(path);
+
+            Snapshot snapshot = Snapshot.read(path);
+            assertEquals("SCENARIO-1", snapshot.getName());
+            assertEquals(topology, snapshot.getTopology());
+            assertArrayEquals(new int[] {9, 10, 120, 1}, snapshot.getGameParams());
+            assertFalse(snapshot.isGameEnded());
+            assertSameGame(engine, snapshot.restore());
+        }
+    }
+
+    @Test
+    void keepsTheSeedOfAGameThatHasNotStarted() throws IOException {
+        String path = folder.resolve("save.bin").toString();
+        GameEngine engine = new GameEngine(new int[] {16, 40, 300, 1}, Topology.SQUARE, 99L, false);
+        Snapshot.of(engine, "").write(path);
+
+        // the first left-click may move the mines, and must move them the same way in the resumed game
+        GameEngine resumed = Snapshot.read(path).restore();
+        engine.reveal(4, 4);
+        resumed.reveal(4, 4);
+        assertSameGame(engine, resumed);
+    }
+
+    @Test
+    void replacesThePreviousSave() throws IOException {
+        String path = folder.resolve("save.bin").toString();
+        GameEngine first = new GameEngine(new int[] {9, 10, 120, 0}, Topology.TORUS, 1L, false);
+        GameEngine second = new GameEngine(new int[] {16, 40, 300, 1}, Topology.HEX, 2L, false);
+        play(second);
+        Snapshot.of(first, "first").write(path);
+        Snapshot.of(second, "second").write(path);
+
+        Snapshot snapshot = Snapshot.read(path);
+        assertEquals("second", snapshot.getName());
+        assertSameGame(second, snapshot.restore());
+        assertFalse(Files.exists(Path.of(path + ".tmp")));
+    }
+
+    @Test
+    void rejectsCorruptFiles() throws IOException {
+        Path file = folder.resolve("save.bin");
+        GameEngine engine = new GameEngine(new int[] {9, 10, 120, 0}, Topology.SQUARE, 3L, false);
+        play(engine);
+        Snapshot.of(engine, "").write(file.toString());
+        byte[] bytes = Files.readAllBytes(file);
+
+        // cut short
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> Snapshot.read(file.toString()));
+
+        // a tile that is no longer a mine, so the board has fewer mines than its description
+        byte[] changed = bytes.clone();
+        int k = changed.length - 1;
+        while ((changed[k] & 3) != Board.MINE && (changed[k] >> 4 & 3) != Board.MINE) --k;
+        changed[k] = ((changed[k] & 3) == Board.MINE) ? (byte) (changed[k] & ~3 | Board.NEUTRAL)
+                                                     : (byte) (changed[k] & ~0x30 | Board.NEUTRAL << 4);
+        Files.write(file, changed);
+        assertThrows(IOException.class, () -> Snapshot.read(file.toString()));
+
+        Files.writeString(file, "not a snapshot");
+        assertThrows(IOException.class, () -> Snapshot.read(file.toString()));
+        assertTrue(Files.exists(file));
+    }
+}
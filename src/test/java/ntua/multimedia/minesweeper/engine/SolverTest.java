@@ -0,0 +1,63 @@
+package ntua.multimedia.minesweeper.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the solver must find exactly the tiles that every arrangement of mines agrees on, no more and no fewer
+class SolverTest {
+    // positions of small games: after the first left-click and after a few safe tiles more
+    static List<GameEngine> positions(Topology topology, int[] gameParams) {
+        List<GameEngine> positions = new ArrayList<>();
+        for (long seed = 1; seed <= 40; ++seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int clicks = 1; clicks <= 3; ++clicks) {
+                GameEngine engine = new GameEngine(gameParams, topology, seed, false);
+                engine.reveal(engine.getWidth() / 2, engine.getHeight() / 2);
+                for (int k = 1; k < clicks && !engine.isGameEnded(); ++k) {
+                    int i;
+                    do i = random.nextInt(engine.states().length);
+                    while (engine.states()[i] == Board.REVEALED
+                           || engine.getType(i % engine.getWidth(), i / engine.getWidth()) != Board.NEUTRAL);
+                    engine.reveal(i % engine.getWidth(), i / engine.getWidth());
+                }
+                if (!engine.isGameEnded()) positions.add(engine);
+            }
+        }
+        return positions;
+    }
+
+    @Test
+    void findsTheTilesThatBruteForceProves() {
+        int checked = 0;
+        for (Topology topology : new Topology[] {Topology.SQUARE, Topology.TORUS}) {
+            for (GameEngine engine : positions(topology, new int[] {5, 4, 120, 0})) {
+                Solver.Result result = new Solver(engine).solve(10, TimeUnit.SECONDS);
+                assertTrue(result.complete());
+
+                BruteForce oracle = new BruteForce(engine);
+                List<Long> safe = new ArrayList<>(), mines = new ArrayList<>();
+                for (int k = 0; k < oracle.frontier().length; ++k) {
+                    int certain = oracle.certain(k);
+                    if (certain == 0) safe.add((long) oracle.frontier()[k]);
+                    if (certain == 1) mines.add((long) oracle.frontier()[k]);
+                }
+                assertEquals(safe, sorted(result.safe()), () -> "safe tiles of " + Arrays.toString(engine.states()));
+                assertEquals(mines, sorted(result.mines()), () -> "mines of " + Arrays.toString(engine.states()));
+                ++checked;
+            }
+        }
+        assertTrue(checked > 100);
+    }
+
+    private static List<Long> sorted(long[] tiles) {
+        return Arrays.stream(tiles).sorted().boxed().toList();
+    }
+}
@@ -0,0 +1,146 @@
+package ntua.multimedia.minesweeper.server;
+
+import ntua.multimedia.minesweeper.engine.Board;
+import ntua.multimedia.minesweeper.engine.DiffRecorder;
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.Topology;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// every frame must be read back as it was written, one after the other on the same stream, and broken frames refused
+class ProtocolTest {
+    private interface Frames {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static DataInputStream stream(Frames frames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        frames.write(out);
+        out.flush();
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    void readsBackEveryRequest() throws IOException {
+        DataInputStream in = stream(out -> {
+            for (Topology topology : Topology.values()) {
+                Protocol.writeNewGame(out, topology.ordinal() + 1, new int[] {16, 40, 300, 1}, -5L, topology, true);
+            }
+            Protocol.writeMove(out, 10, 3, 7, Protocol.REVEAL);
+            Protocol.writeMove(out, 11, 15, 0, Protocol.FLAG);
+            Protocol.writeStop(out, 12);
+        });
+
+        for (Topology topology : Topology.values()) {
+            Protocol.NewGame newGame = assertInstanceOf(Protocol.NewGame.class, Protocol.readRequest(in));
+            assertEquals(topology.ordinal() + 1, newGame.id());
+            assertArrayEquals(new int[] {16, 40, 300, 1}, newGame.gameParams());
+            assertEquals(-5L, newGame.seed());
+            assertEquals(topology, newGame.topology());
+            assertTrue(newGame.noGuess());
+        }
+        assertEquals(new Protocol.Move(10, 3, 7, Protocol.REVEAL), Protocol.readRequest(in));
+        assertEquals(new Protocol.Move(11, 15, 0, Protocol.FLAG), Protocol.readRequest(in));
+        assertEquals(new Protocol.Stop(12), Protocol.readRequest(in));
+        assertNull(Protocol.readRequest(in)); // the client hung up
+    }
+
+    @Test
+    void readsBackEveryAnswer() throws IOException {
+        GameEngine engine = new GameEngine(new int[] {16, 40, 300, 1}, Topology.SQUARE, 9L, false);
+        DiffRecorder recorder = new DiffRecorder(engine);
+        engine.addListener(recorder);
+        recorder.take();
+
+        DataInputStream in = stream(out -> {
+            engine.reveal(8, 8);
+            Protocol.writeDiff(out, 1, engine, recorder.take());
+            engine.tick();
+            Protocol.writeDiff(out, 0, engine, recorder.take());
+            Protocol.writeError(out, 2, "No tile (16,0)");
+            engine.stop();
+            Protocol.writeDiff(out, 3, engine, recorder.take());
+        });
+
+        Protocol.Diff reveal = Protocol.readDiff(in);
+        assertEquals(1, reveal.id());
+        assertEquals(16, reveal.width());
+        assertEquals(16, reveal.height());
+        assertEquals(40, reveal.totalMines());
+        assertEquals(1, reveal.attempts());
+        assertEquals(Protocol.PLAYING, reveal.status());
+        assertTrue(reveal.tiles().length > 0);
+        for (int k = 0; k < reveal.tiles().length; ++k) {
+            int x = reveal.tiles()[k] % 16, y = reveal.tiles()[k] / 16;
+            short look = reveal.looks()[k];
+            assertEquals(Board.REVEALED, Protocol.state(look));
+            assertEquals(Board.NEUTRAL, Protocol.type(look));
+            assertEquals(engine.getAdjacent(x, y), Protocol.value(look));
+        }
+
+        Protocol.Diff tick = Protocol.readDiff(in);
+        assertEquals(0, tick.id());
+        assertEquals(299, tick.timeRemaining());
+        assertEquals(0, tick.tiles().length);
+
+        ProtocolException error = assertThrows(ProtocolException.class, () -> Protocol.readDiff(in));
+        assertTrue(error.getMessage().contains("No tile (16,0)"));
+
+        Protocol.Diff stop = Protocol.readDiff(in);
+        assertEquals(3, stop.id());
+        assertEquals(Protocol.LOST, stop.status());
+        long mines = Arrays.stream(stop.tiles()).filter(tile -> engine.getType(tile % 16, tile / 16) != Board.NEUTRAL)
+                           .count();
+        assertEquals(40, mines);
+    }
+
+    @Test
+    void refusesBrokenFrames() throws IOException {
+        // too long, shorter than its kind, of an unknown kind and of an unknown shape
+        DataInputStream tooLong = stream(out -> out.writeInt(Protocol.maxRequest + 1));
+        assertThrows(ProtocolException.class, () -> Protocol.readRequest(tooLong));
+        DataInputStream shortMove = stream(out -> {
+            out.writeInt(1 + 4);
+            out.writeByte(Protocol.MOVE);
+            out.writeInt(1);
+        });
+        assertThrows(ProtocolException.class, () -> Protocol.readRequest(shortMove));
+        DataInputStream unknown = stream(out -> {
+            out.writeInt(1 + 4);
+            out.writeByte(99);
+            out.writeInt(1);
+        });
+        assertThrows(ProtocolException.class, () -> Protocol.readRequest(unknown));
+        DataInputStream badTopology = stream(out -> {
+            Protocol.writeNewGame(out, 1, new int[] {9, 10, 120, 0}, 0L, Topology.SQUARE, false);
+        });
+        byte[] bytes = badTopology.readAllBytes();
+        bytes[bytes.length - 2] = (byte) Topology.values().length;
+        assertThrows(ProtocolException.class,
+                     () -> Protocol.readRequest(new DataInputStream(new ByteArrayInputStream(bytes))));
+
+        // an answer cut in the middle
+        GameEngine engine = new GameEngine(new int[] {9, 10, 120, 0}, Topology.SQUARE, 1L, false);
+        DiffRecorder recorder = new DiffRecorder(engine);
+        engine.addListener(recorder);
+        engine.reveal(4, 4);
+        byte[] diff = stream(out -> Protocol.writeDiff(out, 1, engine, recorder.take())).readAllBytes();
+        DataInputStream cut = new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(diff, diff.length - 3)));
+        assertThrows(IOException.class, () -> Protocol.readDiff(cut));
+    }
+}
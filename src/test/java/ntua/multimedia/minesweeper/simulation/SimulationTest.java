@@ -0,0 +1,60 @@
+package ntua.multimedia.minesweeper.simulation;
+
+import ntua.multimedia.minesweeper.engine.Layouts;
+import ntua.multimedia.minesweeper.engine.Topology;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the 3BV of a board must be the clicks that clear it, and a seed must give the same results on any number of threads
+class SimulationTest {
+    @Test
+    void countsTheClicksThatClearABoard() {
+        // no mines: a single opening
+        assertEquals(1, Simulation.bbv(Layouts.of(new int[] {3, 0, 60, 0}, Topology.SQUARE)));
+        // a mine in the middle: eight numbers and no opening
+        assertEquals(8, Simulation.bbv(Layouts.of(new int[] {3, 1, 60, 0}, Topology.SQUARE, 4)));
+        // a wall of mines down the middle but for the last row: an opening on each side, and the tile below the wall,
+        // which neither opening reveals
+        //   . . M . .
+        //   . . M . .
+        //   . . M . .
+        //   . . M . .
+        //   . . . . .
+        assertEquals(3, Simulation.bbv(Layouts.of(new int[] {5, 4, 60, 0}, Topology.SQUARE, 2, 7, 12, 17)));
+        // on a torus the two sides are one opening
+        assertEquals(2, Simulation.bbv(Layouts.of(new int[] {5, 4, 60, 0}, Topology.TORUS, 2, 7, 12, 17)));
+    }
+
+    @Test
+    void givesTheSameResultsOnAnyPool() {
+        int[] gameParams = {9, 10, 120, 0};
+        for (Bots bot : Bots.values()) {
+            SimulationResult expected = null;
+            for (int threads : new int[] {1, 2, 7}) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    SimulationResult result = Simulation.run(gameParams, Topology.SQUARE, bot, 1000, 42L, pool);
+                    if (expected == null) expected = result;
+                    assertEquals(1000, result.getGames());
+                    assertEquals(expected.getWins(), result.getWins(), () -> bot + " on " + threads + " threads");
+                    assertArrayEquals(expected.getClicks(), result.getClicks());
+                    assertArrayEquals(expected.getBbv(), result.getBbv());
+                    assertArrayEquals(expected.getWonBbv(), result.getWonBbv());
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            assertTrue(expected.getWins() > 0 || bot == Bots.RANDOM);
+        }
+        // and another seed gives other games
+        SimulationResult other = Simulation.run(gameParams, Topology.SQUARE, Bots.SOLVER, 1000, 43L);
+        SimulationResult same = Simulation.run(gameParams, Topology.SQUARE, Bots.SOLVER, 1000, 42L);
+        assertTrue(other.getWins() != same.getWins() || !Arrays.equals(other.getBbv(), same.getBbv()));
+    }
+}
@@ -0,0 +1,93 @@
+package ntua.multimedia.minesweeper.utilities;
+
+import ntua.multimedia.minesweeper.engine.GameEngine;
+import ntua.multimedia.minesweeper.engine.Topology;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// both mines files must hold exactly the mines of the engine, and only the format that was asked for is left on disk
+class GameFilesTest {
+    @TempDir
+    Path folder;
+
+    private static GameEngine engine(int[] gameParams, long seed) {
+        GameEngine engine = new GameEngine(gameParams, Topology.SQUARE, seed, false);
+        engine.reveal(gameParams[0] / 2, gameParams[0] / 2);
+        return engine;
+    }
+
+    private static int[] mines(GameEngine engine) {
+        int[] mines = new int[engine.getMineCount()];
+        for (int k = 0; k < mines.length; ++k) mines[k] = engine.getMine(k);
+        return mines;
+    }
+
+    @Test
+    void readsBackTheCompactFile() throws IOException {
+        // a sparse board with long runs of safe tiles, a dense one and one without hypermines
+        int[][] boards = {{1000, 50, 100, 1}, {16, 45, 300, 1}, {9, 10, 120, 0}};
+        for (int[] gameParams : boards) {
+            GameEngine engine = engine(gameParams, 21L);
+            String path = folder.resolve("mines.bin").toString();
+            GameFiles.writeMinesCompact(engine, path);
+
+            int[] expected = mines(engine), read = GameFiles.readMinesCompact(path);
+            int hyperMines = engine.getHyperMines();
+            assertEquals(expected.length, read.length);
+            assertArrayEquals(Arrays.copyOf(expected, hyperMines), Arrays.copyOf(read, hyperMines));
+            int[] rest = Arrays.copyOfRange(expected, hyperMines, expected.length);
+            Arrays.sort(rest);
+            assertArrayEquals(rest, Arrays.copyOfRange(read, hyperMines, read.length));
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = folder.resolve("mines.bin");
+        Files.writeString(file, "0, 1, 0\n");
+        assertThrows(IOException.class, () -> GameFiles.readMinesCompact(file.toString()));
+    }
+
+    @Test
+    void writesOneMineALineInTheTextFile() throws IOException {
+        GameEngine engine = engine(new int[] {9, 10, 120, 1}, 22L);
+        Path file = folder.resolve("mines.txt");
+        GameFiles.writeMines(engine, file.toString());
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(engine.getMineCount(), lines.size());
+        for (int k = 0; k < lines.size(); ++k) {
+            int mine = engine.getMine(k);
+            String line = mine / 9 + ", " + mine % 9 + ", " + (k < engine.getHyperMines() ? 1 : 0);
+            assertEquals(line, lines.get(k));
+        }
+    }
+
+    @Test
+    void leavesOnlyTheChosenFormat() throws IOException {
+        GameEngine engine = engine(new int[] {16, 40, 300, 1}, 23L);
+        Path text = folder.resolve("mines.txt"), compact = folder.resolve("mines.bin");
+
+        GameFiles.exportMines(engine, text.toString(), compact.toString(), true).join();
+        assertTrue(Files.exists(compact));
+        assertFalse(Files.exists(text));
+        assertEquals(engine.getMineCount(), GameFiles.readMinesCompact(compact.toString()).length);
+
+        GameFiles.exportMines(engine, text.toString(), compact.toString(), false).join();
+        assertTrue(Files.exists(text));
+        assertFalse(Files.exists(compact));
+        assertEquals(engine.getMineCount(), Files.readAllLines(text).size());
+    }
+}
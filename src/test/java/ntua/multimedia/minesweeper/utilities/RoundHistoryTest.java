@@ -0,0 +1,146 @@
+package ntua.multimedia.minesweeper.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the statistics and the pages of a history must be the ones of the rounds of its log, counted again from scratch
+class RoundHistoryTest {
+    private static final long day = 24 * 60 * 60 * 1000L;
+    private static final long firstDay = LocalDate.of(2024, 3, 1).toEpochDay() * day;
+    private static final String[] scenarios = {"", "SCENARIO-1", "SCENARIO-2", "SCENARIO-3"};
+
+    @TempDir
+    Path folder;
+
+    // rounds of a few scenarios over a few days. Scenarios come in short streaks, so a page of one of them is a few
+    // runs of consecutive rounds, and a page of a scenario and a day has gaps
+    private static List<RoundLog.Round> rounds(int count, int firstRound, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<RoundLog.Round> rounds = new ArrayList<>();
+        String scenario = scenarios[0];
+        for (int k = firstRound; k < firstRound + count; ++k) {
+            if (random.nextInt(5) == 0) scenario = scenarios[random.nextInt(scenarios.length)];
+            long timestamp = firstDay + k * (day / 40) + random.nextInt(1000);
+            int mines = 10 + 5 * random.nextInt(4);
+            rounds.add(new RoundLog.Round(timestamp, scenario, mines, 1 + random.nextInt(60), 1 + random.nextInt(500),
+                                          random.nextInt(3) != 0));
+        }
+        return rounds;
+    }
+
+    private static LocalDate dayOf(RoundLog.Round round) {
+        return LocalDate.ofEpochDay(Math.floorDiv(round.timestamp(), day));
+    }
+
+    private static void checkStats(List<RoundLog.Round> rounds, RoundHistory.Stats stats) {
+        int[] times = rounds.stream().filter(RoundLog.Round::won).mapToInt(RoundLog.Round::time).sorted().toArray();
+        assertEquals(rounds.size(), stats.getGames());
+        assertEquals(times.length, stats.getWins());
+        assertEquals((double) times.length / rounds.size(), stats.getWinRate(), 1e-12);
+        assertEquals(Arrays.stream(times).average().orElse(0), stats.getMeanTime(), 1e-9);
+        for (double q : new double[] {0, 0.1, 0.25, 0.5, 0.9, 0.99, 1}) {
+            int expected = times[Math.max(0, (int) Math.ceil(q * times.length) - 1)];
+            assertEquals(expected, stats.getTimePercentile(q), "percentile " + q);
+        }
+
+        SortedMap<Integer, Double> attempts = new TreeMap<>();
+        Map<Integer, List<RoundLog.Round>> byMines = new TreeMap<>();
+        for (RoundLog.Round round : rounds) byMines.computeIfAbsent(round.mines(), m -> new ArrayList<>()).add(round);
+        byMines.forEach((mines, list) -> attempts.put(mines, list.stream().mapToInt(RoundLog.Round::attempts)
+                                                                     .average().orElseThrow()));
+        assertEquals(attempts.keySet(), stats.getMeanAttempts().keySet());
+        attempts.forEach((mines, mean) -> assertEquals(mean, stats.getMeanAttempts().get(mines), 1e-9));
+    }
+
+    // the selection, newest first, in pages of a few rounds at a time and in one page
+    private static void checkPages(RoundHistory history, List<RoundLog.Round> rounds, String scenario, LocalDate date)
+            throws IOException {
+        Predicate<RoundLog.Round> selected = round -> (scenario == null || scenario.equals(round.scenario()))
+                                                      && (date == null || date.equals(dayOf(round)));
+        List<RoundLog.Round> expected = new ArrayList<>(rounds.stream().filter(selected).toList()).reversed();
+        assertEquals(expected.size(), history.count(scenario, date));
+        assertEquals(expected, history.page(scenario, date, 0, expected.size() + 10));
+
+        List<RoundLog.Round> paged = new ArrayList<>();
+        for (int from = 0; from < expected.size(); from += 7) paged.addAll(history.page(scenario, date, from, 7));
+        assertEquals(expected, paged);
+        assertEquals(List.of(), history.page(scenario, date, expected.size(), 7));
+    }
+
+    @Test
+    void countsLikeTheRoundsOfTheLog() throws IOException {
+        String path = folder.resolve("rounds.bin").toString();
+        List<RoundLog.Round> rounds = rounds(2000, 0, 1L);
+        RoundLog.write(path, rounds);
+
+        RoundHistory history = new RoundHistory(path, ZoneOffset.UTC);
+        assertEquals(rounds.size(), history.refresh());
+        checkStats(rounds, history.stats(null));
+        for (String scenario : scenarios) {
+            checkStats(rounds.stream().filter(round -> round.scenario().equals(scenario)).toList(),
+                       history.stats(scenario));
+        }
+        assertEquals(List.of(scenarios), history.scenarios());
+        assertEquals(0, history.stats("no such scenario").getGames());
+    }
+
+    @Test
+    void pagesTheNewestRoundsFirst() throws IOException {
+        String path = folder.resolve("rounds.bin").toString();
+        List<RoundLog.Round> rounds = rounds(1500, 0, 2L);
+        RoundLog.write(path, rounds);
+        RoundHistory history = new RoundHistory(path, ZoneOffset.UTC);
+        history.refresh();
+
+        LocalDate first = dayOf(rounds.get(0)), last = dayOf(rounds.get(rounds.size() - 1));
+        checkPages(history, rounds, null, null);
+        for (String scenario : scenarios) {
+            checkPages(history, rounds, scenario, null);
+            // the intersection of the indexes of a scenario and of a day, and a day without rounds
+            for (LocalDate date = first; !date.isAfter(last.plusDays(1)); date = date.plusDays(1)) {
+                checkPages(history, rounds, scenario, date);
+                checkPages(history, rounds, null, date);
+            }
+        }
+    }
+
+    @Test
+    void addsOnlyTheNewRounds() throws IOException {
+        String path = folder.resolve("rounds.bin").toString();
+        List<RoundLog.Round> rounds = new ArrayList<>(rounds(300, 0, 3L));
+        RoundLog.write(path, rounds);
+        RoundHistory history = new RoundHistory(path, ZoneOffset.UTC);
+        history.refresh();
+        LocalDate date = dayOf(rounds.get(rounds.size() - 1));
+        checkPages(history, rounds, "SCENARIO-1", date); // and remembers this intersection
+
+        // more rounds of the same day, which the remembered intersection must not miss
+        List<RoundLog.Round> more = rounds(20, 300, 4L).stream()
+                .map(round -> new RoundLog.Round(rounds.get(rounds.size() - 1).timestamp() + 1, "SCENARIO-1",
+                                                 round.mines(), round.attempts(), round.time(), round.won()))
+                .toList();
+        RoundLog.write(path, more);
+        rounds.addAll(more);
+        assertEquals(20, history.refresh());
+        assertEquals(0, history.refresh());
+        checkStats(rounds, history.stats(null));
+        checkPages(history, rounds, "SCENARIO-1", date);
+        assertTrue(history.count("SCENARIO-1", date) >= 20);
+    }
+}
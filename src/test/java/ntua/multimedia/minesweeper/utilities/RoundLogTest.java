@@ -0,0 +1,133 @@
+package ntua.multimedia.minesweeper.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// records must come back as they were written, whatever a crash or another reader did to the file
+class RoundLogTest {
+    @TempDir
+    Path folder;
+
+    private static RoundLog.Round round(int k) {
+        return new RoundLog.Round(1_700_000_000_000L + k, "scenario-" + k, 10 + k, k, 60 + k, k % 2 == 0);
+    }
+
+    @Test
+    void readsBackWhatItWrites() throws IOException {
+        String path = folder.resolve("rounds/rounds.bin").toString();
+        List<RoundLog.Round> rounds = List.of(round(0), round(1), round(2));
+        RoundLog.write(path, rounds);
+
+        assertEquals(RoundLog.headerSize + 3 * RoundLog.recordSize, Files.size(Path.of(path)));
+        assertEquals(3, RoundLog.count(path));
+        assertEquals(rounds, RoundLog.read(path, 0, 10));
+        assertEquals(List.of(round(2), round(1)), RoundLog.tail(path, 2));
+        assertEquals(List.of(round(1)), RoundLog.read(path, 1, 1));
+    }
+
+    @Test
+    void dropsARecordCutShort() throws IOException {
+        String path = folder.resolve("rounds.bin").toString();
+        RoundLog.write(path, List.of(round(0), round(1)));
+        // a crash in the middle of the third record
+        Files.write(Path.of(path), new byte[RoundLog.recordSize / 2], StandardOpenOption.APPEND);
+
+        assertEquals(2, RoundLog.count(path));
+        assertEquals(List.of(round(0), round(1)), RoundLog.read(path, 0, 10));
+
+        RoundLog.write(path, List.of(round(2)));
+        assertEquals(RoundLog.headerSize + 3 * RoundLog.recordSize, Files.size(Path.of(path)));
+        assertEquals(List.of(round(0), round(1), round(2)), RoundLog.read(path, 0, 10));
+    }
+
+    @Test
+    void cutsLongNamesBetweenCharacters() throws IOException {
+        String path = folder.resolve("rounds.bin").toString();
+        String name = "α".repeat(RoundLog.nameSize); // two bytes a character
+        RoundLog.write(path, List.of(new RoundLog.Round(0, name, 1, 2, 3, true)));
+
+        String read = RoundLog.read(path, 0, 1).get(0).scenario();
+        assertEquals("α".repeat(RoundLog.nameSize / 2), read);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = folder.resolve("rounds.bin");
+        Files.writeString(file, "these are not rounds at all");
+        assertThrows(IOException.class, () -> RoundLog.read(file.toString(), 0, 1));
+        assertThrows(IOException.class, () -> RoundLog.write(file.toString(), List.of(round(0))));
+    }
+
+    @Test
+    void importsTheRoundsOfOlderVersions() throws IOException {
+        Files.writeString(folder.resolve("rounds.txt"), "40 76 226 player\n10 15 27 computer\n\n",
+                          StandardCharsets.UTF_8);
+        String path = folder.resolve("rounds.bin").toString();
+        RoundLog.write(path, List.of(round(0)));
+
+        List<RoundLog.Round> rounds = RoundLog.read(path, 0, 10);
+        assertEquals(3, rounds.size());
+        assertEquals(10, rounds.get(0).mines());
+        assertEquals(15, rounds.get(0).attempts());
+        assertEquals(27, rounds.get(0).time());
+        assertTrue(!rounds.get(0).won() && rounds.get(1).won());
+        assertEquals(round(0), rounds.get(2));
+
+        // only when the log is created
+        RoundLog.write(path, List.of(round(1)));
+        assertEquals(4, RoundLog.count(path));
+    }
+
+    @Test
+    void readsWhileTheSameProcessWrites() throws Exception {
+        String path = folder.resolve("rounds.bin").toString();
+        RoundLog.write(path, List.of(round(0)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int k = 1; k < 200; ++k) RoundLog.write(path, List.of(round(k)));
+                return null;
+            });
+            Future<?> reader = executor.submit(() -> {
+                for (int k = 0; k < 200; ++k) assertEquals(round(0), RoundLog.read(path, 0, 1).get(0));
+                return null;
+            });
+            writer.get();
+            reader.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200, RoundLog.count(path));
+    }
+
+    @Test
+    void writesAppendedRoundsInTheBackground() throws IOException {
+        String path = folder.resolve("rounds.bin").toString();
+        List<RoundLog.Round> rounds = new ArrayList<>();
+        try (RoundLog log = new RoundLog(path)) {
+            for (int k = 0; k < 100; ++k) {
+                rounds.add(round(k));
+                log.append(round(k));
+            }
+            assertTrue(log.flush(10_000));
+            assertEquals(rounds.subList(95, 100).reversed(), log.tail(5));
+        }
+        assertEquals(rounds, RoundLog.read(path, 0, 1000));
+    }
+}